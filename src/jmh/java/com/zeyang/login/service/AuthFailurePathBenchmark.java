@@ -0,0 +1,80 @@
+package com.zeyang.login.service;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.ResponseEntity;
+
+import com.zeyang.login.exception.AuthException;
+import com.zeyang.login.exception.GlobalExceptionHandler;
+
+/**
+ * 登录失败路径的开销：抛出带堆栈的 RuntimeException、抛出无堆栈的 AuthException、返回 AuthResult
+ * <p>
+ * depth 模拟异常从服务层穿过若干层调用（代理、过滤器链）才被处理，堆栈越深捕获越贵。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthFailurePathBenchmark {
+
+    private static final AuthResult BAD_CREDENTIALS = AuthResult.failure(AuthException.BAD_CREDENTIALS);
+
+    @Param({"10", "80"})
+    public int depth;
+
+    @Benchmark
+    public ResponseEntity<Map<String, String>> stackTraceException() {
+        try {
+            return descend(depth, 0);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Collections.singletonMap("message", e.getMessage()));
+        }
+    }
+
+    @Benchmark
+    public ResponseEntity<Map<String, String>> stacklessException() {
+        try {
+            return descend(depth, 1);
+        } catch (AuthException e) {
+            return GlobalExceptionHandler.toResponse(e);
+        }
+    }
+
+    @Benchmark
+    public ResponseEntity<Map<String, String>> result() {
+        AuthResult result = descendResult(depth);
+        return result.isSuccess() ? ResponseEntity.ok().build() : GlobalExceptionHandler.toResponse(result.getError());
+    }
+
+    private static ResponseEntity<Map<String, String>> descend(int remaining, int kind) {
+        if (remaining > 0) {
+            return descend(remaining - 1, kind);
+        }
+        if (kind == 0) {
+            throw new RuntimeException("用户名或密码错误");
+        }
+        throw AuthException.BAD_CREDENTIALS;
+    }
+
+    private static AuthResult descendResult(int remaining) {
+        if (remaining > 0) {
+            return descendResult(remaining - 1);
+        }
+        return BAD_CREDENTIALS;
+    }
+}
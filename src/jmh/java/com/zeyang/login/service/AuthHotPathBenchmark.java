@@ -0,0 +1,82 @@
+package com.zeyang.login.service;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zeyang.login.entity.User;
+import com.zeyang.login.entity.UserStatus;
+
+/**
+ * 登录路径上与哈希无关的小操作：生成盐、解析客户端 IP、User 的 JSON 序列化
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthHotPathBenchmark {
+
+    private ObjectMapper objectMapper;
+    private MockHttpServletRequest request;
+    private User user;
+    private String userJson;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        // 与 Spring Boot 默认配置一致的 ObjectMapper（含 JavaTimeModule）
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        // X-Forwarded-For 由 Tomcat 的 RemoteIpValve 在进入应用前处理，这里只有直连地址一种路径
+        request = new MockHttpServletRequest();
+        request.setRemoteAddr("10.0.0.8");
+
+        user = new User();
+        user.setId(1001L);
+        user.setUsername("benchmark_user");
+        user.setPasswordHash("{bcrypt}$2a$10$abcdefghijklmnopqrstuuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ01");
+        user.setSalt(UserService.generateSalt());
+        user.setEmail("benchmark@example.com");
+        user.setPhone("13800000000");
+        user.setStatus(UserStatus.ACTIVE);
+        user.setFailedAttempts(0);
+        user.setCreatedAt(LocalDateTime.now());
+        user.setUpdatedAt(LocalDateTime.now());
+        userJson = objectMapper.writeValueAsString(user);
+    }
+
+    @Benchmark
+    public String generateSalt() {
+        return UserService.generateSalt();
+    }
+
+    @Benchmark
+    public String getClientIp() {
+        return AuthService.getClientIp(request);
+    }
+
+    @Benchmark
+    public String serializeUser() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(user);
+    }
+
+    @Benchmark
+    public User deserializeUser() throws JsonProcessingException {
+        return objectMapper.readValue(userJson, User.class);
+    }
+}
@@ -0,0 +1,92 @@
+package com.zeyang.login.service;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.zeyang.login.entity.User;
+import com.zeyang.login.security.Argon2Hasher;
+import com.zeyang.login.security.BCryptHasher;
+import com.zeyang.login.security.PasswordHashingEngine;
+import com.zeyang.login.security.Pbkdf2Hasher;
+
+/**
+ * UserService.hashPassword / verifyPassword 的耗时，按算法、工作因子和密码长度参数化
+ * <p>
+ * 哈希不涉及数据库和 Redis，UserService 的仓库和缓存传 null。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class PasswordHashBenchmark {
+
+    @Param({"sha256:1", "bcrypt:10", "bcrypt:12", "pbkdf2:100000", "pbkdf2:310000", "argon2:2"})
+    public String algorithm;
+
+    @Param({"8", "16", "64"})
+    public int passwordLength;
+
+    private PasswordHashExecutor executor;
+    private PasswordHashingEngine engine;
+    private UserService userService;
+    private String password;
+    private User user;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String[] parts = algorithm.split(":");
+        int workFactor = Integer.parseInt(parts[1]);
+        engine = new PasswordHashingEngine(List.of(
+                new BCryptHasher(parts[0].equals("bcrypt") ? workFactor : 10),
+                new Pbkdf2Hasher(parts[0].equals("pbkdf2") ? workFactor : 310000),
+                new Argon2Hasher(parts[0].equals("argon2") ? workFactor : 2, 19456, 1)
+        ), parts[0]);
+        // 队列足够大，基准测试中不触发准入拒绝
+        executor = new PasswordHashExecutor(0, 4096, 60_000, 1, 64);
+        userService = new UserService(null, engine, null, executor, null);
+
+        password = "p".repeat(passwordLength);
+        user = new User();
+        user.setSalt(UserService.generateSalt());
+        user.setPasswordHash(engine.encode(password, user.getSalt()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public String hashPassword() {
+        return userService.hashPassword(password, user.getSalt());
+    }
+
+    @Benchmark
+    public boolean verifyPassword() {
+        return userService.verifyPassword(user, password);
+    }
+
+    /**
+     * 直接在调用线程计算，与 verifyPassword 的差值即为线程池交接开销
+     */
+    @Benchmark
+    public boolean verifyPasswordInline() {
+        return engine.matches(password, user.getSalt(), user.getPasswordHash());
+    }
+}
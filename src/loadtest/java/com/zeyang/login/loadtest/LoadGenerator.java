@@ -0,0 +1,360 @@
+package com.zeyang.login.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zeyang.login.security.AuthMode;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 登录接口压测负载生成器
+ * <p>
+ * 先以固定并发注册一批账户，再按“登录 → 按比例退出”的会话循环施压。
+ * 到达率为 0 时为闭环模式（每个并发槽位请求结束立即发下一个）；
+ * 否则为开环模式，按固定到达率调度，延迟从计划发送时间算起，避免协调遗漏（coordinated omission）；
+ * 并发槽位用满时本次到达计为客户端丢弃，不阻塞调度。
+ */
+public class LoadGenerator {
+
+    public enum Endpoint { REGISTER, LOGIN, LOGOUT }
+
+    /**
+     * 压测参数，均可通过 --loadtest.xxx=值 覆盖
+     */
+    public static final class Settings {
+        int users = 1000;
+        int concurrency = 64;
+        double rate = 0;
+        long durationSeconds = 60;
+        long warmupSeconds = 10;
+        double wrongPasswordRatio = 0.05;
+        double logoutRatio = 0.8;
+        AuthMode authMode = AuthMode.SESSION;
+
+        static Settings from(Map<String, String> properties) {
+            Settings settings = new Settings();
+            settings.users = Integer.parseInt(properties.getOrDefault("loadtest.users", String.valueOf(settings.users)));
+            settings.concurrency = Integer.parseInt(properties.getOrDefault("loadtest.concurrency", String.valueOf(settings.concurrency)));
+            settings.rate = Double.parseDouble(properties.getOrDefault("loadtest.rate", String.valueOf(settings.rate)));
+            settings.durationSeconds = Long.parseLong(properties.getOrDefault("loadtest.duration-seconds", String.valueOf(settings.durationSeconds)));
+            settings.warmupSeconds = Long.parseLong(properties.getOrDefault("loadtest.warmup-seconds", String.valueOf(settings.warmupSeconds)));
+            settings.wrongPasswordRatio = Double.parseDouble(properties.getOrDefault("loadtest.wrong-password-ratio", String.valueOf(settings.wrongPasswordRatio)));
+            settings.logoutRatio = Double.parseDouble(properties.getOrDefault("loadtest.logout-ratio", String.valueOf(settings.logoutRatio)));
+            settings.authMode = AuthMode.valueOf(properties.getOrDefault("login.auth.mode", settings.authMode.name()));
+            return settings;
+        }
+
+        Map<String, Object> describe() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("users", users);
+            map.put("concurrency", concurrency);
+            map.put("rate", rate == 0 ? "closed-loop" : rate);
+            map.put("durationSeconds", durationSeconds);
+            map.put("warmupSeconds", warmupSeconds);
+            map.put("wrongPasswordRatio", wrongPasswordRatio);
+            map.put("logoutRatio", logoutRatio);
+            map.put("authMode", authMode);
+            return map;
+        }
+    }
+
+    private final URI baseUri;
+    private final Settings settings;
+    private final PoolWaitTracker poolTracker;
+    private final ExecutorService clientExecutor;
+    private final HttpClient client;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+
+    private final Map<Endpoint, Recorder> latencies = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, LongAdder> successes = new EnumMap<>(Endpoint.class);
+    private final ConcurrentMap<String, LongAdder> errors = new ConcurrentHashMap<>();
+    private final LongAdder clientDropped = new LongAdder();
+    private final AtomicBoolean recording = new AtomicBoolean();
+
+    public LoadGenerator(URI baseUri, Settings settings, PoolWaitTracker poolTracker) {
+        this.baseUri = baseUri;
+        this.settings = settings;
+        this.poolTracker = poolTracker;
+        this.clientExecutor = Executors.newFixedThreadPool(Math.max(4, settings.concurrency / 4));
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(clientExecutor)
+                .build();
+        for (Endpoint endpoint : Endpoint.values()) {
+            latencies.put(endpoint, new Recorder(3));
+            successes.put(endpoint, new LongAdder());
+        }
+    }
+
+    public Map<String, Object> run() throws InterruptedException {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("settings", settings.describe());
+
+        ExecutorService workers = Executors.newFixedThreadPool(settings.concurrency);
+        try {
+            // 注册阶段：闭环，统计注册接口自身的延迟
+            recording.set(true);
+            long start = System.nanoTime();
+            registerAll(workers);
+            report.put("register", phaseReport(System.nanoTime() - start, List.of(Endpoint.REGISTER)));
+
+            // 预热阶段：结果丢弃，让 JIT、连接池和各级缓存进入稳态
+            recording.set(false);
+            drive(workers, TimeUnit.SECONDS.toNanos(settings.warmupSeconds));
+            resetRecorders();
+
+            recording.set(true);
+            start = System.nanoTime();
+            drive(workers, TimeUnit.SECONDS.toNanos(settings.durationSeconds));
+            report.put("steady", phaseReport(System.nanoTime() - start, List.of(Endpoint.LOGIN, Endpoint.LOGOUT)));
+        } finally {
+            workers.shutdownNow();
+            workers.awaitTermination(10, TimeUnit.SECONDS);
+            // HttpClient 的线程不是守护线程，不关闭的话进程在报告写完后不会退出
+            clientExecutor.shutdownNow();
+        }
+        return report;
+    }
+
+    private void registerAll(ExecutorService workers) throws InterruptedException {
+        Semaphore slots = new Semaphore(settings.concurrency);
+        for (int i = 0; i < settings.users; i++) {
+            int index = i;
+            slots.acquire();
+            workers.execute(() -> {
+                try {
+                    String body = "{\"username\":\"" + username(index) + "\",\"password\":\"" + password(index)
+                            + "\",\"email\":\"" + username(index) + "@loadtest.local\"}";
+                    send(Endpoint.REGISTER, post("/api/auth/register", body).build(), System.nanoTime());
+                } finally {
+                    slots.release();
+                }
+            });
+        }
+        slots.acquire(settings.concurrency);
+    }
+
+    private void drive(ExecutorService workers, long durationNanos) throws InterruptedException {
+        if (durationNanos <= 0) {
+            return;
+        }
+        Semaphore slots = new Semaphore(settings.concurrency);
+        long deadline = System.nanoTime() + durationNanos;
+        if (settings.rate <= 0) {
+            // 闭环：每个槽位循环执行会话
+            for (int i = 0; i < settings.concurrency; i++) {
+                slots.acquire();
+                workers.execute(() -> {
+                    try {
+                        while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted()) {
+                            session(System.nanoTime());
+                        }
+                    } finally {
+                        slots.release();
+                    }
+                });
+            }
+        } else {
+            // 开环：按计划时间调度，不因服务变慢而降低到达率
+            long interval = (long) (TimeUnit.SECONDS.toNanos(1) / settings.rate);
+            long next = System.nanoTime();
+            while (next < deadline) {
+                LockSupport.parkNanos(next - System.nanoTime());
+                long intended = next;
+                next += interval;
+                if (!slots.tryAcquire()) {
+                    if (recording.get()) {
+                        clientDropped.increment();
+                    }
+                    continue;
+                }
+                workers.execute(() -> {
+                    try {
+                        session(intended);
+                    } finally {
+                        slots.release();
+                    }
+                });
+            }
+        }
+        slots.acquire(settings.concurrency);
+    }
+
+    /**
+     * 一次用户会话：登录，成功后按比例退出
+     */
+    private void session(long intendedStart) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int index = random.nextInt(settings.users);
+        boolean wrongPassword = random.nextDouble() < settings.wrongPasswordRatio;
+        String body = "{\"username\":\"" + username(index) + "\",\"password\":\""
+                + (wrongPassword ? "wrong-" + random.nextInt() : password(index)) + "\"}";
+        HttpResponse<String> response = send(Endpoint.LOGIN, post("/api/auth/login", body).build(), intendedStart);
+        if (response == null || response.statusCode() != 200 || random.nextDouble() >= settings.logoutRatio) {
+            return;
+        }
+        String token;
+        try {
+            JsonNode node = objectMapper.readTree(response.body());
+            token = node.path("token").asText(null);
+        } catch (Exception e) {
+            recordError(Endpoint.LOGIN, "invalid-body");
+            return;
+        }
+        if (token == null) {
+            return;
+        }
+        HttpRequest.Builder logout = post("/api/auth/logout", "");
+        switch (settings.authMode) {
+            case TOKEN:
+                logout.header("Authorization", "Bearer " + token);
+                break;
+            case REDIS_SESSION:
+                logout.header("X-Session-Id", token);
+                break;
+            default:
+                logout.header("Cookie", "JSESSIONID=" + token);
+        }
+        send(Endpoint.LOGOUT, logout.build(), System.nanoTime());
+    }
+
+    private HttpRequest.Builder post(String path, String body) {
+        return HttpRequest.newBuilder(baseUri.resolve(path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+    }
+
+    private HttpResponse<String> send(Endpoint endpoint, HttpRequest request, long startNanos) {
+        HttpResponse<String> response;
+        try {
+            response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception e) {
+            record(endpoint, startNanos);
+            recordError(endpoint, e.getClass().getSimpleName());
+            return null;
+        }
+        record(endpoint, startNanos);
+        if (response.statusCode() == 200) {
+            if (recording.get()) {
+                successes.get(endpoint).increment();
+            }
+        } else {
+            recordError(endpoint, "HTTP " + response.statusCode());
+        }
+        return response;
+    }
+
+    private void record(Endpoint endpoint, long startNanos) {
+        if (recording.get()) {
+            latencies.get(endpoint).recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+        }
+    }
+
+    private void recordError(Endpoint endpoint, String kind) {
+        if (recording.get()) {
+            errors.computeIfAbsent(endpoint + " " + kind, k -> new LongAdder()).increment();
+        }
+    }
+
+    private void resetRecorders() {
+        latencies.values().forEach(Recorder::reset);
+        successes.values().forEach(LongAdder::reset);
+        errors.clear();
+        clientDropped.reset();
+        poolTracker.takeAcquireHistogram();
+        poolTracker.takeUsageHistogram();
+    }
+
+    private Map<String, Object> phaseReport(long elapsedNanos, List<Endpoint> endpoints) {
+        double seconds = elapsedNanos / 1e9;
+        Map<String, Object> phase = new LinkedHashMap<>();
+        phase.put("elapsedSeconds", round(seconds));
+        long total = 0;
+        Map<String, Object> byEndpoint = new LinkedHashMap<>();
+        for (Endpoint endpoint : endpoints) {
+            Histogram histogram = latencies.get(endpoint).getIntervalHistogram();
+            total += histogram.getTotalCount();
+            Map<String, Object> stats = summarize(histogram, 1000.0);
+            stats.put("success", successes.get(endpoint).sumThenReset());
+            stats.put("throughputPerSecond", round(histogram.getTotalCount() / seconds));
+            byEndpoint.put(endpoint.name().toLowerCase(), stats);
+        }
+        phase.put("requests", total);
+        phase.put("throughputPerSecond", round(total / seconds));
+        phase.put("endpoints", byEndpoint);
+
+        Map<String, Long> errorBreakdown = new TreeMap<>();
+        List<String> keys = new ArrayList<>(errors.keySet());
+        for (String key : keys) {
+            LongAdder count = errors.remove(key);
+            if (count != null) {
+                errorBreakdown.put(key, count.sum());
+            }
+        }
+        phase.put("errors", errorBreakdown);
+        phase.put("clientDropped", clientDropped.sumThenReset());
+
+        Map<String, Object> pool = new LinkedHashMap<>();
+        pool.put("acquire", summarize(poolTracker.takeAcquireHistogram(), 1_000_000.0));
+        pool.put("usage", summarize(poolTracker.takeUsageHistogram(), 1.0));
+        pool.put("timeouts", poolTracker.getTimeoutCount());
+        pool.put("maxConnections", poolTracker.getMaxConnections());
+        phase.put("hikari", pool);
+        return phase;
+    }
+
+    /**
+     * 汇总分位数，divisor 把记录单位换算为毫秒
+     */
+    private static Map<String, Object> summarize(Histogram histogram, double divisor) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("count", histogram.getTotalCount());
+        if (histogram.getTotalCount() > 0) {
+            stats.put("p50Ms", round(histogram.getValueAtPercentile(50) / divisor));
+            stats.put("p99Ms", round(histogram.getValueAtPercentile(99) / divisor));
+            stats.put("p999Ms", round(histogram.getValueAtPercentile(99.9) / divisor));
+            stats.put("maxMs", round(histogram.getMaxValue() / divisor));
+            stats.put("meanMs", round(histogram.getMean() / divisor));
+        }
+        return stats;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+
+    private String username(int index) {
+        return "lt_" + runId + "_" + index;
+    }
+
+    private static String password(int index) {
+        return "Passw0rd-" + index;
+    }
+}
@@ -0,0 +1,100 @@
+package com.zeyang.login.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zeyang.login.LoginApplication;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 端到端压测入口：mvn -P loadtest verify -Dloadtest.args="--loadtest.rate=500 --login.auth.mode=TOKEN"
+ * <p>
+ * 在同一进程内启动 Redis 协议替身、H2（MySQL 兼容模式）和完整的应用，
+ * 通过 HTTP 驱动 AuthController，报告输出到控制台和 target/loadtest-report.json。
+ * 数值只用于对比同一台机器上的不同配置，H2 与真实 MySQL 的绝对性能差异很大。
+ */
+public class LoadTestApplication {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> properties = defaults();
+        for (String arg : args) {
+            // 命令行参数覆盖默认值，同名参数不能重复传给 Spring，否则会被合并成列表
+            if (arg.startsWith("--") && arg.contains("=")) {
+                int split = arg.indexOf('=');
+                properties.put(arg.substring(2, split), arg.substring(split + 1));
+            }
+        }
+        LoadGenerator.Settings settings = LoadGenerator.Settings.from(properties);
+
+        try (RespServer redis = new RespServer()) {
+            LoadTestScripts.register(redis);
+            properties.put("spring.redis.port", String.valueOf(redis.getPort()));
+
+            PoolWaitTracker poolTracker = new PoolWaitTracker();
+            ConfigurableApplicationContext context = new SpringApplicationBuilder(LoginApplication.class)
+                    .initializers(ctx -> ctx.getBeanFactory().addBeanPostProcessor(new BeanPostProcessor() {
+                        @Override
+                        public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                            // 连接池在第一次取连接时才启动，此时注册统计仍然有效
+                            if (bean instanceof HikariDataSource) {
+                                ((HikariDataSource) bean).setMetricsTrackerFactory(poolTracker);
+                            }
+                            return bean;
+                        }
+                    }))
+                    .run(toArgs(properties));
+            try {
+                int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+                LoadGenerator generator = new LoadGenerator(URI.create("http://localhost:" + port), settings, poolTracker);
+                Map<String, Object> report = generator.run();
+                report.put("redisCommands", redis.getCommandCount());
+                report.put("redisReplyFlushes", redis.getReplyFlushCount());
+
+                ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+                File output = new File(properties.get("loadtest.report-file"));
+                output.getParentFile().mkdirs();
+                mapper.writeValue(output, report);
+                System.out.println(mapper.writeValueAsString(report));
+                System.out.println("压测报告已写入 " + output.getAbsolutePath());
+            } finally {
+                context.close();
+            }
+        }
+    }
+
+    private static Map<String, String> defaults() {
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("server.port", "0");
+        properties.put("spring.datasource.url", "jdbc:h2:mem:login;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        properties.put("spring.datasource.driver-class-name", "org.h2.Driver");
+        properties.put("spring.datasource.username", "sa");
+        properties.put("spring.datasource.password", "");
+        properties.put("spring.jpa.database-platform", "org.hibernate.dialect.H2Dialect");
+        properties.put("spring.jpa.hibernate.ddl-auto", "create");
+        properties.put("spring.jpa.show-sql", "false");
+        properties.put("spring.redis.host", "localhost");
+        properties.put("logging.level.root", "WARN");
+        // 所有请求来自同一个 IP，默认关闭限流，需要压测限流本身时传 --login.rate-limit.enabled=true
+        properties.put("login.rate-limit.enabled", "false");
+        // 流式读取的 fetchSize=Integer.MIN_VALUE 是 MySQL 驱动的约定，H2 不接受负值
+        properties.put("login.user-filter.fetch-size", "1000");
+        properties.put("login.auth-log.export-fetch-size", "1000");
+        properties.put("login.auth-log.spill-file", "target/loadtest/auth-log-spill.tsv");
+        properties.put("loadtest.report-file", "target/loadtest-report.json");
+        return properties;
+    }
+
+    private static String[] toArgs(Map<String, String> properties) {
+        return properties.entrySet().stream()
+                .map(e -> "--" + e.getKey() + "=" + e.getValue())
+                .toArray(String[]::new);
+    }
+}
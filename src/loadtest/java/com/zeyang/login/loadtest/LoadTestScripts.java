@@ -0,0 +1,104 @@
+package com.zeyang.login.loadtest;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * 为 {@link RespServer} 注册项目 Lua 脚本的 Java 等价实现
+ * <p>
+ * 脚本按文件内容的 SHA1 匹配，与 Spring 的 EVALSHA 一致；修改 Lua 脚本时需同步修改这里。
+ */
+public final class LoadTestScripts {
+
+    private LoadTestScripts() {
+    }
+
+    public static void register(RespServer server) throws IOException {
+        server.registerScript(read("scripts/rate_limit.lua"), LoadTestScripts::rateLimit);
+        server.registerScript(read("scripts/login_attempt.lua"), LoadTestScripts::loginAttempt);
+        server.registerScript(read("scripts/login_attempt_merge.lua"), LoadTestScripts::loginAttemptMerge);
+        server.registerScript(read("scripts/user_filter_add.lua"), LoadTestScripts::userFilterAdd);
+    }
+
+    /**
+     * 对应 scripts/rate_limit.lua
+     */
+    static Object rateLimit(RespServer server, List<String> keys, List<String> args) {
+        double elapsed = Double.parseDouble(args.get(0));
+        long window = Long.parseLong(args.get(1));
+        int groups = args.size() - 2;
+        for (int i = 0; i < groups; i++) {
+            long limit = Long.parseLong(args.get(2 + i));
+            long current = server.getLong(keys.get(2 * i));
+            long previous = server.getLong(keys.get(2 * i + 1));
+            if (previous * (1 - elapsed) + current >= limit) {
+                return List.of(Math.max(1L, (long) Math.floor(window * (1 - elapsed))), (long) (i + 1));
+            }
+        }
+        for (int i = 0; i < groups; i++) {
+            String key = keys.get(2 * i);
+            if (server.incr(key) == 1) {
+                server.pexpire(key, window * 2);
+            }
+        }
+        if (keys.size() > groups * 2) {
+            long lock = Math.max(server.pttl(keys.get(groups * 2)), 0);
+            return List.of(0L, 0L, lock, server.getLong(keys.get(groups * 2 + 1)));
+        }
+        return List.of(0L, 0L);
+    }
+
+    /**
+     * 对应 scripts/login_attempt.lua
+     */
+    static Object loginAttempt(RespServer server, List<String> keys, List<String> args) {
+        long attempts = server.incr(keys.get(0));
+        if (attempts == 1) {
+            server.pexpire(keys.get(0), Long.parseLong(args.get(1)));
+        }
+        if (attempts >= Long.parseLong(args.get(0))) {
+            long lockMillis = Long.parseLong(args.get(2));
+            server.set(keys.get(1), String.valueOf(attempts), lockMillis);
+            server.del(keys.get(0));
+            return lockMillis;
+        }
+        return 0L;
+    }
+
+    /**
+     * 对应 scripts/login_attempt_merge.lua
+     */
+    static Object loginAttemptMerge(RespServer server, List<String> keys, List<String> args) {
+        long attempts = Long.parseLong(args.get(0));
+        long lockRemaining = Long.parseLong(args.get(1));
+        if (lockRemaining > 0 && server.getString(keys.get(1)) == null) {
+            server.set(keys.get(1), args.get(2), lockRemaining);
+        }
+        if (attempts > 0) {
+            long merged = server.incrBy(keys.get(0), attempts);
+            server.pexpire(keys.get(0), Long.parseLong(args.get(3)));
+            if (merged >= Long.parseLong(args.get(2))) {
+                server.set(keys.get(1), String.valueOf(merged), Long.parseLong(args.get(4)));
+                server.del(keys.get(0));
+            }
+        }
+        return Math.max(server.pttl(keys.get(1)), 0);
+    }
+
+    /**
+     * 对应 scripts/user_filter_add.lua
+     */
+    static Object userFilterAdd(RespServer server, List<String> keys, List<String> args) {
+        long seq = server.incr(keys.get(0));
+        server.publish(args.get(0), seq + "\n" + args.get(1));
+        return seq;
+    }
+
+    private static String read(String path) throws IOException {
+        return StreamUtils.copyToString(new ClassPathResource(path).getInputStream(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,72 @@
+package com.zeyang.login.loadtest;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 记录 Hikari 连接池的取连接等待时间和连接占用时间
+ */
+public class PoolWaitTracker implements MetricsTrackerFactory {
+
+    private final Recorder acquireNanos = new Recorder(3);
+    private final Recorder usageMillis = new Recorder(3);
+    private final LongAdder timeouts = new LongAdder();
+    private volatile PoolStats poolStats;
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        this.poolStats = poolStats;
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                acquireNanos.recordValue(elapsedAcquiredNanos);
+            }
+
+            @Override
+            public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                usageMillis.recordValue(elapsedBorrowedMillis);
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                timeouts.increment();
+            }
+        };
+    }
+
+    /**
+     * 取出自上次调用以来的取连接等待时间分布（纳秒）
+     */
+    public Histogram takeAcquireHistogram() {
+        return acquireNanos.getIntervalHistogram();
+    }
+
+    /**
+     * 取出自上次调用以来的连接占用时间分布（毫秒）
+     */
+    public Histogram takeUsageHistogram() {
+        return usageMillis.getIntervalHistogram();
+    }
+
+    public long getTimeoutCount() {
+        return timeouts.sum();
+    }
+
+    /**
+     * 当前等待连接的线程数，连接池尚未启动时返回 0
+     */
+    public int getPendingThreads() {
+        PoolStats stats = poolStats;
+        return stats == null ? 0 : stats.getPendingThreads();
+    }
+
+    public int getMaxConnections() {
+        PoolStats stats = poolStats;
+        return stats == null ? 0 : stats.getMaxConnections();
+    }
+}
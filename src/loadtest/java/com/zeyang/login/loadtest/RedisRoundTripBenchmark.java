@@ -0,0 +1,147 @@
+package com.zeyang.login.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.zeyang.login.entity.User;
+import com.zeyang.login.redis.RedisBatch;
+import com.zeyang.login.redis.RedisBatchExecutor;
+import com.zeyang.login.security.TokenService;
+import com.zeyang.login.service.LoginAttemptService;
+import com.zeyang.login.service.LoginGate;
+import com.zeyang.login.service.RateLimiter;
+import com.zeyang.login.service.RedisLoginAttemptStore;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 一次成功登录（TOKEN 模式）的 Redis 往返次数对比：
+ * mvn -P loadtest verify -Dloadtest.main=com.zeyang.login.loadtest.RedisRoundTripBenchmark -Dloadtest.args="--logins=5000"
+ * <p>
+ * separate 按合并前的方式逐个调用：限流脚本、查询锁定、删除失败计数、保存刷新令牌；
+ * batched 使用限流脚本读出的锁定状态，成功后的写入攒成一个批次；
+ * batched-after-failures 是之前有失败记录的用户，批次中多一条删除命令。
+ * 往返次数按进程内 Redis 替身刷出响应的次数统计，报告写入 target/redis-round-trips.json。
+ */
+public class RedisRoundTripBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int logins = 2000;
+        for (String arg : args) {
+            if (arg.startsWith("--logins=")) {
+                logins = Integer.parseInt(arg.substring("--logins=".length()));
+            }
+        }
+
+        try (RespServer redis = new RespServer()) {
+            LoadTestScripts.register(redis);
+            LettuceConnectionFactory factory =
+                    new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", redis.getPort()));
+            factory.afterPropertiesSet();
+            try {
+                StringRedisTemplate template = new StringRedisTemplate(factory);
+                Flow flow = new Flow(template);
+
+                Map<String, Object> report = new LinkedHashMap<>();
+                report.put("logins", logins);
+                for (String scenario : new String[]{"separate", "batched", "batched-after-failures"}) {
+                    // 预热连接、脚本缓存和 JIT
+                    run(flow, scenario, "warmup-" + scenario + "-", Math.min(logins, 500), redis);
+                    report.put(scenario, run(flow, scenario, scenario + "-", logins, redis));
+                }
+
+                ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+                File output = new File("target/redis-round-trips.json");
+                output.getParentFile().mkdirs();
+                mapper.writeValue(output, report);
+                System.out.println(mapper.writeValueAsString(report));
+                System.out.println("报告已写入 " + output.getAbsolutePath());
+            } finally {
+                factory.destroy();
+            }
+        }
+    }
+
+    private static Map<String, Object> run(Flow flow, String scenario, String prefix, int logins, RespServer redis) {
+        long[] nanos = new long[logins];
+        long commandsBefore = redis.getCommandCount();
+        long flushesBefore = redis.getReplyFlushCount();
+        long setupCommands = 0;
+        long setupFlushes = 0;
+        for (int i = 0; i < logins; i++) {
+            User user = user(prefix, i);
+            if (scenario.equals("batched-after-failures")) {
+                // 准备失败记录，不计入统计
+                long c = redis.getCommandCount();
+                long f = redis.getReplyFlushCount();
+                flow.store.recordFailure(user.getUsername());
+                setupCommands += redis.getCommandCount() - c;
+                setupFlushes += redis.getReplyFlushCount() - f;
+            }
+            long start = System.nanoTime();
+            if (scenario.equals("separate")) {
+                flow.separate(user);
+            } else {
+                flow.batched(user);
+            }
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("commandsPerLogin", (double) (redis.getCommandCount() - commandsBefore - setupCommands) / logins);
+        stats.put("roundTripsPerLogin", (double) (redis.getReplyFlushCount() - flushesBefore - setupFlushes) / logins);
+        stats.put("meanMicros", Arrays.stream(nanos).average().orElse(0) / 1000);
+        stats.put("p99Micros", nanos[(int) Math.min(nanos.length - 1, Math.ceil(nanos.length * 0.99) - 1)] / 1000.0);
+        return stats;
+    }
+
+    private static User user(String prefix, int i) {
+        User user = new User();
+        user.setId((long) i + 1);
+        user.setUsername(prefix + i);
+        user.setFailedAttempts(0);
+        return user;
+    }
+
+    /**
+     * 成功登录路径上的 Redis 调用，使用与应用相同的组件
+     */
+    private static final class Flow {
+        final RateLimiter rateLimiter;
+        final RedisLoginAttemptStore store;
+        final LoginAttemptService attempts;
+        final TokenService tokens;
+        final RedisBatchExecutor batches;
+
+        Flow(StringRedisTemplate template) {
+            // 限额足够大，不触发限流
+            this.rateLimiter = new RateLimiter(template, 60, Integer.MAX_VALUE, Integer.MAX_VALUE, 100_000);
+            this.store = new RedisLoginAttemptStore(template, 1000, 1440, 30);
+            this.attempts = new LoginAttemptService(store, 1000, 30);
+            this.tokens = new TokenService(template, null,
+                    Base64.getEncoder().encodeToString(new byte[32]), 15, 14);
+            this.batches = new RedisBatchExecutor(template);
+        }
+
+        void separate(User user) {
+            rateLimiter.tryAcquire("10.0.0.1", user.getUsername());
+            attempts.lockRemainingMillis(user.getUsername());
+            attempts.recordSuccess(user);
+            tokens.createRefreshToken(user);
+        }
+
+        void batched(User user) {
+            LoginGate gate = rateLimiter.check("10.0.0.1", user.getUsername());
+            RedisBatch batch = batches.newBatch();
+            attempts.recordSuccess(user, gate.getFailedAttempts() != 0, batch);
+            tokens.createRefreshToken(user, batch);
+            batch.execute();
+        }
+    }
+}
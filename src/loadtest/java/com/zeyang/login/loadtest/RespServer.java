@@ -0,0 +1,727 @@
+package com.zeyang.login.loadtest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * 进程内 Redis 协议（RESP2）替身，只实现本项目用到的命令
+ * <p>
+ * 所有命令在一把锁内串行执行，与真实 Redis 的单线程语义一致。
+ * Lua 脚本无法执行，改为按脚本 SHA1 注册等价的 Java 实现（见 {@link #registerScript}）；
+ * 未注册的脚本返回错误，应用侧会按 Redis 故障处理。
+ * HyperLogLog 用精确集合代替，PFCOUNT 返回准确值；其余未实现的命令返回 unknown command 错误。
+ */
+public class RespServer implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(RespServer.class);
+
+    /**
+     * 脚本的 Java 等价实现，在命令锁内执行
+     */
+    public interface ScriptHandler {
+        Object eval(RespServer server, List<String> keys, List<String> args);
+    }
+
+    private final ServerSocket serverSocket;
+    private final Object lock = new Object();
+    private final Map<String, Object> data = new HashMap<>();
+    private final Map<String, Long> expires = new HashMap<>();
+    private final Map<String, ScriptHandler> scripts = new ConcurrentHashMap<>();
+    private final List<Connection> connections = new CopyOnWriteArrayList<>();
+    private final AtomicLong commands = new AtomicLong();
+    private final AtomicLong replyFlushes = new AtomicLong();
+    private volatile boolean running = true;
+
+    public RespServer() throws IOException {
+        this.serverSocket = new ServerSocket(0, 128, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::acceptLoop, "resp-server-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * 已处理的命令数，即客户端到服务端的往返次数（流水线中的每条命令单独计数）
+     */
+    public long getCommandCount() {
+        return commands.get();
+    }
+
+    /**
+     * 服务端刷出响应的次数，近似客户端等待的往返次数：流水线中紧接着到达的命令只刷出一次
+     */
+    public long getReplyFlushCount() {
+        return replyFlushes.get();
+    }
+
+    public void registerScript(String script, ScriptHandler handler) {
+        scripts.put(sha1(script.getBytes(StandardCharsets.UTF_8)), handler);
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        serverSocket.close();
+        for (Connection connection : connections) {
+            connection.close();
+        }
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                Connection connection = new Connection(socket);
+                connections.add(connection);
+                Thread thread = new Thread(connection, "resp-server-connection");
+                thread.setDaemon(true);
+                thread.start();
+            } catch (IOException e) {
+                if (running) {
+                    log.warn("接受连接失败", e);
+                }
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------- 数据访问（调用方需持有锁）
+
+    private Object lookup(String key) {
+        Long expireAt = expires.get(key);
+        if (expireAt != null && expireAt <= System.currentTimeMillis()) {
+            data.remove(key);
+            expires.remove(key);
+            return null;
+        }
+        return data.get(key);
+    }
+
+    public String getString(String key) {
+        Object value = lookup(key);
+        return value instanceof String ? (String) value : null;
+    }
+
+    public long getLong(String key) {
+        String value = getString(key);
+        return value == null ? 0 : Long.parseLong(value);
+    }
+
+    public void set(String key, String value, long ttlMillis) {
+        data.put(key, value);
+        if (ttlMillis > 0) {
+            expires.put(key, System.currentTimeMillis() + ttlMillis);
+        } else {
+            expires.remove(key);
+        }
+    }
+
+    public long incr(String key) {
+        return incrBy(key, 1);
+    }
+
+    public long incrBy(String key, long delta) {
+        long value = getLong(key) + delta;
+        data.put(key, String.valueOf(value));
+        return value;
+    }
+
+    public boolean pexpire(String key, long ttlMillis) {
+        if (lookup(key) == null) {
+            return false;
+        }
+        expires.put(key, System.currentTimeMillis() + ttlMillis);
+        return true;
+    }
+
+    public long pttl(String key) {
+        if (lookup(key) == null) {
+            return -2;
+        }
+        Long expireAt = expires.get(key);
+        return expireAt == null ? -1 : expireAt - System.currentTimeMillis();
+    }
+
+    public boolean del(String key) {
+        boolean existed = lookup(key) != null;
+        data.remove(key);
+        expires.remove(key);
+        return existed;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, String> hash(String key, boolean create) {
+        Object value = lookup(key);
+        if (value == null && create) {
+            value = new HashMap<String, String>();
+            data.put(key, value);
+        }
+        return value instanceof Map ? (Map<String, String>) value : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private TreeSet<ZEntry> zset(String key, boolean create) {
+        Object value = lookup(key);
+        if (value == null && create) {
+            value = new TreeSet<ZEntry>();
+            data.put(key, value);
+        }
+        return value instanceof TreeSet ? (TreeSet<ZEntry>) value : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Set<String> hll(String key, boolean create) {
+        Object value = lookup(key);
+        if (value == null && create) {
+            value = new HashSet<String>();
+            data.put(key, value);
+        }
+        return value instanceof HashSet ? (HashSet<String>) value : null;
+    }
+
+    // ---------------------------------------------------------------- 命令执行
+
+    private Object execute(Connection connection, List<String> command) {
+        commands.incrementAndGet();
+        String name = command.get(0).toUpperCase();
+        switch (name) {
+            case "PUBLISH":
+                return publish(command.get(1), command.get(2));
+            case "SUBSCRIBE":
+            case "PSUBSCRIBE":
+                for (int i = 1; i < command.size(); i++) {
+                    String channel = command.get(i);
+                    if (name.equals("SUBSCRIBE")) {
+                        connection.channels.add(channel);
+                    } else {
+                        connection.patterns.put(channel, globToRegex(channel));
+                    }
+                    connection.write(List.of(name.toLowerCase(), channel,
+                            (long) (connection.channels.size() + connection.patterns.size())));
+                }
+                return NO_REPLY;
+            case "UNSUBSCRIBE":
+            case "PUNSUBSCRIBE":
+                connection.channels.clear();
+                connection.patterns.clear();
+                connection.write(List.of(name.toLowerCase(), "", 0L));
+                return NO_REPLY;
+            default:
+                synchronized (lock) {
+                    return executeLocked(name, command);
+                }
+        }
+    }
+
+    private Object executeLocked(String name, List<String> c) {
+        switch (name) {
+            case "PING":
+                return c.size() > 1 ? c.get(1) : Status.PONG;
+            case "AUTH":
+            case "SELECT":
+            case "CLIENT":
+            case "READONLY":
+                return Status.OK;
+            case "HELLO":
+                return new Error("ERR unknown command 'HELLO'");
+            case "CONFIG":
+                return c.get(1).equalsIgnoreCase("GET") ? List.of() : Status.OK;
+            case "GET":
+                return getString(c.get(1));
+            case "SET":
+                return set(c);
+            case "GETDEL": {
+                String value = getString(c.get(1));
+                del(c.get(1));
+                return value;
+            }
+            case "SETEX":
+                set(c.get(1), c.get(3), Long.parseLong(c.get(2)) * 1000);
+                return Status.OK;
+            case "PSETEX":
+                set(c.get(1), c.get(3), Long.parseLong(c.get(2)));
+                return Status.OK;
+            case "INCR":
+                return incr(c.get(1));
+            case "INCRBY":
+                return incrBy(c.get(1), Long.parseLong(c.get(2)));
+            case "DECRBY":
+                return incrBy(c.get(1), -Long.parseLong(c.get(2)));
+            case "DEL":
+            case "UNLINK": {
+                long removed = 0;
+                for (int i = 1; i < c.size(); i++) {
+                    removed += del(c.get(i)) ? 1 : 0;
+                }
+                return removed;
+            }
+            case "EXISTS":
+                return lookup(c.get(1)) != null ? 1L : 0L;
+            case "EXPIRE":
+                return pexpire(c.get(1), Long.parseLong(c.get(2)) * 1000) ? 1L : 0L;
+            case "PEXPIRE":
+                return pexpire(c.get(1), Long.parseLong(c.get(2))) ? 1L : 0L;
+            case "TTL": {
+                long ttl = pttl(c.get(1));
+                return ttl < 0 ? ttl : (ttl + 999) / 1000;
+            }
+            case "PTTL":
+                return pttl(c.get(1));
+            case "HSET":
+            case "HMSET": {
+                Map<String, String> hash = hash(c.get(1), true);
+                long added = 0;
+                for (int i = 2; i + 1 < c.size(); i += 2) {
+                    added += hash.put(c.get(i), c.get(i + 1)) == null ? 1 : 0;
+                }
+                return name.equals("HMSET") ? Status.OK : added;
+            }
+            case "HGET": {
+                Map<String, String> hash = hash(c.get(1), false);
+                return hash == null ? null : hash.get(c.get(2));
+            }
+            case "HMGET": {
+                Map<String, String> hash = hash(c.get(1), false);
+                List<Object> values = new ArrayList<>();
+                for (int i = 2; i < c.size(); i++) {
+                    values.add(hash == null ? null : hash.get(c.get(i)));
+                }
+                return values;
+            }
+            case "HGETALL": {
+                Map<String, String> hash = hash(c.get(1), false);
+                List<Object> values = new ArrayList<>();
+                if (hash != null) {
+                    hash.forEach((k, v) -> {
+                        values.add(k);
+                        values.add(v);
+                    });
+                }
+                return values;
+            }
+            case "HINCRBY": {
+                Map<String, String> hash = hash(c.get(1), true);
+                long value = Long.parseLong(hash.getOrDefault(c.get(2), "0")) + Long.parseLong(c.get(3));
+                hash.put(c.get(2), String.valueOf(value));
+                return value;
+            }
+            case "ZADD": {
+                TreeSet<ZEntry> zset = zset(c.get(1), true);
+                long added = 0;
+                for (int i = 2; i + 1 < c.size(); i += 2) {
+                    String member = c.get(i + 1);
+                    added += zset.removeIf(e -> e.member.equals(member)) ? 0 : 1;
+                    zset.add(new ZEntry(Double.parseDouble(c.get(i)), member));
+                }
+                return added;
+            }
+            case "ZINCRBY": {
+                TreeSet<ZEntry> zset = zset(c.get(1), true);
+                String member = c.get(3);
+                double value = Double.parseDouble(c.get(2));
+                for (Iterator<ZEntry> it = zset.iterator(); it.hasNext(); ) {
+                    ZEntry e = it.next();
+                    if (e.member.equals(member)) {
+                        it.remove();
+                        value += e.score;
+                        break;
+                    }
+                }
+                zset.add(new ZEntry(value, member));
+                return formatScore(value);
+            }
+            case "ZCARD": {
+                TreeSet<ZEntry> zset = zset(c.get(1), false);
+                return zset == null ? 0L : (long) zset.size();
+            }
+            case "ZREMRANGEBYRANK": {
+                TreeSet<ZEntry> zset = zset(c.get(1), false);
+                if (zset == null) {
+                    return 0L;
+                }
+                int size = zset.size();
+                int start = Math.max(rank(c.get(2), size), 0);
+                int stop = Math.min(rank(c.get(3), size), size - 1);
+                long removed = 0;
+                int index = 0;
+                for (Iterator<ZEntry> it = zset.iterator(); it.hasNext() && index <= stop; index++) {
+                    it.next();
+                    if (index >= start) {
+                        it.remove();
+                        removed++;
+                    }
+                }
+                return removed;
+            }
+            case "ZRANGE":
+            case "ZREVRANGE": {
+                TreeSet<ZEntry> zset = zset(c.get(1), false);
+                List<Object> values = new ArrayList<>();
+                if (zset == null) {
+                    return values;
+                }
+                boolean withScores = c.stream().anyMatch(a -> a.equalsIgnoreCase("WITHSCORES"));
+                int size = zset.size();
+                int start = Math.max(rank(c.get(2), size), 0);
+                int stop = Math.min(rank(c.get(3), size), size - 1);
+                int index = 0;
+                for (ZEntry e : name.equals("ZRANGE") ? zset : zset.descendingSet()) {
+                    if (index > stop) {
+                        break;
+                    }
+                    if (index++ >= start) {
+                        values.add(e.member);
+                        if (withScores) {
+                            values.add(formatScore(e.score));
+                        }
+                    }
+                }
+                return values;
+            }
+            case "ZREMRANGEBYSCORE": {
+                TreeSet<ZEntry> zset = zset(c.get(1), false);
+                if (zset == null) {
+                    return 0L;
+                }
+                double min = score(c.get(2));
+                double max = score(c.get(3));
+                long removed = 0;
+                for (Iterator<ZEntry> it = zset.iterator(); it.hasNext(); ) {
+                    ZEntry e = it.next();
+                    if (e.score >= min && e.score <= max) {
+                        it.remove();
+                        removed++;
+                    }
+                }
+                return removed;
+            }
+            case "ZRANGEBYSCORE": {
+                TreeSet<ZEntry> zset = zset(c.get(1), false);
+                List<Object> values = new ArrayList<>();
+                boolean withScores = c.stream().anyMatch(a -> a.equalsIgnoreCase("WITHSCORES"));
+                if (zset != null) {
+                    double min = score(c.get(2));
+                    double max = score(c.get(3));
+                    for (ZEntry e : zset) {
+                        if (e.score >= min && e.score <= max) {
+                            values.add(e.member);
+                            if (withScores) {
+                                values.add(String.valueOf(e.score));
+                            }
+                        }
+                    }
+                }
+                return values;
+            }
+            case "PFADD": {
+                Set<String> set = hll(c.get(1), true);
+                boolean changed = false;
+                for (int i = 2; i < c.size(); i++) {
+                    changed |= set.add(c.get(i));
+                }
+                return changed ? 1L : 0L;
+            }
+            case "PFCOUNT": {
+                Set<String> union = new HashSet<>();
+                for (int i = 1; i < c.size(); i++) {
+                    Set<String> set = hll(c.get(i), false);
+                    if (set != null) {
+                        union.addAll(set);
+                    }
+                }
+                return (long) union.size();
+            }
+            case "SCRIPT":
+                if (c.get(1).equalsIgnoreCase("LOAD")) {
+                    return sha1(c.get(2).getBytes(StandardCharsets.ISO_8859_1));
+                }
+                return Status.OK;
+            case "EVAL":
+                return eval(sha1(c.get(1).getBytes(StandardCharsets.ISO_8859_1)), c);
+            case "EVALSHA":
+                return eval(c.get(1), c);
+            default:
+                return new Error("ERR unknown command '" + name + "'");
+        }
+    }
+
+    private Object set(List<String> c) {
+        long ttl = 0;
+        boolean nx = false;
+        boolean xx = false;
+        for (int i = 3; i < c.size(); i++) {
+            String option = c.get(i).toUpperCase();
+            if (option.equals("EX")) {
+                ttl = Long.parseLong(c.get(++i)) * 1000;
+            } else if (option.equals("PX")) {
+                ttl = Long.parseLong(c.get(++i));
+            } else if (option.equals("NX")) {
+                nx = true;
+            } else if (option.equals("XX")) {
+                xx = true;
+            }
+        }
+        boolean exists = lookup(c.get(1)) != null;
+        if ((nx && exists) || (xx && !exists)) {
+            return null;
+        }
+        set(c.get(1), c.get(2), ttl);
+        return Status.OK;
+    }
+
+    private Object eval(String sha, List<String> c) {
+        ScriptHandler handler = scripts.get(sha);
+        if (handler == null) {
+            return new Error("NOSCRIPT No matching script. Please use EVAL.");
+        }
+        int numKeys = Integer.parseInt(c.get(2));
+        List<String> keys = c.subList(3, 3 + numKeys);
+        List<String> args = c.subList(3 + numKeys, c.size());
+        return handler.eval(this, keys, args);
+    }
+
+    /**
+     * 发布消息，返回接收的订阅数；脚本实现中可以直接调用
+     */
+    public long publish(String channel, String message) {
+        long receivers = 0;
+        for (Connection connection : connections) {
+            if (connection.channels.contains(channel)) {
+                connection.write(List.of("message", channel, message));
+                receivers++;
+            }
+            for (Map.Entry<String, Pattern> pattern : connection.patterns.entrySet()) {
+                if (pattern.getValue().matcher(channel).matches()) {
+                    connection.write(List.of("pmessage", pattern.getKey(), channel, message));
+                    receivers++;
+                }
+            }
+        }
+        return receivers;
+    }
+
+    private static double score(String value) {
+        if (value.equals("-inf")) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        if (value.equals("+inf") || value.equals("inf")) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return Double.parseDouble(value.startsWith("(") ? value.substring(1) : value);
+    }
+
+    /**
+     * 有序集合下标，负数从末尾倒数
+     */
+    private static int rank(String value, int size) {
+        int index = Integer.parseInt(value);
+        return index < 0 ? size + index : index;
+    }
+
+    private static String formatScore(double score) {
+        return score == Math.rint(score) && !Double.isInfinite(score) ? String.valueOf((long) score) : String.valueOf(score);
+    }
+
+    private static Pattern globToRegex(String glob) {
+        StringBuilder regex = new StringBuilder();
+        for (char ch : glob.toCharArray()) {
+            switch (ch) {
+                case '*': regex.append(".*"); break;
+                case '?': regex.append('.'); break;
+                default: regex.append(Pattern.quote(String.valueOf(ch)));
+            }
+        }
+        return Pattern.compile(regex.toString());
+    }
+
+    private static String sha1(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-1").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // ---------------------------------------------------------------- 协议编解码
+
+    private static final Object NO_REPLY = new Object();
+
+    private enum Status { OK, PONG }
+
+    private static final class Error {
+        final String message;
+
+        Error(String message) {
+            this.message = message;
+        }
+    }
+
+    private static final class ZEntry implements Comparable<ZEntry> {
+        final double score;
+        final String member;
+
+        ZEntry(double score, String member) {
+            this.score = score;
+            this.member = member;
+        }
+
+        @Override
+        public int compareTo(ZEntry o) {
+            int byScore = Double.compare(score, o.score);
+            return byScore != 0 ? byScore : member.compareTo(o.member);
+        }
+    }
+
+    private final class Connection implements Runnable, Closeable {
+        final Socket socket;
+        final InputStream in;
+        final OutputStream out;
+        final Set<String> channels = ConcurrentHashMap.newKeySet();
+        final Map<String, Pattern> patterns = new ConcurrentHashMap<>();
+
+        Connection(Socket socket) throws IOException {
+            this.socket = socket;
+            this.in = new BufferedInputStream(socket.getInputStream());
+            this.out = new BufferedOutputStream(socket.getOutputStream());
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (running) {
+                    List<String> command = readCommand();
+                    Object reply;
+                    try {
+                        reply = execute(this, command);
+                    } catch (RuntimeException e) {
+                        reply = new Error("ERR " + e);
+                    }
+                    if (reply != NO_REPLY) {
+                        synchronized (this) {
+                            writeValue(reply);
+                            // 客户端流水线发送时，等输入读完再一起刷出
+                            if (in.available() == 0) {
+                                out.flush();
+                                replyFlushes.incrementAndGet();
+                            }
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                // 连接关闭
+            } finally {
+                connections.remove(this);
+                close();
+            }
+        }
+
+        synchronized void write(Object value) {
+            try {
+                writeValue(value);
+                out.flush();
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // 忽略
+            }
+        }
+
+        private List<String> readCommand() throws IOException {
+            int type = in.read();
+            if (type < 0) {
+                throw new EOFException();
+            }
+            if (type != '*') {
+                // 内联命令
+                String line = (char) type + readLine();
+                return List.of(line.trim().split("\\s+"));
+            }
+            int count = Integer.parseInt(readLine());
+            List<String> args = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                if (in.read() != '$') {
+                    throw new IOException("协议错误");
+                }
+                int length = Integer.parseInt(readLine());
+                byte[] bytes = in.readNBytes(length);
+                in.read();
+                in.read();
+                args.add(new String(bytes, StandardCharsets.ISO_8859_1));
+            }
+            return args;
+        }
+
+        private String readLine() throws IOException {
+            StringBuilder sb = new StringBuilder();
+            int ch;
+            while ((ch = in.read()) != '\r') {
+                if (ch < 0) {
+                    throw new EOFException();
+                }
+                sb.append((char) ch);
+            }
+            in.read();
+            return sb.toString();
+        }
+
+        private void writeValue(Object value) throws IOException {
+            if (value == null) {
+                out.write("$-1\r\n".getBytes(StandardCharsets.US_ASCII));
+            } else if (value instanceof Status) {
+                out.write(("+" + value + "\r\n").getBytes(StandardCharsets.US_ASCII));
+            } else if (value instanceof Error) {
+                out.write(("-" + ((Error) value).message + "\r\n").getBytes(StandardCharsets.UTF_8));
+            } else if (value instanceof Long || value instanceof Integer) {
+                out.write((":" + value + "\r\n").getBytes(StandardCharsets.US_ASCII));
+            } else if (value instanceof List) {
+                List<?> list = (List<?>) value;
+                out.write(("*" + list.size() + "\r\n").getBytes(StandardCharsets.US_ASCII));
+                for (Object item : list) {
+                    writeValue(item);
+                }
+            } else {
+                byte[] bytes = value.toString().getBytes(StandardCharsets.ISO_8859_1);
+                out.write(("$" + bytes.length + "\r\n").getBytes(StandardCharsets.US_ASCII));
+                out.write(bytes);
+                out.write("\r\n".getBytes(StandardCharsets.US_ASCII));
+            }
+        }
+    }
+}
@@ -2,12 +2,29 @@ package com.zeyang.login;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcTransactionManagerAutoConfiguration;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
-@SpringBootApplication
+// R2DBC 连接池由响应式栈自行创建；自动配置的 ConnectionFactory 会让 DataSource 和 JPA 事务管理器失效
+@SpringBootApplication(exclude = {R2dbcAutoConfiguration.class, R2dbcTransactionManagerAutoConfiguration.class})
+@EnableScheduling
 public class LoginApplication {
 
+    // 启动步骤缓冲上限，超出后的步骤不再记录
+    private static final int STARTUP_STEPS = 4096;
+
     public static void main(String[] args) {
-        SpringApplication.run(LoginApplication.class, args);
+        SpringApplication application = new SpringApplication(LoginApplication.class);
+        // 记录各启动阶段耗时，就绪后由 StartupConfig 输出
+        application.setApplicationStartup(new BufferingApplicationStartup(STARTUP_STEPS));
+        ConfigurableApplicationContext context = application.run(args);
+        if (context.getEnvironment().getProperty("login.startup.exit-on-ready", Boolean.class, false)) {
+            // CDS 训练运行：启动完成即退出，JVM 退出时写出类数据共享归档
+            System.exit(SpringApplication.exit(context));
+        }
     }
 
 }
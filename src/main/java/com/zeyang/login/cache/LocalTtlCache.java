@@ -0,0 +1,118 @@
+package com.zeyang.login.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 进程内有界缓存，按访问顺序 LRU 淘汰，并带写入后过期时间
+ * <p>
+ * 用 ReentrantLock 而不是 synchronized，虚拟线程竞争锁时可以让出载体线程。
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public class LocalTtlCache<K, V> {
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LinkedHashMap<K, Node<V>> map;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    public LocalTtlCache(int maxSize, long ttlMillis) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        this.map = new LinkedHashMap<>(Math.min(maxSize, 1024), 0.75f, true);
+    }
+
+    /**
+     * 读取未过期的值，不存在或已过期返回 null
+     */
+    public V get(K key) {
+        lock.lock();
+        try {
+            Node<V> node = map.get(key);
+            if (node == null) {
+                return null;
+            }
+            if (node.expireAt - System.nanoTime() <= 0) {
+                map.remove(key);
+                expirations.increment();
+                return null;
+            }
+            return node.value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void put(K key, V value) {
+        put(key, value, ttlNanos / 1_000_000L);
+    }
+
+    public void put(K key, V value, long ttlMillis) {
+        lock.lock();
+        try {
+            map.put(key, new Node<>(value, System.nanoTime() + Math.min(ttlMillis * 1_000_000L, ttlNanos)));
+            if (map.size() > maxSize) {
+                Iterator<Map.Entry<K, Node<V>>> it = map.entrySet().iterator();
+                while (map.size() > maxSize && it.hasNext()) {
+                    it.next();
+                    it.remove();
+                    evictions.increment();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void remove(K key) {
+        lock.lock();
+        try {
+            map.remove(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void clear() {
+        lock.lock();
+        try {
+            map.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return map.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public long getExpirationCount() {
+        return expirations.sum();
+    }
+
+    private static final class Node<V> {
+        final V value;
+        final long expireAt;
+
+        Node(V value, long expireAt) {
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+    }
+}
@@ -0,0 +1,381 @@
+package com.zeyang.login.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zeyang.login.concurrent.SingleFlight;
+import com.zeyang.login.datasource.RoutingContext;
+import com.zeyang.login.entity.User;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 用户两级缓存：本地 L1（有界 + TTL） + Redis L2
+ * <p>
+ * 未知用户名做负缓存，同一个键的并发未命中只有一个线程回源数据库。
+ * 用户保存后删除两级缓存，并通过 Redis 发布订阅通知其他节点清理 L1。
+ * 开启读写分离时，收到写入通知后的一小段时间内该用户的回源查询走主库，保证注册后立即登录能查到。
+ * Redis 是多节点共享的，L2 中只保存不含密码哈希和盐的用户信息；
+ * 按用户名查询（登录校验密码）需要凭据，L2 的用户信息用不上，只在 L2 中保存不存在的用户名；
+ * 按 ID 查询返回的用户不含凭据。
+ */
+@Slf4j
+@Component
+public class UserCache implements MessageListener {
+
+    private static final String NAME_PREFIX = "user:cache:name:";
+    private static final String ID_PREFIX = "user:cache:id:";
+    private static final String INVALIDATE_CHANNEL = "user:cache:invalidate";
+    private static final String NIL = "__nil__";
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final long redisTtlSeconds;
+    private final long negativeTtlSeconds;
+
+    private final LocalTtlCache<String, Optional<User>> byName;
+    private final LocalTtlCache<Long, Optional<User>> byId;
+    private final LocalTtlCache<String, Boolean> recentWrites;
+    private final SingleFlight<String, Optional<User>> loadFlight;
+
+    // 指标
+    private final LongAdder l1Hits = new LongAdder();
+    private final LongAdder l2Hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder redisErrors = new LongAdder();
+
+    @Autowired
+    public UserCache(StringRedisTemplate redisTemplate,
+                     ObjectMapper objectMapper,
+                     RedisMessageListenerContainer listenerContainer,
+                     @Value("${login.user-cache.enabled:true}") boolean enabled,
+                     @Value("${login.user-cache.local-max-size:10000}") int localMaxSize,
+                     @Value("${login.user-cache.local-ttl-seconds:30}") long localTtlSeconds,
+                     @Value("${login.user-cache.redis-ttl-seconds:600}") long redisTtlSeconds,
+                     @Value("${login.user-cache.negative-ttl-seconds:30}") long negativeTtlSeconds,
+                     @Value("${login.datasource.read-your-writes-ms:5000}") long readYourWritesMillis,
+                     @Value("${login.user-cache.coalesce-max-waiters:256}") int coalesceMaxWaiters,
+                     @Value("${login.user-cache.coalesce-timeout-ms:2000}") long coalesceTimeoutMillis) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.redisTtlSeconds = redisTtlSeconds;
+        this.negativeTtlSeconds = negativeTtlSeconds;
+        this.byName = new LocalTtlCache<>(localMaxSize, TimeUnit.SECONDS.toMillis(localTtlSeconds));
+        this.byId = new LocalTtlCache<>(localMaxSize, TimeUnit.SECONDS.toMillis(localTtlSeconds));
+        this.recentWrites = new LocalTtlCache<>(localMaxSize, readYourWritesMillis);
+        this.loadFlight = new SingleFlight<>(coalesceMaxWaiters, coalesceTimeoutMillis, 1);
+        if (enabled) {
+            listenerContainer.addMessageListener(this, new ChannelTopic(INVALIDATE_CHANNEL));
+        }
+    }
+
+    /**
+     * 按用户名查询，返回的用户带密码哈希和盐，可用于密码校验和保存
+     */
+    public Optional<User> getByUsername(String username, Supplier<User> loader) {
+        if (!enabled || username == null) {
+            return Optional.ofNullable(route(NAME_PREFIX + username, loader).get());
+        }
+        Optional<User> local = byName.get(username);
+        if (local != null) {
+            l1Hits.increment();
+            if (local.isEmpty()) {
+                negativeHits.increment();
+            }
+            return copy(local);
+        }
+        return copy(load(NAME_PREFIX + username, loader, true));
+    }
+
+    /**
+     * 按 ID 查询，返回的用户不含密码哈希和盐，只用于展示和会话，不能用于保存
+     */
+    public Optional<User> getById(Long id, Supplier<User> loader) {
+        if (!enabled || id == null) {
+            return Optional.ofNullable(route(ID_PREFIX + id, loader).get()).map(UserCache::withoutCredentials);
+        }
+        Optional<User> local = byId.get(id);
+        if (local != null) {
+            l1Hits.increment();
+            if (local.isEmpty()) {
+                negativeHits.increment();
+            }
+            return copy(local);
+        }
+        return copy(load(ID_PREFIX + id, loader, false));
+    }
+
+    /**
+     * 在当前事务提交后调用 {@link #evict(User)}，没有事务时立即清理。
+     * 提交前清理的话，并发的回源可能从数据库或从库读到旧行（或不存在），再写回缓存直到过期
+     */
+    public void evictAfterCommit(User user) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(user);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict(user);
+            }
+        });
+    }
+
+    /**
+     * 用户写入后调用，清理本节点与 Redis 中的缓存并通知其他节点
+     */
+    public void evict(User user) {
+        if (user == null) {
+            return;
+        }
+        markWritten(user.getUsername(), user.getId());
+        if (!enabled) {
+            return;
+        }
+        evictLocal(user.getUsername(), user.getId());
+        try {
+            if (user.getId() != null) {
+                redisTemplate.delete(List.of(NAME_PREFIX + user.getUsername(), ID_PREFIX + user.getId()));
+                redisTemplate.convertAndSend(INVALIDATE_CHANNEL, user.getUsername() + "\n" + user.getId());
+            } else {
+                redisTemplate.delete(NAME_PREFIX + user.getUsername());
+                redisTemplate.convertAndSend(INVALIDATE_CHANNEL, user.getUsername() + "\n");
+            }
+        } catch (RuntimeException e) {
+            redisErrors.increment();
+            log.debug("用户缓存 Redis 清理失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 批量写入提交后调用，同 {@link #evict(User)}；Redis 删除和通知在一条流水线中发送
+     */
+    public void evictAll(Collection<User> users) {
+        if (users.isEmpty()) {
+            return;
+        }
+        users.forEach(user -> markWritten(user.getUsername(), user.getId()));
+        if (!enabled) {
+            return;
+        }
+        users.forEach(user -> evictLocal(user.getUsername(), user.getId()));
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection conn = (StringRedisConnection) connection;
+                for (User user : users) {
+                    if (user.getId() != null) {
+                        conn.del(NAME_PREFIX + user.getUsername(), ID_PREFIX + user.getId());
+                        conn.publish(INVALIDATE_CHANNEL, user.getUsername() + "\n" + user.getId());
+                    } else {
+                        conn.del(NAME_PREFIX + user.getUsername());
+                        conn.publish(INVALIDATE_CHANNEL, user.getUsername() + "\n");
+                    }
+                }
+                return null;
+            });
+        } catch (RuntimeException e) {
+            redisErrors.increment();
+            log.debug("用户缓存 Redis 批量清理失败: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int split = body.indexOf('\n');
+        String username = split >= 0 ? body.substring(0, split) : body;
+        String id = split >= 0 ? body.substring(split + 1) : "";
+        Long userId = id.isEmpty() ? null : Long.valueOf(id);
+        markWritten(username, userId);
+        evictLocal(username, userId);
+    }
+
+    private void markWritten(String username, Long id) {
+        if (username != null) {
+            recentWrites.put(NAME_PREFIX + username, Boolean.TRUE);
+        }
+        if (id != null) {
+            recentWrites.put(ID_PREFIX + id, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * 最近写入过的用户回源走主库，从库可能还没同步到这次写入
+     */
+    private Supplier<User> route(String redisKey, Supplier<User> loader) {
+        return recentWrites.get(redisKey) != null ? () -> RoutingContext.onPrimary(loader) : loader;
+    }
+
+    private void evictLocal(String username, Long id) {
+        if (username != null) {
+            byName.remove(username);
+        }
+        if (id != null) {
+            byId.remove(id);
+        }
+    }
+
+    private Optional<User> load(String redisKey, Supplier<User> loader, boolean credentials) {
+        // 同一个键的并发未命中只有一个线程回读 Redis 和数据库，其余线程共享结果，避免缓存击穿
+        return loadFlight.execute(redisKey, () -> {
+            Optional<User> result = readRedis(redisKey);
+            if (result != null && result.isPresent() && credentials) {
+                // L2 中没有凭据，需要校验密码的查询回源读取
+                result = null;
+            }
+            if (result != null) {
+                l2Hits.increment();
+                if (result.isEmpty()) {
+                    negativeHits.increment();
+                }
+            } else {
+                misses.increment();
+                loads.increment();
+                result = Optional.ofNullable(route(redisKey, loader).get());
+                // 需要凭据的查询不会使用 L2 中的用户信息，只写负缓存，省去一次没人读的写入
+                if (!credentials || result.isEmpty()) {
+                    writeRedis(redisKey, result);
+                }
+                if (!credentials) {
+                    result = result.map(UserCache::withoutCredentials);
+                }
+            }
+            putLocal(redisKey, result);
+            return result;
+        });
+    }
+
+    private void putLocal(String redisKey, Optional<User> value) {
+        long ttlMillis = value.isPresent() ? Long.MAX_VALUE / 1_000_000L : TimeUnit.SECONDS.toMillis(negativeTtlSeconds);
+        if (redisKey.startsWith(NAME_PREFIX)) {
+            byName.put(redisKey.substring(NAME_PREFIX.length()), value, ttlMillis);
+        } else {
+            byId.put(Long.valueOf(redisKey.substring(ID_PREFIX.length())), value, ttlMillis);
+        }
+    }
+
+    private Optional<User> readRedis(String key) {
+        try {
+            String json = redisTemplate.opsForValue().get(key);
+            if (json == null) {
+                return null;
+            }
+            return NIL.equals(json) ? Optional.empty() : Optional.of(objectMapper.readValue(json, User.class));
+        } catch (JsonProcessingException | RuntimeException e) {
+            redisErrors.increment();
+            log.debug("用户缓存 Redis 读取失败: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeRedis(String key, Optional<User> value) {
+        try {
+            if (value.isPresent()) {
+                redisTemplate.opsForValue().set(key, objectMapper.writeValueAsString(withoutCredentials(value.get())),
+                        redisTtlSeconds, TimeUnit.SECONDS);
+            } else {
+                redisTemplate.opsForValue().set(key, NIL, negativeTtlSeconds, TimeUnit.SECONDS);
+            }
+        } catch (JsonProcessingException | RuntimeException e) {
+            redisErrors.increment();
+            log.debug("用户缓存 Redis 写入失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 缓存中的实体是共享的，返回副本避免调用方修改污染缓存
+     */
+    private static Optional<User> copy(Optional<User> cached) {
+        return cached.map(UserCache::copyOf);
+    }
+
+    static User copyOf(User source) {
+        User user = new User();
+        user.setId(source.getId());
+        user.setUsername(source.getUsername());
+        user.setPasswordHash(source.getPasswordHash());
+        user.setSalt(source.getSalt());
+        user.setEmail(source.getEmail());
+        user.setPhone(source.getPhone());
+        user.setStatus(source.getStatus());
+        user.setFailedAttempts(source.getFailedAttempts());
+        user.setLockedUntil(source.getLockedUntil());
+        user.setCreatedAt(source.getCreatedAt());
+        user.setUpdatedAt(source.getUpdatedAt());
+        return user;
+    }
+
+    static User withoutCredentials(User source) {
+        User user = copyOf(source);
+        user.setPasswordHash(null);
+        user.setSalt(null);
+        return user;
+    }
+
+    public long getL1HitCount() {
+        return l1Hits.sum();
+    }
+
+    public long getL2HitCount() {
+        return l2Hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getNegativeHitCount() {
+        return negativeHits.sum();
+    }
+
+    public long getLoadCount() {
+        return loads.sum();
+    }
+
+    public long getCoalescedLoadCount() {
+        return loadFlight.getCoalescedCount();
+    }
+
+    public long getCoalesceRejectedCount() {
+        return loadFlight.getRejectedCount() + loadFlight.getTimedOutCount();
+    }
+
+    public long getRedisErrorCount() {
+        return redisErrors.sum();
+    }
+
+    public long getEvictionCount() {
+        return byName.getEvictionCount() + byId.getEvictionCount();
+    }
+
+    public long getExpirationCount() {
+        return byName.getExpirationCount() + byId.getExpirationCount();
+    }
+
+    public int getLocalSize() {
+        return byName.size() + byId.size();
+    }
+}
@@ -0,0 +1,526 @@
+package com.zeyang.login.cache;
+
+import com.zeyang.login.entity.User;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * 用户名与邮箱的存在性过滤器（布隆过滤器）
+ * <p>
+ * 过滤器判定“一定不存在”时，登录和注册跳过数据库查询；判定“可能存在”时照常查库。
+ * 启动后流式扫描 users 表预热，之后定期全量重建（布隆过滤器不支持删除），
+ * 期间新增的用户实时写入并通过 Redis 发布订阅同步到其他节点。
+ * 发布订阅不保证送达，每条消息带 Redis 分配的序号，定期比对已分配的序号数和本节点收到的消息数，
+ * 发现丢失时重建；重建完成前“一定不存在”的判定不再可信，一律返回“可能存在”，由数据库判断。
+ * 预热完成前、或关闭时，所有判断都返回“可能存在”，行为与没有过滤器一致。
+ * <p>
+ * 开启 Redis 共享后，重建结果保存到 Redis，其他节点启动或到期重建时直接加载快照，
+ * 只需补扫快照之后新增的行（按主键范围），避免每个节点都全表扫描。
+ */
+@Slf4j
+@Component
+public class UserExistenceFilter implements MessageListener {
+
+    private static final String ADD_CHANNEL = "user:filter:add";
+    private static final String SNAPSHOT_KEY = "user:filter:snapshot";
+    private static final String SEQ_KEY = "user:filter:seq";
+    private static final String MAX_ID_SQL = "SELECT COALESCE(MAX(id), 0) FROM users";
+    private static final String COUNT_SQL = "SELECT COUNT(*) FROM users";
+    private static final String SCAN_SQL = "SELECT username, email FROM users WHERE id > ?";
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final RedisScript<Long> PUBLISH_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/user_filter_add.lua"), Long.class);
+    // 发布失败待重发的消息上限，超出后丢弃，由其他节点的定期重建兜底
+    private static final int MAX_PENDING = 10_000;
+
+    /**
+     * 重建时回放这段时间内的新增，覆盖扫描开始时尚未提交的注册事务
+     */
+    private static final long RECENT_WINDOW_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final StringRedisTemplate redisTemplate;
+    private final boolean enabled;
+    private final double fpp;
+    private final double headroom;
+    private final boolean shared;
+    private final long rebuildIntervalMillis;
+
+    private volatile Filters current;
+    private volatile Filters building;
+    private final Deque<Recent> recent = new ConcurrentLinkedDeque<>();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final Deque<String> pending = new ConcurrentLinkedDeque<>();
+
+    // 同步检查：重建开始时 Redis 中的序号，之后收到的序号更大的消息数，上次检查时读到的序号
+    private volatile long baseSeq = -1;
+    private final LongAdder received = new LongAdder();
+    private volatile long checkedSeq = -1;
+    // 发现消息丢失后到重建完成前为 true
+    private volatile boolean stale;
+
+    // 指标
+    private final LongAdder definiteMisses = new LongAdder();
+    private final LongAdder maybeHits = new LongAdder();
+    private final LongAdder rebuilds = new LongAdder();
+    private final LongAdder snapshotLoads = new LongAdder();
+    private final LongAdder syncGaps = new LongAdder();
+    private volatile long lastRebuildMillis;
+
+    @Autowired
+    public UserExistenceFilter(DataSource dataSource,
+                               StringRedisTemplate redisTemplate,
+                               RedisMessageListenerContainer listenerContainer,
+                               @Value("${login.user-filter.enabled:true}") boolean enabled,
+                               @Value("${login.user-filter.fpp:0.01}") double fpp,
+                               @Value("${login.user-filter.headroom:1.5}") double headroom,
+                               @Value("${login.user-filter.fetch-size:-2147483648}") int fetchSize,
+                               @Value("${login.user-filter.redis-shared:false}") boolean shared,
+                               @Value("${login.user-filter.rebuild-interval-ms:21600000}") long rebuildIntervalMillis) {
+        this(streamingTemplate(dataSource, fetchSize), redisTemplate, listenerContainer, enabled, fpp, headroom,
+                shared, rebuildIntervalMillis);
+    }
+
+    UserExistenceFilter(JdbcTemplate jdbcTemplate, StringRedisTemplate redisTemplate,
+                        RedisMessageListenerContainer listenerContainer, boolean enabled, double fpp, double headroom,
+                        boolean shared, long rebuildIntervalMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.redisTemplate = redisTemplate;
+        this.enabled = enabled;
+        this.fpp = fpp;
+        this.headroom = headroom;
+        this.shared = shared;
+        this.rebuildIntervalMillis = rebuildIntervalMillis;
+        if (enabled) {
+            listenerContainer.addMessageListener(this, new ChannelTopic(ADD_CHANNEL));
+        }
+    }
+
+    /**
+     * 单独的 JdbcTemplate：MySQL 驱动下 fetchSize=Integer.MIN_VALUE 表示逐行流式读取，不把整表读进内存
+     */
+    private static JdbcTemplate streamingTemplate(DataSource dataSource, int fetchSize) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.setFetchSize(fetchSize);
+        return jdbcTemplate;
+    }
+
+    /**
+     * 用户名是否可能存在；返回 false 时一定不存在
+     */
+    public boolean mightContainUsername(String username) {
+        Filters filters = current;
+        if (filters == null || username == null || stale) {
+            return true;
+        }
+        return record(filters.usernames.mightContain(normalize(username)));
+    }
+
+    /**
+     * 邮箱是否可能已被使用；返回 false 时一定未被使用
+     */
+    public boolean mightContainEmail(String email) {
+        Filters filters = current;
+        if (filters == null || email == null || stale) {
+            return true;
+        }
+        return record(filters.emails.mightContain(normalize(email)));
+    }
+
+    /**
+     * 用户写入后调用：加入本节点过滤器并通知其他节点
+     */
+    public void add(String username, String email) {
+        if (!enabled) {
+            return;
+        }
+        addLocal(username, email);
+        publish(username + "\n" + (email == null ? "" : email));
+    }
+
+    /**
+     * 批量写入提交后调用，整批只发一条通知；消息按“用户名\n邮箱”逐对拼接，与单条新增格式兼容。
+     * 行已提交，不进入重建回放队列，百万级导入不会在内存中堆积
+     */
+    public void addAll(List<User> users) {
+        if (!enabled || users.isEmpty()) {
+            return;
+        }
+        StringBuilder body = new StringBuilder(users.size() * 48);
+        for (User user : users) {
+            addLocal(user.getUsername(), user.getEmail(), false);
+            if (body.length() > 0) {
+                body.append('\n');
+            }
+            body.append(user.getUsername()).append('\n').append(user.getEmail() == null ? "" : user.getEmail());
+        }
+        publish(body.toString());
+    }
+
+    /**
+     * 分配序号并发布；失败时留待同步检查重发，在此之前其他节点可能误判该用户不存在
+     */
+    private void publish(String body) {
+        try {
+            redisTemplate.execute(PUBLISH_SCRIPT, List.of(SEQ_KEY), ADD_CHANNEL, body);
+        } catch (RuntimeException e) {
+            if (pending.size() < MAX_PENDING) {
+                pending.addLast(body);
+            }
+            log.warn("用户过滤器新增同步失败，稍后重发: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] lines = new String(message.getBody(), StandardCharsets.UTF_8).split("\n", -1);
+        // 第一行是序号，之后每两行一对
+        if (Long.parseLong(lines[0]) > baseSeq) {
+            received.increment();
+        }
+        // 多对的消息只来自批量导入，行已提交
+        boolean remember = lines.length <= 3;
+        for (int i = 1; i < lines.length; i += 2) {
+            String email = i + 1 < lines.length ? lines[i + 1] : "";
+            addLocal(lines[i], email.isEmpty() ? null : email, remember);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${login.user-filter.rebuild-interval-ms:21600000}",
+            initialDelayString = "${login.user-filter.rebuild-interval-ms:21600000}")
+    public void scheduledRebuild() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    /**
+     * 比对 Redis 已分配的序号和本节点收到的消息数：上次检查时已分配的消息到现在应当全部送达，
+     * 少于该数量说明有消息丢失（订阅连接断开重连、发布后节点未收到），立即重建
+     */
+    @Scheduled(fixedDelayString = "${login.user-filter.sync-check-interval-ms:5000}")
+    public void checkSync() {
+        if (!enabled || current == null || rebuilding.get()) {
+            return;
+        }
+        long seq;
+        try {
+            retryPending();
+            seq = readSeq();
+        } catch (RuntimeException e) {
+            log.debug("用户过滤器同步检查失败: {}", e.getMessage());
+            return;
+        }
+        long base = baseSeq;
+        long previous = checkedSeq;
+        checkedSeq = seq;
+        // 重建时没读到序号、或序号键丢失（Redis 重启或淘汰），都无法确认期间的消息是否送达
+        boolean gap = base < 0 || seq < base || (previous >= base && received.sum() < previous - base);
+        if (gap) {
+            syncGaps.increment();
+            stale = true;
+            log.warn("用户过滤器同步消息丢失，重建前不再判定用户不存在: 序号={}, 基准={}, 收到={}",
+                    seq, base, received.sum());
+            rebuild();
+        }
+    }
+
+    private void retryPending() {
+        String body;
+        while ((body = pending.pollFirst()) != null) {
+            try {
+                redisTemplate.execute(PUBLISH_SCRIPT, List.of(SEQ_KEY), ADD_CHANNEL, body);
+            } catch (RuntimeException e) {
+                pending.addFirst(body);
+                throw e;
+            }
+        }
+    }
+
+    private long readSeq() {
+        String value = redisTemplate.opsForValue().get(SEQ_KEY);
+        return value == null ? 0 : Long.parseLong(value);
+    }
+
+    /**
+     * 重建过滤器；开启共享且 Redis 中的快照足够新时直接加载快照
+     */
+    public void rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            Snapshot snapshot = shared ? readSnapshot() : null;
+            boolean fromSnapshot = snapshot != null && start - snapshot.builtAt < rebuildIntervalMillis / 2;
+            Filters next;
+            if (fromSnapshot) {
+                next = snapshot.filters;
+            } else {
+                long expected = (long) (jdbcTemplate.queryForObject(COUNT_SQL, Long.class) * headroom) + 1000;
+                next = new Filters(new BloomFilter(expected, fpp), new BloomFilter(expected, fpp));
+            }
+            // 先发布 building，再读序号、最大 ID 和扫描，扫描期间的新增同时写入新旧两份；
+            // 序号之后的消息都会在新过滤器中，读取期间暂停计数，宁可少计触发多余的重建也不多计漏掉丢失
+            building = next;
+            baseSeq = Long.MAX_VALUE;
+            received.reset();
+            checkedSeq = -1;
+            try {
+                baseSeq = readSeq();
+            } catch (RuntimeException e) {
+                baseSeq = -1;
+                log.warn("读取用户过滤器同步序号失败，下次同步检查时重建: {}", e.getMessage());
+            }
+            long maxId = jdbcTemplate.queryForObject(MAX_ID_SQL, Long.class);
+            long fromId = fromSnapshot ? snapshot.maxId : 0;
+            LongAdder scanned = new LongAdder();
+            jdbcTemplate.query(SCAN_SQL, (RowCallbackHandler) rs -> {
+                next.usernames.put(normalize(rs.getString(1)));
+                next.emails.put(normalize(rs.getString(2)));
+                scanned.increment();
+            }, fromId);
+            replayRecent(next);
+            current = next;
+            building = null;
+            stale = false;
+            lastRebuildMillis = System.currentTimeMillis();
+            if (fromSnapshot) {
+                snapshotLoads.increment();
+            } else {
+                rebuilds.increment();
+                if (shared) {
+                    writeSnapshot(new Snapshot(next, maxId, start));
+                }
+            }
+            log.info("用户过滤器{}完成: 扫描行数={}, 位数={}, 填充率={}, 耗时={}ms",
+                    fromSnapshot ? "加载快照" : "重建", scanned.sum(), next.usernames.getBitCount(),
+                    String.format("%.3f", next.usernames.getFillRatio()), System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            // 失败时保留旧过滤器；从未成功过则一直判定“可能存在”
+            building = null;
+            log.error("用户过滤器重建失败", e);
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    private void addLocal(String username, String email) {
+        addLocal(username, email, true);
+    }
+
+    /**
+     * remember 为 false 表示行已经提交，之后开始的重建扫描一定能读到，不需要进入回放队列
+     */
+    private void addLocal(String username, String email, boolean remember) {
+        String normalizedUsername = username == null ? null : normalize(username);
+        String normalizedEmail = email == null ? null : normalize(email);
+        if (remember) {
+            long now = System.currentTimeMillis();
+            recent.addLast(new Recent(now, normalizedUsername, normalizedEmail));
+            while (!recent.isEmpty() && recent.peekFirst().time < now - RECENT_WINDOW_MILLIS) {
+                recent.pollFirst();
+            }
+        }
+        Filters filters = current;
+        if (filters != null) {
+            filters.add(normalizedUsername, normalizedEmail);
+        }
+        Filters next = building;
+        if (next != null) {
+            next.add(normalizedUsername, normalizedEmail);
+        }
+    }
+
+    private void replayRecent(Filters filters) {
+        for (Recent entry : recent) {
+            filters.add(entry.username, entry.email);
+        }
+    }
+
+    /**
+     * 与 MySQL 默认排序规则（大小写、重音不敏感，忽略尾部空格）对齐，避免把库中能查到的用户判定为不存在；
+     * 限流和失败计数的 Redis 键也按此规则生成，库中能查到同一账户的写法共用一个计数
+     */
+    public static String normalize(String value) {
+        String stripped = value.stripTrailing();
+        String decomposed = Normalizer.normalize(stripped, Normalizer.Form.NFD);
+        return COMBINING_MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    private boolean record(boolean maybe) {
+        if (maybe) {
+            maybeHits.increment();
+        } else {
+            definiteMisses.increment();
+        }
+        return maybe;
+    }
+
+    private Snapshot readSnapshot() {
+        try {
+            byte[] bytes = redisTemplate.execute((RedisCallback<byte[]>) connection ->
+                    connection.get(SNAPSHOT_KEY.getBytes(StandardCharsets.UTF_8)));
+            return bytes == null ? null : Snapshot.fromBytes(bytes);
+        } catch (RuntimeException e) {
+            log.warn("读取用户过滤器快照失败，改为扫描数据库: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeSnapshot(Snapshot snapshot) {
+        try {
+            byte[] bytes = snapshot.toBytes();
+            redisTemplate.execute((RedisCallback<Object>) connection ->
+                    connection.set(SNAPSHOT_KEY.getBytes(StandardCharsets.UTF_8), bytes,
+                            Expiration.milliseconds(rebuildIntervalMillis * 2),
+                            RedisStringCommands.SetOption.UPSERT));
+        } catch (RuntimeException e) {
+            log.warn("保存用户过滤器快照失败: {}", e.getMessage());
+        }
+    }
+
+    public boolean isReady() {
+        return current != null;
+    }
+
+    public long getDefiniteMissCount() {
+        return definiteMisses.sum();
+    }
+
+    public long getMaybeHitCount() {
+        return maybeHits.sum();
+    }
+
+    public long getRebuildCount() {
+        return rebuilds.sum();
+    }
+
+    public long getSnapshotLoadCount() {
+        return snapshotLoads.sum();
+    }
+
+    public long getSyncGapCount() {
+        return syncGaps.sum();
+    }
+
+    public boolean isStale() {
+        return stale;
+    }
+
+    public long getLastRebuildMillis() {
+        return lastRebuildMillis;
+    }
+
+    public double getFillRatio() {
+        Filters filters = current;
+        return filters == null ? 0 : filters.usernames.getFillRatio();
+    }
+
+    private static final class Filters {
+        final BloomFilter usernames;
+        final BloomFilter emails;
+
+        Filters(BloomFilter usernames, BloomFilter emails) {
+            this.usernames = usernames;
+            this.emails = emails;
+        }
+
+        void add(String username, String email) {
+            if (username != null) {
+                usernames.put(username);
+            }
+            if (email != null) {
+                emails.put(email);
+            }
+        }
+    }
+
+    private static final class Recent {
+        final long time;
+        final String username;
+        final String email;
+
+        Recent(long time, String username, String email) {
+            this.time = time;
+            this.username = username;
+            this.email = email;
+        }
+    }
+
+    /**
+     * Redis 快照：构建时间 + 扫描时的最大用户ID + 两个过滤器
+     */
+    private static final class Snapshot {
+        final Filters filters;
+        final long maxId;
+        final long builtAt;
+
+        Snapshot(Filters filters, long maxId, long builtAt) {
+            this.filters = filters;
+            this.maxId = maxId;
+            this.builtAt = builtAt;
+        }
+
+        byte[] toBytes() {
+            byte[] usernames = filters.usernames.toBytes();
+            byte[] emails = filters.emails.toBytes();
+            return ByteBuffer.allocate(8 + 8 + 4 + usernames.length + emails.length)
+                    .putLong(builtAt)
+                    .putLong(maxId)
+                    .putInt(usernames.length)
+                    .put(usernames)
+                    .put(emails)
+                    .array();
+        }
+
+        static Snapshot fromBytes(byte[] bytes) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            long builtAt = buffer.getLong();
+            long maxId = buffer.getLong();
+            int usernameLength = buffer.getInt();
+            int offset = buffer.position();
+            BloomFilter usernames = BloomFilter.fromBytes(Arrays.copyOfRange(bytes, offset, offset + usernameLength));
+            BloomFilter emails = BloomFilter.fromBytes(Arrays.copyOfRange(bytes, offset + usernameLength, bytes.length));
+            return new Snapshot(new Filters(usernames, emails), maxId, builtAt);
+        }
+    }
+}
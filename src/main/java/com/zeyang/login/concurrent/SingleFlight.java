@@ -0,0 +1,121 @@
+package com.zeyang.login.concurrent;
+
+import com.zeyang.login.exception.ServiceBusyException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 按键合并并发的相同计算：同一个键同时只有一个线程执行，其余线程等待并共享它的结果或异常
+ * <p>
+ * 结果不缓存，计算结束后下一次调用重新执行。
+ * 每个键的等待者数量有上限，等待也有超时，超出时抛出 {@link ServiceBusyException}，
+ * 避免一次慢计算挂住大量请求线程。
+ */
+public final class SingleFlight<K, V> {
+
+    private static final String BUSY_MESSAGE = "系统繁忙，请稍后再试";
+
+    private final ConcurrentMap<K, Call<V>> calls = new ConcurrentHashMap<>();
+    private final int maxWaiters;
+    private final long timeoutMillis;
+    private final long retryAfterSeconds;
+
+    // 指标
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+
+    public SingleFlight(int maxWaiters, long timeoutMillis, long retryAfterSeconds) {
+        this.maxWaiters = maxWaiters;
+        this.timeoutMillis = timeoutMillis;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public V execute(K key, Supplier<V> work) {
+        Call<V> mine = new Call<>();
+        Call<V> existing = calls.putIfAbsent(key, mine);
+        if (existing != null) {
+            return await(existing);
+        }
+        executions.increment();
+        try {
+            V value = work.get();
+            mine.future.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            mine.future.completeExceptionally(e);
+            throw e;
+        } finally {
+            calls.remove(key, mine);
+        }
+    }
+
+    private V await(Call<V> call) {
+        if (call.waiters.incrementAndGet() > maxWaiters) {
+            call.waiters.decrementAndGet();
+            rejected.increment();
+            throw new ServiceBusyException(BUSY_MESSAGE, retryAfterSeconds);
+        }
+        coalesced.increment();
+        try {
+            return call.future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            timedOut.increment();
+            throw new ServiceBusyException(BUSY_MESSAGE, retryAfterSeconds);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException(BUSY_MESSAGE, retryAfterSeconds);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        } finally {
+            call.waiters.decrementAndGet();
+        }
+    }
+
+    /**
+     * 实际执行的次数
+     */
+    public long getExecutionCount() {
+        return executions.sum();
+    }
+
+    /**
+     * 加入已有计算、没有重复执行的次数
+     */
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    public long getTimedOutCount() {
+        return timedOut.sum();
+    }
+
+    public int getInFlightCount() {
+        return calls.size();
+    }
+
+    private static final class Call<V> {
+        final CompletableFuture<V> future = new CompletableFuture<>();
+        final AtomicInteger waiters = new AtomicInteger();
+    }
+}
@@ -0,0 +1,303 @@
+package com.zeyang.login.concurrent;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 按字符串键分段加锁的定长计数表，用于 Redis 不可用时的本地失败计数和限流
+ * <p>
+ * 每个分段是一张线性探测的开放寻址表：键的哈希、键和若干 long 字段分别存放在数组中，
+ * 计数更新不创建对象，删除用后移法填补空位，不留墓碑。
+ * 每行带过期时间，过期行在访问时删除，分段满时先清理过期行，仍然满则在随机抽样的若干行中淘汰最久未访问的一行，
+ * 总条数不超过 maxEntries。
+ * 哈希带随机种子，无法通过构造用户名让大量键落入同一段探测序列。
+ * 分段锁用 ReentrantLock 而不是 synchronized，虚拟线程竞争锁时可以让出载体线程。
+ */
+public final class StripedCounterTable {
+
+    /**
+     * 在分段锁内对一行做读改写，返回值原样返回给调用方；created 表示该行是新建的，字段全为 0。
+     * 行的过期时间不晚于当前时间时，调用结束后该行被删除
+     */
+    public interface RowFunction {
+        long apply(Row row, boolean created);
+    }
+
+    public interface RowVisitor {
+        void visit(String key, Row row);
+    }
+
+    private static final int EXPIRES_AT = 0;
+    private static final int LAST_ACCESS = 1;
+    private static final int HEADER = 2;
+    private static final int EVICTION_SAMPLE = 8;
+    private static final long SWEEP_INTERVAL_MILLIS = 1000;
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    private final int width;
+    private final long seed = ThreadLocalRandom.current().nextLong();
+    private final LongAdder evictions = new LongAdder();
+
+    public StripedCounterTable(int maxEntries, int fields, int stripeCount) {
+        int count = 1;
+        while (count < stripeCount) {
+            count <<= 1;
+        }
+        this.stripes = new Stripe[count];
+        this.stripeMask = count - 1;
+        this.width = HEADER + fields;
+        int perStripe = Math.max(4, (maxEntries + count - 1) / count);
+        // 装载因子不超过 0.75
+        int capacity = 1;
+        while (capacity * 3 < perStripe * 4) {
+            capacity <<= 1;
+        }
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe(capacity, perStripe);
+        }
+    }
+
+    /**
+     * 对键所在的行执行 fn；行不存在且 create 为 false 时不调用 fn，返回 0
+     */
+    public long compute(String key, long now, boolean create, RowFunction fn) {
+        long hash = hash(key);
+        Stripe stripe = stripes[(int) (hash >>> 40) & stripeMask];
+        stripe.lock.lock();
+        try {
+            int slot = stripe.find(hash, key);
+            if (slot >= 0 && stripe.values[slot * width + EXPIRES_AT] <= now) {
+                stripe.remove(slot);
+                slot = -1;
+            }
+            boolean created = false;
+            if (slot < 0) {
+                if (!create) {
+                    return 0;
+                }
+                slot = stripe.insert(hash, key, now);
+                created = true;
+            }
+            stripe.values[slot * width + LAST_ACCESS] = now;
+            Row row = stripe.row.at(slot * width);
+            long result = fn.apply(row, created);
+            if (row.expiresAt() <= now) {
+                stripe.remove(slot);
+            }
+            return result;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    public void remove(String key) {
+        long hash = hash(key);
+        Stripe stripe = stripes[(int) (hash >>> 40) & stripeMask];
+        stripe.lock.lock();
+        try {
+            int slot = stripe.find(hash, key);
+            if (slot >= 0) {
+                stripe.remove(slot);
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * 逐行取出未过期的行交给 visitor，并从表中删除；用于把本地记录回灌到 Redis
+     */
+    public void drain(long now, RowVisitor visitor) {
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                for (int i = 0; i < stripe.keys.length; i++) {
+                    String key = stripe.keys[i];
+                    if (key == null) {
+                        continue;
+                    }
+                    if (stripe.values[i * width + EXPIRES_AT] > now) {
+                        visitor.visit(key, stripe.row.at(i * width));
+                    }
+                    // 后移删除可能把后面的行移到 i，重新检查这个位置
+                    stripe.remove(i);
+                    i--;
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                size += stripe.size;
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    private long hash(String key) {
+        long h = seed;
+        for (int i = 0; i < key.length(); i++) {
+            h = (h ^ key.charAt(i)) * 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * 一行的字段视图，只在 {@link RowFunction} 和 {@link RowVisitor} 回调内有效
+     */
+    public static final class Row {
+        private final long[] values;
+        private int base;
+
+        Row(long[] values) {
+            this.values = values;
+        }
+
+        Row at(int base) {
+            this.base = base;
+            return this;
+        }
+
+        public long get(int field) {
+            return values[base + HEADER + field];
+        }
+
+        public void set(int field, long value) {
+            values[base + HEADER + field] = value;
+        }
+
+        public long add(int field, long delta) {
+            return values[base + HEADER + field] += delta;
+        }
+
+        public long expiresAt() {
+            return values[base + EXPIRES_AT];
+        }
+
+        public void expireAt(long time) {
+            values[base + EXPIRES_AT] = time;
+        }
+    }
+
+    private final class Stripe {
+        final long[] hashes;
+        final String[] keys;
+        final long[] values;
+        final int mask;
+        final int maxSize;
+        final Row row;
+        final ReentrantLock lock = new ReentrantLock();
+        int size;
+        long lastSweep;
+
+        Stripe(int capacity, int maxSize) {
+            this.hashes = new long[capacity];
+            this.keys = new String[capacity];
+            this.values = new long[capacity * width];
+            this.mask = capacity - 1;
+            this.maxSize = maxSize;
+            this.row = new Row(values);
+        }
+
+        int find(long hash, String key) {
+            for (int i = (int) hash & mask; keys[i] != null; i = (i + 1) & mask) {
+                if (hashes[i] == hash && keys[i].equals(key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        int insert(long hash, String key, long now) {
+            if (size >= maxSize) {
+                makeRoom(now);
+            }
+            int i = (int) hash & mask;
+            while (keys[i] != null) {
+                i = (i + 1) & mask;
+            }
+            hashes[i] = hash;
+            keys[i] = key;
+            Arrays.fill(values, i * width, (i + 1) * width, 0L);
+            size++;
+            return i;
+        }
+
+        /**
+         * 删除后把同一探测序列中后面的行前移，保证查找不会在空位提前结束
+         */
+        void remove(int slot) {
+            int hole = slot;
+            for (int j = (slot + 1) & mask; keys[j] != null; j = (j + 1) & mask) {
+                int home = (int) hashes[j] & mask;
+                // 起始位置在 (hole, j] 之间的行不能前移到 hole
+                boolean stays = hole <= j ? hole < home && home <= j : hole < home || home <= j;
+                if (stays) {
+                    continue;
+                }
+                hashes[hole] = hashes[j];
+                keys[hole] = keys[j];
+                System.arraycopy(values, j * width, values, hole * width, width);
+                hole = j;
+            }
+            keys[hole] = null;
+            size--;
+        }
+
+        void makeRoom(long now) {
+            if (now - lastSweep >= SWEEP_INTERVAL_MILLIS) {
+                lastSweep = now;
+                for (int i = 0; i < keys.length; i++) {
+                    if (keys[i] != null && values[i * width + EXPIRES_AT] <= now) {
+                        remove(i);
+                        i--;
+                    }
+                }
+            }
+            if (size < maxSize) {
+                return;
+            }
+            // 近似 LRU：从随机位置起取若干行，淘汰其中最久未访问的
+            int victim = -1;
+            long oldest = Long.MAX_VALUE;
+            int sampled = 0;
+            int start = ThreadLocalRandom.current().nextInt(keys.length);
+            for (int n = 0; n < keys.length && sampled < EVICTION_SAMPLE; n++) {
+                int i = (start + n) & mask;
+                if (keys[i] == null) {
+                    continue;
+                }
+                sampled++;
+                long lastAccess = values[i * width + LAST_ACCESS];
+                if (lastAccess < oldest) {
+                    oldest = lastAccess;
+                    victim = i;
+                }
+            }
+            if (victim >= 0) {
+                remove(victim);
+                evictions.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.zeyang.login.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zeyang.login.datasource.ReplicaRoutingDataSource;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 读写分离（login.datasource.routing.enabled=true 时生效）
+ * <p>
+ * 主库沿用 spring.datasource 的配置，从库只需列出 JDBC URL，其余连接池参数复制主库并设为只读。
+ * 只读事务（@Transactional(readOnly = true) 和 Spring Data 的查询方法）走从库，其余走主库。
+ * 未开启时不注册任何数据源，仍由 Spring Boot 自动配置单个连接池。
+ */
+@Configuration
+@ConditionalOnProperty(name = "login.datasource.routing.enabled", havingValue = "true")
+public class DataSourceRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource routingDataSource(HikariDataSource primaryDataSource,
+                                                      @Value("${login.datasource.replicas:}") String[] replicaUrls,
+                                                      @Value("${login.datasource.replica-max-lag-seconds:2}") long maxLagSeconds,
+                                                      @Value("${login.datasource.health-check-timeout-seconds:2}") int timeoutSeconds) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (String url : replicaUrls) {
+            if (url.isBlank()) {
+                continue;
+            }
+            HikariConfig config = new HikariConfig();
+            primaryDataSource.copyStateTo(config);
+            String name = "replica-" + (replicas.size() + 1);
+            config.setPoolName(name);
+            config.setJdbcUrl(url.trim());
+            config.setReadOnly(true);
+            // 从库宕机不影响启动，由健康检查摘除
+            config.setInitializationFailTimeout(-1);
+            replicas.put(name, new HikariDataSource(config));
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, maxLagSeconds, timeoutSeconds);
+    }
+
+    /**
+     * JPA、JdbcTemplate 和各组件注入的都是这个数据源
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource routingDataSource) {
+        // 事务开始时不取物理连接，等第一条语句执行时只读标记已经设置好，才能路由到正确的库
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @Bean
+    public MeterBinder replicaRoutingMetrics(ReplicaRoutingDataSource routing) {
+        return registry -> {
+            FunctionCounter.builder("login.datasource.reads", routing, ReplicaRoutingDataSource::getReplicaReadCount)
+                    .tag("target", "replica").register(registry);
+            FunctionCounter.builder("login.datasource.reads", routing, ReplicaRoutingDataSource::getPinnedReadCount)
+                    .tag("target", "primary_pinned").register(registry);
+            FunctionCounter.builder("login.datasource.reads", routing, ReplicaRoutingDataSource::getFallbackReadCount)
+                    .tag("target", "primary_fallback").register(registry);
+            Gauge.builder("login.datasource.replicas.available", routing,
+                    ReplicaRoutingDataSource::getAvailableReplicaCount).register(registry);
+            routing.getReplicaLagSeconds().keySet().forEach(name ->
+                    Gauge.builder("login.datasource.replica.lag.seconds", routing,
+                                    r -> r.getReplicaLagSeconds().getOrDefault(name, -1L))
+                            .tag("replica", name).register(registry));
+        };
+    }
+}
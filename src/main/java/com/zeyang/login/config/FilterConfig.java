@@ -0,0 +1,41 @@
+package com.zeyang.login.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zeyang.login.filter.RateLimitFilter;
+import com.zeyang.login.filter.TraceIdFilter;
+import com.zeyang.login.service.RateLimiter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class FilterConfig {
+
+    /**
+     * 追踪 ID 过滤器最先执行，后续过滤器和限流拒绝的日志也带上追踪 ID
+     */
+    @Bean
+    public FilterRegistrationBean<TraceIdFilter> traceIdFilter() {
+        FilterRegistrationBean<TraceIdFilter> registration = new FilterRegistrationBean<>(new TraceIdFilter());
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    /**
+     * 认证接口限流，顺序排在 Spring Security 过滤器链之前
+     */
+    @Bean
+    @ConditionalOnProperty(name = "login.rate-limit.enabled", havingValue = "true", matchIfMissing = true)
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilter(RateLimiter rateLimiter, ObjectMapper objectMapper) {
+        FilterRegistrationBean<RateLimitFilter> registration =
+                new FilterRegistrationBean<>(new RateLimitFilter(rateLimiter, objectMapper));
+        registration.addUrlPatterns("/api/auth/*");
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 10);
+        return registration;
+    }
+}
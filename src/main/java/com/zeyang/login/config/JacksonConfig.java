@@ -0,0 +1,21 @@
+package com.zeyang.login.config;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Jackson 序列化配置
+ * <p>
+ * Spring Boot 会把容器中的 Module 注册到全局 ObjectMapper，Servlet 和 WebFlux 两个栈共用。
+ * 高频响应（AuthResponse、UserView）另有手写序列化器，其余 DTO 由 Blackbird 省去反射调用。
+ */
+@Configuration
+public class JacksonConfig {
+
+    @Bean
+    public Module blackbirdModule() {
+        return new BlackbirdModule();
+    }
+}
@@ -0,0 +1,172 @@
+package com.zeyang.login.config;
+
+import com.zeyang.login.cache.UserCache;
+import com.zeyang.login.cache.UserExistenceFilter;
+import com.zeyang.login.redis.RedisBatchExecutor;
+import com.zeyang.login.redis.RedisFailover;
+import com.zeyang.login.security.RedisSessionStore;
+import com.zeyang.login.service.AuthLogWriter;
+import com.zeyang.login.service.AuthStatsService;
+import com.zeyang.login.service.LocalLoginAttemptStore;
+import com.zeyang.login.service.LoginAttemptService;
+import com.zeyang.login.service.PasswordHashExecutor;
+import com.zeyang.login.service.RateLimiter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 把各组件已有的计数器注册到 Micrometer
+ * <p>
+ * 组件内部继续用 LongAdder 计数，这里只在抓取时读取，不改变热路径。
+ * Hikari、Lettuce、Tomcat 连接池和线程池的指标由 Actuator 自动注册。
+ * <p>
+ * 这些组件大多依赖 Redis 连接，而 Lettuce 指标又依赖注册表；如果声明成 MeterBinder，
+ * 会在注册表初始化时被创建，形成循环依赖，所以等所有单例创建完后再统一绑定。
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * 延迟绑定的指标，不实现 MeterBinder，避免被注册表初始化时提前取用
+     */
+    @FunctionalInterface
+    public interface LoginMetrics {
+        void bindTo(MeterRegistry registry);
+    }
+
+    @Bean
+    public SmartInitializingSingleton loginMetricsBinder(MeterRegistry registry, List<LoginMetrics> metrics) {
+        return () -> metrics.forEach(m -> m.bindTo(registry));
+    }
+
+    @Bean
+    public LoginMetrics authLogWriterMetrics(AuthLogWriter writer) {
+        return registry -> {
+            gauge(registry, "login.auth_log.queue.depth", writer, AuthLogWriter::getQueueDepth);
+            gauge(registry, "login.auth_log.queue.capacity", writer, AuthLogWriter::getQueueCapacity);
+            counter(registry, "login.auth_log.submitted", writer, AuthLogWriter::getSubmittedCount);
+            counter(registry, "login.auth_log.written", writer, AuthLogWriter::getWrittenCount);
+            counter(registry, "login.auth_log.dropped", writer, AuthLogWriter::getDroppedCount);
+            counter(registry, "login.auth_log.spilled", writer, AuthLogWriter::getSpilledCount);
+            counter(registry, "login.auth_log.flush.failed", writer, AuthLogWriter::getFailedFlushCount);
+            counter(registry, "login.auth_log.flush", writer, AuthLogWriter::getFlushCount);
+            gauge(registry, "login.auth_log.flush.last.seconds", writer, w -> w.getLastFlushNanos() / 1e9);
+            gauge(registry, "login.auth_log.flush.max.seconds", writer, w -> w.getFlushNanosMax() / 1e9);
+        };
+    }
+
+    @Bean
+    public LoginMetrics passwordHashMetrics(PasswordHashExecutor executor) {
+        return registry -> {
+            gauge(registry, "login.password_hash.threads", executor, PasswordHashExecutor::getThreads);
+            gauge(registry, "login.password_hash.active", executor, PasswordHashExecutor::getActiveCount);
+            gauge(registry, "login.password_hash.queue.depth", executor, PasswordHashExecutor::getQueueDepth);
+            gauge(registry, "login.password_hash.utilisation", executor, PasswordHashExecutor::getUtilisation);
+            counter(registry, "login.password_hash.submitted", executor, PasswordHashExecutor::getSubmittedCount);
+            counter(registry, "login.password_hash.completed", executor, PasswordHashExecutor::getCompletedCount);
+            counter(registry, "login.password_hash.rejected", executor, PasswordHashExecutor::getRejectedCount);
+            counter(registry, "login.password_hash.timed_out", executor, PasswordHashExecutor::getTimedOutCount);
+            counter(registry, "login.password_hash.coalesced", executor, PasswordHashExecutor::getCoalescedCount);
+            counter(registry, "login.password_hash.coalesce.rejected", executor,
+                    PasswordHashExecutor::getCoalesceRejectedCount);
+            gauge(registry, "login.password_hash.queue.wait.max.seconds", executor,
+                    e -> e.getQueueWaitNanosMax() / 1e9);
+        };
+    }
+
+    @Bean
+    public LoginMetrics userCacheMetrics(UserCache cache, UserExistenceFilter filter) {
+        return registry -> {
+            FunctionCounter.builder("login.user_cache.requests", cache, UserCache::getL1HitCount)
+                    .tag("result", "l1_hit").register(registry);
+            FunctionCounter.builder("login.user_cache.requests", cache, UserCache::getL2HitCount)
+                    .tag("result", "l2_hit").register(registry);
+            FunctionCounter.builder("login.user_cache.requests", cache, UserCache::getNegativeHitCount)
+                    .tag("result", "negative_hit").register(registry);
+            FunctionCounter.builder("login.user_cache.requests", cache, UserCache::getMissCount)
+                    .tag("result", "miss").register(registry);
+            counter(registry, "login.user_cache.loads", cache, UserCache::getLoadCount);
+            counter(registry, "login.user_cache.loads.coalesced", cache, UserCache::getCoalescedLoadCount);
+            counter(registry, "login.user_cache.loads.coalesce.rejected", cache, UserCache::getCoalesceRejectedCount);
+            counter(registry, "login.user_cache.redis.errors", cache, UserCache::getRedisErrorCount);
+            counter(registry, "login.user_cache.evictions", cache, UserCache::getEvictionCount);
+            gauge(registry, "login.user_cache.local.size", cache, UserCache::getLocalSize);
+
+            gauge(registry, "login.user_filter.ready", filter, f -> f.isReady() ? 1 : 0);
+            gauge(registry, "login.user_filter.fill_ratio", filter, UserExistenceFilter::getFillRatio);
+            counter(registry, "login.user_filter.definite_miss", filter, UserExistenceFilter::getDefiniteMissCount);
+            counter(registry, "login.user_filter.maybe_hit", filter, UserExistenceFilter::getMaybeHitCount);
+            counter(registry, "login.user_filter.rebuilds", filter, UserExistenceFilter::getRebuildCount);
+            counter(registry, "login.user_filter.sync_gaps", filter, UserExistenceFilter::getSyncGapCount);
+            gauge(registry, "login.user_filter.stale", filter, f -> f.isStale() ? 1 : 0);
+        };
+    }
+
+    @Bean
+    public LoginMetrics redisBatchMetrics(RedisBatchExecutor executor) {
+        return registry -> {
+            counter(registry, "login.redis.batch", executor, RedisBatchExecutor::getBatchCount);
+            counter(registry, "login.redis.batch.commands", executor, RedisBatchExecutor::getCommandCount);
+            counter(registry, "login.redis.batch.failed", executor, RedisBatchExecutor::getFailureCount);
+        };
+    }
+
+    @Bean
+    public LoginMetrics redisFailoverMetrics(RedisFailover failover, LocalLoginAttemptStore localStore) {
+        return registry -> {
+            gauge(registry, "login.failover.down", failover, f -> f.isDown() ? 1 : 0);
+            counter(registry, "login.failover.failovers", failover, RedisFailover::getFailoverCount);
+            counter(registry, "login.failover.recoveries", failover, RedisFailover::getRecoveryCount);
+            gauge(registry, "login.failover.attempts.size", localStore, LocalLoginAttemptStore::size);
+            counter(registry, "login.failover.attempts.evictions", localStore, LocalLoginAttemptStore::getEvictionCount);
+        };
+    }
+
+    @Bean
+    public LoginMetrics sessionAndLimiterMetrics(RedisSessionStore sessionStore, RateLimiter rateLimiter,
+                                                LoginAttemptService loginAttemptService,
+                                                AuthStatsService authStatsService) {
+        return registry -> {
+            counter(registry, "login.session.near_hit", sessionStore, RedisSessionStore::getNearHitCount);
+            counter(registry, "login.session.redis_read", sessionStore, RedisSessionStore::getRedisReadCount);
+            counter(registry, "login.session.touch", sessionStore, RedisSessionStore::getTouchCount);
+            counter(registry, "login.session.invalidation", sessionStore, RedisSessionStore::getInvalidationCount);
+            gauge(registry, "login.session.near_cache.size", sessionStore, RedisSessionStore::getNearCacheSize);
+
+            FunctionCounter.builder("login.rate_limit.requests", rateLimiter, RateLimiter::getAllowedCount)
+                    .tag("result", "allowed").register(registry);
+            FunctionCounter.builder("login.rate_limit.requests", rateLimiter, RateLimiter::getRejectedLocalCount)
+                    .tag("result", "rejected_local").register(registry);
+            FunctionCounter.builder("login.rate_limit.requests", rateLimiter, RateLimiter::getRejectedRedisCount)
+                    .tag("result", "rejected_redis").register(registry);
+            FunctionCounter.builder("login.rate_limit.requests", rateLimiter, RateLimiter::getAllowedFailoverCount)
+                    .tag("result", "allowed_failover").register(registry);
+            FunctionCounter.builder("login.rate_limit.requests", rateLimiter, RateLimiter::getRejectedFailoverCount)
+                    .tag("result", "rejected_failover").register(registry);
+            counter(registry, "login.rate_limit.redis.errors", rateLimiter, RateLimiter::getRedisErrorCount);
+            gauge(registry, "login.rate_limit.failover.size", rateLimiter, RateLimiter::getFailoverEntries);
+
+            counter(registry, "login.attempt.fallback", loginAttemptService, LoginAttemptService::getFallbackCount);
+            counter(registry, "login.attempt.local", loginAttemptService, LoginAttemptService::getLocalRecordCount);
+            counter(registry, "login.attempt.reconciled", loginAttemptService, LoginAttemptService::getReconciledCount);
+
+            counter(registry, "login.stats.recorded", authStatsService, AuthStatsService::getRecordedCount);
+            counter(registry, "login.stats.dropped", authStatsService, AuthStatsService::getDroppedEventCount);
+        };
+    }
+
+    private static <T> void gauge(MeterRegistry registry, String name, T target, ToDoubleFunction<T> value) {
+        Gauge.builder(name, target, value).register(registry);
+    }
+
+    private static <T> void counter(MeterRegistry registry, String name, T target, ToDoubleFunction<T> value) {
+        FunctionCounter.builder(name, target, value).register(registry);
+    }
+}
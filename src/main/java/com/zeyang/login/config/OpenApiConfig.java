@@ -4,10 +4,12 @@ import io.swagger.v3.oas.models.OpenAPI;
 import io.swagger.v3.oas.models.info.Info;
 import io.swagger.v3.oas.models.info.License;
 import io.swagger.v3.oas.models.security.SecurityScheme;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration      //用于标记一个类为配置类
+@ConditionalOnProperty(name = "springdoc.api-docs.enabled", matchIfMissing = true)     // fast-start 配置关闭文档时不创建
 public class OpenApiConfig {
     
     @Bean
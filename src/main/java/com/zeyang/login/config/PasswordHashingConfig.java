@@ -0,0 +1,41 @@
+package com.zeyang.login.config;
+
+import com.zeyang.login.security.Argon2Hasher;
+import com.zeyang.login.security.BCryptHasher;
+import com.zeyang.login.security.PasswordHashingEngine;
+import com.zeyang.login.security.Pbkdf2Hasher;
+import com.zeyang.login.security.Sha256LegacyHasher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.charset.Charset;
+import java.util.List;
+
+@Configuration
+public class PasswordHashingConfig {
+
+    @Bean
+    public PasswordHashingEngine passwordHashingEngine(
+            @Value("${login.password.algorithm:bcrypt}") String algorithm,
+            @Value("${login.password.bcrypt.strength:10}") int bcryptStrength,
+            @Value("${login.password.pbkdf2.iterations:310000}") int pbkdf2Iterations,
+            @Value("${login.password.argon2.iterations:2}") int argon2Iterations,
+            @Value("${login.password.argon2.memory-kb:19456}") int argon2MemoryKb,
+            @Value("${login.password.argon2.parallelism:1}") int argon2Parallelism,
+            @Value("${login.password.legacy-charset:}") String legacyCharset,
+            @Value("${login.password.calibrate:false}") boolean calibrate,
+            @Value("${login.password.calibrate-target-ms:250}") long calibrateTargetMillis) {
+        PasswordHashingEngine engine = new PasswordHashingEngine(List.of(
+                new BCryptHasher(bcryptStrength),
+                new Pbkdf2Hasher(pbkdf2Iterations),
+                new Argon2Hasher(argon2Iterations, argon2MemoryKb, argon2Parallelism),
+                legacyCharset.isBlank() ? new Sha256LegacyHasher() : new Sha256LegacyHasher(Charset.forName(legacyCharset))
+        ), algorithm);
+        // 按本机 CPU 选择工作因子，配置值作为下限
+        if (calibrate) {
+            engine.calibrate(calibrateTargetMillis);
+        }
+        return engine;
+    }
+}
@@ -1,32 +1,102 @@
 package com.zeyang.login.config;
 
+import com.zeyang.login.filter.RedisSessionAuthenticationFilter;
+import com.zeyang.login.filter.TokenAuthenticationFilter;
+import com.zeyang.login.security.AccessRules;
+import com.zeyang.login.security.AuthMode;
+import com.zeyang.login.security.PasswordHashingEngine;
+import com.zeyang.login.security.RedisSessionStore;
+import com.zeyang.login.security.TokenService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
-import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+
+import javax.servlet.http.HttpServletRequest;
 
 @Configuration
 @EnableWebSecurity
-public class SecurityConfig extends WebSecurityConfigurerAdapter {
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class SecurityConfig {
+    
+    private final TokenService tokenService;
+    private final RedisSessionStore redisSessionStore;
+    private final AccessRules accessRules;
+    private final AuthMode authMode;
+    private final int managementPort;
+    
+    private static final AntPathRequestMatcher PROMETHEUS = new AntPathRequestMatcher("/actuator/prometheus");
+    
+    @Autowired
+    public SecurityConfig(TokenService tokenService, RedisSessionStore redisSessionStore, AccessRules accessRules,
+                          @Value("${login.auth.mode:SESSION}") AuthMode authMode,
+                          @Value("${management.server.port:-1}") int managementPort) {
+        this.tokenService = tokenService;
+        this.redisSessionStore = redisSessionStore;
+        this.accessRules = accessRules;
+        this.authMode = authMode;
+        this.managementPort = managementPort;
+    }
     
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(PasswordHashingEngine passwordHashingEngine) {
+        return passwordHashingEngine.asPasswordEncoder();
     }
     
-    @Override
-    protected void configure(HttpSecurity http) throws Exception {
+    @Bean
+    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
             .authorizeRequests()
                 .antMatchers("/api/auth/**").permitAll()
                 .antMatchers("/swagger-ui/**", "/v3/api-docs/**").permitAll()
+                .antMatchers("/actuator/health").permitAll()
+                // 指标只在独立的管理端口上免认证抓取，业务端口上需要管理员
+                .requestMatchers(request -> isInternalScrape(request, managementPort)).permitAll()
+                .antMatchers("/actuator/**").hasRole(AccessRules.ADMIN)
+                // 登录日志含其他用户的 IP 和 UA：普通用户只能查自己的，范围查询和导出只对管理员开放
+                .antMatchers("/api/auth-logs/users/{userId}")
+                    .access("hasRole('" + AccessRules.ADMIN + "') or @accessRules.isUser(authentication, #userId)")
+                .antMatchers("/api/auth-logs/**").hasRole(AccessRules.ADMIN)
+                // 排行中是具体的 IP 和用户ID
+                .antMatchers("/api/stats/top").hasRole(AccessRules.ADMIN)
+                // 创建用户和批量导入只对管理员开放，普通注册走 /api/auth/register
+                .antMatchers(HttpMethod.POST, "/api/users/**").hasRole(AccessRules.ADMIN)
                 .anyRequest().authenticated()
             .and()
             .formLogin().disable()
             .httpBasic().disable()
             .csrf().disable();
+        
+        if (authMode == AuthMode.TOKEN) {
+            // 令牌模式不创建 HttpSession，每个请求由令牌过滤器在本地完成认证
+            http
+                .sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS)
+            .and()
+                .addFilterBefore(new TokenAuthenticationFilter(tokenService, accessRules), UsernamePasswordAuthenticationFilter.class);
+        } else if (authMode == AuthMode.REDIS_SESSION) {
+            // 会话保存在 Redis，不使用容器会话
+            http
+                .sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS)
+            .and()
+                .addFilterBefore(new RedisSessionAuthenticationFilter(redisSessionStore, accessRules),
+                        UsernamePasswordAuthenticationFilter.class);
+        }
+        return http.build();
+    }
+    
+    /**
+     * 配置了 management.server.port 时，该端口只在内网开放，Prometheus 从这里抓取不需要认证
+     */
+    static boolean isInternalScrape(HttpServletRequest request, int managementPort) {
+        return managementPort > 0 && request.getLocalPort() == managementPort && PROMETHEUS.matches(request);
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,112 @@
+package com.zeyang.login.config;
+
+import com.zeyang.login.security.PasswordHashingEngine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+import javax.annotation.PostConstruct;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 启动相关配置
+ * <p>
+ * fast-start 配置开启懒加载时，定时任务、启动钩子和 Redis 订阅所在的 bean 仍然在启动时创建，
+ * 否则它们要等到第一次被注入才生效，跨节点的缓存失效和令牌吊销消息会在这之前丢失。
+ * 就绪后按阶段输出启动耗时，数据来自 {@link com.zeyang.login.LoginApplication} 中注册的 {@link BufferingApplicationStartup}。
+ */
+@Slf4j
+@Configuration
+public class StartupConfig {
+
+    private static final int REPORT_TOP = 10;
+    private static final String BEAN_INSTANTIATE = "spring.beans.instantiate";
+
+    @Value("${login.startup.report:true}")
+    private boolean report;
+
+    @Bean
+    public static LazyInitializationExcludeFilter eagerStartupBeans() {
+        return (beanName, beanDefinition, beanType) -> isEager(beanType);
+    }
+
+    static boolean isEager(Class<?> beanType) {
+        // 哈希引擎可能在创建时校准工作因子，不能推迟到第一次登录
+        if (MessageListener.class.isAssignableFrom(beanType) || PasswordHashingEngine.class.isAssignableFrom(beanType)) {
+            return true;
+        }
+        for (Method method : ReflectionUtils.getUniqueDeclaredMethods(ClassUtils.getUserClass(beanType))) {
+            if (AnnotatedElementUtils.hasAnnotation(method, Scheduled.class)
+                    || AnnotatedElementUtils.hasAnnotation(method, PostConstruct.class)
+                    || AnnotatedElementUtils.hasAnnotation(method, EventListener.class)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reportStartup(ApplicationReadyEvent event) {
+        if (!report || !(event.getApplicationContext().getApplicationStartup() instanceof BufferingApplicationStartup)) {
+            return;
+        }
+        StartupTimeline timeline =
+                ((BufferingApplicationStartup) event.getApplicationContext().getApplicationStartup()).getBufferedTimeline();
+        long jvmStart = ManagementFactory.getRuntimeMXBean().getStartTime();
+        long mainStart = timeline.getStartTime().toEpochMilli();
+        long now = System.currentTimeMillis();
+
+        Map<String, Long> phases = new HashMap<>();
+        List<StartupTimeline.TimelineEvent> beans = new ArrayList<>();
+        for (StartupTimeline.TimelineEvent e : timeline.getEvents()) {
+            if (BEAN_INSTANTIATE.equals(e.getStartupStep().getName())) {
+                beans.add(e);
+            } else {
+                phases.merge(e.getStartupStep().getName(), e.getDuration().toMillis(), Long::sum);
+            }
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("启动耗时: JVM 到 main ").append(mainStart - jvmStart).append(" ms, main 到就绪 ")
+                .append(now - mainStart).append(" ms, 合计 ").append(now - jvmStart).append(" ms");
+        sb.append("\n  阶段（同名步骤累加，外层包含内层）:");
+        phases.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(REPORT_TOP)
+                .forEach(p -> sb.append("\n    ").append(p.getKey()).append(' ').append(p.getValue()).append(" ms"));
+        sb.append("\n  最慢的 bean（含依赖的创建时间）:");
+        beans.stream()
+                .sorted(Comparator.comparing(StartupTimeline.TimelineEvent::getDuration).reversed())
+                .limit(REPORT_TOP)
+                .forEach(b -> sb.append("\n    ").append(beanName(b.getStartupStep()))
+                        .append(' ').append(b.getDuration().toMillis()).append(" ms"));
+        log.info(sb.toString());
+    }
+
+    private static String beanName(StartupStep step) {
+        for (StartupStep.Tag tag : step.getTags()) {
+            if ("beanName".equals(tag.getKey())) {
+                return tag.getValue();
+            }
+        }
+        return step.getName();
+    }
+}
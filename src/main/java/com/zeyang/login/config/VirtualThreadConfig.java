@@ -0,0 +1,42 @@
+package com.zeyang.login.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.util.concurrent.Executors;
+
+/**
+ * 虚拟线程模式（login.virtual-threads.enabled=true 时生效）
+ * <p>
+ * Tomcat 请求线程和 MVC 异步任务（流式导出）改为每个任务一个虚拟线程，
+ * 阻塞在 JDBC、Redis 上的请求不再占用平台线程，并发量不再受 server.tomcat.threads.max 限制。
+ * 此时真正的并发上限是 Hikari 连接池（等待超过 connection-timeout 即失败）和密码哈希线程池（队列满返回 503），
+ * 这两个池仍使用平台线程，起到信号量的作用；Lettuce 单连接多路复用，不需要额外限制。
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "login.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        log.info("Tomcat 请求使用虚拟线程处理");
+        return protocolHandler -> protocolHandler.setExecutor(
+                Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("http-vt-", 0).factory()));
+    }
+
+    /**
+     * 替换默认的 applicationTaskExecutor，MVC 异步请求和 @Async 任务都运行在虚拟线程上
+     */
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME, "taskExecutor"})
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        return new TaskExecutorAdapter(
+                Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("task-vt-", 0).factory()));
+    }
+}
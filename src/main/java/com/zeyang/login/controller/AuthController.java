@@ -2,11 +2,30 @@ package com.zeyang.login.controller;
 
 import com.zeyang.login.dto.AuthResponse;
 import com.zeyang.login.dto.LoginRequest;
+import com.zeyang.login.dto.RefreshRequest;
 import com.zeyang.login.dto.RegisterRequest;
 import com.zeyang.login.entity.User;
+import com.zeyang.login.entity.UserStatus;
+import com.zeyang.login.exception.AuthException;
+import com.zeyang.login.exception.GlobalExceptionHandler;
+import com.zeyang.login.filter.RedisSessionAuthenticationFilter;
+import com.zeyang.login.redis.RedisBatch;
+import com.zeyang.login.redis.RedisBatchExecutor;
+import com.zeyang.login.security.AuthMode;
+import com.zeyang.login.security.RedisSessionStore;
+import com.zeyang.login.security.SessionRecord;
+import com.zeyang.login.security.TokenPrincipal;
+import com.zeyang.login.security.TokenService;
+import com.zeyang.login.service.AuthResult;
 import com.zeyang.login.service.AuthService;
+import com.zeyang.login.service.LoginMetrics;
+import com.zeyang.login.service.LoginMetrics.Stage;
 import com.zeyang.login.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -18,16 +37,34 @@ import javax.servlet.http.HttpSession;
 import javax.validation.Valid;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/api/auth")
 public class AuthController {
     
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final String REFRESH_TOKEN_HEADER = "X-Refresh-Token";
+    
     private final UserService userService;
     private final AuthService authService;
+    private final TokenService tokenService;
+    private final RedisSessionStore redisSessionStore;
+    private final AuthMode authMode;
+    private final LoginMetrics loginMetrics;
+    private final RedisBatchExecutor redisBatchExecutor;
     
     @Autowired
-    public AuthController(UserService userService, AuthService authService) {
+    public AuthController(UserService userService, AuthService authService, TokenService tokenService,
+                          RedisSessionStore redisSessionStore,
+                          @Value("${login.auth.mode:SESSION}") AuthMode authMode,
+                          LoginMetrics loginMetrics,
+                          RedisBatchExecutor redisBatchExecutor) {
         this.userService = userService;
         this.authService = authService;
+        this.tokenService = tokenService;
+        this.redisSessionStore = redisSessionStore;
+        this.authMode = authMode;
+        this.loginMetrics = loginMetrics;
+        this.redisBatchExecutor = redisBatchExecutor;
     }
     
     @PostMapping("/register")
@@ -47,9 +84,58 @@ public class AuthController {
     }
     
     @PostMapping("/login")
-    public ResponseEntity<AuthResponse> login(@Valid @RequestBody LoginRequest request, 
-                                             HttpServletRequest servletRequest) {
-        User user = authService.login(request.getUsername(), request.getPassword(), servletRequest);
+    public ResponseEntity<?> login(@Valid @RequestBody LoginRequest request, 
+                                   HttpServletRequest servletRequest) {
+        // 登录成功后的 Redis 写入（清除失败计数、会话或刷新令牌）攒在一起，只用一次往返
+        RedisBatch batch = redisBatchExecutor.newBatch();
+        AuthResult result = authService.authenticate(request.getUsername(), request.getPassword(), servletRequest, batch);
+        if (!result.isSuccess()) {
+            // 预期内的失败直接写出响应，不抛异常
+            return GlobalExceptionHandler.toResponse(result.getError());
+        }
+        
+        long start = System.nanoTime();
+        try {
+            return issue(result.getUser(), servletRequest, batch);
+        } finally {
+            loginMetrics.record(Stage.SESSION, start);
+        }
+    }
+    
+    /**
+     * 按认证方式创建会话或签发令牌，响应返回前执行批次
+     */
+    private ResponseEntity<AuthResponse> issue(User user, HttpServletRequest servletRequest, RedisBatch batch) {
+        if (authMode == AuthMode.TOKEN) {
+            // 签发访问令牌和刷新令牌，不创建会话
+            String refreshToken = tokenService.createRefreshToken(user, batch);
+            batch.execute();
+            return ResponseEntity.ok(new AuthResponse(
+                    tokenService.createAccessToken(user),
+                    user.getUsername(),
+                    "登录成功",
+                    refreshToken
+            ));
+        }
+        
+        if (authMode == AuthMode.REDIS_SESSION) {
+            // 会话写入 Redis，会话ID 同时通过 Cookie 和响应体返回
+            String sessionId = redisSessionStore.create(user, batch);
+            batch.execute();
+            ResponseCookie cookie = ResponseCookie.from(RedisSessionAuthenticationFilter.SESSION_COOKIE, sessionId)
+                    .httpOnly(true)
+                    .path("/")
+                    .sameSite("Lax")
+                    .build();
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.SET_COOKIE, cookie.toString())
+                    .body(new AuthResponse(sessionId, user.getUsername(), "登录成功"));
+        }
+        
+        // 批次中只有清除失败计数，失败不影响登录；改为单独清除，仍然失败时切换到本地存储
+        if (!batch.tryExecute()) {
+            authService.resetFailedAttempts(user);
+        }
         
         // 创建会话
         HttpSession session = servletRequest.getSession(true);
@@ -63,8 +149,49 @@ public class AuthController {
         ));
     }
     
+    @PostMapping("/refresh")
+    public ResponseEntity<AuthResponse> refresh(@Valid @RequestBody RefreshRequest request) {
+        // 刷新令牌只能使用一次，每次刷新都轮换
+        Long userId = tokenService.consumeRefreshToken(request.getRefreshToken());
+        User user = userId == null ? null : userService.getUserById(userId).orElse(null);
+        if (user == null || user.getStatus() != UserStatus.ACTIVE) {
+            throw AuthException.INVALID_REFRESH_TOKEN;
+        }
+        
+        return ResponseEntity.ok(new AuthResponse(
+                tokenService.createAccessToken(user),
+                user.getUsername(),
+                "刷新成功",
+                tokenService.createRefreshToken(user)
+        ));
+    }
+    
     @PostMapping("/logout")
     public ResponseEntity<AuthResponse> logout(HttpServletRequest request) {
+        if (authMode == AuthMode.TOKEN) {
+            logoutToken(request);
+        } else if (authMode == AuthMode.REDIS_SESSION) {
+            logoutRedisSession(request);
+            ResponseCookie cookie = ResponseCookie.from(RedisSessionAuthenticationFilter.SESSION_COOKIE, "")
+                    .httpOnly(true)
+                    .path("/")
+                    .maxAge(0)
+                    .build();
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.SET_COOKIE, cookie.toString())
+                    .body(new AuthResponse(null, null, "已成功退出登录"));
+        } else {
+            logoutSession(request);
+        }
+        
+        return ResponseEntity.ok(new AuthResponse(
+                null,
+                null,
+                "已成功退出登录"
+        ));
+    }
+    
+    private void logoutSession(HttpServletRequest request) {
         HttpSession session = request.getSession(false);
         if (session != null) {
             Long userId = (Long) session.getAttribute("USER_ID");
@@ -79,11 +206,37 @@ public class AuthController {
             
             session.invalidate();
         }
+    }
+    
+    private void logoutRedisSession(HttpServletRequest request) {
+        String sessionId = RedisSessionAuthenticationFilter.resolveSessionId(request);
+        if (sessionId == null) {
+            return;
+        }
+        SessionRecord record = redisSessionStore.get(sessionId);
+        if (record != null) {
+            userService.findByUsername(record.getUsername())
+                    .ifPresent(user -> authService.logout(user, request));
+        }
+        redisSessionStore.delete(sessionId);
+    }
+    
+    private void logoutToken(HttpServletRequest request) {
+        String refreshToken = request.getHeader(REFRESH_TOKEN_HEADER);
+        if (refreshToken != null) {
+            tokenService.revokeRefreshToken(refreshToken);
+        }
         
-        return ResponseEntity.ok(new AuthResponse(
-                null,
-                null,
-                "已成功退出登录"
-        ));
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.startsWith(BEARER_PREFIX)) {
+            return;
+        }
+        TokenPrincipal principal = tokenService.parseAccessToken(header.substring(BEARER_PREFIX.length()));
+        if (principal != null) {
+            // 访问令牌加入黑名单，直到其自然过期
+            tokenService.revokeAccessToken(principal);
+            userService.findByUsername(principal.getUsername())
+                    .ifPresent(user -> authService.logout(user, request));
+        }
     }
-} 
\ No newline at end of file
+}
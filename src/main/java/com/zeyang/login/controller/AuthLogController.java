@@ -0,0 +1,82 @@
+package com.zeyang.login.controller;
+
+import com.zeyang.login.dto.AuthLogPage;
+import com.zeyang.login.service.AuthLogQueryService;
+import com.zeyang.login.service.AuthLogQueryService.ExportFormat;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+@Tag(name = "登录日志", description = "登录日志查询与导出接口")
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/api/auth-logs")
+public class AuthLogController {
+
+    private final AuthLogQueryService authLogQueryService;
+
+    @Autowired
+    public AuthLogController(AuthLogQueryService authLogQueryService) {
+        this.authLogQueryService = authLogQueryService;
+    }
+
+    @Operation(summary = "用户登录日志", description = "按时间倒序分页，下一页传入上一页返回的 nextCursor")
+    @GetMapping("/users/{userId}")
+    public ResponseEntity<AuthLogPage> pageByUser(@PathVariable Long userId,
+                                                  @RequestParam(required = false) String cursor,
+                                                  @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(authLogQueryService.pageByUser(userId, cursor, limit));
+    }
+
+    @Operation(summary = "时间范围内的登录日志", description = "范围为 [start, end)，按时间正序分页")
+    @GetMapping
+    public ResponseEntity<AuthLogPage> pageByRange(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(authLogQueryService.pageByRange(start, end, cursor, limit));
+    }
+
+    @Operation(summary = "导出登录日志", description = "流式导出 [start, end) 内的日志，格式为 ndjson 或 csv")
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(defaultValue = "ndjson") String format) {
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("不支持的导出格式: " + format);
+        }
+        // 响应头发出后无法再返回错误，参数在开始写流之前校验
+        if (!start.isBefore(end)) {
+            throw new RuntimeException("时间范围无效");
+        }
+        MediaType mediaType = exportFormat == ExportFormat.CSV
+                ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                : new MediaType("application", "x-ndjson");
+        String filename = "auth-logs." + exportFormat.name().toLowerCase();
+        StreamingResponseBody body = out -> authLogQueryService.export(start, end, userId, exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(mediaType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(body);
+    }
+}
@@ -0,0 +1,77 @@
+package com.zeyang.login.controller;
+
+import com.zeyang.login.dto.StatsBucket;
+import com.zeyang.login.dto.StatsTopEntry;
+import com.zeyang.login.dto.StatsUniqueCounts;
+import com.zeyang.login.entity.AuthAction;
+import com.zeyang.login.service.AuthStatsService;
+import com.zeyang.login.service.AuthStatsService.Dimension;
+import com.zeyang.login.service.AuthStatsService.Granularity;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Tag(name = "登录统计", description = "预聚合的登录统计接口")
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/api/stats")
+public class StatsController {
+
+    private final AuthStatsService authStatsService;
+
+    @Autowired
+    public StatsController(AuthStatsService authStatsService) {
+        this.authStatsService = authStatsService;
+    }
+
+    @Operation(summary = "登录次数", description = "[from, to) 内按分钟、小时或天分桶的成功、失败、登出次数")
+    @GetMapping("/counts")
+    public ResponseEntity<List<StatsBucket>> counts(
+            @RequestParam(defaultValue = "hour") String granularity,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return ResponseEntity.ok(authStatsService.counts(parse(Granularity.class, granularity), from, to));
+    }
+
+    @Operation(summary = "独立 IP 与独立用户数", description = "[from, to) 内的近似去重计数")
+    @GetMapping("/unique")
+    public ResponseEntity<StatsUniqueCounts> unique(
+            @RequestParam(defaultValue = "hour") String granularity,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return ResponseEntity.ok(authStatsService.unique(parse(Granularity.class, granularity), from, to));
+    }
+
+    @Operation(summary = "高频 IP 或用户", description = "time 所在小时或天内某动作次数最多的 IP 或用户")
+    @GetMapping("/top")
+    public ResponseEntity<List<StatsTopEntry>> top(
+            @RequestParam(defaultValue = "ip") String dimension,
+            @RequestParam(defaultValue = "login_failure") String action,
+            @RequestParam(defaultValue = "hour") String granularity,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime time,
+            @RequestParam(defaultValue = "10") int limit) {
+        if (limit <= 0) {
+            throw new RuntimeException("limit 必须大于 0");
+        }
+        return ResponseEntity.ok(authStatsService.top(parse(Dimension.class, dimension),
+                parse(AuthAction.class, action), parse(Granularity.class, granularity), time, limit));
+    }
+
+    private static <E extends Enum<E>> E parse(Class<E> type, String value) {
+        try {
+            return Enum.valueOf(type, value.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("不支持的参数值: " + value);
+        }
+    }
+}
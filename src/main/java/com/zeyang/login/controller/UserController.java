@@ -1,34 +1,107 @@
 package com.zeyang.login.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zeyang.login.dto.UserImportFailure;
+import com.zeyang.login.dto.UserImportProgress;
+import com.zeyang.login.dto.UserView;
 import com.zeyang.login.entity.User;
+import com.zeyang.login.service.UserImportService;
 import com.zeyang.login.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.Optional;
 
 @Tag(name = "用户管理", description = "用户相关接口")
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/api/users")
 public class UserController {
 
     @Autowired
     private UserService userService;
 
-    @Operation(summary = "获取用户信息", description = "根据用户ID获取用户详细信息")
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Operation(summary = "获取用户信息", description = "根据用户ID获取用户详细信息，支持 If-None-Match 条件请求")
     @GetMapping("/{id}")
-    public ResponseEntity<?> getUserById(@PathVariable Long id) {
-        Optional<User> user = userService.getUserById(id);
-        return user.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
+    public ResponseEntity<UserView> getUserById(@PathVariable Long id, WebRequest webRequest) {
+        Optional<UserView> user = userService.getUserView(id);
+        if (user.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        String etag = user.get().etag();
+        // 未变化时直接返回 304，不序列化响应体
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().header(HttpHeaders.CACHE_CONTROL, "private, no-cache").eTag(etag).body(user.get());
     }
 
     @Operation(summary = "创建用户", description = "创建新用户")
     @PostMapping
-    public ResponseEntity<User> createUser(@RequestBody User user) {
-        User savedUser = userService.createUser(user);
-        return ResponseEntity.ok(savedUser);
+    public ResponseEntity<UserView> createUser(@RequestBody User user) {
+        UserView savedUser = UserView.of(userService.createUser(user));
+        return ResponseEntity.ok().eTag(savedUser.etag()).body(savedUser);
+    }
+
+    @Operation(summary = "批量导入用户",
+            description = "请求体为 ndjson 或带表头的 csv（username,password,email,phone），逐行返回失败记录和每批的进度；"
+                    + "中断后以最后一次进度的 committedLine 作为 startLine 重新提交即可续传")
+    @PostMapping(value = "/import", consumes = {"application/x-ndjson", "text/csv"}, produces = "application/x-ndjson")
+    public void importUsers(@RequestParam(defaultValue = "0") long startLine,
+                            HttpServletRequest request,
+                            HttpServletResponse response) throws IOException {
+        UserImportService.Format format = MediaType.parseMediaType(request.getContentType())
+                .isCompatibleWith(MediaType.parseMediaType("text/csv"))
+                ? UserImportService.Format.CSV : UserImportService.Format.NDJSON;
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+        OutputStream out = response.getOutputStream();
+        try {
+            userImportService.importUsers(request.getInputStream(), format, startLine, new UserImportService.Listener() {
+                @Override
+                public void onFailure(UserImportFailure failure) {
+                    write(out, failure, false);
+                }
+
+                @Override
+                public void onProgress(UserImportProgress progress) {
+                    // 每批提交后立即刷出，客户端据此记录续传位置
+                    write(out, progress, true);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            // 客户端断开，已提交的批次保留
+            throw e.getCause();
+        }
+    }
+
+    private void write(OutputStream out, Object event, boolean flush) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(event));
+            out.write('\n');
+            if (flush) {
+                out.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 }
@@ -0,0 +1,204 @@
+package com.zeyang.login.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 读写分离数据源：只读事务轮询路由到健康且延迟可接受的从库，其余一律走主库
+ * <p>
+ * 必须包在 LazyConnectionDataSourceProxy 里使用：事务开始时只读标记还没有设置，
+ * 延迟到第一条语句执行时再取物理连接，路由才能看到正确的标记。
+ * 从库定时检查复制延迟，连接失败、复制中断或延迟超过上限的从库被摘除，全部不可用时读主库。
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    static final String PRIMARY = "primary";
+
+    private final List<Replica> replicas = new ArrayList<>();
+    private final long maxLagSeconds;
+    private final int queryTimeoutSeconds;
+    private final AtomicInteger next = new AtomicInteger();
+
+    // 指标
+    private final LongAdder replicaReads = new LongAdder();
+    private final LongAdder pinnedReads = new LongAdder();
+    private final LongAdder fallbackReads = new LongAdder();
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas,
+                                    long maxLagSeconds, int queryTimeoutSeconds) {
+        this.maxLagSeconds = maxLagSeconds;
+        this.queryTimeoutSeconds = queryTimeoutSeconds;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        replicas.forEach((name, dataSource) -> {
+            targets.put(name, dataSource);
+            this.replicas.add(new Replica(name, dataSource));
+        });
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        // 键不存在时宁可报错也不要悄悄落到主库
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARY;
+        }
+        if (RoutingContext.isPrimaryForced()) {
+            pinnedReads.increment();
+            return PRIMARY;
+        }
+        Replica replica = pick();
+        if (replica == null) {
+            fallbackReads.increment();
+            return PRIMARY;
+        }
+        replicaReads.increment();
+        return replica.name;
+    }
+
+    private Replica pick() {
+        int size = replicas.size();
+        if (size == 0) {
+            return null;
+        }
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.available) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 检查每个从库的连通性和复制延迟，启动后立即执行一次，之前从库都视为不可用
+     */
+    @Scheduled(fixedDelayString = "${login.datasource.health-check-interval-ms:2000}")
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            boolean wasAvailable = replica.available;
+            long lag;
+            try {
+                lag = replicationLag(replica.dataSource);
+            } catch (SQLException | RuntimeException e) {
+                lag = -1;
+                if (wasAvailable) {
+                    log.warn("从库 {} 检查失败，暂停读取: {}", replica.name, e.getMessage());
+                }
+            }
+            replica.lagSeconds = lag;
+            replica.available = lag >= 0 && lag <= maxLagSeconds;
+            if (replica.available != wasAvailable) {
+                log.info("从库 {} {}，复制延迟 {} 秒", replica.name, replica.available ? "恢复读取" : "暂停读取", lag);
+            }
+        }
+    }
+
+    /**
+     * 从库的复制延迟（秒）；不是从库或复制线程已停止时返回 -1
+     */
+    long replicationLag(DataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout(queryTimeoutSeconds);
+            ResultSet rs;
+            try {
+                rs = statement.executeQuery("SHOW REPLICA STATUS");
+            } catch (SQLException e) {
+                // MySQL 8.0.22 之前只有旧语法
+                rs = statement.executeQuery("SHOW SLAVE STATUS");
+            }
+            try (ResultSet status = rs) {
+                if (!status.next()) {
+                    return -1;
+                }
+                long lag = status.getLong(lagColumn(status));
+                return status.wasNull() ? -1 : lag;
+            }
+        }
+    }
+
+    private static String lagColumn(ResultSet status) {
+        try {
+            status.findColumn("Seconds_Behind_Source");
+            return "Seconds_Behind_Source";
+        } catch (SQLException e) {
+            return "Seconds_Behind_Master";
+        }
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable) {
+                ((AutoCloseable) replica.dataSource).close();
+            }
+        }
+    }
+
+    /**
+     * 各从库当前的复制延迟（秒），不可用为 -1
+     */
+    public Map<String, Long> getReplicaLagSeconds() {
+        Map<String, Long> lags = new LinkedHashMap<>();
+        for (Replica replica : replicas) {
+            lags.put(replica.name, replica.available ? replica.lagSeconds : -1);
+        }
+        return lags;
+    }
+
+    public int getAvailableReplicaCount() {
+        int count = 0;
+        for (Replica replica : replicas) {
+            if (replica.available) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public long getReplicaReadCount() {
+        return replicaReads.sum();
+    }
+
+    public long getPinnedReadCount() {
+        return pinnedReads.sum();
+    }
+
+    public long getFallbackReadCount() {
+        return fallbackReads.sum();
+    }
+
+    private static final class Replica {
+        final String name;
+        final DataSource dataSource;
+        volatile boolean available;
+        volatile long lagSeconds = -1;
+
+        Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+}
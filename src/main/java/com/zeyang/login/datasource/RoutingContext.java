@@ -0,0 +1,36 @@
+package com.zeyang.login.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * 当前线程的数据源路由提示
+ * <p>
+ * 刚写入的数据可能还没有同步到从库，这类读取用 {@link #onPrimary(Supplier)} 包起来，
+ * 即使处在只读事务中也走主库。未开启读写分离时只是设置一个线程变量，没有其他开销。
+ */
+public final class RoutingContext {
+
+    private static final ThreadLocal<Boolean> PRIMARY = new ThreadLocal<>();
+
+    private RoutingContext() {
+    }
+
+    /**
+     * 在主库上执行，可以嵌套
+     */
+    public static <T> T onPrimary(Supplier<T> action) {
+        if (PRIMARY.get() != null) {
+            return action.get();
+        }
+        PRIMARY.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            PRIMARY.remove();
+        }
+    }
+
+    public static boolean isPrimaryForced() {
+        return PRIMARY.get() != null;
+    }
+}
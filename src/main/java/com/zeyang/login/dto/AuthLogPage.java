@@ -0,0 +1,16 @@
+package com.zeyang.login.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 登录日志分页结果；nextCursor 为空表示没有下一页
+ */
+@Data
+@AllArgsConstructor
+public class AuthLogPage {
+    private List<AuthLogView> items;
+    private String nextCursor;
+}
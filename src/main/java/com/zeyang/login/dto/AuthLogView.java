@@ -0,0 +1,24 @@
+package com.zeyang.login.dto;
+
+import com.zeyang.login.entity.AuthAction;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 登录日志投影，只包含列值，不加载 User 实体
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuthLogView {
+    private Long id;
+    private Long userId;
+    private AuthAction action;
+    private String ipAddress;
+    private String userAgent;
+    private String location;
+    private LocalDateTime createdAt;
+}
@@ -1,12 +1,23 @@
 package com.zeyang.login.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
 @Data
 @AllArgsConstructor
+@JsonSerialize(using = AuthResponseSerializer.class)
 public class AuthResponse {
     private String token;
     private String username;
     private String message;
-} 
\ No newline at end of file
+    
+    // 令牌模式下返回的刷新令牌
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String refreshToken;
+    
+    public AuthResponse(String token, String username, String message) {
+        this(token, username, message, null);
+    }
+}
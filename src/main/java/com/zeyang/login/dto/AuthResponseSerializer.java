@@ -0,0 +1,64 @@
+package com.zeyang.login.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * {@link AuthResponse} 的手写序列化器
+ * <p>
+ * 字段名和提示信息（“登录成功”等固定文案）预先编码为 UTF-8 字节，每次响应直接拷贝，不再逐字符转义和编码。
+ * 文案都是代码中的常量，缓存数量有上限，超出后按普通字符串输出。
+ */
+public final class AuthResponseSerializer extends StdSerializer<AuthResponse> {
+
+    static final int MAX_CACHED_MESSAGES = 64;
+
+    private static final SerializedString TOKEN = new SerializedString("token");
+    private static final SerializedString USERNAME = new SerializedString("username");
+    private static final SerializedString MESSAGE = new SerializedString("message");
+    private static final SerializedString REFRESH_TOKEN = new SerializedString("refreshToken");
+
+    private static final ConcurrentMap<String, SerializedString> MESSAGES = new ConcurrentHashMap<>();
+
+    public AuthResponseSerializer() {
+        super(AuthResponse.class);
+    }
+
+    @Override
+    public void serialize(AuthResponse response, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject(response);
+        gen.writeFieldName(TOKEN);
+        gen.writeString(response.getToken());
+        gen.writeFieldName(USERNAME);
+        gen.writeString(response.getUsername());
+        gen.writeFieldName(MESSAGE);
+        SerializedString message = encoded(response.getMessage());
+        if (message != null) {
+            gen.writeString(message);
+        } else {
+            gen.writeString(response.getMessage());
+        }
+        if (response.getRefreshToken() != null) {
+            gen.writeFieldName(REFRESH_TOKEN);
+            gen.writeString(response.getRefreshToken());
+        }
+        gen.writeEndObject();
+    }
+
+    static SerializedString encoded(String message) {
+        if (message == null) {
+            return null;
+        }
+        SerializedString cached = MESSAGES.get(message);
+        if (cached == null && MESSAGES.size() < MAX_CACHED_MESSAGES) {
+            cached = MESSAGES.computeIfAbsent(message, SerializedString::new);
+        }
+        return cached;
+    }
+}
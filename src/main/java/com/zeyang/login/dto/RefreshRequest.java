@@ -0,0 +1,12 @@
+package com.zeyang.login.dto;
+
+import lombok.Data;
+
+import javax.validation.constraints.NotBlank;
+
+@Data
+public class RefreshRequest {
+    
+    @NotBlank(message = "刷新令牌不能为空")
+    private String refreshToken;
+}
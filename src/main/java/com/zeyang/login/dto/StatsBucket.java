@@ -0,0 +1,18 @@
+package com.zeyang.login.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 一个时间桶内各登录动作的次数
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatsBucket {
+    private String bucket;
+    private long loginSuccess;
+    private long loginFailure;
+    private long logout;
+}
@@ -0,0 +1,16 @@
+package com.zeyang.login.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 排行中的一项：IP 或用户 ID 及其次数
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatsTopEntry {
+    private String member;
+    private long count;
+}
@@ -0,0 +1,16 @@
+package com.zeyang.login.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 时间范围内的独立 IP 数与独立用户数（HyperLogLog 近似值）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatsUniqueCounts {
+    private long uniqueIps;
+    private long uniqueUsers;
+}
@@ -0,0 +1,18 @@
+package com.zeyang.login.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 批量导入中未写入的一行：格式错误、校验失败或用户名/邮箱已存在
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserImportFailure {
+    private final String type = "failure";
+    private long line;
+    private String username;
+    private String reason;
+}
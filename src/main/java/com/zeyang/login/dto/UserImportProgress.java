@@ -0,0 +1,22 @@
+package com.zeyang.login.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 批量导入进度，每提交一批输出一次，结束时 type 为 done，中途出错为 aborted
+ * <p>
+ * committedLine 之前（含）的行都已处理完毕，中断后以它作为 startLine 重新提交即可续传。
+ */
+@Data
+@NoArgsConstructor
+public class UserImportProgress {
+    private String type = "progress";
+    private long committedLine;
+    private long processed;
+    private long imported;
+    private long skipped;
+    private long failed;
+    private long elapsedMillis;
+    private String message;
+}
@@ -0,0 +1,41 @@
+package com.zeyang.login.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.zeyang.login.entity.User;
+import com.zeyang.login.entity.UserStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * 用户对外展示的字段，不含密码哈希、盐和失败计数
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonSerialize(using = UserViewSerializer.class)
+public class UserView {
+    private Long id;
+    private String username;
+    private String email;
+    private String phone;
+    private UserStatus status;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    public static UserView of(User user) {
+        return new UserView(user.getId(), user.getUsername(), user.getEmail(), user.getPhone(), user.getStatus(),
+                user.getCreatedAt(), user.getUpdatedAt());
+    }
+
+    /**
+     * 弱 ETag：每次更新都会刷新 updated_at，不需要序列化响应体就能判断是否变化
+     */
+    public String etag() {
+        long version = updatedAt == null ? 0 : updatedAt.toInstant(ZoneOffset.UTC).toEpochMilli();
+        return "W/\"" + id + "-" + Long.toString(version, 36) + "\"";
+    }
+}
@@ -0,0 +1,57 @@
+package com.zeyang.login.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * {@link UserView} 的手写序列化器：字段名预先编码，不走反射，输出与默认序列化相同
+ */
+public final class UserViewSerializer extends StdSerializer<UserView> {
+
+    private static final SerializedString ID = new SerializedString("id");
+    private static final SerializedString USERNAME = new SerializedString("username");
+    private static final SerializedString EMAIL = new SerializedString("email");
+    private static final SerializedString PHONE = new SerializedString("phone");
+    private static final SerializedString STATUS = new SerializedString("status");
+    private static final SerializedString CREATED_AT = new SerializedString("createdAt");
+    private static final SerializedString UPDATED_AT = new SerializedString("updatedAt");
+
+    public UserViewSerializer() {
+        super(UserView.class);
+    }
+
+    @Override
+    public void serialize(UserView view, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject(view);
+        gen.writeFieldName(ID);
+        if (view.getId() == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(view.getId());
+        }
+        gen.writeFieldName(USERNAME);
+        gen.writeString(view.getUsername());
+        gen.writeFieldName(EMAIL);
+        gen.writeString(view.getEmail());
+        gen.writeFieldName(PHONE);
+        gen.writeString(view.getPhone());
+        gen.writeFieldName(STATUS);
+        gen.writeString(view.getStatus() == null ? null : view.getStatus().name());
+        gen.writeFieldName(CREATED_AT);
+        writeTime(gen, view.getCreatedAt());
+        gen.writeFieldName(UPDATED_AT);
+        writeTime(gen, view.getUpdatedAt());
+        gen.writeEndObject();
+    }
+
+    private static void writeTime(JsonGenerator gen, LocalDateTime time) throws IOException {
+        // 与 spring.jackson 默认配置下 JavaTimeModule 的输出一致
+        gen.writeString(time == null ? null : DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(time));
+    }
+}
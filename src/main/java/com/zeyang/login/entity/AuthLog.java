@@ -18,7 +18,7 @@ import java.time.LocalDateTime;
 @Table(name = "auth_logs",
         indexes = {
                 @Index(name = "idx_created_at", columnList = "created_at"),
-                @Index(name = "idx_user_id", columnList = "user_id")
+                @Index(name = "idx_user_created_at", columnList = "user_id, created_at")
         })
 public class AuthLog {
 
@@ -27,6 +27,7 @@ public class AuthLog {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // 分区迁移（db/auth_logs_partitioning.sql）只在数据库中删除外键，未分区的部署保留级联删除
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false, foreignKey = @ForeignKey(name = "auth_logs_ibfk_1"))
     @OnDelete(action = OnDeleteAction.CASCADE)  // 对应 ON DELETE CASCADE
@@ -0,0 +1,49 @@
+package com.zeyang.login.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * 认证和注册中的预期失败：密码错误、账户锁定、刷新令牌无效、用户名或邮箱已被占用
+ * <p>
+ * 不捕获堆栈，也不记录被抑制的异常，没有可变状态的常量实例可以直接复用；
+ * 由全局异常处理按 status 返回，带 retryAfterSeconds 的同时返回 Retry-After。
+ */
+public class AuthException extends RuntimeException {
+
+    public static final AuthException BAD_CREDENTIALS =
+            new AuthException("用户名或密码错误", HttpStatus.UNAUTHORIZED, 0);
+    public static final AuthException ACCOUNT_DISABLED =
+            new AuthException("账户已被锁定或禁用", HttpStatus.FORBIDDEN, 0);
+    public static final AuthException INVALID_REFRESH_TOKEN =
+            new AuthException("刷新令牌无效或已过期", HttpStatus.UNAUTHORIZED, 0);
+    public static final AuthException USERNAME_TAKEN =
+            new AuthException("用户名已存在", HttpStatus.CONFLICT, 0);
+    public static final AuthException EMAIL_TAKEN =
+            new AuthException("邮箱已被注册", HttpStatus.CONFLICT, 0);
+
+    static final String LOCKED_MESSAGE = "账户已被临时锁定，请稍后再试";
+
+    private final HttpStatus status;
+    private final long retryAfterSeconds;
+
+    public AuthException(String message, HttpStatus status, long retryAfterSeconds) {
+        super(message, null, false, false);
+        this.status = status;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * 账户被临时锁定，剩余时间向上取整为 Retry-After 秒数
+     */
+    public static AuthException locked(long remainingMillis) {
+        return new AuthException(LOCKED_MESSAGE, HttpStatus.LOCKED, Math.max(1, (remainingMillis + 999) / 1000));
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,19 @@
+package com.zeyang.login.exception;
+
+/**
+ * 服务过载时抛出，由全局异常处理转换为 503 并带上 Retry-After
+ */
+public class ServiceBusyException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ServiceBusyException(String message, long retryAfterSeconds) {
+        // 过载是预期内的快速失败，不需要堆栈
+        super(message, null, false, false);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
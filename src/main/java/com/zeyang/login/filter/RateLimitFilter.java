@@ -0,0 +1,96 @@
+package com.zeyang.login.filter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zeyang.login.service.AuthService;
+import com.zeyang.login.service.LoginGate;
+import com.zeyang.login.service.RateLimiter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 认证接口限流过滤器，在 Spring Security 之前执行，
+ * 撞库流量在到达数据库和密码哈希之前就被拒绝
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final byte[] TOO_MANY_REQUESTS_BODY =
+            "{\"message\":\"请求过于频繁，请稍后再试\"}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] PAYLOAD_TOO_LARGE_BODY =
+            "{\"message\":\"请求体过大\"}".getBytes(StandardCharsets.UTF_8);
+    private static final int MAX_BODY_BYTES = 8 * 1024;
+
+    private final RateLimiter rateLimiter;
+    private final ObjectMapper objectMapper;
+
+    public RateLimitFilter(RateLimiter rateLimiter, ObjectMapper objectMapper) {
+        this.rateLimiter = rateLimiter;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        HttpServletRequest target = request;
+        String username = null;
+        // 只有带 JSON 请求体的 POST 才解析用户名，其余请求只按 IP 限流；
+        // 分块传输没有 Content-Length，同样按上限读取，超出上限的请求体直接拒绝，不能借此绕过用户名限流
+        if ("POST".equals(request.getMethod())
+                && request.getContentType() != null && request.getContentType().startsWith(MediaType.APPLICATION_JSON_VALUE)) {
+            if (request.getContentLengthLong() > MAX_BODY_BYTES) {
+                reject(response, HttpStatus.PAYLOAD_TOO_LARGE, PAYLOAD_TOO_LARGE_BODY);
+                return;
+            }
+            CachedBodyRequest cached = new CachedBodyRequest(request, MAX_BODY_BYTES);
+            if (cached.isTruncated()) {
+                reject(response, HttpStatus.PAYLOAD_TOO_LARGE, PAYLOAD_TOO_LARGE_BODY);
+                return;
+            }
+            target = cached;
+            username = extractUsername(cached.getBody());
+        }
+
+        // 客户端 IP 取 getRemoteAddr()，X-Forwarded-For 只在来自受信代理时由 Tomcat RemoteIpValve 解析
+        LoginGate gate = rateLimiter.check(AuthService.getClientIp(request), username);
+        long retryAfterMillis = gate.getRetryAfterMillis();
+        if (retryAfterMillis > 0) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf((retryAfterMillis + 999) / 1000));
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, TOO_MANY_REQUESTS_BODY);
+            return;
+        }
+        if (gate.getFailedAttempts() >= 0) {
+            // 锁定状态随限流脚本一起读出，登录时不再单独查询
+            gate.attachTo(target);
+        }
+        chain.doFilter(target, response);
+    }
+
+    private void reject(HttpServletResponse response, HttpStatus status, byte[] body) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private String extractUsername(byte[] body) {
+        if (body.length == 0) {
+            return null;
+        }
+        try {
+            JsonNode username = objectMapper.readTree(body).get("username");
+            return username != null && username.isTextual() ? username.asText() : null;
+        } catch (IOException e) {
+            // 格式错误交给控制器的参数校验处理
+            return null;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.zeyang.login.filter;
+
+import com.zeyang.login.security.AccessRules;
+import com.zeyang.login.security.RedisSessionStore;
+import com.zeyang.login.security.SessionRecord;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * 从 Cookie 或 X-Session-Id 头读取会话ID，在 Redis 会话存储中认证
+ */
+public class RedisSessionAuthenticationFilter extends OncePerRequestFilter {
+
+    public static final String SESSION_COOKIE = "LOGIN_SESSION";
+    public static final String SESSION_HEADER = "X-Session-Id";
+
+    private final RedisSessionStore sessionStore;
+    private final AccessRules accessRules;
+
+    public RedisSessionAuthenticationFilter(RedisSessionStore sessionStore, AccessRules accessRules) {
+        this.sessionStore = sessionStore;
+        this.accessRules = accessRules;
+    }
+
+    public static String resolveSessionId(HttpServletRequest request) {
+        String header = request.getHeader(SESSION_HEADER);
+        if (header != null && !header.isEmpty()) {
+            return header;
+        }
+        Cookie cookie = WebUtils.getCookie(request, SESSION_COOKIE);
+        return cookie != null ? cookie.getValue() : null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String sessionId = resolveSessionId(request);
+        if (sessionId != null) {
+            SessionRecord record = sessionStore.get(sessionId);
+            if (record != null) {
+                UsernamePasswordAuthenticationToken authentication =
+                        new UsernamePasswordAuthenticationToken(record, null,
+                                accessRules.authoritiesOf(record.getUsername()));
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+            }
+        }
+        chain.doFilter(request, response);
+    }
+}
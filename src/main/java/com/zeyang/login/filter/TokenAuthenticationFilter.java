@@ -0,0 +1,47 @@
+package com.zeyang.login.filter;
+
+import com.zeyang.login.security.AccessRules;
+import com.zeyang.login.security.TokenPrincipal;
+import com.zeyang.login.security.TokenService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * 从 Authorization: Bearer 头解析访问令牌并设置认证信息，校验过程不访问网络
+ */
+public class TokenAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final TokenService tokenService;
+    private final AccessRules accessRules;
+
+    public TokenAuthenticationFilter(TokenService tokenService, AccessRules accessRules) {
+        this.tokenService = tokenService;
+        this.accessRules = accessRules;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header != null && header.startsWith(BEARER_PREFIX)) {
+            TokenPrincipal principal = tokenService.parseAccessToken(header.substring(BEARER_PREFIX.length()));
+            if (principal != null) {
+                UsernamePasswordAuthenticationToken authentication =
+                        new UsernamePasswordAuthenticationToken(principal, null,
+                                accessRules.authoritiesOf(principal.getUsername()));
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+            }
+        }
+        chain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,66 @@
+package com.zeyang.login.filter;
+
+import org.slf4j.MDC;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 为每个请求确定追踪 ID 并放入 MDC，日志格式中的 %X{traceId} 即可输出
+ * <p>
+ * 优先沿用上游 W3C traceparent 中的 trace-id，其次是 X-Request-Id，都没有时随机生成；
+ * 追踪 ID 同时通过 X-Trace-Id 响应头返回，方便按请求检索日志。
+ */
+public class TraceIdFilter extends OncePerRequestFilter {
+
+    public static final String MDC_KEY = "traceId";
+    public static final String RESPONSE_HEADER = "X-Trace-Id";
+
+    private static final String TRACEPARENT = "traceparent";
+    private static final String REQUEST_ID = "X-Request-Id";
+    private static final int MAX_REQUEST_ID_LENGTH = 64;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String traceId = resolve(request.getHeader(TRACEPARENT), request.getHeader(REQUEST_ID));
+        MDC.put(MDC_KEY, traceId);
+        response.setHeader(RESPONSE_HEADER, traceId);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            MDC.remove(MDC_KEY);
+        }
+    }
+
+    static String resolve(String traceparent, String requestId) {
+        // traceparent 格式：版本-traceId(32位十六进制)-spanId-标志
+        if (traceparent != null && traceparent.length() >= 35 && traceparent.charAt(2) == '-') {
+            String traceId = traceparent.substring(3, 35);
+            if (isHex(traceId) && !traceId.equals("00000000000000000000000000000000")) {
+                return traceId;
+            }
+        }
+        if (requestId != null && !requestId.isEmpty() && requestId.length() <= MAX_REQUEST_ID_LENGTH
+                && requestId.chars().allMatch(c -> Character.isLetterOrDigit(c) || c == '-' || c == '_')) {
+            return requestId;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return String.format("%016x%016x", random.nextLong(), random.nextLong());
+    }
+
+    private static boolean isHex(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            if ((ch < '0' || ch > '9') && (ch < 'a' || ch > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,268 @@
+package com.zeyang.login.reactive;
+
+import com.zeyang.login.dto.AuthResponse;
+import com.zeyang.login.dto.LoginRequest;
+import com.zeyang.login.dto.RefreshRequest;
+import com.zeyang.login.dto.RegisterRequest;
+import com.zeyang.login.entity.User;
+import com.zeyang.login.entity.UserStatus;
+import com.zeyang.login.exception.AuthException;
+import com.zeyang.login.filter.RedisSessionAuthenticationFilter;
+import com.zeyang.login.security.AuthMode;
+import com.zeyang.login.security.TokenPrincipal;
+import com.zeyang.login.security.TokenService;
+import com.zeyang.login.service.LoginMetrics;
+import com.zeyang.login.service.LoginMetrics.Stage;
+import com.zeyang.login.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpCookie;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseCookie;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import javax.validation.Valid;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * WebFlux 版本的 /api/auth/*，请求和响应格式与 AuthController 相同
+ */
+@RestController
+@RequestMapping("/api/auth")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveAuthController {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final String REFRESH_TOKEN_HEADER = "X-Refresh-Token";
+    private static final String TOO_MANY_REQUESTS = "请求过于频繁，请稍后再试";
+    // 与 Tomcat RemoteIpValve 默认的 internalProxies 相同：内网和本机地址
+    static final String DEFAULT_TRUSTED_PROXIES = "10\\.\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}|192\\.168\\.\\d{1,3}\\.\\d{1,3}"
+            + "|169\\.254\\.\\d{1,3}\\.\\d{1,3}|127\\.\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}"
+            + "|172\\.1[6-9]\\.\\d{1,3}\\.\\d{1,3}|172\\.2[0-9]\\.\\d{1,3}\\.\\d{1,3}|172\\.3[0-1]\\.\\d{1,3}\\.\\d{1,3}"
+            + "|0:0:0:0:0:0:0:1|::1";
+
+    private final ReactiveAuthService authService;
+    private final ReactiveRateLimiter rateLimiter;
+    private final ReactiveSessionStore sessionStore;
+    private final UserService userService;
+    private final TokenService tokenService;
+    private final LoginMetrics loginMetrics;
+    private final AuthMode authMode;
+    private final Pattern trustedProxies;
+
+    @Autowired
+    public ReactiveAuthController(ReactiveAuthService authService, ReactiveRateLimiter rateLimiter,
+                                  ReactiveSessionStore sessionStore, UserService userService,
+                                  TokenService tokenService, LoginMetrics loginMetrics,
+                                  @Value("${login.auth.mode:SESSION}") AuthMode authMode,
+                                  @Value("${login.reactive.trusted-proxies:}") String trustedProxies) {
+        this.authService = authService;
+        this.rateLimiter = rateLimiter;
+        this.sessionStore = sessionStore;
+        this.userService = userService;
+        this.tokenService = tokenService;
+        this.loginMetrics = loginMetrics;
+        this.authMode = authMode;
+        this.trustedProxies = Pattern.compile(trustedProxies.isEmpty() ? DEFAULT_TRUSTED_PROXIES : trustedProxies);
+    }
+
+    /**
+     * 注册不在登录热路径上，直接复用阻塞的 UserService，放到弹性线程池执行
+     */
+    @PostMapping("/register")
+    public Mono<ResponseEntity<Object>> register(@Valid @RequestBody RegisterRequest request,
+                                                 ServerWebExchange exchange) {
+        return limited(exchange, request.getUsername(), Mono.fromCallable(() -> userService.registerUser(
+                        request.getUsername(),
+                        request.getPassword(),
+                        request.getEmail(),
+                        request.getPhone()))
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(user -> ResponseEntity.<Object>ok(new AuthResponse(null, user.getUsername(), "注册成功"))));
+    }
+
+    @PostMapping("/login")
+    public Mono<ResponseEntity<Object>> login(@Valid @RequestBody LoginRequest request, ServerWebExchange exchange) {
+        ServerHttpRequest httpRequest = exchange.getRequest();
+        Mono<ResponseEntity<Object>> login = authService.login(request.getUsername(), request.getPassword(),
+                        getClientIp(httpRequest, trustedProxies), httpRequest.getHeaders().getFirst(HttpHeaders.USER_AGENT))
+                .flatMap(user -> Mono.defer(() -> {
+                    long start = System.nanoTime();
+                    return issue(user, exchange).doFinally(signal -> loginMetrics.record(Stage.SESSION, start));
+                }));
+        return limited(exchange, request.getUsername(), login);
+    }
+
+    @PostMapping("/refresh")
+    public Mono<ResponseEntity<Object>> refresh(@Valid @RequestBody RefreshRequest request,
+                                                ServerWebExchange exchange) {
+        // 刷新令牌只能使用一次，每次刷新都轮换
+        Mono<ResponseEntity<Object>> refresh = authService.consumeRefreshToken(request.getRefreshToken())
+                .flatMap(authService::findById)
+                .filter(user -> user.getStatus() == UserStatus.ACTIVE)
+                .switchIfEmpty(Mono.error(AuthException.INVALID_REFRESH_TOKEN))
+                .flatMap(user -> authService.createRefreshToken(user)
+                        .map(refreshToken -> ResponseEntity.<Object>ok(new AuthResponse(
+                                tokenService.createAccessToken(user),
+                                user.getUsername(),
+                                "刷新成功",
+                                refreshToken))));
+        return limited(exchange, null, refresh);
+    }
+
+    @PostMapping("/logout")
+    public Mono<ResponseEntity<Object>> logout(ServerWebExchange exchange) {
+        AuthResponse body = new AuthResponse(null, null, "已成功退出登录");
+        Mono<ResponseEntity<Object>> logout;
+        if (authMode == AuthMode.TOKEN) {
+            logout = logoutToken(exchange).thenReturn(ResponseEntity.<Object>ok(body));
+        } else if (authMode == AuthMode.REDIS_SESSION) {
+            ResponseCookie cookie = ResponseCookie.from(RedisSessionAuthenticationFilter.SESSION_COOKIE, "")
+                    .httpOnly(true)
+                    .path("/")
+                    .maxAge(0)
+                    .build();
+            logout = logoutRedisSession(exchange).thenReturn(ResponseEntity.ok()
+                    .header(HttpHeaders.SET_COOKIE, cookie.toString())
+                    .<Object>body(body));
+        } else {
+            logout = logoutSession(exchange).thenReturn(ResponseEntity.<Object>ok(body));
+        }
+        return limited(exchange, null, logout);
+    }
+
+    /**
+     * 按认证方式创建会话或签发令牌
+     */
+    private Mono<ResponseEntity<Object>> issue(User user, ServerWebExchange exchange) {
+        if (authMode == AuthMode.TOKEN) {
+            return authService.createRefreshToken(user)
+                    .map(refreshToken -> ResponseEntity.<Object>ok(new AuthResponse(
+                            tokenService.createAccessToken(user),
+                            user.getUsername(),
+                            "登录成功",
+                            refreshToken)));
+        }
+        if (authMode == AuthMode.REDIS_SESSION) {
+            return sessionStore.create(user).map(sessionId -> {
+                ResponseCookie cookie = ResponseCookie.from(RedisSessionAuthenticationFilter.SESSION_COOKIE, sessionId)
+                        .httpOnly(true)
+                        .path("/")
+                        .sameSite("Lax")
+                        .build();
+                return ResponseEntity.ok()
+                        .header(HttpHeaders.SET_COOKIE, cookie.toString())
+                        .<Object>body(new AuthResponse(sessionId, user.getUsername(), "登录成功"));
+            });
+        }
+        // WebSession 对应 Servlet 栈的 HttpSession
+        return exchange.getSession().map(session -> {
+            session.getAttributes().put("USER_ID", user.getId());
+            session.getAttributes().put("USERNAME", user.getUsername());
+            session.start();
+            return ResponseEntity.<Object>ok(new AuthResponse(session.getId(), user.getUsername(), "登录成功"));
+        });
+    }
+
+    private Mono<Void> logoutSession(ServerWebExchange exchange) {
+        return exchange.getSession().flatMap(session -> {
+            String username = session.getAttribute("USERNAME");
+            Mono<Void> log = username == null ? Mono.empty() : authService.findByUsername(username)
+                    .flatMap(user -> logoutLog(user, exchange));
+            return log.then(session.invalidate());
+        });
+    }
+
+    private Mono<Void> logoutRedisSession(ServerWebExchange exchange) {
+        String sessionId = resolveSessionId(exchange.getRequest());
+        if (sessionId == null) {
+            return Mono.empty();
+        }
+        return sessionStore.get(sessionId)
+                .flatMap(record -> authService.findByUsername(record.getUsername()))
+                .flatMap(user -> logoutLog(user, exchange))
+                .then(sessionStore.delete(sessionId));
+    }
+
+    private Mono<Void> logoutToken(ServerWebExchange exchange) {
+        HttpHeaders headers = exchange.getRequest().getHeaders();
+        String refreshToken = headers.getFirst(REFRESH_TOKEN_HEADER);
+        Mono<Void> revokeRefresh = refreshToken != null ? authService.revokeRefreshToken(refreshToken) : Mono.empty();
+
+        String header = headers.getFirst(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.startsWith(BEARER_PREFIX)) {
+            return revokeRefresh;
+        }
+        TokenPrincipal principal = tokenService.parseAccessToken(header.substring(BEARER_PREFIX.length()));
+        if (principal == null) {
+            return revokeRefresh;
+        }
+        // 黑名单同步使用阻塞的 Redis 客户端，登出频率低，放到弹性线程池执行
+        return revokeRefresh
+                .then(Mono.fromRunnable(() -> tokenService.revokeAccessToken(principal))
+                        .subscribeOn(Schedulers.boundedElastic()))
+                .then(authService.findByUsername(principal.getUsername()))
+                .flatMap(user -> logoutLog(user, exchange));
+    }
+
+    private Mono<Void> logoutLog(User user, ServerWebExchange exchange) {
+        ServerHttpRequest request = exchange.getRequest();
+        return authService.logout(user, getClientIp(request, trustedProxies), request.getHeaders().getFirst(HttpHeaders.USER_AGENT));
+    }
+
+    /**
+     * 与 Servlet 栈的 RateLimitFilter 相同：按 IP 和用户名限流，超限返回 429
+     */
+    private Mono<ResponseEntity<Object>> limited(ServerWebExchange exchange, String username,
+                                                 Mono<ResponseEntity<Object>> action) {
+        return rateLimiter.tryAcquire(getClientIp(exchange.getRequest(), trustedProxies), username)
+                .flatMap(retryAfterMillis -> retryAfterMillis > 0
+                        ? Mono.just(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                        .header(HttpHeaders.RETRY_AFTER, String.valueOf((retryAfterMillis + 999) / 1000))
+                        .<Object>body(Map.of("message", TOO_MANY_REQUESTS)))
+                        : action);
+    }
+
+    static String resolveSessionId(ServerHttpRequest request) {
+        String header = request.getHeaders().getFirst(RedisSessionAuthenticationFilter.SESSION_HEADER);
+        if (header != null && !header.isEmpty()) {
+            return header;
+        }
+        HttpCookie cookie = request.getCookies().getFirst(RedisSessionAuthenticationFilter.SESSION_COOKIE);
+        return cookie != null ? cookie.getValue() : null;
+    }
+
+    /**
+     * 客户端 IP，规则与 Tomcat RemoteIpValve 相同：直连地址是受信代理时才解析 X-Forwarded-For，
+     * 从右往左跳过受信代理，取第一个不受信的地址；否则直接用直连地址，客户端伪造的请求头不生效。
+     * Reactor Netty 的 forwarded 支持不区分来源，因此响应式栈关闭 server.forward-headers-strategy，在这里处理
+     */
+    static String getClientIp(ServerHttpRequest request, Pattern trustedProxies) {
+        InetSocketAddress remote = request.getRemoteAddress();
+        String remoteIp = remote != null && remote.getAddress() != null ? remote.getAddress().getHostAddress() : null;
+        String xfHeader = request.getHeaders().getFirst("X-Forwarded-For");
+        if (remoteIp == null || xfHeader == null || !trustedProxies.matcher(remoteIp).matches()) {
+            return remoteIp;
+        }
+        String[] hops = xfHeader.split(",");
+        for (int i = hops.length - 1; i >= 0; i--) {
+            String hop = hops[i].trim();
+            if (!hop.isEmpty() && (i == 0 || !trustedProxies.matcher(hop).matches())) {
+                return hop;
+            }
+        }
+        return remoteIp;
+    }
+}
@@ -0,0 +1,199 @@
+package com.zeyang.login.reactive;
+
+import com.zeyang.login.entity.AuthLog;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 登录日志的 R2DBC 批量写入
+ * <p>
+ * 提交只是放入有界的多生产者队列（offer 不阻塞、不自旋），写入端按固定间隔把队列按批次取空，
+ * 每批用一条多组参数的 INSERT 写入，批次串行执行；
+ * 缓冲已满时丢弃并计数，登录请求不等待日志落库。
+ */
+@Slf4j
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveAuthLogWriter {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO auth_logs (user_id, action, ip_address, user_agent, location, created_at) VALUES (?, ?, ?, ?, ?, ?)";
+    // 丢弃日志的告警间隔，避免缓冲持续满时刷屏
+    private static final long DROP_WARN_INTERVAL_MILLIS = 1000;
+
+    private final DatabaseClient databaseClient;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final long drainTimeoutMillis;
+    private final BlockingQueue<AuthLog> queue;
+    private final Sinks.Empty<Void> stopSignal = Sinks.empty();
+    private volatile boolean stopped;
+    private final CountDownLatch drained = new CountDownLatch(1);
+
+    // 指标
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failedFlushes = new LongAdder();
+    private final LongAdder overflowed = new LongAdder();
+    private final LongAdder emitFailures = new LongAdder();
+    private final AtomicLong lastDropWarn = new AtomicLong();
+
+    @Autowired
+    public ReactiveAuthLogWriter(DatabaseClient databaseClient,
+                                 @Value("${login.auth-log.queue-capacity:10000}") int queueCapacity,
+                                 @Value("${login.auth-log.batch-size:200}") int batchSize,
+                                 @Value("${login.auth-log.flush-interval-ms:500}") long flushIntervalMillis,
+                                 @Value("${login.auth-log.drain-timeout-ms:10000}") long drainTimeoutMillis) {
+        this.databaseClient = databaseClient;
+        this.batchSize = batchSize;
+        this.flushInterval = Duration.ofMillis(flushIntervalMillis);
+        this.drainTimeoutMillis = drainTimeoutMillis;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    @PostConstruct
+    public void start() {
+        // 写入未跟上时跳过多余的定时信号；停止后等当前批次写完，再把剩余日志取空
+        Flux.interval(flushInterval)
+                .onBackpressureDrop()
+                .takeUntilOther(stopSignal.asMono())
+                .concatMap(tick -> flush(), 1)
+                .then(Mono.defer(this::flush))
+                .doFinally(signal -> drained.countDown())
+                .subscribe();
+    }
+
+    public void submit(AuthLog authLog) {
+        if (authLog.getCreatedAt() == null) {
+            authLog.setCreatedAt(LocalDateTime.now());
+        }
+        if (stopped) {
+            recordDrop(false);
+        } else if (!queue.offer(authLog)) {
+            recordDrop(true);
+        }
+    }
+
+    /**
+     * 缓冲已满和其他失败（已停止）分别计数，告警按间隔限流
+     */
+    private void recordDrop(boolean overflow) {
+        dropped.increment();
+        if (overflow) {
+            overflowed.increment();
+        } else {
+            emitFailures.increment();
+        }
+        long now = System.currentTimeMillis();
+        long last = lastDropWarn.get();
+        if (now - last >= DROP_WARN_INTERVAL_MILLIS && lastDropWarn.compareAndSet(last, now)) {
+            log.warn("登录日志提交失败（{}），已丢弃: 缓冲已满 {} 条, 其他 {} 条",
+                    overflow ? "缓冲已满" : "已停止", overflowed.sum(), emitFailures.sum());
+        }
+    }
+
+    /**
+     * 按批次取空队列并依次写入，取到满批说明可能还有剩余，继续取下一批
+     */
+    private Mono<Void> flush() {
+        return Mono.defer(() -> {
+            List<AuthLog> batch = new ArrayList<>(batchSize);
+            queue.drainTo(batch, batchSize);
+            if (batch.isEmpty()) {
+                return Mono.empty();
+            }
+            Mono<Void> written = insert(batch).then();
+            return batch.size() < batchSize ? written : written.then(flush());
+        });
+    }
+
+    private Mono<Long> insert(List<AuthLog> batch) {
+        return databaseClient.inConnectionMany(connection -> {
+                    Statement statement = connection.createStatement(INSERT_SQL);
+                    for (int i = 0; i < batch.size(); i++) {
+                        if (i > 0) {
+                            statement.add();
+                        }
+                        bind(statement, batch.get(i));
+                    }
+                    return Flux.from(statement.execute()).flatMap(Result::getRowsUpdated).map(Number::longValue);
+                })
+                .reduce(0L, Long::sum)
+                .doOnNext(written::add)
+                .onErrorResume(e -> {
+                    failedFlushes.increment();
+                    dropped.add(batch.size());
+                    log.warn("登录日志批量写入失败，丢弃 {} 条: {}", batch.size(), e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private static void bind(Statement statement, AuthLog authLog) {
+        statement.bind(0, authLog.getUser().getId());
+        statement.bind(1, authLog.getAction().name());
+        bindNullable(statement, 2, authLog.getIpAddress());
+        bindNullable(statement, 3, authLog.getUserAgent());
+        bindNullable(statement, 4, authLog.getLocation());
+        statement.bind(5, authLog.getCreatedAt());
+    }
+
+    private static void bindNullable(Statement statement, int index, String value) {
+        if (value == null) {
+            statement.bindNull(index, String.class);
+        } else {
+            statement.bind(index, value);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        // 结束缓冲，剩余日志写完后再关闭连接池
+        stopped = true;
+        stopSignal.tryEmitEmpty();
+        if (!drained.await(drainTimeoutMillis, TimeUnit.MILLISECONDS)) {
+            log.warn("登录日志未能在 {} 毫秒内写完", drainTimeoutMillis);
+        }
+    }
+
+    public long getWrittenCount() {
+        return written.sum();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public long getFailedFlushCount() {
+        return failedFlushes.sum();
+    }
+
+    public long getOverflowCount() {
+        return overflowed.sum();
+    }
+
+    public long getEmitFailureCount() {
+        return emitFailures.sum();
+    }
+}
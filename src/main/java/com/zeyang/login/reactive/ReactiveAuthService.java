@@ -0,0 +1,176 @@
+package com.zeyang.login.reactive;
+
+import com.zeyang.login.cache.UserCache;
+import com.zeyang.login.cache.UserExistenceFilter;
+import com.zeyang.login.entity.AuthAction;
+import com.zeyang.login.entity.AuthLog;
+import com.zeyang.login.entity.User;
+import com.zeyang.login.entity.UserStatus;
+import com.zeyang.login.exception.AuthException;
+import com.zeyang.login.security.TokenService;
+import com.zeyang.login.service.AuthStatsService;
+import com.zeyang.login.service.LoginMetrics;
+import com.zeyang.login.service.LoginMetrics.Stage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * 响应式登录流程，步骤和错误信息与 AuthService 相同，整个过程不阻塞线程
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveAuthService {
+
+    private final ReactiveUserRepository userRepository;
+    private final ReactiveLoginAttemptService loginAttemptService;
+    private final ReactivePasswordHasher passwordHasher;
+    private final ReactiveAuthLogWriter authLogWriter;
+    private final UserExistenceFilter userExistenceFilter;
+    private final UserCache userCache;
+    private final AuthStatsService authStatsService;
+    private final LoginMetrics loginMetrics;
+    private final TokenService tokenService;
+    private final ReactiveStringRedisTemplate redisTemplate;
+
+    @Autowired
+    public ReactiveAuthService(ReactiveUserRepository userRepository,
+                               ReactiveLoginAttemptService loginAttemptService,
+                               ReactivePasswordHasher passwordHasher,
+                               ReactiveAuthLogWriter authLogWriter,
+                               UserExistenceFilter userExistenceFilter,
+                               UserCache userCache,
+                               AuthStatsService authStatsService,
+                               LoginMetrics loginMetrics,
+                               TokenService tokenService,
+                               ReactiveStringRedisTemplate redisTemplate) {
+        this.userRepository = userRepository;
+        this.loginAttemptService = loginAttemptService;
+        this.passwordHasher = passwordHasher;
+        this.authLogWriter = authLogWriter;
+        this.userExistenceFilter = userExistenceFilter;
+        this.userCache = userCache;
+        this.authStatsService = authStatsService;
+        this.loginMetrics = loginMetrics;
+        this.tokenService = tokenService;
+        this.redisTemplate = redisTemplate;
+    }
+
+    public Mono<User> login(String username, String password, String ip, String userAgent) {
+        // 先查 Redis 锁定状态，被锁定的账户不查库也不计算哈希
+        return timed(Stage.STATUS, loginAttemptService.lockRemainingMillis(UserExistenceFilter.normalize(username)))
+                .flatMap(lockRemaining -> lockRemaining > 0
+                        ? Mono.<User>error(AuthException.locked(lockRemaining))
+                        : timed(Stage.LOOKUP, findByUsername(username)))
+                .switchIfEmpty(Mono.error(AuthException.BAD_CREDENTIALS))
+                .flatMap(user -> {
+                    if (user.getStatus() != UserStatus.ACTIVE) {
+                        return Mono.error(AuthException.ACCOUNT_DISABLED);
+                    }
+                    // Redis 不可用时的回退锁定
+                    LocalDateTime now = LocalDateTime.now();
+                    if (user.getLockedUntil() != null && user.getLockedUntil().isAfter(now)) {
+                        return Mono.error(AuthException.locked(Duration.between(now, user.getLockedUntil()).toMillis()));
+                    }
+                    return timed(Stage.VERIFY, passwordHasher.matches(user, password))
+                            .flatMap(valid -> valid
+                                    ? onSuccess(user, password, ip, userAgent)
+                                    : onFailure(user, ip, userAgent));
+                });
+    }
+
+    public Mono<Void> logout(User user, String ip, String userAgent) {
+        return Mono.fromRunnable(() -> writeLog(user, AuthAction.LOGOUT, ip, userAgent));
+    }
+
+    /**
+     * 按用户名查询，过滤器判定一定不存在时不查库
+     */
+    public Mono<User> findByUsername(String username) {
+        if (!userExistenceFilter.mightContainUsername(username)) {
+            return Mono.empty();
+        }
+        return userRepository.findByUsername(username);
+    }
+
+    public Mono<User> findById(Long id) {
+        return userRepository.findById(id);
+    }
+
+    public Mono<String> createRefreshToken(User user) {
+        String token = tokenService.newRefreshToken();
+        return redisTemplate.opsForValue()
+                .set(tokenService.refreshKey(token), user.getId().toString(),
+                        Duration.ofMillis(tokenService.getRefreshTtlMillis()))
+                .thenReturn(token);
+    }
+
+    /**
+     * 消费刷新令牌，令牌不存在或已使用时为空
+     */
+    public Mono<Long> consumeRefreshToken(String token) {
+        return redisTemplate.opsForValue().getAndDelete(tokenService.refreshKey(token)).map(Long::valueOf);
+    }
+
+    public Mono<Void> revokeRefreshToken(String token) {
+        return redisTemplate.delete(tokenService.refreshKey(token)).then();
+    }
+
+    private Mono<User> onSuccess(User user, String password, String ip, String userAgent) {
+        boolean rehash = passwordHasher.needsRehash(user.getPasswordHash());
+        boolean dirty = (user.getFailedAttempts() != null && user.getFailedAttempts() != 0)
+                || user.getLockedUntil() != null;
+        Mono<String> passwordHash = rehash
+                ? passwordHasher.encode(password, user.getSalt())
+                : Mono.just(user.getPasswordHash());
+        // 只有存在失败记录或密码哈希升级时才需要回写
+        Mono<Void> update = rehash || dirty
+                ? passwordHash.flatMap(hash -> {
+                    user.setPasswordHash(hash);
+                    user.setFailedAttempts(0);
+                    user.setLockedUntil(null);
+                    // Servlet 节点的用户缓存中可能还是旧哈希，缓存失效走阻塞的 Redis 客户端，放到弹性线程池执行
+                    return userRepository.updateAfterLogin(user.getId(), hash)
+                            .then(Mono.fromRunnable(() -> userCache.evict(user))
+                                    .subscribeOn(Schedulers.boundedElastic()))
+                            .then();
+                })
+                : Mono.empty();
+        return loginAttemptService.recordSuccess(user)
+                .then(update)
+                .then(Mono.fromRunnable(() -> writeLog(user, AuthAction.LOGIN_SUCCESS, ip, userAgent)))
+                .thenReturn(user);
+    }
+
+    private Mono<User> onFailure(User user, String ip, String userAgent) {
+        return loginAttemptService.recordFailure(user)
+                .then(Mono.fromRunnable(() -> writeLog(user, AuthAction.LOGIN_FAILURE, ip, userAgent)))
+                .then(Mono.<User>error(AuthException.BAD_CREDENTIALS));
+    }
+
+    private void writeLog(User user, AuthAction action, String ip, String userAgent) {
+        long start = System.nanoTime();
+        AuthLog authLog = new AuthLog();
+        authLog.setUser(user);
+        authLog.setAction(action);
+        authLog.setIpAddress(ip);
+        authLog.setUserAgent(userAgent);
+        authLogWriter.submit(authLog);
+        authStatsService.record(authLog);
+        loginMetrics.record(Stage.LOG, start);
+        loginMetrics.count(action);
+    }
+
+    private <T> Mono<T> timed(Stage stage, Mono<T> mono) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return mono.doFinally(signal -> loginMetrics.record(stage, start));
+        });
+    }
+}
@@ -0,0 +1,110 @@
+package com.zeyang.login.reactive;
+
+import com.zeyang.login.cache.UserExistenceFilter;
+import com.zeyang.login.entity.User;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 响应式的失败计数与账户锁定，键和 Lua 脚本与 RedisLoginAttemptStore 相同，两个栈可以共用同一份计数
+ * <p>
+ * Redis 不可用时回退到 users 表的 failed_attempts / locked_until 列。
+ */
+@Slf4j
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveLoginAttemptService {
+
+    private static final String ATTEMPTS_PREFIX = "login_attempts:";
+    private static final String LOCKOUT_PREFIX = "account_lock:";
+
+    private static final RedisScript<Long> RECORD_FAILURE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/login_attempt.lua"), Long.class);
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final ReactiveUserRepository userRepository;
+    private final int maxAttempts;
+    private final long lockMinutes;
+    private final List<String> scriptArgs;
+
+    private final LongAdder fallbacks = new LongAdder();
+
+    @Autowired
+    public ReactiveLoginAttemptService(ReactiveStringRedisTemplate redisTemplate,
+                                       ReactiveUserRepository userRepository,
+                                       @Value("${login.lockout.max-attempts:5}") int maxAttempts,
+                                       @Value("${login.lockout.attempts-ttl-minutes:1440}") long attemptsTtlMinutes,
+                                       @Value("${login.lockout.lock-minutes:30}") long lockMinutes) {
+        this.redisTemplate = redisTemplate;
+        this.userRepository = userRepository;
+        this.maxAttempts = maxAttempts;
+        this.lockMinutes = lockMinutes;
+        this.scriptArgs = List.of(String.valueOf(maxAttempts),
+                String.valueOf(TimeUnit.MINUTES.toMillis(attemptsTtlMinutes)),
+                String.valueOf(TimeUnit.MINUTES.toMillis(lockMinutes)));
+    }
+
+    /**
+     * 锁定剩余毫秒数，username 须已规范化；Redis 不可用时返回 0，由用户表列兜底
+     */
+    public Mono<Long> lockRemainingMillis(String username) {
+        return redisTemplate.getExpire(LOCKOUT_PREFIX + username)
+                .map(ttl -> Math.max(ttl.toMillis(), 0))
+                .defaultIfEmpty(0L)
+                .onErrorResume(e -> {
+                    fallback(e);
+                    return Mono.just(0L);
+                });
+    }
+
+    public Mono<Void> recordFailure(User user) {
+        return redisTemplate.execute(RECORD_FAILURE_SCRIPT,
+                        List.of(ATTEMPTS_PREFIX + key(user), LOCKOUT_PREFIX + key(user)), scriptArgs)
+                .then()
+                .onErrorResume(e -> {
+                    fallback(e);
+                    return userRepository.recordFailure(user.getId(), maxAttempts,
+                            LocalDateTime.now().plusMinutes(lockMinutes));
+                });
+    }
+
+    /**
+     * 登录成功后清除 Redis 中的失败计数
+     */
+    public Mono<Void> recordSuccess(User user) {
+        return redisTemplate.delete(ATTEMPTS_PREFIX + key(user))
+                .then()
+                .onErrorResume(e -> {
+                    fallback(e);
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * 与 {@link com.zeyang.login.service.LoginAttemptService} 相同，按规范化的用户名计数
+     */
+    private static String key(User user) {
+        return UserExistenceFilter.normalize(user.getUsername());
+    }
+
+    public long getFallbackCount() {
+        return fallbacks.sum();
+    }
+
+    private void fallback(Throwable e) {
+        fallbacks.increment();
+        log.debug("登录失败计数存储不可用，回退到用户表: {}", e.getMessage());
+    }
+}
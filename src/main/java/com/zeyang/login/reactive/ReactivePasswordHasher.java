@@ -0,0 +1,76 @@
+package com.zeyang.login.reactive;
+
+import com.zeyang.login.entity.User;
+import com.zeyang.login.exception.ServiceBusyException;
+import com.zeyang.login.security.PasswordHashingEngine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 密码哈希在有界调度器上执行，事件循环线程不做 CPU 密集计算
+ * <p>
+ * 线程数和排队上限沿用 login.password-hash.* 配置；排队已满或超过截止时间时返回 {@link ServiceBusyException}，
+ * 与 Servlet 栈的 PasswordHashExecutor 行为一致。
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactivePasswordHasher {
+
+    private static final String BUSY_MESSAGE = "系统繁忙，请稍后再试";
+
+    private final PasswordHashingEngine engine;
+    private final Scheduler scheduler;
+    private final Duration deadline;
+    private final long retryAfterSeconds;
+
+    @Autowired
+    public ReactivePasswordHasher(PasswordHashingEngine engine,
+                                  @Value("${login.password-hash.threads:0}") int threads,
+                                  @Value("${login.password-hash.queue-capacity:64}") int queueCapacity,
+                                  @Value("${login.password-hash.deadline-ms:1000}") long deadlineMillis,
+                                  @Value("${login.password-hash.retry-after-seconds:1}") long retryAfterSeconds) {
+        this.engine = engine;
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        // 排队上限按线程均分
+        int queuedPerThread = Math.max(1, (queueCapacity + poolSize - 1) / poolSize);
+        this.scheduler = Schedulers.newBoundedElastic(poolSize, queuedPerThread, "password-hash-rx", 60, true);
+        this.deadline = Duration.ofMillis(deadlineMillis);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public Mono<Boolean> matches(User user, String password) {
+        return submit(() -> engine.matches(password, user.getSalt(), user.getPasswordHash()));
+    }
+
+    public boolean needsRehash(String stored) {
+        return engine.needsRehash(stored);
+    }
+
+    public Mono<String> encode(String password, String salt) {
+        return submit(() -> engine.encode(password, salt));
+    }
+
+    <T> Mono<T> submit(Callable<T> task) {
+        return Mono.fromCallable(task)
+                .subscribeOn(scheduler)
+                .timeout(deadline)
+                .onErrorMap(e -> e instanceof RejectedExecutionException || e instanceof TimeoutException,
+                        e -> new ServiceBusyException(BUSY_MESSAGE, retryAfterSeconds));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.dispose();
+    }
+}
@@ -0,0 +1,112 @@
+package com.zeyang.login.reactive;
+
+import com.zeyang.login.cache.UserExistenceFilter;
+import com.zeyang.login.service.LocalRateGate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 响应式限流，键、脚本和本地预检与 RateLimiter 相同；Redis 不可用时放行
+ */
+@Slf4j
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveRateLimiter {
+
+    private static final String IP_LIMIT_PREFIX = "ip_limit:";
+    private static final String USER_LIMIT_PREFIX = "user_limit:";
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/rate_limit.lua"), List.class);
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final boolean enabled;
+    private final long windowMillis;
+    private final int ipLimit;
+    private final int usernameLimit;
+    private final LocalRateGate localGate;
+
+    @Autowired
+    public ReactiveRateLimiter(ReactiveStringRedisTemplate redisTemplate,
+                               @Value("${login.rate-limit.enabled:true}") boolean enabled,
+                               @Value("${login.rate-limit.window-seconds:60}") long windowSeconds,
+                               @Value("${login.rate-limit.ip-limit:20}") int ipLimit,
+                               @Value("${login.rate-limit.username-limit:10}") int usernameLimit,
+                               @Value("${login.rate-limit.local-max-entries:100000}") int localMaxEntries) {
+        this.redisTemplate = redisTemplate;
+        this.enabled = enabled;
+        this.windowMillis = windowSeconds * 1000L;
+        this.ipLimit = ipLimit;
+        this.usernameLimit = usernameLimit;
+        this.localGate = new LocalRateGate(windowMillis, localMaxEntries);
+    }
+
+    /**
+     * @param username 可以为 null，此时只按 IP 限流
+     * @return 0 表示放行，否则为建议的重试等待毫秒数
+     */
+    @SuppressWarnings("rawtypes")
+    public Mono<Long> tryAcquire(String ip, String username) {
+        if (!enabled) {
+            return Mono.just(0L);
+        }
+        long now = System.currentTimeMillis();
+        String ipKey = IP_LIMIT_PREFIX + ip;
+        String userKey = username != null ? USER_LIMIT_PREFIX + UserExistenceFilter.normalize(username) : null;
+
+        long wait = localGate.check(ipKey, ipLimit, now);
+        if (wait == 0 && userKey != null) {
+            wait = localGate.check(userKey, usernameLimit, now);
+        }
+        if (wait > 0) {
+            return Mono.just(wait);
+        }
+
+        long windowIndex = now / windowMillis;
+        double elapsed = (double) (now % windowMillis) / windowMillis;
+        List<String> keys = new ArrayList<>(4);
+        List<String> args = new ArrayList<>(4);
+        keys.add(ipKey + ":" + windowIndex);
+        keys.add(ipKey + ":" + (windowIndex - 1));
+        args.add(String.valueOf(elapsed));
+        args.add(String.valueOf(windowMillis));
+        args.add(String.valueOf(ipLimit));
+        if (userKey != null) {
+            keys.add(userKey + ":" + windowIndex);
+            keys.add(userKey + ":" + (windowIndex - 1));
+            args.add(String.valueOf(usernameLimit));
+        }
+
+        return redisTemplate.execute(SCRIPT, keys, args)
+                .next()
+                .map(result -> {
+                    long retryAfter = !result.isEmpty() ? ((Number) result.get(0)).longValue() : 0;
+                    if (retryAfter > 0) {
+                        long group = ((Number) result.get(1)).longValue();
+                        localGate.block(group == 2 ? userKey : ipKey, now, retryAfter);
+                        return retryAfter;
+                    }
+                    localGate.record(ipKey, now);
+                    if (userKey != null) {
+                        localGate.record(userKey, now);
+                    }
+                    return 0L;
+                })
+                .defaultIfEmpty(0L)
+                .onErrorResume(e -> {
+                    log.debug("限流 Redis 调用失败，放行: {}", e.getMessage());
+                    return Mono.just(0L);
+                });
+    }
+}
@@ -0,0 +1,62 @@
+package com.zeyang.login.reactive;
+
+import com.zeyang.login.entity.User;
+import com.zeyang.login.security.SessionRecord;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 响应式的 Redis 会话读写，会话格式与 RedisSessionStore 相同（session:{id} 哈希，字段 uid、un、ct）
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveSessionStore {
+
+    private static final String SESSION_PREFIX = "session:";
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final Duration ttl;
+
+    @Autowired
+    public ReactiveSessionStore(ReactiveStringRedisTemplate redisTemplate,
+                                @Value("${login.session.ttl-minutes:30}") long ttlMinutes) {
+        this.redisTemplate = redisTemplate;
+        this.ttl = Duration.ofMinutes(ttlMinutes);
+    }
+
+    public Mono<String> create(User user) {
+        byte[] bytes = new byte[24];
+        RANDOM.nextBytes(bytes);
+        String sessionId = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        String key = SESSION_PREFIX + sessionId;
+        Map<String, String> fields = Map.of(
+                "uid", user.getId().toString(),
+                "un", user.getUsername(),
+                "ct", String.valueOf(System.currentTimeMillis()));
+        return redisTemplate.<String, String>opsForHash().putAll(key, fields)
+                .then(redisTemplate.expire(key, ttl))
+                .thenReturn(sessionId);
+    }
+
+    public Mono<SessionRecord> get(String sessionId) {
+        return redisTemplate.<String, String>opsForHash().multiGet(SESSION_PREFIX + sessionId, List.of("uid", "un"))
+                .filter(values -> values.get(0) != null)
+                .map(values -> new SessionRecord(sessionId, Long.valueOf(values.get(0)), values.get(1),
+                        System.currentTimeMillis()));
+    }
+
+    public Mono<Void> delete(String sessionId) {
+        return redisTemplate.delete(SESSION_PREFIX + sessionId).then();
+    }
+}
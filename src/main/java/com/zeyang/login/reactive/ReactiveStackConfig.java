@@ -0,0 +1,90 @@
+package com.zeyang.login.reactive;
+
+import com.zeyang.login.security.AccessRules;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatcher;
+import org.springframework.web.server.ServerWebExchange;
+
+import javax.annotation.PreDestroy;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+
+/**
+ * 响应式栈（spring.main.web-application-type=reactive 时生效，见 application-reactive.yml）
+ * <p>
+ * /api/auth/* 由 WebFlux 提供，用户查询和登录日志写入走 R2DBC，锁定、限流、会话走响应式 Redis，
+ * 密码哈希在有界调度器上执行；其余接口仍只在 Servlet 栈提供。
+ * R2DBC 连接池不注册为 ConnectionFactory Bean，否则 Boot 会跳过 DataSource 自动配置，JPA 无法启动。
+ */
+@Configuration
+@EnableWebFluxSecurity
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveStackConfig {
+
+    private ConnectionPool pool;
+
+    @Bean
+    public DatabaseClient reactiveDatabaseClient(
+            @Value("${login.reactive.r2dbc.url:r2dbc:mysql://localhost:3306/login}") String url,
+            @Value("${login.reactive.r2dbc.username:root}") String username,
+            @Value("${login.reactive.r2dbc.password:}") String password,
+            @Value("${login.reactive.r2dbc.pool-initial-size:5}") int initialSize,
+            @Value("${login.reactive.r2dbc.pool-max-size:20}") int maxSize,
+            @Value("${login.reactive.r2dbc.acquire-timeout-ms:3000}") long acquireTimeoutMillis) {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build();
+        // 连接池上限即数据库并发上限，等待超过 acquire-timeout 的请求直接失败
+        this.pool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                .initialSize(initialSize)
+                .maxSize(maxSize)
+                .maxAcquireTime(Duration.ofMillis(acquireTimeoutMillis))
+                .build());
+        return DatabaseClient.create(pool);
+    }
+
+    @Bean
+    public SecurityWebFilterChain reactiveSecurityFilterChain(ServerHttpSecurity http,
+                                                              @Value("${management.server.port:-1}") int managementPort) {
+        return http
+                .authorizeExchange()
+                    .pathMatchers("/api/auth/**").permitAll()
+                    .pathMatchers("/actuator/health").permitAll()
+                    // 与 Servlet 栈相同：指标只在独立的管理端口上免认证抓取，见 SecurityConfig
+                    .matchers(exchange -> isInternalScrape(exchange, managementPort)
+                            ? ServerWebExchangeMatcher.MatchResult.match()
+                            : ServerWebExchangeMatcher.MatchResult.notMatch()).permitAll()
+                    .pathMatchers("/actuator/**").hasRole(AccessRules.ADMIN)
+                    .anyExchange().authenticated()
+                .and()
+                .formLogin().disable()
+                .httpBasic().disable()
+                .csrf().disable()
+                .build();
+    }
+
+    static boolean isInternalScrape(ServerWebExchange exchange, int managementPort) {
+        InetSocketAddress local = exchange.getRequest().getLocalAddress();
+        return managementPort > 0 && local != null && local.getPort() == managementPort
+                && "/actuator/prometheus".equals(exchange.getRequest().getPath().pathWithinApplication().value());
+    }
+
+    @PreDestroy
+    public void close() {
+        if (pool != null) {
+            pool.dispose();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.zeyang.login.reactive;
+
+import com.zeyang.login.entity.User;
+import com.zeyang.login.entity.UserStatus;
+import io.r2dbc.spi.Row;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+/**
+ * 用户表的 R2DBC 访问，只包含登录链路需要的查询和更新
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveUserRepository {
+
+    private static final String COLUMNS =
+            "id, username, password_hash, salt, email, phone, status, failed_attempts, locked_until, created_at, updated_at";
+
+    private final DatabaseClient databaseClient;
+
+    @Autowired
+    public ReactiveUserRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Mono<User> findByUsername(String username) {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM users WHERE username = :username")
+                .bind("username", username)
+                .map((row, metadata) -> toUser(row))
+                .one();
+    }
+
+    public Mono<User> findById(Long id) {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM users WHERE id = :id")
+                .bind("id", id)
+                .map((row, metadata) -> toUser(row))
+                .one();
+    }
+
+    /**
+     * 登录成功后更新密码哈希并清除用户表中的失败记录
+     */
+    public Mono<Void> updateAfterLogin(Long id, String passwordHash) {
+        return databaseClient.sql("UPDATE users SET password_hash = :hash, failed_attempts = 0, locked_until = NULL, "
+                        + "updated_at = NOW() WHERE id = :id")
+                .bind("hash", passwordHash)
+                .bind("id", id)
+                .then();
+    }
+
+    /**
+     * Redis 不可用时的失败计数回退；MySQL 按顺序执行 SET，先用旧的 failed_attempts 计算锁定时间
+     */
+    public Mono<Void> recordFailure(Long id, int maxAttempts, LocalDateTime lockUntil) {
+        return databaseClient.sql("UPDATE users SET "
+                        + "locked_until = CASE WHEN failed_attempts + 1 >= :max THEN :until ELSE locked_until END, "
+                        + "failed_attempts = failed_attempts + 1 WHERE id = :id")
+                .bind("max", maxAttempts)
+                .bind("until", lockUntil)
+                .bind("id", id)
+                .then();
+    }
+
+    private static User toUser(Row row) {
+        User user = new User();
+        user.setId(row.get("id", Long.class));
+        user.setUsername(row.get("username", String.class));
+        user.setPasswordHash(row.get("password_hash", String.class));
+        user.setSalt(row.get("salt", String.class));
+        user.setEmail(row.get("email", String.class));
+        user.setPhone(row.get("phone", String.class));
+        user.setStatus(UserStatus.valueOf(row.get("status", String.class)));
+        user.setFailedAttempts(row.get("failed_attempts", Integer.class));
+        user.setLockedUntil(row.get("locked_until", LocalDateTime.class));
+        user.setCreatedAt(row.get("created_at", LocalDateTime.class));
+        user.setUpdatedAt(row.get("updated_at", LocalDateTime.class));
+        return user;
+    }
+}
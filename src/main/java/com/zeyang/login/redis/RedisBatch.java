@@ -0,0 +1,63 @@
+package com.zeyang.login.redis;
+
+import org.springframework.data.redis.connection.StringRedisConnection;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 一次 Redis 往返内发送的一组写命令
+ * <p>
+ * 登录过程中各组件把不需要立即拿到结果的写入（清除失败计数、保存刷新令牌、创建会话）追加进来，
+ * 响应返回前调用 {@link #execute()} 用一条流水线统一发送。批次只在一个请求线程内使用，不是线程安全的。
+ */
+public class RedisBatch {
+
+    private final RedisBatchExecutor executor;
+    private final List<Consumer<StringRedisConnection>> commands = new ArrayList<>(4);
+
+    public RedisBatch(RedisBatchExecutor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * 追加命令，回调在流水线中执行，其中的返回值都是 null
+     */
+    public RedisBatch add(Consumer<StringRedisConnection> command) {
+        commands.add(command);
+        return this;
+    }
+
+    public int size() {
+        return commands.size();
+    }
+
+    public boolean isEmpty() {
+        return commands.isEmpty();
+    }
+
+    /**
+     * 发送全部命令并清空批次，没有命令时不访问 Redis；Redis 异常直接抛出
+     */
+    public void execute() {
+        if (commands.isEmpty()) {
+            return;
+        }
+        List<Consumer<StringRedisConnection>> pending = new ArrayList<>(commands);
+        commands.clear();
+        executor.execute(pending);
+    }
+
+    /**
+     * 同 {@link #execute()}，但 Redis 异常只计数不抛出，返回是否成功；用于丢失也不影响结果的写入
+     */
+    public boolean tryExecute() {
+        try {
+            execute();
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.zeyang.login.redis;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 创建并执行 {@link RedisBatch}，每个批次一次流水线往返
+ */
+@Slf4j
+@Component
+public class RedisBatchExecutor {
+
+    private final StringRedisTemplate redisTemplate;
+
+    // 指标
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder commands = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    @Autowired
+    public RedisBatchExecutor(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    public RedisBatch newBatch() {
+        return new RedisBatch(this);
+    }
+
+    void execute(List<Consumer<StringRedisConnection>> pending) {
+        batches.increment();
+        commands.add(pending.size());
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection conn = (StringRedisConnection) connection;
+                for (Consumer<StringRedisConnection> command : pending) {
+                    command.accept(conn);
+                }
+                return null;
+            });
+        } catch (RuntimeException e) {
+            failures.increment();
+            log.debug("Redis 批量写入失败: {}", e.getMessage());
+            throw e;
+        }
+    }
+
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    public long getCommandCount() {
+        return commands.sum();
+    }
+
+    public long getFailureCount() {
+        return failures.sum();
+    }
+}
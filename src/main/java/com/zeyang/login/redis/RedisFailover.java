@@ -0,0 +1,106 @@
+package com.zeyang.login.redis;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 失败计数和限流的 Redis 故障切换
+ * <p>
+ * 请求路径上 Redis 调用失败时标记为不可用，之后的请求直接使用本地计数，不再逐个等待 Redis 超时；
+ * 定时 PING 探测，恢复后执行回灌任务，切回 Redis，再执行一次回灌收尾。
+ */
+@Slf4j
+@Component
+public class RedisFailover {
+
+    private final StringRedisTemplate redisTemplate;
+    private final boolean enabled;
+    private final AtomicBoolean down = new AtomicBoolean();
+    private final List<Runnable> recoveryTasks = new CopyOnWriteArrayList<>();
+
+    // 指标
+    private final LongAdder failovers = new LongAdder();
+    private final LongAdder recoveries = new LongAdder();
+
+    @Autowired
+    public RedisFailover(StringRedisTemplate redisTemplate,
+                         @Value("${login.failover.enabled:true}") boolean enabled) {
+        this.redisTemplate = redisTemplate;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 是否应当访问 Redis；未开启故障切换时始终为 true
+     */
+    public boolean isAvailable() {
+        return !enabled || !down.get();
+    }
+
+    public void markDown(RuntimeException cause) {
+        if (enabled && down.compareAndSet(false, true)) {
+            failovers.increment();
+            log.warn("Redis 不可用，失败计数和限流切换到本地: {}", cause.getMessage());
+        }
+    }
+
+    /**
+     * Redis 恢复后、切回之前执行，任务抛出异常时保持本地模式，等待下一次探测
+     */
+    public void onRecovery(Runnable task) {
+        recoveryTasks.add(task);
+    }
+
+    @Scheduled(fixedDelayString = "${login.failover.probe-interval-ms:1000}")
+    public void probe() {
+        if (!down.get()) {
+            return;
+        }
+        try {
+            redisTemplate.execute((RedisCallback<String>) RedisConnection::ping);
+            for (Runnable task : recoveryTasks) {
+                task.run();
+            }
+        } catch (RuntimeException e) {
+            log.debug("Redis 仍不可用: {}", e.getMessage());
+            return;
+        }
+        down.set(false);
+        recoveries.increment();
+        log.info("Redis 已恢复，切回 Redis 计数");
+        // 回灌期间仍在本地记录的请求，切回后再回灌一次
+        try {
+            for (Runnable task : recoveryTasks) {
+                task.run();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Redis 恢复后补充回灌失败: {}", e.getMessage());
+        }
+    }
+
+    public boolean isDown() {
+        return down.get();
+    }
+
+    public long getFailoverCount() {
+        return failovers.sum();
+    }
+
+    public long getRecoveryCount() {
+        return recoveries.sum();
+    }
+}
@@ -3,14 +3,63 @@ package com.zeyang.login.repository;
 import java.time.LocalDateTime;
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.zeyang.login.dto.AuthLogView;
 import com.zeyang.login.entity.AuthLog;
 import com.zeyang.login.entity.User;
 
 @Repository
 public interface AuthLogRepository extends JpaRepository<AuthLog, Long> {
+
+    String VIEW = "select new com.zeyang.login.dto.AuthLogView(l.id, l.user.id, l.action, l.ipAddress, "
+            + "l.userAgent, l.location, l.createdAt) from AuthLog l ";
+
+    /**
+     * @deprecated 一次加载全部实体，改用 {@link #findPageByUserId}
+     */
+    @Deprecated
     List<AuthLog> findByUserOrderByCreatedAtDesc(User user);
+
+    /**
+     * @deprecated 一次加载全部实体，改用 {@link #findPageByCreatedAtRange}
+     */
+    @Deprecated
     List<AuthLog> findByCreatedAtBetween(LocalDateTime start, LocalDateTime end);
-} 
\ No newline at end of file
+
+    /**
+     * 用户日志第一页，按 (created_at, id) 倒序，走 idx_user_created_at
+     */
+    @Query(VIEW + "where l.user.id = :userId order by l.createdAt desc, l.id desc")
+    List<AuthLogView> findFirstPageByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    /**
+     * 用户日志后续页：从上一页最后一行 (createdAt, id) 之后继续，不使用 OFFSET。
+     * createdAt <= 游标 这一条件保证索引上是范围扫描，OR 只过滤同一时间戳的行
+     */
+    @Query(VIEW + "where l.user.id = :userId and l.createdAt <= :createdAt "
+            + "and (l.createdAt < :createdAt or l.id < :id) order by l.createdAt desc, l.id desc")
+    List<AuthLogView> findPageByUserId(@Param("userId") Long userId,
+                                       @Param("createdAt") LocalDateTime createdAt,
+                                       @Param("id") Long id,
+                                       Pageable pageable);
+
+    /**
+     * 时间范围第一页，[start, end) 按 (created_at, id) 正序，走 idx_created_at
+     */
+    @Query(VIEW + "where l.createdAt >= :start and l.createdAt < :end order by l.createdAt asc, l.id asc")
+    List<AuthLogView> findFirstPageByCreatedAtRange(@Param("start") LocalDateTime start,
+                                                    @Param("end") LocalDateTime end,
+                                                    Pageable pageable);
+
+    @Query(VIEW + "where l.createdAt >= :createdAt and l.createdAt < :end "
+            + "and (l.createdAt > :createdAt or l.id > :id) order by l.createdAt asc, l.id asc")
+    List<AuthLogView> findPageByCreatedAtRange(@Param("end") LocalDateTime end,
+                                               @Param("createdAt") LocalDateTime createdAt,
+                                               @Param("id") Long id,
+                                               Pageable pageable);
+}
@@ -3,8 +3,14 @@ package com.zeyang.login.repository;
 import com.zeyang.login.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
+    // 只读事务，开启读写分离时走从库；在读写事务内调用仍然沿用主库连接
+    @Transactional(readOnly = true)
     User findByUsername(String username);
+
+    @Transactional(readOnly = true)
+    boolean existsByEmail(String email);
 }
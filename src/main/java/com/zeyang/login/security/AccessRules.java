@@ -0,0 +1,56 @@
+package com.zeyang.login.security;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 访问控制规则
+ * <p>
+ * 管理员名单来自 login.admin.usernames，认证过滤器据此授予 ADMIN 角色；
+ * 登录日志、统计排行和指标端点只对管理员开放，普通用户只能查看自己的登录日志。
+ */
+@Component("accessRules")
+public class AccessRules {
+
+    public static final String ADMIN = "ADMIN";
+
+    private static final List<GrantedAuthority> ADMIN_AUTHORITIES =
+            Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + ADMIN));
+
+    private final Set<String> adminUsernames;
+
+    @Autowired
+    public AccessRules(@Value("${login.admin.usernames:}") String adminUsernames) {
+        this.adminUsernames = Arrays.stream(adminUsernames.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .collect(Collectors.toSet());
+    }
+
+    public List<GrantedAuthority> authoritiesOf(String username) {
+        return username != null && adminUsernames.contains(username) ? ADMIN_AUTHORITIES : Collections.emptyList();
+    }
+
+    /**
+     * 当前认证用户是否就是路径中的 userId，供安全配置中的表达式使用
+     */
+    public boolean isUser(Authentication authentication, String userId) {
+        if (authentication == null || userId == null) {
+            return false;
+        }
+        Object principal = authentication.getPrincipal();
+        Long current = principal instanceof TokenPrincipal ? ((TokenPrincipal) principal).getUserId()
+                : principal instanceof SessionRecord ? ((SessionRecord) principal).getUserId() : null;
+        return current != null && userId.equals(current.toString());
+    }
+}
@@ -0,0 +1,61 @@
+package com.zeyang.login.security;
+
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+
+/**
+ * Argon2id，工作因子为迭代次数，内存和并行度由配置固定；参数编码在哈希中
+ */
+public class Argon2Hasher implements PasswordHasher {
+
+    public static final String ID = "argon2";
+
+    private static final int SALT_LENGTH = 16;
+    private static final int HASH_LENGTH = 32;
+
+    private final int iterations;
+    private final int memoryKb;
+    private final int parallelism;
+    private final Argon2PasswordEncoder encoder;
+
+    public Argon2Hasher(int iterations, int memoryKb, int parallelism) {
+        this.iterations = iterations;
+        this.memoryKb = memoryKb;
+        this.parallelism = parallelism;
+        this.encoder = new Argon2PasswordEncoder(SALT_LENGTH, HASH_LENGTH, parallelism, memoryKb, iterations);
+    }
+
+    @Override
+    public String id() {
+        return ID;
+    }
+
+    @Override
+    public String hash(String rawPassword, String salt) {
+        return encoder.encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(String rawPassword, String salt, String encoded) {
+        return encoder.matches(rawPassword, encoded);
+    }
+
+    @Override
+    public boolean needsRehash(String encoded) {
+        return encoder.upgradeEncoding(encoded);
+    }
+
+    @Override
+    public int workFactor() {
+        return iterations;
+    }
+
+    @Override
+    public int nextWorkFactor() {
+        return iterations + 1;
+    }
+
+    @Override
+    public PasswordHasher withWorkFactor(int workFactor) {
+        return workFactor == iterations ? this : new Argon2Hasher(workFactor, memoryKb, parallelism);
+    }
+}
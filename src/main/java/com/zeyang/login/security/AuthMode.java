@@ -0,0 +1,13 @@
+package com.zeyang.login.security;
+
+/**
+ * 登录态保存方式，由 login.auth.mode 配置
+ */
+public enum AuthMode {
+    /** 容器 HttpSession */
+    SESSION,
+    /** Redis 会话存储，节点重启或切换后会话仍然有效 */
+    REDIS_SESSION,
+    /** 自包含签名访问令牌 + 可吊销刷新令牌 */
+    TOKEN
+}
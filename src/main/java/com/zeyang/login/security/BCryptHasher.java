@@ -0,0 +1,54 @@
+package com.zeyang.login.security;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * BCrypt，工作因子为 cost（log2 轮数），盐内嵌在哈希中
+ */
+public class BCryptHasher implements PasswordHasher {
+
+    public static final String ID = "bcrypt";
+
+    private final int strength;
+    private final BCryptPasswordEncoder encoder;
+
+    public BCryptHasher(int strength) {
+        this.strength = strength;
+        this.encoder = new BCryptPasswordEncoder(strength);
+    }
+
+    @Override
+    public String id() {
+        return ID;
+    }
+
+    @Override
+    public String hash(String rawPassword, String salt) {
+        return encoder.encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(String rawPassword, String salt, String encoded) {
+        return encoder.matches(rawPassword, encoded);
+    }
+
+    @Override
+    public boolean needsRehash(String encoded) {
+        return encoder.upgradeEncoding(encoded);
+    }
+
+    @Override
+    public int workFactor() {
+        return strength;
+    }
+
+    @Override
+    public int nextWorkFactor() {
+        return Math.min(strength + 1, 31);
+    }
+
+    @Override
+    public PasswordHasher withWorkFactor(int workFactor) {
+        return workFactor == strength ? this : new BCryptHasher(workFactor);
+    }
+}
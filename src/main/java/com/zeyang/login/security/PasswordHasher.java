@@ -0,0 +1,40 @@
+package com.zeyang.login.security;
+
+/**
+ * 密码哈希算法
+ * <p>
+ * 实现类只负责算法本身，存储格式中的算法前缀由 {@link PasswordHashingEngine} 统一处理。
+ */
+public interface PasswordHasher {
+
+    /**
+     * 算法标识，写入哈希前缀，如 {bcrypt}
+     */
+    String id();
+
+    /**
+     * 计算哈希，返回值不含算法前缀
+     *
+     * @param salt 用户表中的盐，自带盐的算法可以忽略
+     */
+    String hash(String rawPassword, String salt);
+
+    boolean matches(String rawPassword, String salt, String encoded);
+
+    /**
+     * 已有哈希的参数是否弱于当前配置
+     */
+    boolean needsRehash(String encoded);
+
+    /**
+     * 当前工作因子（bcrypt 的 cost、PBKDF2 的迭代次数等）
+     */
+    int workFactor();
+
+    /**
+     * 校准时的下一档工作因子，不可调的算法返回当前值
+     */
+    int nextWorkFactor();
+
+    PasswordHasher withWorkFactor(int workFactor);
+}
@@ -0,0 +1,141 @@
+package com.zeyang.login.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 密码哈希引擎
+ * <p>
+ * 存储格式为 {算法}哈希，没有前缀的旧数据按 SHA-256 处理；hashers 中没有 {@link Sha256LegacyHasher} 时按操作系统编码校验。
+ * 新密码统一使用当前默认算法；校验时按前缀选择算法，
+ * 算法或参数落后于当前配置时由 {@link #needsRehash(String)} 提示登录成功后重新哈希。
+ */
+@Slf4j
+public class PasswordHashingEngine {
+
+    private static final String CALIBRATION_PASSWORD = "Calibration#Password-2024";
+
+    private final Map<String, PasswordHasher> hashers = new LinkedHashMap<>();
+    private final PasswordHasher legacy;
+    private volatile PasswordHasher current;
+
+    public PasswordHashingEngine(List<PasswordHasher> hashers, String defaultId) {
+        this.hashers.put(Sha256LegacyHasher.ID, new Sha256LegacyHasher());
+        for (PasswordHasher hasher : hashers) {
+            this.hashers.put(hasher.id(), hasher);
+        }
+        this.legacy = this.hashers.get(Sha256LegacyHasher.ID);
+        PasswordHasher hasher = this.hashers.get(defaultId);
+        if (hasher == null) {
+            throw new IllegalArgumentException("未知的密码哈希算法: " + defaultId);
+        }
+        this.current = hasher;
+    }
+
+    public String encode(String rawPassword, String salt) {
+        PasswordHasher hasher = current;
+        return "{" + hasher.id() + "}" + hasher.hash(rawPassword, salt);
+    }
+
+    public boolean matches(String rawPassword, String salt, String stored) {
+        if (rawPassword == null || stored == null) {
+            return false;
+        }
+        String id = idOf(stored);
+        PasswordHasher hasher = id == null ? legacy : hashers.get(id);
+        if (hasher == null) {
+            return false;
+        }
+        return hasher.matches(rawPassword, salt, id == null ? stored : stored.substring(id.length() + 2));
+    }
+
+    /**
+     * 已存储的哈希是否需要用当前算法和参数重新计算
+     */
+    public boolean needsRehash(String stored) {
+        if (stored == null) {
+            return false;
+        }
+        PasswordHasher hasher = current;
+        String id = idOf(stored);
+        if (!hasher.id().equals(id == null ? Sha256LegacyHasher.ID : id)) {
+            return true;
+        }
+        return hasher.needsRehash(id == null ? stored : stored.substring(id.length() + 2));
+    }
+
+    public PasswordHasher getCurrent() {
+        return current;
+    }
+
+    /**
+     * 启动校准：从当前工作因子开始逐档加强，选出单次哈希不超过目标耗时的最强参数
+     */
+    public void calibrate(long targetMillis) {
+        PasswordHasher hasher = current;
+        long elapsed = measure(hasher);
+        for (int i = 0; i < 32; i++) {
+            int next = hasher.nextWorkFactor();
+            if (next == hasher.workFactor()) {
+                break;
+            }
+            PasswordHasher stronger = hasher.withWorkFactor(next);
+            long strongerElapsed = measure(stronger);
+            if (strongerElapsed > targetMillis) {
+                break;
+            }
+            hasher = stronger;
+            elapsed = strongerElapsed;
+        }
+        log.info("密码哈希校准完成: 算法={}, 工作因子={}, 单次耗时={}ms, 目标={}ms",
+                hasher.id(), hasher.workFactor(), elapsed, targetMillis);
+        hashers.put(hasher.id(), hasher);
+        current = hasher;
+    }
+
+    /**
+     * Spring Security 的 PasswordEncoder 视图，算法盐内嵌，不使用用户表中的盐
+     */
+    public PasswordEncoder asPasswordEncoder() {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                return PasswordHashingEngine.this.encode(rawPassword.toString(), "");
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return PasswordHashingEngine.this.matches(rawPassword.toString(), "", encodedPassword);
+            }
+
+            @Override
+            public boolean upgradeEncoding(String encodedPassword) {
+                return needsRehash(encodedPassword);
+            }
+        };
+    }
+
+    private static long measure(PasswordHasher hasher) {
+        // 先预热一次，再取三次中的最小值
+        hasher.hash(CALIBRATION_PASSWORD, "calibration");
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            hasher.hash(CALIBRATION_PASSWORD, "calibration");
+            best = Math.min(best, (System.nanoTime() - start) / 1_000_000L);
+        }
+        return best;
+    }
+
+    private static String idOf(String stored) {
+        if (!stored.startsWith("{")) {
+            return null;
+        }
+        int end = stored.indexOf('}');
+        return end > 1 ? stored.substring(1, end) : null;
+    }
+}
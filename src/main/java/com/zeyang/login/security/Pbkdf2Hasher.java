@@ -0,0 +1,85 @@
+package com.zeyang.login.security;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * PBKDF2-HmacSHA256，存储格式为 迭代次数$盐$哈希，迭代次数随哈希保存便于升级判断
+ */
+public class Pbkdf2Hasher implements PasswordHasher {
+
+    public static final String ID = "pbkdf2";
+
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int SALT_LENGTH = 16;
+    private static final int KEY_LENGTH_BITS = 256;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final int iterations;
+
+    public Pbkdf2Hasher(int iterations) {
+        this.iterations = iterations;
+    }
+
+    @Override
+    public String id() {
+        return ID;
+    }
+
+    @Override
+    public String hash(String rawPassword, String salt) {
+        byte[] saltBytes = new byte[SALT_LENGTH];
+        RANDOM.nextBytes(saltBytes);
+        byte[] hash = derive(rawPassword, saltBytes, iterations);
+        Base64.Encoder encoder = Base64.getEncoder();
+        return iterations + "$" + encoder.encodeToString(saltBytes) + "$" + encoder.encodeToString(hash);
+    }
+
+    @Override
+    public boolean matches(String rawPassword, String salt, String encoded) {
+        String[] parts = encoded.split("\\$");
+        if (parts.length != 3) {
+            return false;
+        }
+        Base64.Decoder decoder = Base64.getDecoder();
+        byte[] expected = decoder.decode(parts[2]);
+        byte[] actual = derive(rawPassword, decoder.decode(parts[1]), Integer.parseInt(parts[0]));
+        return MessageDigest.isEqual(expected, actual);
+    }
+
+    @Override
+    public boolean needsRehash(String encoded) {
+        int separator = encoded.indexOf('$');
+        return separator <= 0 || Integer.parseInt(encoded.substring(0, separator)) < iterations;
+    }
+
+    @Override
+    public int workFactor() {
+        return iterations;
+    }
+
+    @Override
+    public int nextWorkFactor() {
+        return iterations * 2;
+    }
+
+    @Override
+    public PasswordHasher withWorkFactor(int workFactor) {
+        return workFactor == iterations ? this : new Pbkdf2Hasher(workFactor);
+    }
+
+    private static byte[] derive(String rawPassword, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(rawPassword.toCharArray(), salt, iterations, KEY_LENGTH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException("密码加密失败", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.zeyang.login.security;
+
+import com.zeyang.login.cache.LocalTtlCache;
+import com.zeyang.login.entity.User;
+import com.zeyang.login.redis.RedisBatch;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.PatternTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Redis 会话存储
+ * <p>
+ * 每个会话是一个只有几个字段的 Redis 哈希（uid、un、ct），不保存用户实体。
+ * 过期时间滑动续期，但每个会话在一个续期间隔内最多续期一次；
+ * 本节点近缓存命中时不访问 Redis，会话被删除或过期时由键空间通知清理近缓存。
+ */
+@Slf4j
+@Component
+public class RedisSessionStore implements MessageListener {
+
+    private static final String SESSION_PREFIX = "session:";
+    private static final String KEYSPACE_PATTERN = "__keyspace@*__:" + SESSION_PREFIX + "*";
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final StringRedisTemplate redisTemplate;
+    private final long ttlMillis;
+    private final long refreshIntervalMillis;
+    private final LocalTtlCache<String, SessionRecord> nearCache;
+
+    // 指标
+    private final LongAdder nearHits = new LongAdder();
+    private final LongAdder redisReads = new LongAdder();
+    private final LongAdder touches = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    @Autowired
+    public RedisSessionStore(StringRedisTemplate redisTemplate,
+                             RedisMessageListenerContainer listenerContainer,
+                             @Value("${login.session.ttl-minutes:30}") long ttlMinutes,
+                             @Value("${login.session.refresh-interval-seconds:60}") long refreshIntervalSeconds,
+                             @Value("${login.session.near-cache-size:50000}") int nearCacheSize,
+                             @Value("${login.session.near-cache-ttl-seconds:60}") long nearCacheTtlSeconds,
+                             @Value("${login.session.configure-keyspace-notifications:false}") boolean configureNotifications) {
+        this.redisTemplate = redisTemplate;
+        this.ttlMillis = TimeUnit.MINUTES.toMillis(ttlMinutes);
+        this.refreshIntervalMillis = TimeUnit.SECONDS.toMillis(refreshIntervalSeconds);
+        // 近缓存自身也有较短的过期时间，键空间通知丢失时最多延迟这么久发现会话失效
+        this.nearCache = new LocalTtlCache<>(nearCacheSize, TimeUnit.SECONDS.toMillis(nearCacheTtlSeconds));
+        if (configureNotifications) {
+            enableKeyspaceNotifications();
+        }
+        listenerContainer.addMessageListener(this, new PatternTopic(KEYSPACE_PATTERN));
+    }
+
+    /**
+     * 创建会话，返回会话ID；写入字段和设置过期时间追加到批次中，调用方须在返回会话ID前执行批次
+     */
+    public String create(User user, RedisBatch batch) {
+        byte[] bytes = new byte[24];
+        RANDOM.nextBytes(bytes);
+        String sessionId = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        long now = System.currentTimeMillis();
+        String key = SESSION_PREFIX + sessionId;
+        Map<String, String> fields = Map.of(
+                "uid", user.getId().toString(),
+                "un", user.getUsername(),
+                "ct", String.valueOf(now));
+        batch.add(conn -> {
+            conn.hMSet(key, fields);
+            conn.pExpire(key, ttlMillis);
+        });
+        nearCache.put(sessionId, new SessionRecord(sessionId, user.getId(), user.getUsername(), now));
+        return sessionId;
+    }
+
+    /**
+     * 读取会话并按需续期，会话不存在时返回 null
+     */
+    public SessionRecord get(String sessionId) {
+        long now = System.currentTimeMillis();
+        SessionRecord record = nearCache.get(sessionId);
+        if (record != null) {
+            nearHits.increment();
+        } else {
+            redisReads.increment();
+            List<String> values = redisTemplate.<String, String>opsForHash()
+                    .multiGet(SESSION_PREFIX + sessionId, List.of("uid", "un"));
+            if (values.get(0) == null) {
+                return null;
+            }
+            // 刚从 Redis 读出的会话离过期还远，记为刚续期过，一个续期间隔之后再续期
+            record = new SessionRecord(sessionId, Long.valueOf(values.get(0)), values.get(1), now);
+            nearCache.put(sessionId, record);
+            return record;
+        }
+        if (now - record.getLastTouched() >= refreshIntervalMillis) {
+            record.setLastTouched(now);
+            touches.increment();
+            Boolean alive = redisTemplate.expire(SESSION_PREFIX + sessionId, ttlMillis, TimeUnit.MILLISECONDS);
+            if (Boolean.FALSE.equals(alive)) {
+                // 键已不存在（过期或在其他节点登出），键空间通知丢失时由这里发现
+                nearCache.remove(sessionId);
+                invalidations.increment();
+                return null;
+            }
+        }
+        return record;
+    }
+
+    public void delete(String sessionId) {
+        nearCache.remove(sessionId);
+        redisTemplate.delete(SESSION_PREFIX + sessionId);
+    }
+
+    /**
+     * 键空间通知：会话被删除或过期时清理本节点近缓存
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String channel = new String(message.getChannel(), StandardCharsets.UTF_8);
+        String event = new String(message.getBody(), StandardCharsets.UTF_8);
+        if ("del".equals(event) || "expired".equals(event) || "evicted".equals(event)) {
+            int index = channel.indexOf(SESSION_PREFIX);
+            if (index >= 0) {
+                nearCache.remove(channel.substring(index + SESSION_PREFIX.length()));
+                invalidations.increment();
+            }
+        }
+    }
+
+    public long getNearHitCount() {
+        return nearHits.sum();
+    }
+
+    public long getRedisReadCount() {
+        return redisReads.sum();
+    }
+
+    public long getTouchCount() {
+        return touches.sum();
+    }
+
+    public long getInvalidationCount() {
+        return invalidations.sum();
+    }
+
+    public int getNearCacheSize() {
+        return nearCache.size();
+    }
+
+    private void enableKeyspaceNotifications() {
+        try {
+            // K：键空间事件，g：DEL/EXPIRE 等通用命令，x：过期事件，e：淘汰事件
+            redisTemplate.execute((RedisCallback<Object>) connection -> {
+                connection.setConfig("notify-keyspace-events", "Kgxe");
+                return null;
+            });
+        } catch (RuntimeException e) {
+            log.warn("无法开启 Redis 键空间通知，近缓存只依赖自身过期时间: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.zeyang.login.security;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Redis 会话中的登录信息，只包含认证需要的字段
+ */
+@Data
+@AllArgsConstructor
+public class SessionRecord {
+    private String sessionId;
+    private Long userId;
+    private String username;
+    // 本节点最近一次续期时间，用于限制续期频率
+    private volatile long lastTouched;
+}
@@ -0,0 +1,88 @@
+package com.zeyang.login.security;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * 旧版 SHA-256(salt + password)，只用于校验历史数据，登录成功后会被升级
+ * <p>
+ * 旧代码用 String.getBytes() 编码，JDK 17 下取操作系统编码；JDK 18 起默认编码固定为 UTF-8，
+ * 在非 UTF-8 的系统上（如中文 Windows 的 GBK）含非 ASCII 字符的密码会算出不同的哈希，因此默认按操作系统编码校验。
+ */
+public class Sha256LegacyHasher implements PasswordHasher {
+
+    public static final String ID = "sha256";
+
+    private final Charset charset;
+
+    public Sha256LegacyHasher() {
+        this(nativeCharset());
+    }
+
+    public Sha256LegacyHasher(Charset charset) {
+        this.charset = charset;
+    }
+
+    /**
+     * 操作系统编码，即 JDK 17 及以前 String.getBytes() 的默认编码
+     */
+    static Charset nativeCharset() {
+        String name = System.getProperty("native.encoding");
+        try {
+            return name != null ? Charset.forName(name) : Charset.defaultCharset();
+        } catch (IllegalArgumentException e) {
+            return Charset.defaultCharset();
+        }
+    }
+
+    public Charset getCharset() {
+        return charset;
+    }
+
+    @Override
+    public String id() {
+        return ID;
+    }
+
+    @Override
+    public String hash(String rawPassword, String salt) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            md.update(salt.getBytes(charset));
+            byte[] hashedPassword = md.digest(rawPassword.getBytes(charset));
+            return Base64.getEncoder().encodeToString(hashedPassword);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("密码加密失败", e);
+        }
+    }
+
+    @Override
+    public boolean matches(String rawPassword, String salt, String encoded) {
+        byte[] expected = encoded.getBytes(StandardCharsets.UTF_8);
+        byte[] actual = hash(rawPassword, salt).getBytes(StandardCharsets.UTF_8);
+        return MessageDigest.isEqual(expected, actual);
+    }
+
+    @Override
+    public boolean needsRehash(String encoded) {
+        return false;
+    }
+
+    @Override
+    public int workFactor() {
+        return 1;
+    }
+
+    @Override
+    public int nextWorkFactor() {
+        return 1;
+    }
+
+    @Override
+    public PasswordHasher withWorkFactor(int workFactor) {
+        return this;
+    }
+}
@@ -0,0 +1,111 @@
+package com.zeyang.login.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 已吊销访问令牌的内存黑名单
+ * <p>
+ * 校验令牌时只查本地内存；吊销时写入 Redis 有序集合（分数为令牌过期时间）并发布通知，
+ * 各节点收到通知后更新本地副本，新节点启动时从有序集合加载未过期的条目。
+ * 订阅连接断开期间的通知不会补发，所以再定时从有序集合重新同步。
+ */
+@Slf4j
+@Component
+public class TokenDenylist implements MessageListener {
+
+    private static final String DENYLIST_KEY = "auth:denylist";
+    private static final String REVOKED_CHANNEL = "auth:revoked";
+    private static final int PURGE_THRESHOLD = 1024;
+
+    private final StringRedisTemplate redisTemplate;
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+
+    @Autowired
+    public TokenDenylist(StringRedisTemplate redisTemplate, RedisMessageListenerContainer listenerContainer) {
+        this.redisTemplate = redisTemplate;
+        listenerContainer.addMessageListener(this, new ChannelTopic(REVOKED_CHANNEL));
+    }
+
+    @PostConstruct
+    public void load() {
+        try {
+            long now = System.currentTimeMillis();
+            Set<ZSetOperations.TypedTuple<String>> entries =
+                    redisTemplate.opsForZSet().rangeByScoreWithScores(DENYLIST_KEY, now, Double.MAX_VALUE);
+            if (entries != null) {
+                for (ZSetOperations.TypedTuple<String> entry : entries) {
+                    if (entry.getValue() != null && entry.getScore() != null) {
+                        revoked.put(entry.getValue(), entry.getScore().longValue());
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("令牌黑名单加载失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 补齐订阅断开期间漏掉的吊销，同时清理本地已过期的条目
+     */
+    @Scheduled(fixedDelayString = "${login.token.denylist-resync-interval-ms:30000}",
+            initialDelayString = "${login.token.denylist-resync-interval-ms:30000}")
+    public void resync() {
+        load();
+        long now = System.currentTimeMillis();
+        revoked.values().removeIf(exp -> exp < now);
+    }
+
+    public boolean isRevoked(String tokenId) {
+        return revoked.containsKey(tokenId);
+    }
+
+    /**
+     * 吊销令牌，只需保留到令牌自身过期
+     */
+    public void revoke(String tokenId, long expiresAt) {
+        put(tokenId, expiresAt);
+        try {
+            redisTemplate.opsForZSet().add(DENYLIST_KEY, tokenId, expiresAt);
+            redisTemplate.opsForZSet().removeRangeByScore(DENYLIST_KEY, 0, System.currentTimeMillis());
+            redisTemplate.convertAndSend(REVOKED_CHANNEL, tokenId + ":" + expiresAt);
+        } catch (RuntimeException e) {
+            log.warn("令牌吊销同步失败，仅在本节点生效: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int split = body.lastIndexOf(':');
+        if (split > 0) {
+            put(body.substring(0, split), Long.parseLong(body.substring(split + 1)));
+        }
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+
+    private void put(String tokenId, long expiresAt) {
+        revoked.put(tokenId, expiresAt);
+        if (revoked.size() % PURGE_THRESHOLD == 0) {
+            long now = System.currentTimeMillis();
+            revoked.values().removeIf(exp -> exp < now);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.zeyang.login.security;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 访问令牌解析结果
+ */
+@Data
+@AllArgsConstructor
+public class TokenPrincipal {
+    private Long userId;
+    private String username;
+    private String tokenId;
+    private long expiresAt;
+}
@@ -0,0 +1,193 @@
+package com.zeyang.login.security;
+
+import com.zeyang.login.entity.User;
+import com.zeyang.login.redis.RedisBatch;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 访问令牌与刷新令牌
+ * <p>
+ * 访问令牌格式为 base64url(用户ID.过期时间.令牌ID.用户名) + "." + base64url(HMAC-SHA256)，
+ * 校验只做一次 HMAC 和本地黑名单查询，不访问网络。
+ * 刷新令牌是随机串，Redis 中只保存它的 SHA-256，使用一次即轮换。
+ */
+@Slf4j
+@Service
+public class TokenService {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final String REFRESH_PREFIX = "refresh:";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final StringRedisTemplate redisTemplate;
+    private final TokenDenylist denylist;
+    private final SecretKeySpec key;
+    private final long accessTtlMillis;
+    private final long refreshTtlMillis;
+    private final ThreadLocal<Mac> macs;
+
+    @Autowired
+    public TokenService(StringRedisTemplate redisTemplate,
+                        TokenDenylist denylist,
+                        @Value("${login.token.secret:}") String secret,
+                        @Value("${login.token.access-ttl-minutes:15}") long accessTtlMinutes,
+                        @Value("${login.token.refresh-ttl-days:14}") long refreshTtlDays) {
+        this.redisTemplate = redisTemplate;
+        this.denylist = denylist;
+        byte[] secretBytes;
+        if (secret == null || secret.isEmpty()) {
+            // 未配置密钥时随机生成，多节点部署必须配置相同的密钥
+            log.warn("未配置 login.token.secret，使用随机密钥，重启后已签发的访问令牌全部失效");
+            secretBytes = new byte[32];
+            RANDOM.nextBytes(secretBytes);
+        } else {
+            secretBytes = Base64.getDecoder().decode(secret);
+        }
+        this.key = new SecretKeySpec(secretBytes, HMAC_ALGORITHM);
+        this.accessTtlMillis = TimeUnit.MINUTES.toMillis(accessTtlMinutes);
+        this.refreshTtlMillis = TimeUnit.DAYS.toMillis(refreshTtlDays);
+        this.macs = ThreadLocal.withInitial(this::newMac);
+    }
+
+    public String createAccessToken(User user) {
+        long expiresAt = System.currentTimeMillis() + accessTtlMillis;
+        byte[] tokenId = new byte[12];
+        RANDOM.nextBytes(tokenId);
+        String payload = user.getId() + "." + expiresAt + "." + ENCODER.encodeToString(tokenId) + "." + user.getUsername();
+        String encodedPayload = ENCODER.encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+        return encodedPayload + "." + sign(encodedPayload);
+    }
+
+    /**
+     * 校验访问令牌，签名错误、过期或已吊销时返回 null
+     */
+    public TokenPrincipal parseAccessToken(String token) {
+        int dot = token.indexOf('.');
+        if (dot <= 0 || dot == token.length() - 1) {
+            return null;
+        }
+        String encodedPayload = token.substring(0, dot);
+        byte[] expected = sign(encodedPayload).getBytes(StandardCharsets.US_ASCII);
+        byte[] actual = token.substring(dot + 1).getBytes(StandardCharsets.US_ASCII);
+        if (!MessageDigest.isEqual(expected, actual)) {
+            return null;
+        }
+        String payload;
+        try {
+            payload = new String(DECODER.decode(encodedPayload), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        String[] parts = payload.split("\\.", 4);
+        if (parts.length != 4) {
+            return null;
+        }
+        try {
+            long expiresAt = Long.parseLong(parts[1]);
+            if (expiresAt <= System.currentTimeMillis() || denylist.isRevoked(parts[2])) {
+                return null;
+            }
+            return new TokenPrincipal(Long.valueOf(parts[0]), parts[3], parts[2], expiresAt);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public void revokeAccessToken(TokenPrincipal principal) {
+        denylist.revoke(principal.getTokenId(), principal.getExpiresAt());
+    }
+
+    public String createRefreshToken(User user) {
+        String token = newRefreshToken();
+        redisTemplate.opsForValue().set(refreshKey(token), user.getId().toString(),
+                refreshTtlMillis, TimeUnit.MILLISECONDS);
+        return token;
+    }
+
+    /**
+     * 同 {@link #createRefreshToken(User)}，写入命令追加到批次中，调用方须在返回令牌前执行批次
+     */
+    public String createRefreshToken(User user, RedisBatch batch) {
+        String token = newRefreshToken();
+        String key = refreshKey(token);
+        String userId = user.getId().toString();
+        batch.add(conn -> conn.pSetEx(key, refreshTtlMillis, userId));
+        return token;
+    }
+
+    /**
+     * 生成刷新令牌随机串，不写入 Redis；响应式实现自行保存到 {@link #refreshKey(String)}
+     */
+    public String newRefreshToken() {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        return ENCODER.encodeToString(bytes);
+    }
+
+    /**
+     * 刷新令牌在 Redis 中的键，只包含令牌的摘要
+     */
+    public String refreshKey(String token) {
+        return REFRESH_PREFIX + digest(token);
+    }
+
+    /**
+     * 消费刷新令牌，返回对应的用户ID；令牌不存在或已使用时返回 null
+     */
+    public Long consumeRefreshToken(String token) {
+        String userId = redisTemplate.opsForValue().getAndDelete(refreshKey(token));
+        return userId != null ? Long.valueOf(userId) : null;
+    }
+
+    public void revokeRefreshToken(String token) {
+        redisTemplate.delete(refreshKey(token));
+    }
+
+    public long getAccessTtlMillis() {
+        return accessTtlMillis;
+    }
+
+    public long getRefreshTtlMillis() {
+        return refreshTtlMillis;
+    }
+
+    private String sign(String encodedPayload) {
+        Mac mac = macs.get();
+        return ENCODER.encodeToString(mac.doFinal(encodedPayload.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("令牌签名初始化失败", e);
+        }
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return ENCODER.encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
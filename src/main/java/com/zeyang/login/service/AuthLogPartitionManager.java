@@ -0,0 +1,302 @@
+package com.zeyang.login.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * auth_logs 按时间分区的维护任务
+ * <p>
+ * 表需先按 db/auth_logs_partitioning.sql 改为 RANGE COLUMNS(created_at) 分区，并保留一个 MAXVALUE 分区。
+ * 定时任务提前切分出未来若干个周期的分区（只拆分空的 MAXVALUE 分区，不搬数据），
+ * 超过保留期的分区先导出为 gzip 压缩的 CSV，再整体 DROP，不产生逐行删除的开销。
+ * 多节点同时运行时用 MySQL GET_LOCK 保证只有一个节点执行 DDL。
+ * <p>
+ * 查询不依赖分区信息，由 MySQL 按 created_at 条件裁剪分区，见 {@link AuthLogQueryService}。
+ */
+@Slf4j
+@Component
+public class AuthLogPartitionManager {
+
+    public enum Granularity { DAY, MONTH }
+
+    private static final String TABLE = "auth_logs";
+    private static final String LOCK_NAME = "auth_logs_partition_maintenance";
+    private static final DateTimeFormatter BOUND_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final LocalDateTime MIN_BOUND = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final String PARTITIONS_SQL =
+            "SELECT PARTITION_NAME, PARTITION_DESCRIPTION FROM information_schema.PARTITIONS "
+                    + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = '" + TABLE + "' ORDER BY PARTITION_ORDINAL_POSITION";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final Granularity granularity;
+    private final int ahead;
+    private final int retention;
+    private final boolean archive;
+    private final Path archiveDir;
+    private final int fetchSize;
+
+    @Autowired
+    public AuthLogPartitionManager(JdbcTemplate jdbcTemplate,
+                                   @Value("${login.auth-log.partition.enabled:false}") boolean enabled,
+                                   @Value("${login.auth-log.partition.granularity:MONTH}") Granularity granularity,
+                                   @Value("${login.auth-log.partition.ahead:3}") int ahead,
+                                   @Value("${login.auth-log.partition.retention:12}") int retention,
+                                   @Value("${login.auth-log.partition.archive:true}") boolean archive,
+                                   @Value("${login.auth-log.partition.archive-dir:./data/archive}") String archiveDir,
+                                   @Value("${login.auth-log.export-fetch-size:-2147483648}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.granularity = granularity;
+        this.ahead = ahead;
+        this.retention = retention;
+        this.archive = archive;
+        this.archiveDir = Paths.get(archiveDir);
+        this.fetchSize = fetchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) {
+            maintain();
+        }
+    }
+
+    @Scheduled(cron = "${login.auth-log.partition.cron:0 30 3 * * *}")
+    public void scheduledMaintain() {
+        if (enabled) {
+            maintain();
+        }
+    }
+
+    public void maintain() {
+        try {
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                // 锁与 DDL 在同一个连接上执行，连接断开时锁自动释放
+                if (!acquireLock(connection)) {
+                    log.info("其他节点正在维护 auth_logs 分区，本次跳过");
+                    return null;
+                }
+                try {
+                    maintain(connection);
+                } finally {
+                    releaseLock(connection);
+                }
+                return null;
+            });
+        } catch (RuntimeException e) {
+            log.error("auth_logs 分区维护失败", e);
+        }
+    }
+
+    private void maintain(Connection connection) throws SQLException {
+        List<Partition> partitions = loadPartitions(connection);
+        if (partitions.isEmpty()) {
+            log.warn("auth_logs 未分区，请先执行 db/auth_logs_partitioning.sql");
+            return;
+        }
+        Plan plan = plan(partitions, LocalDateTime.now(), granularity, ahead, retention);
+        if (!plan.toCreate.isEmpty()) {
+            execute(connection, reorganizeSql(partitions.get(partitions.size() - 1).name, plan.toCreate, granularity));
+            log.info("auth_logs 新建分区 {} 个，最远到 {}", plan.toCreate.size(), plan.toCreate.get(plan.toCreate.size() - 1));
+        }
+        for (Partition partition : plan.toDrop) {
+            if (archive) {
+                try {
+                    archivePartition(connection, partition);
+                } catch (IOException e) {
+                    // 归档失败时保留分区，下次再试，不丢数据
+                    log.error("归档分区 {} 失败，暂不删除", partition.name, e);
+                    continue;
+                }
+            }
+            execute(connection, "ALTER TABLE " + TABLE + " DROP PARTITION " + partition.name);
+            log.info("auth_logs 已删除过期分区 {}", partition.name);
+        }
+    }
+
+    /**
+     * 计算需要新建和删除的分区
+     * <p>
+     * 新建：当前周期及之后 ahead 个周期的上界中，大于现有最大上界的部分（只能从 MAXVALUE 分区拆出）。
+     * 删除：上界不晚于“当前周期起点 - retention 个周期”的分区，MAXVALUE 分区永不删除。
+     */
+    static Plan plan(List<Partition> partitions, LocalDateTime now, Granularity granularity, int ahead, int retention) {
+        LocalDateTime periodStart = periodStart(now, granularity);
+        LocalDateTime highest = MIN_BOUND;
+        for (Partition partition : partitions) {
+            if (partition.upperBound != null && partition.upperBound.isAfter(highest)) {
+                highest = partition.upperBound;
+            }
+        }
+        List<LocalDateTime> toCreate = new ArrayList<>();
+        for (int i = 1; i <= ahead + 1; i++) {
+            LocalDateTime bound = plus(periodStart, i, granularity);
+            if (bound.isAfter(highest)) {
+                toCreate.add(bound);
+            }
+        }
+        LocalDateTime expiry = plus(periodStart, -retention, granularity);
+        List<Partition> toDrop = new ArrayList<>();
+        for (Partition partition : partitions) {
+            if (partition.upperBound != null && !partition.upperBound.isAfter(expiry)) {
+                toDrop.add(partition);
+            }
+        }
+        return new Plan(toCreate, toDrop);
+    }
+
+    static String reorganizeSql(String maxPartition, List<LocalDateTime> bounds, Granularity granularity) {
+        StringBuilder sql = new StringBuilder("ALTER TABLE ").append(TABLE)
+                .append(" REORGANIZE PARTITION ").append(maxPartition).append(" INTO (");
+        for (LocalDateTime bound : bounds) {
+            sql.append("PARTITION ").append(partitionName(bound, granularity))
+                    .append(" VALUES LESS THAN ('").append(BOUND_FORMAT.format(bound)).append("'), ");
+        }
+        sql.append("PARTITION ").append(maxPartition).append(" VALUES LESS THAN (MAXVALUE))");
+        return sql.toString();
+    }
+
+    /**
+     * 分区按其覆盖的周期命名，如 p202407（按月）、p20240715（按天）
+     */
+    static String partitionName(LocalDateTime upperBound, Granularity granularity) {
+        LocalDateTime start = plus(upperBound, -1, granularity);
+        return "p" + start.format(DateTimeFormatter.ofPattern(granularity == Granularity.MONTH ? "yyyyMM" : "yyyyMMdd"));
+    }
+
+    void archivePartition(Connection connection, Partition partition) throws SQLException, IOException {
+        Files.createDirectories(archiveDir);
+        Path target = archiveDir.resolve(TABLE + "_" + partition.name + ".csv.gz");
+        Path temp = archiveDir.resolve(target.getFileName() + ".tmp");
+        long rows = 0;
+        boolean archived = false;
+        try (Statement statement = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            statement.setFetchSize(fetchSize);
+            try (ResultSet rs = statement.executeQuery(
+                    "SELECT id, user_id, action, ip_address, user_agent, location, created_at FROM " + TABLE
+                            + " PARTITION (" + partition.name + ") ORDER BY created_at, id");
+                 Writer writer = new BufferedWriter(new OutputStreamWriter(
+                         new GZIPOutputStream(Files.newOutputStream(temp), 64 * 1024), StandardCharsets.UTF_8))) {
+                writer.write("id,user_id,action,ip_address,user_agent,location,created_at\n");
+                while (rs.next()) {
+                    writer.write(rs.getLong(1) + "," + rs.getLong(2) + "," + rs.getString(3) + ","
+                            + AuthLogQueryService.csv(rs.getString(4)) + ","
+                            + AuthLogQueryService.csv(rs.getString(5)) + ","
+                            + AuthLogQueryService.csv(rs.getString(6)) + ","
+                            + rs.getTimestamp(7).toLocalDateTime() + "\n");
+                    rows++;
+                }
+            }
+            // 写完整个文件后再改名，半截文件不会被当作完整归档
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            archived = true;
+        } finally {
+            if (!archived) {
+                // 导出或改名失败时删除半截的临时文件，下次重试时重新导出
+                Files.deleteIfExists(temp);
+            }
+        }
+        log.info("分区 {} 已归档到 {}，共 {} 行", partition.name, target, rows);
+    }
+
+    private List<Partition> loadPartitions(Connection connection) throws SQLException {
+        List<Partition> partitions = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(PARTITIONS_SQL)) {
+            while (rs.next()) {
+                String name = rs.getString(1);
+                if (name == null) {
+                    // 未分区的表在 information_schema 中也有一行，分区名为 NULL
+                    return Collections.emptyList();
+                }
+                String description = rs.getString(2);
+                LocalDateTime upperBound = "MAXVALUE".equalsIgnoreCase(description)
+                        ? null
+                        : LocalDateTime.parse(description.replace("'", ""), BOUND_FORMAT);
+                partitions.add(new Partition(name, upperBound));
+            }
+        }
+        return partitions;
+    }
+
+    private static boolean acquireLock(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT GET_LOCK('" + LOCK_NAME + "', 0)")) {
+            return rs.next() && rs.getInt(1) == 1;
+        }
+    }
+
+    private static void releaseLock(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SELECT RELEASE_LOCK('" + LOCK_NAME + "')");
+        }
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private static LocalDateTime periodStart(LocalDateTime now, Granularity granularity) {
+        LocalDateTime day = now.truncatedTo(ChronoUnit.DAYS);
+        return granularity == Granularity.MONTH ? day.withDayOfMonth(1) : day;
+    }
+
+    private static LocalDateTime plus(LocalDateTime time, int periods, Granularity granularity) {
+        return granularity == Granularity.MONTH ? time.plusMonths(periods) : time.plusDays(periods);
+    }
+
+    /**
+     * 分区：名称和上界（不含），MAXVALUE 分区的上界为 null
+     */
+    static final class Partition {
+        final String name;
+        final LocalDateTime upperBound;
+
+        Partition(String name, LocalDateTime upperBound) {
+            this.name = name;
+            this.upperBound = upperBound;
+        }
+    }
+
+    static final class Plan {
+        final List<LocalDateTime> toCreate;
+        final List<Partition> toDrop;
+
+        Plan(List<LocalDateTime> toCreate, List<Partition> toDrop) {
+            this.toCreate = toCreate;
+            this.toDrop = toDrop;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.zeyang.login.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.zeyang.login.dto.AuthLogPage;
+import com.zeyang.login.dto.AuthLogView;
+import com.zeyang.login.repository.AuthLogRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * 登录日志查询：键集分页（按 created_at + id 定位下一页，不使用 OFFSET）和流式导出
+ * <p>
+ * 分页只返回 {@link AuthLogView} 投影，不加载实体；
+ * 导出直接用 JDBC 逐行读取并写入响应流，内存占用与时间范围无关。
+ * 表按时间分区后，每页仍是一条范围查询：范围分页和导出按 created_at 条件裁剪分区，
+ * 按用户分页的后续页带 created_at 上界，比游标更新的分区不再访问。
+ * 查询和导出都是只读事务，开启读写分离时在从库执行。
+ */
+@Service
+public class AuthLogQueryService {
+
+    public enum ExportFormat { NDJSON, CSV }
+
+    static final int MAX_PAGE_SIZE = 500;
+
+    private static final String EXPORT_SQL =
+            "SELECT id, user_id, action, ip_address, user_agent, location, created_at FROM auth_logs "
+                    + "WHERE created_at >= ? AND created_at < ? ORDER BY created_at, id";
+    private static final String EXPORT_BY_USER_SQL =
+            "SELECT id, user_id, action, ip_address, user_agent, location, created_at FROM auth_logs "
+                    + "WHERE user_id = ? AND created_at >= ? AND created_at < ? ORDER BY created_at, id";
+    private static final String CSV_HEADER = "id,user_id,action,ip_address,user_agent,location,created_at\n";
+
+    private final AuthLogRepository authLogRepository;
+    private final JdbcTemplate exportJdbcTemplate;
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    @Autowired
+    public AuthLogQueryService(AuthLogRepository authLogRepository,
+                               DataSource dataSource,
+                               @Value("${login.auth-log.export-fetch-size:-2147483648}") int exportFetchSize) {
+        this.authLogRepository = authLogRepository;
+        // 导出专用的 JdbcTemplate：MySQL 驱动下 fetchSize=Integer.MIN_VALUE 表示逐行流式读取
+        this.exportJdbcTemplate = new JdbcTemplate(dataSource);
+        this.exportJdbcTemplate.setFetchSize(exportFetchSize);
+    }
+
+    /**
+     * 某个用户的日志，按时间倒序分页
+     */
+    @Transactional(readOnly = true)
+    public AuthLogPage pageByUser(Long userId, String cursor, int limit) {
+        int size = pageSize(limit);
+        // 多取一行用于判断是否还有下一页
+        PageRequest page = PageRequest.of(0, size + 1);
+        List<AuthLogView> rows;
+        if (cursor == null || cursor.isEmpty()) {
+            rows = authLogRepository.findFirstPageByUserId(userId, page);
+        } else {
+            Cursor position = Cursor.decode(cursor);
+            rows = authLogRepository.findPageByUserId(userId, position.createdAt, position.id, page);
+        }
+        return toPage(rows, size);
+    }
+
+    /**
+     * 时间范围 [start, end) 内的日志，按时间正序分页
+     */
+    @Transactional(readOnly = true)
+    public AuthLogPage pageByRange(LocalDateTime start, LocalDateTime end, String cursor, int limit) {
+        checkRange(start, end);
+        int size = pageSize(limit);
+        PageRequest page = PageRequest.of(0, size + 1);
+        List<AuthLogView> rows;
+        if (cursor == null || cursor.isEmpty()) {
+            rows = authLogRepository.findFirstPageByCreatedAtRange(start, end, page);
+        } else {
+            Cursor position = Cursor.decode(cursor);
+            rows = authLogRepository.findPageByCreatedAtRange(end, position.createdAt, position.id, page);
+        }
+        return toPage(rows, size);
+    }
+
+    /**
+     * 把时间范围 [start, end) 内的日志逐行写入输出流；userId 为空时导出全部用户
+     */
+    @Transactional(readOnly = true)
+    public void export(LocalDateTime start, LocalDateTime end, Long userId, ExportFormat format, OutputStream out)
+            throws IOException {
+        checkRange(start, end);
+        Object[] args = userId == null
+                ? new Object[]{Timestamp.valueOf(start), Timestamp.valueOf(end)}
+                : new Object[]{userId, Timestamp.valueOf(start), Timestamp.valueOf(end)};
+        String sql = userId == null ? EXPORT_SQL : EXPORT_BY_USER_SQL;
+        try {
+            if (format == ExportFormat.CSV) {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+                writer.write(CSV_HEADER);
+                exportJdbcTemplate.query(sql, (RowCallbackHandler) rs -> writeCsv(rs, writer), args);
+                writer.flush();
+            } else {
+                JsonGenerator generator = jsonFactory.createGenerator(out, JsonEncoding.UTF8);
+                generator.setRootValueSeparator(null);
+                exportJdbcTemplate.query(sql, (RowCallbackHandler) rs -> writeJson(rs, generator), args);
+                generator.flush();
+            }
+        } catch (UncheckedIOException e) {
+            // 客户端中途断开，停止读取，连接随之归还
+            throw e.getCause();
+        }
+    }
+
+    private static void writeJson(ResultSet rs, JsonGenerator generator) throws SQLException {
+        try {
+            generator.writeStartObject();
+            generator.writeNumberField("id", rs.getLong(1));
+            generator.writeNumberField("userId", rs.getLong(2));
+            generator.writeStringField("action", rs.getString(3));
+            generator.writeStringField("ipAddress", rs.getString(4));
+            generator.writeStringField("userAgent", rs.getString(5));
+            generator.writeStringField("location", rs.getString(6));
+            generator.writeStringField("createdAt", rs.getTimestamp(7).toLocalDateTime().toString());
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeCsv(ResultSet rs, Writer writer) throws SQLException {
+        try {
+            writer.write(Long.toString(rs.getLong(1)));
+            writer.write(',');
+            writer.write(Long.toString(rs.getLong(2)));
+            writer.write(',');
+            writer.write(rs.getString(3));
+            writer.write(',');
+            writer.write(csv(rs.getString(4)));
+            writer.write(',');
+            writer.write(csv(rs.getString(5)));
+            writer.write(',');
+            writer.write(csv(rs.getString(6)));
+            writer.write(',');
+            writer.write(rs.getTimestamp(7).toLocalDateTime().toString());
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * CSV 字段转义：含逗号、引号或换行时加引号，内部引号加倍
+     */
+    static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            if (ch == ',' || ch == '"' || ch == '\n' || ch == '\r') {
+                return '"' + value.replace("\"", "\"\"") + '"';
+            }
+        }
+        return value;
+    }
+
+    private static AuthLogPage toPage(List<AuthLogView> rows, int size) {
+        if (rows.size() <= size) {
+            return new AuthLogPage(rows, null);
+        }
+        List<AuthLogView> items = new ArrayList<>(rows.subList(0, size));
+        AuthLogView last = items.get(size - 1);
+        return new AuthLogPage(items, new Cursor(last.getCreatedAt(), last.getId()).encode());
+    }
+
+    private static int pageSize(int limit) {
+        if (limit <= 0) {
+            return 50;
+        }
+        return Math.min(limit, MAX_PAGE_SIZE);
+    }
+
+    private static void checkRange(LocalDateTime start, LocalDateTime end) {
+        if (start == null || end == null || !start.isBefore(end)) {
+            throw new RuntimeException("时间范围无效");
+        }
+    }
+
+    /**
+     * 分页游标：上一页最后一行的 (createdAt, id)，base64url 编码后对客户端不透明
+     */
+    static final class Cursor {
+        final LocalDateTime createdAt;
+        final Long id;
+
+        Cursor(LocalDateTime createdAt, Long id) {
+            this.createdAt = createdAt;
+            this.id = id;
+        }
+
+        String encode() {
+            String raw = createdAt + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int split = raw.indexOf('|');
+                return new Cursor(LocalDateTime.parse(raw.substring(0, split)), Long.valueOf(raw.substring(split + 1)));
+            } catch (RuntimeException e) {
+                throw new RuntimeException("分页游标无效");
+            }
+        }
+    }
+}
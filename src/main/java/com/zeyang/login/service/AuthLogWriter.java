@@ -0,0 +1,427 @@
+package com.zeyang.login.service;
+
+import com.zeyang.login.entity.AuthAction;
+import com.zeyang.login.entity.AuthLog;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 登录日志异步批量写入器（write-behind）
+ * <p>
+ * 请求线程只负责把日志放入有界队列，后台线程按条数或时间间隔批量写库。
+ * AuthLog 使用 IDENTITY 主键，Hibernate 无法批量插入，这里直接用 JDBC batch，
+ * 配合连接串中的 rewriteBatchedStatements=true 合并为多行 INSERT。
+ */
+@Slf4j
+@Component
+public class AuthLogWriter {
+
+    /**
+     * 队列满时的处理策略
+     */
+    public enum OverflowPolicy {
+        /** 阻塞调用方直到超时，超时后丢弃 */
+        BLOCK,
+        /** 直接丢弃并计数 */
+        DROP,
+        /** 追加到本地溢出文件，稍后由写入线程回放入库 */
+        SPILL
+    }
+
+    private static final String INSERT_SQL =
+            "INSERT INTO auth_logs (user_id, action, ip_address, user_agent, location, created_at) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean async;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final OverflowPolicy overflowPolicy;
+    private final long offerTimeoutMillis;
+    private final long drainTimeoutMillis;
+    private final Path spillFile;
+    private final BlockingQueue<Entry> queue;
+
+    private final ReentrantLock spillLock = new ReentrantLock();
+    private volatile boolean running;
+    private Thread worker;
+
+    // 指标
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder spilled = new LongAdder();
+    private final LongAdder failedFlushes = new LongAdder();
+    private final LongAdder flushCount = new LongAdder();
+    private final LongAdder flushNanosTotal = new LongAdder();
+    private final AtomicLong flushNanosMax = new AtomicLong();
+    private volatile long lastFlushNanos;
+
+    @Autowired
+    public AuthLogWriter(JdbcTemplate jdbcTemplate,
+                         @Value("${login.auth-log.async:true}") boolean async,
+                         @Value("${login.auth-log.queue-capacity:10000}") int queueCapacity,
+                         @Value("${login.auth-log.batch-size:200}") int batchSize,
+                         @Value("${login.auth-log.flush-interval-ms:500}") long flushIntervalMillis,
+                         @Value("${login.auth-log.overflow-policy:SPILL}") OverflowPolicy overflowPolicy,
+                         @Value("${login.auth-log.offer-timeout-ms:50}") long offerTimeoutMillis,
+                         @Value("${login.auth-log.drain-timeout-ms:10000}") long drainTimeoutMillis,
+                         @Value("${login.auth-log.spill-file:./data/auth-log-spill.tsv}") String spillFile) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.async = async;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.overflowPolicy = overflowPolicy;
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.drainTimeoutMillis = drainTimeoutMillis;
+        this.spillFile = Paths.get(spillFile);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!async) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::runLoop, "auth-log-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * 停机时先停止接收，再把队列中剩余日志写完；超时仍未写完的部分落到溢出文件
+     */
+    @PreDestroy
+    public void stop() {
+        if (worker == null) {
+            return;
+        }
+        running = false;
+        try {
+            worker.join(drainTimeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<Entry> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        if (!rest.isEmpty()) {
+            log.warn("登录日志停机排空超时，{} 条写入溢出文件", rest.size());
+            spill(rest);
+        }
+    }
+
+    /**
+     * 提交一条登录日志，正常情况下只是一次入队操作
+     */
+    public void submit(AuthLog authLog) {
+        Entry entry = Entry.of(authLog);
+        submitted.increment();
+
+        if (!async || !running) {
+            flush(List.of(entry));
+            return;
+        }
+        if (queue.offer(entry)) {
+            return;
+        }
+
+        switch (overflowPolicy) {
+            case BLOCK:
+                try {
+                    if (queue.offer(entry, offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                        return;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                dropped.increment();
+                break;
+            case SPILL:
+                spill(List.of(entry));
+                break;
+            default:
+                dropped.increment();
+        }
+    }
+
+    private void runLoop() {
+        replaySpill();
+        List<Entry> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    Entry first = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (first == null) {
+                        break;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - batch.size());
+                }
+                if (!batch.isEmpty()) {
+                    flush(batch);
+                    batch.clear();
+                } else if (running) {
+                    // 空闲时回放之前溢出到磁盘的日志
+                    replaySpill();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                log.error("登录日志写入线程异常", e);
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<Entry> batch) {
+        long start = System.nanoTime();
+        try {
+            insert(batch);
+            written.add(batch.size());
+        } catch (RuntimeException first) {
+            try {
+                // 重试一次，仍失败则落盘，保证审计日志不丢
+                insert(batch);
+                written.add(batch.size());
+            } catch (RuntimeException e) {
+                failedFlushes.increment();
+                log.warn("登录日志批量写入失败，{} 条写入溢出文件: {}", batch.size(), e.getMessage());
+                spill(batch);
+            }
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            lastFlushNanos = elapsed;
+            flushCount.increment();
+            flushNanosTotal.add(elapsed);
+            flushNanosMax.accumulateAndGet(elapsed, Math::max);
+        }
+    }
+
+    private void insert(List<Entry> batch) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Entry e = batch.get(i);
+                ps.setLong(1, e.userId);
+                ps.setString(2, e.action.name());
+                ps.setString(3, e.ipAddress);
+                ps.setString(4, e.userAgent);
+                ps.setString(5, e.location);
+                ps.setTimestamp(6, Timestamp.valueOf(e.createdAt));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return batch.size();
+            }
+        });
+    }
+
+    private void spill(List<Entry> entries) {
+        // 溢出文件读写在锁内做 IO，用 ReentrantLock 避免虚拟线程钉住载体线程
+        spillLock.lock();
+        try {
+            try {
+                if (spillFile.getParent() != null) {
+                    Files.createDirectories(spillFile.getParent());
+                }
+                try (BufferedWriter writer = Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                    for (Entry e : entries) {
+                        writer.write(e.toLine());
+                        writer.newLine();
+                    }
+                }
+                spilled.add(entries.size());
+            } catch (IOException e) {
+                dropped.add(entries.size());
+                log.error("登录日志溢出文件写入失败，丢弃 {} 条", entries.size(), e);
+            }
+        } finally {
+            spillLock.unlock();
+        }
+    }
+
+    private void replaySpill() {
+        List<Entry> entries = new ArrayList<>();
+        spillLock.lock();
+        try {
+            if (!Files.exists(spillFile)) {
+                return;
+            }
+            Path replaying = spillFile.resolveSibling(spillFile.getFileName() + ".replaying");
+            try {
+                Files.move(spillFile, replaying, StandardCopyOption.REPLACE_EXISTING);
+                try (BufferedReader reader = Files.newBufferedReader(replaying, StandardCharsets.UTF_8)) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (!line.isEmpty()) {
+                            entries.add(Entry.fromLine(line));
+                        }
+                    }
+                }
+                Files.delete(replaying);
+            } catch (IOException | RuntimeException e) {
+                log.error("登录日志溢出文件回放失败", e);
+                return;
+            }
+        } finally {
+            spillLock.unlock();
+        }
+        for (int i = 0; i < entries.size(); i += batchSize) {
+            flush(entries.subList(i, Math.min(i + batchSize, entries.size())));
+        }
+        if (!entries.isEmpty()) {
+            log.info("已回放溢出的登录日志 {} 条", entries.size());
+        }
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public int getQueueCapacity() {
+        return queue.size() + queue.remainingCapacity();
+    }
+
+    public long getSubmittedCount() {
+        return submitted.sum();
+    }
+
+    public long getWrittenCount() {
+        return written.sum();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public long getSpilledCount() {
+        return spilled.sum();
+    }
+
+    public long getFailedFlushCount() {
+        return failedFlushes.sum();
+    }
+
+    public long getFlushCount() {
+        return flushCount.sum();
+    }
+
+    public long getFlushNanosTotal() {
+        return flushNanosTotal.sum();
+    }
+
+    public long getFlushNanosMax() {
+        return flushNanosMax.get();
+    }
+
+    public long getLastFlushNanos() {
+        return lastFlushNanos;
+    }
+
+    /**
+     * 队列中的日志快照，只保留写库需要的字段，不持有实体引用
+     */
+    static final class Entry {
+        final long userId;
+        final AuthAction action;
+        final String ipAddress;
+        final String userAgent;
+        final String location;
+        final LocalDateTime createdAt;
+
+        Entry(long userId, AuthAction action, String ipAddress, String userAgent, String location, LocalDateTime createdAt) {
+            this.userId = userId;
+            this.action = action;
+            this.ipAddress = ipAddress;
+            this.userAgent = userAgent;
+            this.location = location;
+            this.createdAt = createdAt;
+        }
+
+        static Entry of(AuthLog authLog) {
+            LocalDateTime createdAt = authLog.getCreatedAt() != null ? authLog.getCreatedAt() : LocalDateTime.now();
+            return new Entry(authLog.getUser().getId(), authLog.getAction(), authLog.getIpAddress(),
+                    truncate(authLog.getUserAgent(), 255), authLog.getLocation(), createdAt);
+        }
+
+        String toLine() {
+            return userId + "\t" + action.name() + "\t" + escape(ipAddress) + "\t" + escape(userAgent)
+                    + "\t" + escape(location) + "\t" + createdAt;
+        }
+
+        static Entry fromLine(String line) {
+            String[] parts = line.split("\t", -1);
+            return new Entry(Long.parseLong(parts[0]), AuthAction.valueOf(parts[1]), unescape(parts[2]),
+                    unescape(parts[3]), unescape(parts[4]), LocalDateTime.parse(parts[5]));
+        }
+
+        private static String escape(String value) {
+            if (value == null) {
+                return "\\N";
+            }
+            return value.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+        }
+
+        private static String unescape(String value) {
+            if ("\\N".equals(value)) {
+                return null;
+            }
+            StringBuilder sb = new StringBuilder(value.length());
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '\\' && i + 1 < value.length()) {
+                    char next = value.charAt(++i);
+                    switch (next) {
+                        case 't': sb.append('\t'); break;
+                        case 'n': sb.append('\n'); break;
+                        case 'r': sb.append('\r'); break;
+                        default: sb.append(next);
+                    }
+                } else {
+                    sb.append(c);
+                }
+            }
+            return sb.toString();
+        }
+
+        private static String truncate(String value, int max) {
+            return value != null && value.length() > max ? value.substring(0, max) : value;
+        }
+    }
+}
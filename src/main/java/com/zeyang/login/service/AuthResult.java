@@ -0,0 +1,50 @@
+package com.zeyang.login.service;
+
+import com.zeyang.login.entity.User;
+import com.zeyang.login.exception.AuthException;
+
+/**
+ * 登录结果：成功时带用户，失败时带描述原因和状态码的 {@link AuthException}
+ * <p>
+ * 失败作为返回值传递，控制器直接写出错误响应，撞库流量下不再抛出和展开异常。
+ */
+public final class AuthResult {
+
+    private final User user;
+    private final AuthException error;
+
+    private AuthResult(User user, AuthException error) {
+        this.user = user;
+        this.error = error;
+    }
+
+    public static AuthResult success(User user) {
+        return new AuthResult(user, null);
+    }
+
+    public static AuthResult failure(AuthException error) {
+        return new AuthResult(null, error);
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public AuthException getError() {
+        return error;
+    }
+
+    /**
+     * 需要沿用异常语义的调用方使用，失败时抛出的异常同样没有堆栈
+     */
+    public User orElseThrow() {
+        if (error != null) {
+            throw error;
+        }
+        return user;
+    }
+}
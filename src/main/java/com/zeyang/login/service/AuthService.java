@@ -1,51 +1,78 @@
 package com.zeyang.login.service;
 
+import com.zeyang.login.cache.UserExistenceFilter;
 import com.zeyang.login.entity.AuthAction;
 import com.zeyang.login.entity.AuthLog;
 import com.zeyang.login.entity.User;
 import com.zeyang.login.entity.UserStatus;
-import com.zeyang.login.repository.AuthLogRepository;
+import com.zeyang.login.exception.AuthException;
+import com.zeyang.login.redis.RedisBatch;
+import com.zeyang.login.service.LoginMetrics.Stage;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import javax.servlet.http.HttpServletRequest;
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.UUID;
-import java.util.concurrent.TimeUnit;
 
 @Service
 public class AuthService {
     
+    private static final AuthResult BAD_CREDENTIALS = AuthResult.failure(AuthException.BAD_CREDENTIALS);
+    private static final AuthResult ACCOUNT_DISABLED = AuthResult.failure(AuthException.ACCOUNT_DISABLED);
+    
     private final UserService userService;
-    private final AuthLogRepository authLogRepository;
-    private final StringRedisTemplate redisTemplate;
+    private final AuthLogWriter authLogWriter;
+    private final LoginAttemptService loginAttemptService;
+    private final AuthStatsService authStatsService;
+    private final LoginMetrics loginMetrics;
     
     @Autowired
-    public AuthService(UserService userService, AuthLogRepository authLogRepository, StringRedisTemplate redisTemplate) {
+    public AuthService(UserService userService, AuthLogWriter authLogWriter, LoginAttemptService loginAttemptService,
+                       AuthStatsService authStatsService, LoginMetrics loginMetrics) {
         this.userService = userService;
-        this.authLogRepository = authLogRepository;
-        this.redisTemplate = redisTemplate;
+        this.authLogWriter = authLogWriter;
+        this.loginAttemptService = loginAttemptService;
+        this.authStatsService = authStatsService;
+        this.loginMetrics = loginMetrics;
     }
     
-    @Transactional
-    public User login(String username, String password, HttpServletRequest request) {
-        User user = userService.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("用户名或密码错误"));
+    /**
+     * 登录不包在事务里：用户查询走缓存或只读事务（开启读写分离时落到从库），
+     * 需要回写用户表时由 {@link UserService#save(User)} 单独开启写事务。
+     * 成功登录后的 Redis 写入追加到 batch 中，由调用方连同会话或令牌的写入一次发送。
+     * 密码错误、账户锁定等预期失败作为结果返回，不抛异常
+     */
+    public AuthResult authenticate(String username, String password, HttpServletRequest request, RedisBatch batch) {
+        // 先查 Redis 锁定状态，被锁定的账户不查库也不计算哈希；限流过滤器已经读出时直接使用
+        long start = System.nanoTime();
+        // 库中查询不区分大小写，锁定状态按规范化的用户名读取，与失败计数写入的键一致
+        String accountKey = UserExistenceFilter.normalize(username);
+        LoginGate gate = LoginGate.of(request, accountKey);
+        long lockRemaining = gate != null ? gate.getLockRemainingMillis() : loginAttemptService.lockRemainingMillis(accountKey);
+        loginMetrics.record(Stage.STATUS, start);
+        if (lockRemaining > 0) {
+            return AuthResult.failure(AuthException.locked(lockRemaining));
+        }
+        
+        User user = loginMetrics.time(Stage.LOOKUP, () -> userService.findByUsername(username)).orElse(null);
+        if (user == null) {
+            return BAD_CREDENTIALS;
+        }
         
         // 检查账户状态
         if (user.getStatus() != UserStatus.ACTIVE) {
-            throw new RuntimeException("账户已被锁定或禁用");
+            return ACCOUNT_DISABLED;
         }
         
-        // 检查账户是否被临时锁定
-        if (user.getLockedUntil() != null && user.getLockedUntil().isAfter(LocalDateTime.now())) {
-            throw new RuntimeException("账户已被临时锁定，请稍后再试");
+        // 检查账户是否被临时锁定（Redis 不可用时的回退锁定）
+        LocalDateTime now = LocalDateTime.now();
+        if (user.getLockedUntil() != null && user.getLockedUntil().isAfter(now)) {
+            return AuthResult.failure(AuthException.locked(Duration.between(now, user.getLockedUntil()).toMillis()));
         }
         
         // 验证密码
-        boolean passwordValid = userService.verifyPassword(user, password);
+        boolean passwordValid = loginMetrics.time(Stage.VERIFY, () -> userService.verifyPassword(user, password));
         
         // 记录登录日志
         AuthLog authLog = new AuthLog();
@@ -56,28 +83,46 @@ public class AuthService {
         if (passwordValid) {
             // 登录成功
             authLog.setAction(AuthAction.LOGIN_SUCCESS);
-            user.setFailedAttempts(0);
-            user.setLockedUntil(null);
+            boolean dirty = userService.rehashPasswordIfNeeded(user, password);
+            // 只有存在失败记录或密码哈希升级时才需要回写，避免每次登录都 UPDATE
+            dirty |= loginAttemptService.recordSuccess(user, gate == null || gate.getFailedAttempts() > 0, batch);
+            if (dirty) {
+                userService.save(user);
+            }
         } else {
             // 登录失败
             authLog.setAction(AuthAction.LOGIN_FAILURE);
             
-            // 增加失败次数
-            user.setFailedAttempts(user.getFailedAttempts() + 1);
-            
-            // 如果失败次数达到阈值，锁定账户
-            if (user.getFailedAttempts() >= 5) {
-                user.setLockedUntil(LocalDateTime.now().plusMinutes(30));
+            // 失败计数写入 Redis，Redis 不可用时才回写用户表
+            if (loginAttemptService.recordFailure(user)) {
+                userService.save(user);
             }
             
-            throw new RuntimeException("用户名或密码错误");
+            // 日志异步写入
+            writeLog(authLog);
+            return BAD_CREDENTIALS;
         }
         
-        authLogRepository.save(authLog);
-        return user;
+        writeLog(authLog);
+        return AuthResult.success(user);
+    }
+    
+    /**
+     * 失败时抛出 {@link AuthException} 的版本
+     */
+    public User login(String username, String password, HttpServletRequest request, RedisBatch batch) {
+        return authenticate(username, password, request, batch).orElseThrow();
+    }
+    
+    /**
+     * 成功登录的批次发送失败时调用：不经过批次单独清除失败计数，Redis 仍不可用时由 {@link LoginAttemptService} 切换到本地存储
+     */
+    public void resetFailedAttempts(User user) {
+        if (loginAttemptService.recordSuccess(user)) {
+            userService.save(user);
+        }
     }
     
-    @Transactional
     public void logout(User user, HttpServletRequest request) {
         AuthLog authLog = new AuthLog();
         authLog.setUser(user);
@@ -85,121 +130,26 @@ public class AuthService {
         authLog.setIpAddress(getClientIp(request));
         authLog.setUserAgent(request.getHeader("User-Agent"));
         
-        authLogRepository.save(authLog);
+        writeLog(authLog);
     }
     
-    private String getClientIp(HttpServletRequest request) {
-        String xfHeader = request.getHeader("X-Forwarded-For");
-        if (xfHeader == null) {
-            return request.getRemoteAddr();
-        }
-        return xfHeader.split(",")[0];
-    }
-
-    // 使用Redis存储会话信息
-    public class RedisSessionManager {
-        private final static String SESSION_PREFIX = "session:";
-        private final static long SESSION_TIMEOUT = 30; // 分钟
-        
-        public void saveSession(String sessionId, User user) {
-            String key = SESSION_PREFIX + sessionId;
-            redisTemplate.opsForValue().set(key, JSON.toJSONString(user));
-            redisTemplate.expire(key, SESSION_TIMEOUT, TimeUnit.MINUTES);
-        }
-        
-        public User getSession(String sessionId) {
-            String key = SESSION_PREFIX + sessionId;
-            String userJson = redisTemplate.opsForValue().get(key);
-            return userJson != null ? JSON.parseObject(userJson, User.class) : null;
-        }
-        
-        public void removeSession(String sessionId) {
-            redisTemplate.delete(SESSION_PREFIX + sessionId);
-        }
+    /**
+     * 日志交给异步写入器，同时计入统计预聚合
+     */
+    private void writeLog(AuthLog authLog) {
+        long start = System.nanoTime();
+        authLogWriter.submit(authLog);
+        authStatsService.record(authLog);
+        loginMetrics.record(Stage.LOG, start);
+        loginMetrics.count(authLog.getAction());
     }
-
-    // 使用Redis缓存登录令牌
-    public class TokenManager {
-        private final StringRedisTemplate redisTemplate;
-        private final static String TOKEN_PREFIX = "token:";
-        private final static long TOKEN_TIMEOUT = 24; // 小时
-        
-        public String createToken(User user) {
-            String token = UUID.randomUUID().toString();
-            String key = TOKEN_PREFIX + token;
-            redisTemplate.opsForValue().set(key, user.getId().toString());
-            redisTemplate.expire(key, TOKEN_TIMEOUT, TimeUnit.HOURS);
-            return token;
-        }
-        
-        public Long validateToken(String token) {
-            String key = TOKEN_PREFIX + token;
-            String userId = redisTemplate.opsForValue().get(key);
-            return userId != null ? Long.valueOf(userId) : null;
-        }
-        
-        public void refreshToken(String token) {
-            String key = TOKEN_PREFIX + token;
-            redisTemplate.expire(key, TOKEN_TIMEOUT, TimeUnit.HOURS);
-        }
-        
-        public void invalidateToken(String token) {
-            redisTemplate.delete(TOKEN_PREFIX + token);
-        }
-    }
-
-    // 使用Redis实现登录失败计数和账户锁定
-    public class LoginAttemptService {
-        private final StringRedisTemplate redisTemplate;
-        private final static String ATTEMPTS_PREFIX = "login_attempts:";
-        private final static String LOCKOUT_PREFIX = "account_lock:";
-        private final static int MAX_ATTEMPTS = 5;
-        private final static long LOCK_TIME_MINUTES = 30;
-        
-        public void recordFailedAttempt(String username) {
-            String attemptsKey = ATTEMPTS_PREFIX + username;
-            redisTemplate.opsForValue().increment(attemptsKey);
-            redisTemplate.expire(attemptsKey, 1, TimeUnit.DAYS);
-            
-            // 检查是否需要锁定账户
-            String attempts = redisTemplate.opsForValue().get(attemptsKey);
-            if (attempts != null && Integer.parseInt(attempts) >= MAX_ATTEMPTS) {
-                lockAccount(username);
-            }
-        }
-        
-        private void lockAccount(String username) {
-            String lockKey = LOCKOUT_PREFIX + username;
-            redisTemplate.opsForValue().set(lockKey, "locked");
-            redisTemplate.expire(lockKey, LOCK_TIME_MINUTES, TimeUnit.MINUTES);
-        }
-        
-        public boolean isAccountLocked(String username) {
-            return Boolean.TRUE.equals(redisTemplate.hasKey(LOCKOUT_PREFIX + username));
-        }
-        
-        public void resetFailedAttempts(String username) {
-            redisTemplate.delete(ATTEMPTS_PREFIX + username);
-        }
-    }
-
-    // 使用Redis实现IP限流
-    public class RateLimiter {
-        private final StringRedisTemplate redisTemplate;
-        private final static String IP_LIMIT_PREFIX = "ip_limit:";
-        private final static int MAX_REQUESTS = 10;
-        private final static long WINDOW_SECONDS = 60;
-        
-        public boolean allowRequest(String ip) {
-            String key = IP_LIMIT_PREFIX + ip;
-            Long count = redisTemplate.opsForValue().increment(key);
-            
-            // 第一次访问时设置过期时间
-            if (count != null && count == 1) {
-                redisTemplate.expire(key, WINDOW_SECONDS, TimeUnit.SECONDS);
-            }
-            
-            return count != null && count <= MAX_REQUESTS;
-        }
+    
+    /**
+     * 客户端 IP，不直接读取 X-Forwarded-For：该请求头可由客户端任意伪造，用于限流时每次换一个值就能绕过 IP 维度。
+     * 部署在反向代理之后时由 Tomcat 的 RemoteIpValve（server.forward-headers-strategy: native）处理，
+     * 只有直连地址属于 server.tomcat.remoteip.internal-proxies 时才用请求头改写 getRemoteAddr()
+     */
+    public static String getClientIp(HttpServletRequest request) {
+        return request.getRemoteAddr();
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,116 @@
+package com.zeyang.login.service;
+
+import com.zeyang.login.concurrent.StripedCounterTable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 进程内的失败计数与锁定，语义与 login_attempt.lua 相同
+ * <p>
+ * Redis 不可用时由 {@link LoginAttemptService} 切换使用，单节点部署也可以只用它。
+ * 只在本节点生效，多节点时各自计数；Redis 恢复后通过 {@link #drain(Visitor)} 回灌。
+ */
+@Component
+public class LocalLoginAttemptStore implements LoginAttemptStore {
+
+    private static final int ATTEMPTS = 0;
+    private static final int ATTEMPTS_EXPIRE_AT = 1;
+    private static final int LOCKED_UNTIL = 2;
+
+    public interface Visitor {
+        void visit(String username, long attempts, long lockRemainingMillis);
+    }
+
+    private final StripedCounterTable table;
+    private final int maxAttempts;
+    private final long attemptsTtlMillis;
+    private final long lockMillis;
+
+    @Autowired
+    public LocalLoginAttemptStore(@Value("${login.lockout.max-attempts:5}") int maxAttempts,
+                                  @Value("${login.lockout.attempts-ttl-minutes:1440}") long attemptsTtlMinutes,
+                                  @Value("${login.lockout.lock-minutes:30}") long lockMinutes,
+                                  @Value("${login.lockout.local-max-entries:100000}") int maxEntries) {
+        this.table = new StripedCounterTable(maxEntries, 3, 64);
+        this.maxAttempts = maxAttempts;
+        this.attemptsTtlMillis = TimeUnit.MINUTES.toMillis(attemptsTtlMinutes);
+        this.lockMillis = TimeUnit.MINUTES.toMillis(lockMinutes);
+    }
+
+    @Override
+    public long lockRemainingMillis(String username) {
+        long now = System.currentTimeMillis();
+        return table.compute(username, now, false, (row, created) -> Math.max(0, row.get(LOCKED_UNTIL) - now));
+    }
+
+    @Override
+    public long recordFailure(String username) {
+        long now = System.currentTimeMillis();
+        return table.compute(username, now, true, (row, created) -> {
+            long attempts = row.get(ATTEMPTS_EXPIRE_AT) > now ? row.get(ATTEMPTS) + 1 : 1;
+            if (attempts == 1) {
+                row.set(ATTEMPTS_EXPIRE_AT, now + attemptsTtlMillis);
+            }
+            if (attempts >= maxAttempts) {
+                row.set(ATTEMPTS, 0);
+                row.set(ATTEMPTS_EXPIRE_AT, 0);
+                row.set(LOCKED_UNTIL, now + lockMillis);
+                row.expireAt(now + lockMillis);
+                return lockMillis;
+            }
+            row.set(ATTEMPTS, attempts);
+            row.expireAt(Math.max(row.get(ATTEMPTS_EXPIRE_AT), row.get(LOCKED_UNTIL)));
+            return 0;
+        });
+    }
+
+    @Override
+    public void reset(String username) {
+        long now = System.currentTimeMillis();
+        table.compute(username, now, false, (row, created) -> {
+            // 与 Redis 实现一致，只清除失败计数，锁定保留到过期
+            row.set(ATTEMPTS, 0);
+            row.set(ATTEMPTS_EXPIRE_AT, 0);
+            row.expireAt(row.get(LOCKED_UNTIL));
+            return 0;
+        });
+    }
+
+    @Override
+    public void merge(String username, long attempts, long lockRemainingMillis) {
+        long now = System.currentTimeMillis();
+        table.compute(username, now, true, (row, created) -> {
+            if (attempts > 0) {
+                long current = row.get(ATTEMPTS_EXPIRE_AT) > now ? row.get(ATTEMPTS) : 0;
+                row.set(ATTEMPTS, current + attempts);
+                row.set(ATTEMPTS_EXPIRE_AT, now + attemptsTtlMillis);
+            }
+            if (lockRemainingMillis > 0 && row.get(LOCKED_UNTIL) <= now) {
+                row.set(LOCKED_UNTIL, now + lockRemainingMillis);
+            }
+            row.expireAt(Math.max(row.get(ATTEMPTS_EXPIRE_AT), row.get(LOCKED_UNTIL)));
+            return 0;
+        });
+    }
+
+    /**
+     * 取出并删除全部记录
+     */
+    public void drain(Visitor visitor) {
+        long now = System.currentTimeMillis();
+        table.drain(now, (username, row) -> visitor.visit(username,
+                row.get(ATTEMPTS_EXPIRE_AT) > now ? row.get(ATTEMPTS) : 0,
+                Math.max(0, row.get(LOCKED_UNTIL) - now)));
+    }
+
+    public int size() {
+        return table.size();
+    }
+
+    public long getEvictionCount() {
+        return table.getEvictionCount();
+    }
+}
@@ -0,0 +1,92 @@
+package com.zeyang.login.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 本地限流预检
+ * <p>
+ * 单个节点在一个窗口内看到的请求数已经超过全局上限时，全局计数必然也超限，
+ * 可以不访问 Redis 直接拒绝；Redis 判定超限的键在重试时间内同样本地拒绝。
+ */
+public class LocalRateGate {
+
+    private final long windowMillis;
+    private final int maxEntries;
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+
+    public LocalRateGate(long windowMillis, int maxEntries) {
+        this.windowMillis = windowMillis;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * 本地判断是否一定超限，返回需要等待的毫秒数，0 表示需要继续询问 Redis
+     */
+    public long check(String key, int limit, long now) {
+        Window window = windows.get(key);
+        if (window == null) {
+            return 0;
+        }
+        long blockedUntil = window.blockedUntil;
+        if (blockedUntil > now) {
+            return blockedUntil - now;
+        }
+        if (window.start + windowMillis > now && window.count.get() >= limit) {
+            return window.start + windowMillis - now;
+        }
+        return 0;
+    }
+
+    /**
+     * 记录一次放行的请求
+     */
+    public void record(String key, long now) {
+        window(key, now).count.incrementAndGet();
+    }
+
+    /**
+     * 记录 Redis 的拒绝结果，在等待时间内直接本地拒绝
+     */
+    public void block(String key, long now, long retryAfterMillis) {
+        window(key, now).blockedUntil = now + retryAfterMillis;
+    }
+
+    public int size() {
+        return windows.size();
+    }
+
+    private Window window(String key, long now) {
+        if (windows.size() >= maxEntries) {
+            sweep(now);
+        }
+        Window window = windows.computeIfAbsent(key, k -> new Window(now));
+        if (window.start + windowMillis <= now) {
+            // 窗口滚动，旧窗口整体替换
+            Window fresh = new Window(now);
+            fresh.blockedUntil = window.blockedUntil;
+            windows.replace(key, window, fresh);
+            window = windows.getOrDefault(key, fresh);
+        }
+        return window;
+    }
+
+    private void sweep(long now) {
+        windows.entrySet().removeIf(e -> e.getValue().start + windowMillis <= now && e.getValue().blockedUntil <= now);
+        if (windows.size() >= maxEntries) {
+            // 仍然超限说明键分布过散，整体清空，本地预检只是优化，丢失状态不影响正确性
+            windows.clear();
+        }
+    }
+
+    private static final class Window {
+        final long start;
+        final AtomicLong count = new AtomicLong();
+        volatile long blockedUntil;
+
+        Window(long start) {
+            this.start = start;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.zeyang.login.service;
+
+import com.zeyang.login.concurrent.StripedCounterTable;
+
+/**
+ * 进程内的滑动窗口限流，算法与 rate_limit.lua 相同（两个固定窗口加权近似）
+ * <p>
+ * Redis 不可用时由 {@link RateLimiter} 使用，代替放行；计数只在本节点有效，
+ * 多节点部署时整体上限相当于单节点上限乘以节点数。
+ */
+public class LocalRateLimiter {
+
+    private static final int WINDOW = 0;
+    private static final int CURRENT = 1;
+    private static final int PREVIOUS = 2;
+
+    private final StripedCounterTable table;
+    private final long windowMillis;
+
+    public LocalRateLimiter(long windowMillis, int maxEntries) {
+        this.table = new StripedCounterTable(maxEntries, 3, 64);
+        this.windowMillis = windowMillis;
+    }
+
+    /**
+     * 未超限时计数加一并返回 0，否则返回建议的重试等待毫秒数，不计数
+     */
+    public long acquire(String key, int limit, long now) {
+        long windowIndex = now / windowMillis;
+        double elapsed = (double) (now % windowMillis) / windowMillis;
+        return table.compute(key, now, true, (row, created) -> {
+            roll(row, windowIndex);
+            if (row.get(PREVIOUS) * (1 - elapsed) + row.get(CURRENT) >= limit) {
+                return Math.max(1, (long) (windowMillis * (1 - elapsed)));
+            }
+            row.add(CURRENT, 1);
+            return 0;
+        });
+    }
+
+    /**
+     * 撤销一次 {@link #acquire} 的计数，用于多个维度中后面的维度超限时
+     */
+    public void release(String key, long now) {
+        long windowIndex = now / windowMillis;
+        table.compute(key, now, false, (row, created) -> {
+            if (row.get(WINDOW) == windowIndex && row.get(CURRENT) > 0) {
+                row.add(CURRENT, -1);
+            }
+            return 0;
+        });
+    }
+
+    public int size() {
+        return table.size();
+    }
+
+    public long getEvictionCount() {
+        return table.getEvictionCount();
+    }
+
+    private void roll(StripedCounterTable.Row row, long windowIndex) {
+        long window = row.get(WINDOW);
+        if (window != windowIndex) {
+            row.set(PREVIOUS, window == windowIndex - 1 ? row.get(CURRENT) : 0);
+            row.set(CURRENT, 0);
+            row.set(WINDOW, windowIndex);
+        }
+        // 上一窗口的计数在下一个窗口结束前仍参与加权
+        row.expireAt((windowIndex + 2) * windowMillis);
+    }
+}
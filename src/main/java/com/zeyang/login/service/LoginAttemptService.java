@@ -0,0 +1,224 @@
+package com.zeyang.login.service;
+
+import com.zeyang.login.cache.UserExistenceFilter;
+import com.zeyang.login.entity.User;
+import com.zeyang.login.redis.RedisBatch;
+import com.zeyang.login.redis.RedisBatchExecutor;
+import com.zeyang.login.redis.RedisFailover;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 登录失败计数与账户锁定
+ * <p>
+ * 正常情况下只读写 Redis，失败登录不再 UPDATE 用户表；
+ * Redis 不可用时切换到进程内的 {@link LocalLoginAttemptStore}，恢复后把本地记录回灌到 Redis。
+ * 未开启故障切换时回退到 users 表的 failed_attempts / locked_until 列。
+ */
+@Slf4j
+@Service
+public class LoginAttemptService {
+
+    static final int RECONCILE_BATCH_SIZE = 500;
+
+    private final LoginAttemptStore store;
+    private final LocalLoginAttemptStore localStore;
+    private final RedisFailover failover;
+    private final RedisBatchExecutor batchExecutor;
+    private final int maxAttempts;
+    private final long lockMinutes;
+
+    private final LongAdder fallbacks = new LongAdder();
+    private final LongAdder localRecords = new LongAdder();
+    private final LongAdder reconciled = new LongAdder();
+
+    public LoginAttemptService(LoginAttemptStore store, int maxAttempts, long lockMinutes) {
+        this(store, null, null, null, maxAttempts, lockMinutes);
+    }
+
+    @Autowired
+    public LoginAttemptService(LoginAttemptStore store,
+                               LocalLoginAttemptStore localStore,
+                               RedisFailover failover,
+                               RedisBatchExecutor batchExecutor,
+                               @Value("${login.lockout.max-attempts:5}") int maxAttempts,
+                               @Value("${login.lockout.lock-minutes:30}") long lockMinutes) {
+        this.store = store;
+        boolean local = localStore != null && failover != null && failover.isEnabled();
+        this.localStore = local ? localStore : null;
+        this.failover = failover;
+        this.batchExecutor = batchExecutor;
+        this.maxAttempts = maxAttempts;
+        this.lockMinutes = lockMinutes;
+        if (local) {
+            failover.onRecovery(this::reconcile);
+        }
+    }
+
+    /**
+     * 在查库和哈希之前调用，username 须已规范化，返回锁定剩余毫秒数；存储不可用且没有本地存储时返回 0，由用户表列兜底
+     */
+    public long lockRemainingMillis(String username) {
+        if (useLocal()) {
+            return localStore.lockRemainingMillis(username);
+        }
+        try {
+            return store.lockRemainingMillis(username);
+        } catch (RuntimeException e) {
+            fallback(e);
+            return localStore != null ? localStore.lockRemainingMillis(username) : 0;
+        }
+    }
+
+    /**
+     * 记录一次失败，返回用户实体是否被修改（需要保存）
+     */
+    public boolean recordFailure(User user) {
+        if (!useLocal()) {
+            try {
+                store.recordFailure(key(user));
+                return false;
+            } catch (RuntimeException e) {
+                fallback(e);
+            }
+        }
+        if (localStore != null) {
+            localStore.recordFailure(key(user));
+            localRecords.increment();
+            return false;
+        }
+        int attempts = (user.getFailedAttempts() != null ? user.getFailedAttempts() : 0) + 1;
+        user.setFailedAttempts(attempts);
+        // 如果失败次数达到阈值，锁定账户
+        if (attempts >= maxAttempts) {
+            user.setLockedUntil(LocalDateTime.now().plusMinutes(lockMinutes));
+        }
+        return true;
+    }
+
+    /**
+     * 登录成功后清除失败计数，返回用户实体是否被修改（需要保存）
+     */
+    public boolean recordSuccess(User user) {
+        if (!useLocal()) {
+            try {
+                store.reset(key(user));
+            } catch (RuntimeException e) {
+                fallback(e);
+            }
+        }
+        resetLocal(key(user));
+        return clearFallbackColumns(user);
+    }
+
+    /**
+     * 同 {@link #recordSuccess(User)}，清除计数的命令追加到批次中；
+     * failuresPending 为 false 表示登录前已确认 Redis 中没有失败计数，不再发送删除命令
+     */
+    public boolean recordSuccess(User user, boolean failuresPending, RedisBatch batch) {
+        if (failuresPending && !useLocal()) {
+            try {
+                store.reset(key(user), batch);
+            } catch (RuntimeException e) {
+                fallback(e);
+            }
+        }
+        resetLocal(key(user));
+        return clearFallbackColumns(user);
+    }
+
+    /**
+     * Redis 恢复后调用：把本地记录的失败次数和锁定分批合并到 Redis。
+     * 某一批发送失败时把这一批放回本地并抛出异常，等待下一次恢复再试
+     */
+    public void reconcile() {
+        if (localStore == null || localStore.size() == 0) {
+            return;
+        }
+        List<Pending> pending = new ArrayList<>();
+        localStore.drain((username, attempts, lockRemaining) -> pending.add(new Pending(username, attempts, lockRemaining)));
+        for (int from = 0; from < pending.size(); from += RECONCILE_BATCH_SIZE) {
+            List<Pending> chunk = pending.subList(from, Math.min(from + RECONCILE_BATCH_SIZE, pending.size()));
+            RedisBatch batch = batchExecutor.newBatch();
+            chunk.forEach(p -> store.merge(p.username, p.attempts, p.lockRemainingMillis, batch));
+            try {
+                batch.execute();
+            } catch (RuntimeException e) {
+                pending.subList(from, pending.size())
+                        .forEach(p -> localStore.merge(p.username, p.attempts, p.lockRemainingMillis));
+                throw e;
+            }
+            reconciled.add(chunk.size());
+        }
+        log.info("已把 {} 个账户的本地失败计数回灌到 Redis", pending.size());
+    }
+
+    /**
+     * 失败计数和锁定按规范化的用户名记录，大小写等不同写法登录同一账户时共用计数
+     */
+    private static String key(User user) {
+        return UserExistenceFilter.normalize(user.getUsername());
+    }
+
+    private boolean useLocal() {
+        return localStore != null && !failover.isAvailable();
+    }
+
+    /**
+     * 成功登录同时清除本地记录，避免恢复后把已经过时的失败次数回灌到 Redis
+     */
+    private void resetLocal(String username) {
+        if (localStore != null) {
+            localStore.reset(username);
+        }
+    }
+
+    private static boolean clearFallbackColumns(User user) {
+        // 清理回退模式下留在用户表中的失败记录
+        if ((user.getFailedAttempts() != null && user.getFailedAttempts() != 0) || user.getLockedUntil() != null) {
+            user.setFailedAttempts(0);
+            user.setLockedUntil(null);
+            return true;
+        }
+        return false;
+    }
+
+    public long getFallbackCount() {
+        return fallbacks.sum();
+    }
+
+    public long getLocalRecordCount() {
+        return localRecords.sum();
+    }
+
+    public long getReconciledCount() {
+        return reconciled.sum();
+    }
+
+    private void fallback(RuntimeException e) {
+        fallbacks.increment();
+        if (failover != null) {
+            failover.markDown(e);
+        }
+        log.debug("登录失败计数存储不可用，回退到{}: {}", localStore != null ? "本地计数" : "用户表", e.getMessage());
+    }
+
+    private static final class Pending {
+        final String username;
+        final long attempts;
+        final long lockRemainingMillis;
+
+        Pending(String username, long attempts, long lockRemainingMillis) {
+            this.username = username;
+            this.attempts = attempts;
+            this.lockRemainingMillis = lockRemainingMillis;
+        }
+    }
+}
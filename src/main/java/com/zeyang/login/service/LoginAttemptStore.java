@@ -0,0 +1,43 @@
+package com.zeyang.login.service;
+
+import com.zeyang.login.redis.RedisBatch;
+
+/**
+ * 登录失败计数与账户锁定的存储
+ */
+public interface LoginAttemptStore {
+
+    /**
+     * 账户剩余锁定毫秒数，0 表示未锁定
+     */
+    long lockRemainingMillis(String username);
+
+    /**
+     * 记录一次失败，返回锁定剩余毫秒数，0 表示未锁定
+     */
+    long recordFailure(String username);
+
+    /**
+     * 登录成功后清除失败计数
+     */
+    void reset(String username);
+
+    /**
+     * 同 {@link #reset(String)}，Redis 实现把命令追加到批次中，随登录的其他写入一次发送
+     */
+    default void reset(String username, RedisBatch batch) {
+        reset(username);
+    }
+
+    /**
+     * 合并在别处记录的失败次数和锁定，用于 Redis 恢复后回灌本地记录；已经处于锁定中时保留原锁定
+     */
+    void merge(String username, long attempts, long lockRemainingMillis);
+
+    /**
+     * 同 {@link #merge(String, long, long)}，Redis 实现把命令追加到批次中
+     */
+    default void merge(String username, long attempts, long lockRemainingMillis, RedisBatch batch) {
+        merge(username, attempts, lockRemainingMillis);
+    }
+}
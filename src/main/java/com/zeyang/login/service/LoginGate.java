@@ -0,0 +1,38 @@
+package com.zeyang.login.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * 限流脚本顺带读出的账户锁定状态
+ * <p>
+ * 限流过滤器把它放进请求属性，登录时直接使用，不再单独查询锁定键和失败计数。
+ */
+@Data
+@AllArgsConstructor
+public class LoginGate {
+
+    static final String ATTRIBUTE = LoginGate.class.getName();
+
+    private String username;
+    // 0 表示放行
+    private long retryAfterMillis;
+    // 0 表示未锁定
+    private long lockRemainingMillis;
+    private long failedAttempts;
+
+    public void attachTo(HttpServletRequest request) {
+        request.setAttribute(ATTRIBUTE, this);
+    }
+
+    /**
+     * 限流过滤器对同一用户名（按 {@link com.zeyang.login.cache.UserExistenceFilter#normalize} 规范化）读到的状态；
+     * 没有经过过滤器或 Redis 不可用时返回 null
+     */
+    public static LoginGate of(HttpServletRequest request, String username) {
+        Object gate = request.getAttribute(ATTRIBUTE);
+        return gate instanceof LoginGate && ((LoginGate) gate).username.equals(username) ? (LoginGate) gate : null;
+    }
+}
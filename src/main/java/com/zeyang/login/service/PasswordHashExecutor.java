@@ -0,0 +1,187 @@
+package com.zeyang.login.service;
+
+import com.zeyang.login.concurrent.SingleFlight;
+import com.zeyang.login.exception.ServiceBusyException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 密码哈希专用线程池
+ * <p>
+ * 哈希是 CPU 密集操作，线程数按 CPU 核数设置，队列有界。
+ * 队列满或超过单次请求的截止时间时直接返回 503，不让请求线程无限堆积。
+ * 带键提交的任务按键合并，相同的并发计算只占用一个线程。
+ */
+@Component
+public class PasswordHashExecutor {
+
+    private static final String BUSY_MESSAGE = "系统繁忙，请稍后再试";
+
+    private final ThreadPoolExecutor pool;
+    private final long deadlineNanos;
+    private final long retryAfterSeconds;
+    private final int threads;
+    private final long startNanos = System.nanoTime();
+    private final SingleFlight<String, Object> flight;
+
+    // 指标
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder queueWaitNanosTotal = new LongAdder();
+    private final AtomicLong queueWaitNanosMax = new AtomicLong();
+    private final LongAdder busyNanosTotal = new LongAdder();
+
+    @Autowired
+    public PasswordHashExecutor(@Value("${login.password-hash.threads:0}") int threads,
+                                @Value("${login.password-hash.queue-capacity:64}") int queueCapacity,
+                                @Value("${login.password-hash.deadline-ms:1000}") long deadlineMillis,
+                                @Value("${login.password-hash.retry-after-seconds:1}") long retryAfterSeconds,
+                                @Value("${login.password-hash.coalesce-max-waiters:64}") int coalesceMaxWaiters) {
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.deadlineNanos = TimeUnit.MILLISECONDS.toNanos(deadlineMillis);
+        this.retryAfterSeconds = retryAfterSeconds;
+        // 等待者与执行者共用同一个截止时间
+        this.flight = new SingleFlight<>(coalesceMaxWaiters, deadlineMillis, retryAfterSeconds);
+        AtomicInteger index = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(this.threads, this.threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "password-hash-" + index.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * 在哈希线程池中执行任务并等待结果，超过截止时间或队列已满时抛出 {@link ServiceBusyException}
+     */
+    public <T> T execute(Callable<T> task) {
+        long enqueuedAt = System.nanoTime();
+        long deadline = enqueuedAt + deadlineNanos;
+        Future<T> future;
+        try {
+            future = pool.submit(() -> {
+                long started = System.nanoTime();
+                long waited = started - enqueuedAt;
+                queueWaitNanosTotal.add(waited);
+                queueWaitNanosMax.accumulateAndGet(waited, Math::max);
+                // 排队期间调用方可能已经放弃，过期任务不再计算
+                if (started - deadline > 0) {
+                    throw new TimeoutException();
+                }
+                try {
+                    return task.call();
+                } finally {
+                    busyNanosTotal.add(System.nanoTime() - started);
+                }
+            });
+            submitted.increment();
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new ServiceBusyException(BUSY_MESSAGE, retryAfterSeconds);
+        }
+
+        try {
+            return future.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            timedOut.increment();
+            throw new ServiceBusyException(BUSY_MESSAGE, retryAfterSeconds);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException(BUSY_MESSAGE, retryAfterSeconds);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof TimeoutException) {
+                timedOut.increment();
+                throw new ServiceBusyException(BUSY_MESSAGE, retryAfterSeconds);
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
+    /**
+     * 同一个键的并发任务只执行一次，其余调用方共享结果；键需要唯一确定任务的输入
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, Callable<T> task) {
+        return (T) flight.execute(key, () -> execute(task));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public int getActiveCount() {
+        return pool.getActiveCount();
+    }
+
+    public int getQueueDepth() {
+        return pool.getQueue().size();
+    }
+
+    public long getSubmittedCount() {
+        return submitted.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    public long getTimedOutCount() {
+        return timedOut.sum();
+    }
+
+    public long getCoalescedCount() {
+        return flight.getCoalescedCount();
+    }
+
+    public long getCoalesceRejectedCount() {
+        return flight.getRejectedCount() + flight.getTimedOutCount();
+    }
+
+    public long getCompletedCount() {
+        return pool.getCompletedTaskCount();
+    }
+
+    public long getQueueWaitNanosTotal() {
+        return queueWaitNanosTotal.sum();
+    }
+
+    public long getQueueWaitNanosMax() {
+        return queueWaitNanosMax.get();
+    }
+
+    /**
+     * 启动以来线程池的平均利用率（0~1）
+     */
+    public double getUtilisation() {
+        long elapsed = System.nanoTime() - startNanos;
+        return elapsed <= 0 ? 0 : (double) busyNanosTotal.sum() / ((double) elapsed * threads);
+    }
+}
@@ -0,0 +1,206 @@
+package com.zeyang.login.service;
+
+import com.zeyang.login.cache.UserExistenceFilter;
+import com.zeyang.login.redis.RedisFailover;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 基于 Redis 的滑动窗口限流，按 IP 和用户名分别计数
+ * <p>
+ * 检查和计数在一个 Lua 脚本中原子完成，只有一次 Redis 往返，带用户名时同一个脚本顺带读出账户锁定状态；
+ * 本地预检可以在不访问 Redis 的情况下拒绝明显超限的客户端。
+ * Redis 不可用时切换到进程内的 {@link LocalRateLimiter} 按本节点计数；
+ * 未开启故障切换时放行（fail-open），由后续的账户锁定兜底。
+ */
+@Slf4j
+@Service
+public class RateLimiter {
+
+    private static final String IP_LIMIT_PREFIX = "ip_limit:";
+    private static final String USER_LIMIT_PREFIX = "user_limit:";
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/rate_limit.lua"), List.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final long windowMillis;
+    private final int ipLimit;
+    private final int usernameLimit;
+    private final LocalRateGate localGate;
+    private final LocalRateLimiter localLimiter;
+    private final RedisFailover failover;
+
+    // 指标
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejectedLocal = new LongAdder();
+    private final LongAdder rejectedRedis = new LongAdder();
+    private final LongAdder redisErrors = new LongAdder();
+    private final LongAdder allowedFailover = new LongAdder();
+    private final LongAdder rejectedFailover = new LongAdder();
+
+    public RateLimiter(StringRedisTemplate redisTemplate, long windowSeconds, int ipLimit, int usernameLimit,
+                       int localMaxEntries) {
+        this(redisTemplate, null, windowSeconds, ipLimit, usernameLimit, localMaxEntries);
+    }
+
+    @Autowired
+    public RateLimiter(StringRedisTemplate redisTemplate,
+                       RedisFailover failover,
+                       @Value("${login.rate-limit.window-seconds:60}") long windowSeconds,
+                       @Value("${login.rate-limit.ip-limit:20}") int ipLimit,
+                       @Value("${login.rate-limit.username-limit:10}") int usernameLimit,
+                       @Value("${login.rate-limit.local-max-entries:100000}") int localMaxEntries) {
+        this.redisTemplate = redisTemplate;
+        this.windowMillis = windowSeconds * 1000L;
+        this.ipLimit = ipLimit;
+        this.usernameLimit = usernameLimit;
+        this.localGate = new LocalRateGate(windowMillis, localMaxEntries);
+        boolean local = failover != null && failover.isEnabled();
+        this.failover = local ? failover : null;
+        this.localLimiter = local ? new LocalRateLimiter(windowMillis, localMaxEntries) : null;
+    }
+
+    /**
+     * 判断请求是否放行
+     *
+     * @param username 可以为 null，此时只按 IP 限流
+     * @return 0 表示放行，否则为建议的重试等待毫秒数
+     */
+    public long tryAcquire(String ip, String username) {
+        return check(ip, username).getRetryAfterMillis();
+    }
+
+    /**
+     * 判断请求是否放行，带用户名时同时读出该账户的锁定剩余时间和失败次数；
+     * 本地拒绝、Redis 不可用或没有用户名时锁定状态未知，对应字段为 -1
+     */
+    public LoginGate check(String ip, String username) {
+        long now = System.currentTimeMillis();
+        // 与失败计数使用同一个规范化的用户名，大小写变体不能绕过用户名限流和锁定
+        username = username != null ? UserExistenceFilter.normalize(username) : null;
+        String ipKey = IP_LIMIT_PREFIX + ip;
+        String userKey = username != null ? USER_LIMIT_PREFIX + username : null;
+
+        long wait = localGate.check(ipKey, ipLimit, now);
+        if (wait == 0 && userKey != null) {
+            wait = localGate.check(userKey, usernameLimit, now);
+        }
+        if (wait > 0) {
+            rejectedLocal.increment();
+            return new LoginGate(username, wait, -1, -1);
+        }
+
+        if (failover != null && !failover.isAvailable()) {
+            return checkLocal(ipKey, userKey, username, now);
+        }
+
+        long windowIndex = now / windowMillis;
+        double elapsed = (double) (now % windowMillis) / windowMillis;
+        List<String> keys = new ArrayList<>(6);
+        keys.add(ipKey + ":" + windowIndex);
+        keys.add(ipKey + ":" + (windowIndex - 1));
+        if (userKey != null) {
+            keys.add(userKey + ":" + windowIndex);
+            keys.add(userKey + ":" + (windowIndex - 1));
+            keys.add(RedisLoginAttemptStore.LOCKOUT_PREFIX + username);
+            keys.add(RedisLoginAttemptStore.ATTEMPTS_PREFIX + username);
+        }
+
+        List<?> result;
+        try {
+            result = userKey != null
+                    ? redisTemplate.execute(SCRIPT, keys, String.valueOf(elapsed), String.valueOf(windowMillis),
+                            String.valueOf(ipLimit), String.valueOf(usernameLimit))
+                    : redisTemplate.execute(SCRIPT, keys, String.valueOf(elapsed), String.valueOf(windowMillis),
+                            String.valueOf(ipLimit));
+        } catch (RuntimeException e) {
+            redisErrors.increment();
+            if (failover != null) {
+                failover.markDown(e);
+                return checkLocal(ipKey, userKey, username, now);
+            }
+            log.debug("限流 Redis 调用失败，放行: {}", e.getMessage());
+            result = null;
+        }
+
+        long retryAfter = result != null && !result.isEmpty() ? ((Number) result.get(0)).longValue() : 0;
+        if (retryAfter > 0) {
+            rejectedRedis.increment();
+            // 只在本地拦截超限的那个维度，避免用户名超限时误伤同 IP 的其他用户
+            long group = ((Number) result.get(1)).longValue();
+            localGate.block(group == 2 ? userKey : ipKey, now, retryAfter);
+            return new LoginGate(username, retryAfter, -1, -1);
+        }
+        allowed.increment();
+        localGate.record(ipKey, now);
+        if (userKey != null) {
+            localGate.record(userKey, now);
+        }
+        if (result != null && result.size() >= 4) {
+            return new LoginGate(username, 0, ((Number) result.get(2)).longValue(), ((Number) result.get(3)).longValue());
+        }
+        return new LoginGate(username, 0, -1, -1);
+    }
+
+    /**
+     * Redis 不可用期间按本节点计数限流，锁定状态由 {@link LoginAttemptService} 的本地存储给出，这里返回 -1
+     */
+    private LoginGate checkLocal(String ipKey, String userKey, String username, long now) {
+        long wait = localLimiter.acquire(ipKey, ipLimit, now);
+        if (wait == 0 && userKey != null) {
+            wait = localLimiter.acquire(userKey, usernameLimit, now);
+            if (wait > 0) {
+                localLimiter.release(ipKey, now);
+            }
+        }
+        if (wait > 0) {
+            rejectedFailover.increment();
+        } else {
+            allowedFailover.increment();
+        }
+        return new LoginGate(username, wait, -1, -1);
+    }
+
+    public long getAllowedCount() {
+        return allowed.sum();
+    }
+
+    public long getRejectedLocalCount() {
+        return rejectedLocal.sum();
+    }
+
+    public long getRejectedRedisCount() {
+        return rejectedRedis.sum();
+    }
+
+    public long getRedisErrorCount() {
+        return redisErrors.sum();
+    }
+
+    public long getAllowedFailoverCount() {
+        return allowedFailover.sum();
+    }
+
+    public long getRejectedFailoverCount() {
+        return rejectedFailover.sum();
+    }
+
+    public int getLocalEntries() {
+        return localGate.size();
+    }
+
+    public int getFailoverEntries() {
+        return localLimiter != null ? localLimiter.size() : 0;
+    }
+}
@@ -0,0 +1,91 @@
+package com.zeyang.login.service;
+
+import com.zeyang.login.redis.RedisBatch;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于 Redis 的失败计数，计数和锁定在一个 Lua 脚本中原子完成
+ */
+@Primary
+@Component
+public class RedisLoginAttemptStore implements LoginAttemptStore {
+
+    static final String ATTEMPTS_PREFIX = "login_attempts:";
+    static final String LOCKOUT_PREFIX = "account_lock:";
+
+    private static final RedisScript<Long> RECORD_FAILURE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/login_attempt.lua"), Long.class);
+    private static final RedisScript<Long> MERGE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/login_attempt_merge.lua"), Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final String maxAttempts;
+    private final String attemptsTtlMillis;
+    private final String lockMillis;
+
+    @Autowired
+    public RedisLoginAttemptStore(StringRedisTemplate redisTemplate,
+                                  @Value("${login.lockout.max-attempts:5}") int maxAttempts,
+                                  @Value("${login.lockout.attempts-ttl-minutes:1440}") long attemptsTtlMinutes,
+                                  @Value("${login.lockout.lock-minutes:30}") long lockMinutes) {
+        this.redisTemplate = redisTemplate;
+        this.maxAttempts = String.valueOf(maxAttempts);
+        this.attemptsTtlMillis = String.valueOf(TimeUnit.MINUTES.toMillis(attemptsTtlMinutes));
+        this.lockMillis = String.valueOf(TimeUnit.MINUTES.toMillis(lockMinutes));
+    }
+
+    @Override
+    public long lockRemainingMillis(String username) {
+        Long ttl = redisTemplate.getExpire(LOCKOUT_PREFIX + username, TimeUnit.MILLISECONDS);
+        // 键不存在时返回 -2
+        return ttl != null && ttl > 0 ? ttl : 0;
+    }
+
+    @Override
+    public long recordFailure(String username) {
+        Long locked = redisTemplate.execute(RECORD_FAILURE_SCRIPT,
+                List.of(ATTEMPTS_PREFIX + username, LOCKOUT_PREFIX + username),
+                maxAttempts, attemptsTtlMillis, lockMillis);
+        return locked != null ? locked : 0;
+    }
+
+    @Override
+    public void reset(String username) {
+        redisTemplate.delete(ATTEMPTS_PREFIX + username);
+    }
+
+    @Override
+    public void reset(String username, RedisBatch batch) {
+        String key = ATTEMPTS_PREFIX + username;
+        batch.add(conn -> conn.del(key));
+    }
+
+    /**
+     * 累加和锁定在 login_attempt_merge.lua 中原子完成：两个节点的计数合并后达到阈值时同样锁定，
+     * 与 {@link #recordFailure} 的判断一致
+     */
+    @Override
+    public void merge(String username, long attempts, long lockRemainingMillis) {
+        redisTemplate.execute(MERGE_SCRIPT, List.of(ATTEMPTS_PREFIX + username, LOCKOUT_PREFIX + username),
+                String.valueOf(attempts), String.valueOf(lockRemainingMillis), maxAttempts, attemptsTtlMillis, lockMillis);
+    }
+
+    @Override
+    public void merge(String username, long attempts, long lockRemainingMillis, RedisBatch batch) {
+        String attemptsKey = ATTEMPTS_PREFIX + username;
+        String lockKey = LOCKOUT_PREFIX + username;
+        String script = MERGE_SCRIPT.getScriptAsString();
+        batch.add(conn -> conn.eval(script, ReturnType.INTEGER, 2, attemptsKey, lockKey,
+                String.valueOf(attempts), String.valueOf(lockRemainingMillis), maxAttempts, attemptsTtlMillis, lockMillis));
+    }
+}
@@ -0,0 +1,465 @@
+package com.zeyang.login.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.zeyang.login.cache.UserCache;
+import com.zeyang.login.cache.UserExistenceFilter;
+import com.zeyang.login.dto.RegisterRequest;
+import com.zeyang.login.dto.UserImportFailure;
+import com.zeyang.login.dto.UserImportProgress;
+import com.zeyang.login.entity.User;
+import com.zeyang.login.exception.ServiceBusyException;
+import com.zeyang.login.security.PasswordHashingEngine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * 批量导入用户
+ * <p>
+ * 请求体逐行流式读取，每攒够一批：
+ * <ol>
+ *     <li>批内按用户名、邮箱去重，再用 IN 查询一次性排除库中已存在的（存在性过滤器判定一定不存在的不参与查询）</li>
+ *     <li>密码在导入专用线程池中并行哈希</li>
+ *     <li>在一个事务内用 JDBC 批量插入，驱动开启 rewriteBatchedStatements 后合并为多行 INSERT</li>
+ * </ol>
+ * 每批提交后清除这些用户名的负缓存并输出进度，committedLine 之前的行都已处理完毕；中断后从该行续传，重复提交的行按“已存在”跳过。
+ * 同一时间只允许一个导入任务，避免与登录争抢 CPU。
+ */
+@Slf4j
+@Service
+public class UserImportService {
+
+    public enum Format { NDJSON, CSV }
+
+    /**
+     * 导入过程的输出，由控制器逐行写回客户端
+     */
+    public interface Listener {
+        void onFailure(UserImportFailure failure);
+
+        void onProgress(UserImportProgress progress);
+    }
+
+    static final int MAX_BATCH_SIZE = 5000;
+
+    private static final String INSERT_SQL =
+            "INSERT INTO users (username, password_hash, salt, email, phone, status, failed_attempts, created_at, updated_at) "
+                    + "VALUES (?, ?, ?, ?, ?, 'ACTIVE', 0, ?, ?)";
+    private static final String EXISTING_USERNAMES_SQL = "SELECT username FROM users WHERE username IN (:values)";
+    private static final String EXISTING_EMAILS_SQL = "SELECT email FROM users WHERE email IN (:values)";
+    private static final Pattern EMAIL = Pattern.compile("^[^@\\s]+@[^@\\s]+\\.[^@\\s]+$");
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PasswordHashingEngine passwordHashingEngine;
+    private final UserExistenceFilter userExistenceFilter;
+    private final UserCache userCache;
+    private final ObjectReader rowReader;
+    private final int batchSize;
+    private final ExecutorService hashPool;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Autowired
+    public UserImportService(DataSource dataSource,
+                             PlatformTransactionManager transactionManager,
+                             PasswordHashingEngine passwordHashingEngine,
+                             UserExistenceFilter userExistenceFilter,
+                             UserCache userCache,
+                             ObjectMapper objectMapper,
+                             @Value("${login.user-import.batch-size:1000}") int batchSize,
+                             @Value("${login.user-import.hash-threads:0}") int hashThreads) {
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.passwordHashingEngine = passwordHashingEngine;
+        this.userExistenceFilter = userExistenceFilter;
+        this.userCache = userCache;
+        this.rowReader = objectMapper.readerFor(RegisterRequest.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.batchSize = Math.max(1, Math.min(batchSize, MAX_BATCH_SIZE));
+        // 默认只用一半的核，给登录请求的哈希留出余量
+        int threads = hashThreads > 0 ? hashThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger index = new AtomicInteger();
+        this.hashPool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "user-import-hash-" + index.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        hashPool.shutdownNow();
+    }
+
+    /**
+     * 导入请求体中的用户，跳过 startLine 及之前的行（行号从 1 开始，CSV 表头是第 1 行）
+     */
+    public UserImportProgress importUsers(InputStream in, Format format, long startLine, Listener listener)
+            throws IOException {
+        if (!running.compareAndSet(false, true)) {
+            throw new ServiceBusyException("已有导入任务在执行，请稍后再试", 60);
+        }
+        try {
+            return doImport(in, format, startLine, listener);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private UserImportProgress doImport(InputStream in, Format format, long startLine, Listener listener)
+            throws IOException {
+        long started = System.currentTimeMillis();
+        UserImportProgress progress = new UserImportProgress();
+        progress.setCommittedLine(startLine);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+        Map<String, Integer> columns = null;
+        List<Row> batch = new ArrayList<>(batchSize);
+        long lineNumber = 0;
+        String line;
+        try {
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (format == Format.CSV && columns == null) {
+                    columns = header(line);
+                    continue;
+                }
+                if (lineNumber <= startLine || line.isBlank()) {
+                    continue;
+                }
+                Row row = parse(line, lineNumber, format, columns);
+                String reason = row.request == null ? "格式错误" : validate(row.request);
+                if (reason != null) {
+                    fail(progress, listener, row, reason);
+                } else {
+                    batch.add(row);
+                }
+                progress.setProcessed(progress.getProcessed() + 1);
+                if (batch.size() >= batchSize) {
+                    flush(batch, lineNumber, progress, listener);
+                    batch.clear();
+                    progress.setElapsedMillis(System.currentTimeMillis() - started);
+                    listener.onProgress(progress);
+                }
+            }
+            flush(batch, lineNumber, progress, listener);
+            progress.setType("done");
+        } catch (UncheckedIOException e) {
+            // 客户端断开，没有必要再输出进度
+            throw e;
+        } catch (RuntimeException e) {
+            // committedLine 停在最后一个成功提交的批次
+            log.warn("批量导入在第 {} 行之后中断: {}", progress.getCommittedLine(), e.getMessage());
+            progress.setType("aborted");
+            progress.setMessage(e.getMessage());
+        }
+        progress.setElapsedMillis(System.currentTimeMillis() - started);
+        listener.onProgress(progress);
+        return progress;
+    }
+
+    /**
+     * 处理一批合法的行并提交，成功后把 committedLine 推进到 lastLine
+     */
+    private void flush(List<Row> batch, long lastLine, UserImportProgress progress, Listener listener) {
+        List<Row> fresh = dedupe(batch, progress, listener);
+        List<User> users = hash(fresh);
+        List<User> inserted = insert(fresh, users, progress, listener);
+        userExistenceFilter.addAll(inserted);
+        // 插入已提交；导入前被查询过的用户名带着负缓存，不清除的话过期前登录仍按用户不存在处理
+        userCache.evictAll(inserted);
+        progress.setImported(progress.getImported() + inserted.size());
+        progress.setCommittedLine(Math.max(progress.getCommittedLine(), lastLine));
+    }
+
+    /**
+     * 批内重复和库中已存在的行记为跳过，库中查询按用户名、邮箱各一次 IN 查询
+     */
+    private List<Row> dedupe(List<Row> batch, UserImportProgress progress, Listener listener) {
+        Set<String> names = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        List<Row> unique = new ArrayList<>(batch.size());
+        for (Row row : batch) {
+            // MySQL 默认排序规则不区分大小写，按小写去重
+            if (!names.add(key(row.request.getUsername()))) {
+                skip(progress, listener, row, "用户名重复");
+            } else if (!emails.add(key(row.request.getEmail()))) {
+                skip(progress, listener, row, "邮箱重复");
+            } else {
+                unique.add(row);
+            }
+        }
+        Set<String> existingNames = existing(EXISTING_USERNAMES_SQL, unique, true);
+        Set<String> existingEmails = existing(EXISTING_EMAILS_SQL, unique, false);
+        List<Row> fresh = new ArrayList<>(unique.size());
+        for (Row row : unique) {
+            if (existingNames.contains(key(row.request.getUsername()))) {
+                skip(progress, listener, row, "用户名已存在");
+            } else if (existingEmails.contains(key(row.request.getEmail()))) {
+                skip(progress, listener, row, "邮箱已被注册");
+            } else {
+                fresh.add(row);
+            }
+        }
+        return fresh;
+    }
+
+    private Set<String> existing(String sql, List<Row> rows, boolean username) {
+        List<String> candidates = new ArrayList<>();
+        for (Row row : rows) {
+            String value = username ? row.request.getUsername() : row.request.getEmail();
+            boolean maybe = username ? userExistenceFilter.mightContainUsername(value)
+                    : userExistenceFilter.mightContainEmail(value);
+            if (maybe) {
+                candidates.add(value);
+            }
+        }
+        Set<String> found = new HashSet<>();
+        if (!candidates.isEmpty()) {
+            jdbcTemplate.query(sql, Map.of("values", candidates), rs -> {
+                found.add(key(rs.getString(1)));
+            });
+        }
+        return found;
+    }
+
+    /**
+     * 在导入线程池中并行生成盐和哈希，结果与输入顺序一致
+     */
+    private List<User> hash(List<Row> rows) {
+        List<Future<User>> futures = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            futures.add(hashPool.submit(() -> {
+                RegisterRequest request = row.request;
+                User user = new User();
+                user.setUsername(request.getUsername());
+                user.setEmail(request.getEmail());
+                user.setPhone(request.getPhone());
+                user.setSalt(UserService.generateSalt());
+                user.setPasswordHash(passwordHashingEngine.encode(request.getPassword(), user.getSalt()));
+                return user;
+            }));
+        }
+        List<User> users = new ArrayList<>(rows.size());
+        try {
+            for (Future<User> future : futures) {
+                users.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(f -> f.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("导入被中断", e);
+        } catch (ExecutionException e) {
+            futures.forEach(f -> f.cancel(true));
+            throw new RuntimeException("密码哈希失败", e.getCause());
+        }
+        return users;
+    }
+
+    /**
+     * 整批在一个事务内插入；查询之后被并发注册占用导致唯一键冲突时，改为逐行插入定位冲突的行
+     */
+    private List<User> insert(List<Row> rows, List<User> users, UserImportProgress progress, Listener listener) {
+        if (users.isEmpty()) {
+            return users;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        JdbcTemplate jdbc = jdbcTemplate.getJdbcTemplate();
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbc.batchUpdate(INSERT_SQL, users, users.size(), (ps, user) -> bind(ps, user, now)));
+            return users;
+        } catch (DuplicateKeyException e) {
+            List<User> inserted = new ArrayList<>(users.size());
+            for (int i = 0; i < users.size(); i++) {
+                User user = users.get(i);
+                try {
+                    jdbc.update(INSERT_SQL, ps -> bind(ps, user, now));
+                    inserted.add(user);
+                } catch (DuplicateKeyException duplicate) {
+                    skip(progress, listener, rows.get(i), "用户名或邮箱已存在");
+                }
+            }
+            return inserted;
+        }
+    }
+
+    private static void bind(PreparedStatement ps, User user, Timestamp now) throws SQLException {
+        ps.setString(1, user.getUsername());
+        ps.setString(2, user.getPasswordHash());
+        ps.setString(3, user.getSalt());
+        ps.setString(4, user.getEmail());
+        ps.setString(5, user.getPhone());
+        ps.setTimestamp(6, now);
+        ps.setTimestamp(7, now);
+    }
+
+    private static void skip(UserImportProgress progress, Listener listener, Row row, String reason) {
+        progress.setSkipped(progress.getSkipped() + 1);
+        listener.onFailure(new UserImportFailure(row.line, row.username(), reason));
+    }
+
+    private static void fail(UserImportProgress progress, Listener listener, Row row, String reason) {
+        progress.setFailed(progress.getFailed() + 1);
+        listener.onFailure(new UserImportFailure(row.line, row.username(), reason));
+    }
+
+    private Row parse(String line, long lineNumber, Format format, Map<String, Integer> columns) {
+        if (format == Format.NDJSON) {
+            try {
+                return new Row(lineNumber, rowReader.readValue(line));
+            } catch (JsonProcessingException e) {
+                return new Row(lineNumber, null);
+            }
+        }
+        List<String> fields = csvFields(line);
+        if (fields == null) {
+            return new Row(lineNumber, null);
+        }
+        RegisterRequest request = new RegisterRequest();
+        request.setUsername(field(fields, columns, "username"));
+        request.setPassword(field(fields, columns, "password"));
+        request.setEmail(field(fields, columns, "email"));
+        request.setPhone(field(fields, columns, "phone"));
+        return new Row(lineNumber, request);
+    }
+
+    private static Map<String, Integer> header(String line) {
+        List<String> names = csvFields(line);
+        if (names == null || !names.contains("username") || !names.contains("password") || !names.contains("email")) {
+            throw new RuntimeException("CSV 表头必须包含 username、password、email");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        return columns;
+    }
+
+    private static String field(List<String> fields, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index);
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * 解析一行 CSV：支持引号包裹和引号内的双引号转义，不支持字段内换行；格式错误返回 null
+     */
+    static List<String> csvFields(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char ch = line.charAt(i);
+            if (quoted) {
+                if (ch == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (ch == '"') {
+                    quoted = false;
+                } else {
+                    current.append(ch);
+                }
+            } else if (ch == '"' && current.length() == 0) {
+                quoted = true;
+            } else if (ch == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(ch);
+            }
+        }
+        if (quoted) {
+            return null;
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+
+    /**
+     * 与 {@link RegisterRequest} 上的校验规则一致，返回失败原因，合法时返回 null
+     */
+    static String validate(RegisterRequest request) {
+        String username = request.getUsername();
+        if (username == null || username.isBlank()) {
+            return "用户名不能为空";
+        }
+        if (username.length() < 3 || username.length() > 50) {
+            return "用户名长度必须在3-50个字符之间";
+        }
+        String password = request.getPassword();
+        if (password == null || password.isBlank()) {
+            return "密码不能为空";
+        }
+        if (password.length() < 6 || password.length() > 100) {
+            return "密码长度必须在6-100个字符之间";
+        }
+        String email = request.getEmail();
+        if (email == null || email.isBlank()) {
+            return "邮箱不能为空";
+        }
+        if (email.length() > 100 || !EMAIL.matcher(email).matches()) {
+            return "邮箱格式不正确";
+        }
+        if (request.getPhone() != null && request.getPhone().length() > 20) {
+            return "手机号过长";
+        }
+        return null;
+    }
+
+    private static String key(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Row {
+        final long line;
+        final RegisterRequest request;
+
+        Row(long line, RegisterRequest request) {
+            this.line = line;
+            this.request = request;
+        }
+
+        String username() {
+            return request == null ? null : request.getUsername();
+        }
+    }
+}
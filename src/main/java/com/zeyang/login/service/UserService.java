@@ -1,13 +1,20 @@
 package com.zeyang.login.service;
 
+import com.zeyang.login.cache.UserCache;
+import com.zeyang.login.cache.UserExistenceFilter;
+import com.zeyang.login.dto.UserView;
 import com.zeyang.login.entity.User;
 import com.zeyang.login.entity.UserStatus;
+import com.zeyang.login.exception.AuthException;
 import com.zeyang.login.repository.UserRepository;
+import com.zeyang.login.security.PasswordHashingEngine;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.util.Base64;
 import java.util.Optional;
@@ -16,23 +23,55 @@ import java.util.Optional;
 public class UserService {
     
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingEngine passwordHashingEngine;
+    private final UserCache userCache;
+    private final PasswordHashExecutor passwordHashExecutor;
+    private final UserExistenceFilter userExistenceFilter;
     
     @Autowired
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, PasswordHashingEngine passwordHashingEngine, UserCache userCache,
+                       PasswordHashExecutor passwordHashExecutor, UserExistenceFilter userExistenceFilter) {
         this.userRepository = userRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingEngine = passwordHashingEngine;
+        this.userCache = userCache;
+        this.passwordHashExecutor = passwordHashExecutor;
+        this.userExistenceFilter = userExistenceFilter;
     }
     
+    /**
+     * 按用户名查询，经过存在性过滤器和两级缓存；返回的是游离副本，修改后需调用 {@link #save(User)}
+     */
     public Optional<User> findByUsername(String username) {
-        return Optional.ofNullable(userRepository.findByUsername(username));
+        // 过滤器判定一定不存在时不查缓存和数据库，随机用户名的撞库请求不再打到 MySQL
+        if (!userExistenceFilter.mightContainUsername(username)) {
+            return Optional.empty();
+        }
+        return userCache.getByUsername(username, () -> userRepository.findByUsername(username));
+    }
+    
+    /**
+     * 邮箱是否已被使用，过滤器判定一定未使用时不查数据库
+     */
+    public boolean existsByEmail(String email) {
+        return userExistenceFilter.mightContainEmail(email) && userRepository.existsByEmail(email);
+    }
+    
+    @Transactional
+    public User save(User user) {
+        User saved = userRepository.save(user);
+        userExistenceFilter.add(saved.getUsername(), saved.getEmail());
+        userCache.evictAfterCommit(saved);
+        return saved;
     }
     
     @Transactional
     public User registerUser(String username, String password, String email, String phone) {
         // 检查用户名是否已存在
-        if (userRepository.findByUsername(username) != null) {
-            throw new RuntimeException("用户名已存在");
+        if (findByUsername(username).isPresent()) {
+            throw AuthException.USERNAME_TAKEN;
+        }
+        if (existsByEmail(email)) {
+            throw AuthException.EMAIL_TAKEN;
         }
         
         User user = new User();
@@ -50,14 +89,17 @@ public class UserService {
         String passwordHash = hashPassword(password, salt);
         user.setPasswordHash(passwordHash);
         
-        return userRepository.save(user);
+        return save(user);
     }
     
     @Transactional
     public User createUser(User user) {
         // 检查用户名是否已存在
-        if (userRepository.findByUsername(user.getUsername()) != null) {
-            throw new RuntimeException("用户名已存在");
+        if (findByUsername(user.getUsername()).isPresent()) {
+            throw AuthException.USERNAME_TAKEN;
+        }
+        if (existsByEmail(user.getEmail())) {
+            throw AuthException.EMAIL_TAKEN;
         }
         
         // 生成随机盐
@@ -72,35 +114,68 @@ public class UserService {
         user.setStatus(UserStatus.ACTIVE);
         user.setFailedAttempts(0);
         
-        return userRepository.save(user);
+        return save(user);
     }
     
+    /**
+     * 同一用户、同一存储哈希和同一密码的并发校验（客户端重试、撞库重放）只计算一次哈希
+     */
     public boolean verifyPassword(User user, String password) {
-        String hashedPassword = hashPassword(password, user.getSalt());
-        return hashedPassword.equals(user.getPasswordHash());
+        return passwordHashExecutor.execute(verificationKey(user, password),
+                () -> passwordHashingEngine.matches(password, user.getSalt(), user.getPasswordHash()));
     }
     
-    private String generateSalt() {
+    /**
+     * 合并校验用的键：用户名加上盐、存储哈希和密码的 SHA-256 摘要，键中不出现明文密码，改密后键随之变化
+     */
+    static String verificationKey(User user, String password) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(String.valueOf(user.getSalt()).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(String.valueOf(user.getPasswordHash()).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(password.getBytes(StandardCharsets.UTF_8));
+            return "verify:" + user.getUsername() + ":" + Base64.getEncoder().encodeToString(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    /**
+     * 登录成功后调用：哈希算法或参数落后于当前配置时用明文密码重新哈希，返回是否有变更
+     */
+    public boolean rehashPasswordIfNeeded(User user, String password) {
+        if (!passwordHashingEngine.needsRehash(user.getPasswordHash())) {
+            return false;
+        }
+        user.setPasswordHash(hashPassword(password, user.getSalt()));
+        return true;
+    }
+    
+    static String generateSalt() {
         SecureRandom random = new SecureRandom();
         byte[] salt = new byte[16];
         random.nextBytes(salt);
         return Base64.getEncoder().encodeToString(salt);
     }
     
-    private String hashPassword(String password, String salt) {
-        // 在实际应用中，应使用更安全的算法如PBKDF2、BCrypt等
-        // 这里使用简单的SHA-256作为示例
-        try {
-            java.security.MessageDigest md = java.security.MessageDigest.getInstance("SHA-256");
-            md.update(salt.getBytes());
-            byte[] hashedPassword = md.digest(password.getBytes());
-            return Base64.getEncoder().encodeToString(hashedPassword);
-        } catch (Exception e) {
-            throw new RuntimeException("密码加密失败", e);
-        }
+    String hashPassword(String password, String salt) {
+        // 哈希在专用线程池中计算，不占用 Tomcat 请求线程
+        return passwordHashExecutor.execute(() -> passwordHashingEngine.encode(password, salt));
     }
 
+    /**
+     * 按 ID 查询，返回的用户不含密码哈希和盐，只用于展示和会话
+     */
     public Optional<User> getUserById(Long id) {
-        return userRepository.findById(id);
+        return userCache.getById(id, () -> userRepository.findById(id).orElse(null));
+    }
+    
+    /**
+     * 对外展示的用户信息，从两级缓存中的实体投影，缓存命中时不查数据库
+     */
+    public Optional<UserView> getUserView(Long id) {
+        return getUserById(id).map(UserView::of);
     }
 }
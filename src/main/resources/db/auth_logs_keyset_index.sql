@@ -0,0 +1,5 @@
+-- 登录日志按用户分页的联合索引：(user_id, created_at)，InnoDB 二级索引自带主键 id，
+-- 等价于 (user_id, created_at, id)，按用户倒序翻页不需要回表排序。
+-- 新索引以 user_id 开头，可以支撑外键 auth_logs_ibfk_1，原 idx_user_id 随后删除。
+ALTER TABLE auth_logs ADD INDEX idx_user_created_at (user_id, created_at);
+ALTER TABLE auth_logs DROP INDEX idx_user_id;
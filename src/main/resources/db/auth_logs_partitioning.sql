@@ -0,0 +1,17 @@
+-- auth_logs 改为按 created_at 范围分区，之后由 AuthLogPartitionManager 维护
+-- （login.auth-log.partition.enabled=true）。执行前请在低峰期备份，ALTER 会重建整表。
+--
+-- MySQL 分区表的限制：
+-- 1. 不支持外键，原 auth_logs_ibfk_1（ON DELETE CASCADE）删除后，删除用户不再级联删除日志，
+--    日志随所在分区到期归档删除；实体 AuthLog 仍声明外键和级联删除，供未分区的部署使用，
+--    ddl-auto: validate 和 schema-check 不校验外键，分区后的表可以通过校验；
+-- 2. 主键和唯一索引必须包含分区列，主键改为 (id, created_at)，id 仍自增且唯一。
+ALTER TABLE auth_logs DROP FOREIGN KEY auth_logs_ibfk_1;
+ALTER TABLE auth_logs DROP PRIMARY KEY, ADD PRIMARY KEY (id, created_at);
+
+-- p_history 容纳现有数据，上界改为执行当月的第一天；p_future 必须为空，
+-- 维护任务只拆分 p_future，从当月开始按周期建分区，不搬动历史数据。
+ALTER TABLE auth_logs PARTITION BY RANGE COLUMNS (created_at) (
+    PARTITION p_history VALUES LESS THAN ('2024-07-01 00:00:00'),
+    PARTITION p_future VALUES LESS THAN (MAXVALUE)
+);
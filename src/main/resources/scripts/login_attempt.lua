@@ -0,0 +1,14 @@
+-- 记录一次登录失败，达到阈值时锁定账户
+-- KEYS[1] 失败计数键，KEYS[2] 锁定键
+-- ARGV[1] 最大失败次数，ARGV[2] 计数过期毫秒，ARGV[3] 锁定毫秒
+-- 返回锁定剩余毫秒数，0 表示未锁定
+local attempts = redis.call('INCR', KEYS[1])
+if attempts == 1 then
+    redis.call('PEXPIRE', KEYS[1], ARGV[2])
+end
+if attempts >= tonumber(ARGV[1]) then
+    redis.call('SET', KEYS[2], attempts, 'PX', ARGV[3])
+    redis.call('DEL', KEYS[1])
+    return tonumber(ARGV[3])
+end
+return 0
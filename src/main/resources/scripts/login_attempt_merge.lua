@@ -0,0 +1,19 @@
+-- Redis 恢复后回灌本节点的失败计数，累加后达到阈值时与 login_attempt.lua 一样锁定账户
+-- KEYS[1] 失败计数键，KEYS[2] 锁定键
+-- ARGV[1] 本地累计的失败次数，ARGV[2] 本地锁定剩余毫秒数
+-- ARGV[3] 最大失败次数，ARGV[4] 计数过期毫秒，ARGV[5] 锁定毫秒
+-- 返回锁定剩余毫秒数，0 表示未锁定
+local attempts = tonumber(ARGV[1])
+local lockRemaining = tonumber(ARGV[2])
+if lockRemaining > 0 then
+    redis.call('SET', KEYS[2], ARGV[3], 'PX', lockRemaining, 'NX')
+end
+if attempts > 0 then
+    local merged = redis.call('INCRBY', KEYS[1], attempts)
+    redis.call('PEXPIRE', KEYS[1], ARGV[4])
+    if merged >= tonumber(ARGV[3]) then
+        redis.call('SET', KEYS[2], merged, 'PX', ARGV[5])
+        redis.call('DEL', KEYS[1])
+    end
+end
+return math.max(redis.call('PTTL', KEYS[2]), 0)
@@ -0,0 +1,33 @@
+-- 滑动窗口限流（两个固定窗口加权近似）
+-- KEYS 前 2n 个每两个为一组：当前窗口计数键、上一窗口计数键
+-- KEYS 之后可选两个：账户锁定键、失败计数键，放行时一并读出，登录前的检查只需一次往返
+-- ARGV[1] 当前窗口已过去的比例（0~1）
+-- ARGV[2] 窗口长度（毫秒）
+-- ARGV[3..] 每组键对应的上限，共 n 个
+-- 放行返回 {0, 0, 锁定剩余毫秒数, 失败次数}，否则返回 {建议的重试等待毫秒数, 超限的组序号}
+local elapsed = tonumber(ARGV[1])
+local window = tonumber(ARGV[2])
+local groups = #ARGV - 2
+
+for i = 1, groups do
+    local limit = tonumber(ARGV[2 + i])
+    local current = tonumber(redis.call('GET', KEYS[2 * i - 1]) or '0')
+    local previous = tonumber(redis.call('GET', KEYS[2 * i]) or '0')
+    if previous * (1 - elapsed) + current >= limit then
+        return {math.max(1, math.floor(window * (1 - elapsed))), i}
+    end
+end
+
+for i = 1, groups do
+    local key = KEYS[2 * i - 1]
+    if redis.call('INCR', key) == 1 then
+        redis.call('PEXPIRE', key, window * 2)
+    end
+end
+
+if #KEYS > groups * 2 then
+    local lock = redis.call('PTTL', KEYS[groups * 2 + 1])
+    local attempts = tonumber(redis.call('GET', KEYS[groups * 2 + 2]) or '0')
+    return {0, 0, math.max(lock, 0), attempts}
+end
+return {0, 0}
@@ -0,0 +1,7 @@
+-- 用户过滤器新增同步：分配序号后发布，接收方按序号数量发现丢失的消息
+-- KEYS[1] 序号键
+-- ARGV[1] 频道，ARGV[2] 消息体（用户名\n邮箱，批量时逐对拼接）
+-- 返回分配的序号，消息体前加一行序号
+local seq = redis.call('INCR', KEYS[1])
+redis.call('PUBLISH', ARGV[1], seq .. '\n' .. ARGV[2])
+return seq
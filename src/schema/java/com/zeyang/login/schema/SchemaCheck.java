@@ -0,0 +1,85 @@
+package com.zeyang.login.schema;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.tool.hbm2ddl.SchemaValidator;
+import org.hibernate.tool.schema.spi.SchemaManagementException;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.boot.orm.jpa.hibernate.SpringImplicitNamingStrategy;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.type.filter.AnnotationTypeFilter;
+
+import javax.persistence.Entity;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 发布前的表结构校验，代替应用启动时的 ddl-auto: validate：
+ * mvn -P schema-check verify -Dschema.args="--url=jdbc:mysql://db:3306/login --username=ci --password=..."
+ * <p>
+ * 只构建实体映射并与数据库比对，不启动 Spring 上下文；命名策略与 Spring Boot 默认一致。
+ * 连接参数默认取 application.yml 中的 spring.datasource，不一致时以非零状态退出，构建失败。
+ */
+public class SchemaCheck {
+
+    private static final String ENTITY_PACKAGE = "com.zeyang.login.entity";
+
+    public static void main(String[] args) throws Exception {
+        List<PropertySource<?>> yaml = new YamlPropertySourceLoader()
+                .load("application", new ClassPathResource("application.yml"));
+        PropertySource<?> config = yaml.get(0);
+        String url = String.valueOf(config.getProperty("spring.datasource.url"));
+        String username = String.valueOf(config.getProperty("spring.datasource.username"));
+        String password = String.valueOf(config.getProperty("spring.datasource.password"));
+        String dialect = String.valueOf(config.getProperty("spring.jpa.database-platform"));
+        for (String arg : args) {
+            if (arg.startsWith("--url=")) {
+                url = arg.substring("--url=".length());
+            } else if (arg.startsWith("--username=")) {
+                username = arg.substring("--username=".length());
+            } else if (arg.startsWith("--password=")) {
+                password = arg.substring("--password=".length());
+            }
+        }
+
+        Map<String, Object> settings = new HashMap<>();
+        settings.put(AvailableSettings.URL, url);
+        settings.put(AvailableSettings.USER, username);
+        settings.put(AvailableSettings.PASS, password);
+        settings.put(AvailableSettings.DIALECT, dialect);
+        StandardServiceRegistry registry = new StandardServiceRegistryBuilder().applySettings(settings).build();
+        boolean valid = true;
+        try {
+            MetadataSources sources = new MetadataSources(registry);
+            ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+            scanner.addIncludeFilter(new AnnotationTypeFilter(Entity.class));
+            int entities = 0;
+            for (BeanDefinition candidate : scanner.findCandidateComponents(ENTITY_PACKAGE)) {
+                sources.addAnnotatedClass(Class.forName(candidate.getBeanClassName()));
+                entities++;
+            }
+            Metadata metadata = sources.getMetadataBuilder()
+                    .applyPhysicalNamingStrategy(new CamelCaseToUnderscoresNamingStrategy())
+                    .applyImplicitNamingStrategy(new SpringImplicitNamingStrategy())
+                    .build();
+            new SchemaValidator().validate(metadata, registry);
+            System.out.println("表结构校验通过: " + entities + " 个实体, " + url);
+        } catch (SchemaManagementException e) {
+            System.err.println("表结构与实体映射不一致: " + e.getMessage());
+            valid = false;
+        } finally {
+            StandardServiceRegistryBuilder.destroy(registry);
+        }
+        if (!valid) {
+            System.exit(1);
+        }
+    }
+}
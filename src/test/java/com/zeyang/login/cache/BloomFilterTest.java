@@ -0,0 +1,50 @@
+package com.zeyang.login.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class BloomFilterTest {
+
+    // 测试加入过的元素一定判定为可能存在，且误报率接近设计值
+    @Test
+    public void testNoFalseNegativesAndBoundedFpp() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("user" + i);
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("user" + i));
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (filter.mightContain("other" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300, "误报数过多: " + falsePositives);
+    }
+
+    // 测试序列化后恢复的过滤器判定结果一致
+    @Test
+    public void testRoundTripBytes() {
+        BloomFilter filter = new BloomFilter(1000, 0.01);
+        filter.put("alice");
+
+        BloomFilter restored = BloomFilter.fromBytes(filter.toBytes());
+
+        assertTrue(restored.mightContain("alice"));
+        assertFalse(restored.mightContain("bob"));
+        assertEquals(filter.getBitCount(), restored.getBitCount());
+        assertEquals(filter.getHashCount(), restored.getHashCount());
+    }
+
+    // 测试过滤器的归一化与 MySQL 默认排序规则一致：忽略大小写、重音和尾部空格
+    @Test
+    public void testNormalizeMatchesCaseInsensitiveCollation() {
+        assertEquals(UserExistenceFilter.normalize("alice"), UserExistenceFilter.normalize("ALICE "));
+        assertEquals(UserExistenceFilter.normalize("jose"), UserExistenceFilter.normalize("José"));
+    }
+}
@@ -0,0 +1,36 @@
+package com.zeyang.login.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+public class LocalTtlCacheTest {
+
+    // 测试超过容量时淘汰最久未访问的条目
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        LocalTtlCache<String, String> cache = new LocalTtlCache<>(2, 60_000);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.get("a");
+        cache.put("c", "3");
+
+        assertEquals("1", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals("3", cache.get("c"));
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    // 测试条目过期后不再返回
+    @Test
+    public void testExpiresAfterTtl() throws InterruptedException {
+        LocalTtlCache<String, String> cache = new LocalTtlCache<>(10, 60_000);
+        cache.put("a", "1", 1);
+        Thread.sleep(5);
+
+        assertNull(cache.get("a"));
+        assertEquals(1, cache.getExpirationCount());
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,137 @@
+package com.zeyang.login.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zeyang.login.entity.User;
+
+public class UserCacheTest {
+
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    @SuppressWarnings("unchecked")
+    private final ValueOperations<String, String> ops = mock(ValueOperations.class);
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private UserCache cache;
+
+    @BeforeEach
+    public void setUp() {
+        when(redisTemplate.opsForValue()).thenReturn(ops);
+        cache = new UserCache(redisTemplate, objectMapper, mock(RedisMessageListenerContainer.class),
+                true, 100, 30, 600, 30, 5000, 16, 1000);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static User user() {
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("alice");
+        user.setPasswordHash("{bcrypt}hash");
+        user.setSalt("salt");
+        return user;
+    }
+
+    // 测试写入 Redis 的用户不含密码哈希和盐，按用户名查询返回的用户带凭据
+    @Test
+    public void testRedisEntryHasNoCredentials() throws Exception {
+        User loaded = cache.getByUsername("alice", UserCacheTest::user).orElseThrow();
+        cache.getById(1L, UserCacheTest::user);
+
+        ArgumentCaptor<String> json = ArgumentCaptor.forClass(String.class);
+        verify(ops).set(eq("user:cache:id:1"), json.capture(), anyLong(), eq(TimeUnit.SECONDS));
+        User cached = objectMapper.readValue(json.getValue(), User.class);
+        assertNull(cached.getPasswordHash());
+        assertNull(cached.getSalt());
+        assertFalse(json.getValue().contains("{bcrypt}hash"));
+        assertEquals("{bcrypt}hash", loaded.getPasswordHash());
+    }
+
+    // 测试按用户名查询只在 Redis 中写负缓存，存在的用户不写入
+    @Test
+    public void testNameKeyWritesOnlyNegativeEntries() {
+        cache.getByUsername("alice", UserCacheTest::user);
+        cache.getByUsername("nobody", () -> null);
+
+        verify(ops, never()).set(eq("user:cache:name:alice"), anyString(), anyLong(), any(TimeUnit.class));
+        verify(ops).set("user:cache:name:nobody", "__nil__", 30, TimeUnit.SECONDS);
+    }
+
+    // 测试 L2 命中时按用户名查询仍回源读取凭据，按 ID 查询直接使用 L2 且不含凭据
+    @Test
+    public void testL2HitWithoutCredentials() throws Exception {
+        String json = objectMapper.writeValueAsString(UserCache.withoutCredentials(user()));
+        when(ops.get(anyString())).thenReturn(json);
+        AtomicInteger loads = new AtomicInteger();
+
+        User byName = cache.getByUsername("alice", () -> {
+            loads.incrementAndGet();
+            return user();
+        }).orElseThrow();
+        User byId = cache.getById(1L, () -> {
+            loads.incrementAndGet();
+            return user();
+        }).orElseThrow();
+
+        assertEquals(1, loads.get());
+        assertEquals("salt", byName.getSalt());
+        assertEquals("alice", byId.getUsername());
+        assertNull(byId.getPasswordHash());
+    }
+
+    // 测试事务中保存的用户在提交后才清理缓存
+    @Test
+    public void testEvictAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        cache.evictAfterCommit(user());
+        verify(redisTemplate, never()).delete(anyCollection());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        verify(redisTemplate).delete(anyCollection());
+    }
+
+    // 测试批量清理会删除本地的负缓存，Redis 删除和通知只用一次流水线
+    @Test
+    public void testEvictAllClearsNegativeEntries() {
+        assertFalse(cache.getByUsername("bob", () -> null).isPresent());
+        User bob = new User();
+        bob.setUsername("bob");
+
+        cache.evictAll(List.of(bob));
+
+        verify(redisTemplate).executePipelined(any(RedisCallback.class));
+        assertTrue(cache.getByUsername("bob", () -> bob).isPresent());
+    }
+}
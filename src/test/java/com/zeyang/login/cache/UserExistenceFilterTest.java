@@ -0,0 +1,107 @@
+package com.zeyang.login.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+public class UserExistenceFilterTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    @SuppressWarnings("unchecked")
+    private final ValueOperations<String, String> valueOps = mock(ValueOperations.class);
+    private UserExistenceFilter filter;
+
+    @BeforeEach
+    public void setUp() {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(0L);
+        when(redisTemplate.opsForValue()).thenReturn(valueOps);
+        when(valueOps.get("user:filter:seq")).thenReturn("5");
+        filter = new UserExistenceFilter(jdbcTemplate, redisTemplate, mock(RedisMessageListenerContainer.class),
+                true, 0.01, 1.5, false, 60_000);
+        filter.rebuild();
+    }
+
+    private void receive(long seq, String username) {
+        String body = seq + "\n" + username + "\n";
+        filter.onMessage(new DefaultMessage("user:filter:add".getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8)), null);
+    }
+
+    // 测试收到的消息数与已分配的序号一致时不重建
+    @Test
+    public void testNoGap() {
+        receive(6, "alice");
+        receive(7, "bob");
+        when(valueOps.get("user:filter:seq")).thenReturn("7");
+        filter.checkSync();
+        filter.checkSync();
+
+        assertEquals(0, filter.getSyncGapCount());
+        assertTrue(filter.mightContainUsername("alice"));
+        assertFalse(filter.mightContainUsername("ghost"));
+    }
+
+    // 测试消息丢失时重建；重建失败期间不再判定用户不存在
+    @Test
+    public void testGapFallsBackUntilRebuilt() {
+        receive(6, "alice");
+        when(valueOps.get("user:filter:seq")).thenReturn("7");
+        filter.checkSync();
+        doThrow(new QueryTimeoutException("timeout")).when(jdbcTemplate).queryForObject(anyString(), eq(Long.class));
+        filter.checkSync();
+
+        assertEquals(1, filter.getSyncGapCount());
+        assertTrue(filter.isStale());
+        // 丢失的是 bob 的新增消息，此时必须查库
+        assertTrue(filter.mightContainUsername("bob"));
+
+        doReturn(0L).when(jdbcTemplate).queryForObject(anyString(), eq(Long.class));
+        filter.rebuild();
+        assertFalse(filter.isStale());
+        assertFalse(filter.mightContainUsername("ghost"));
+    }
+
+    // 测试 Redis 中的序号丢失（重启）时同样重建
+    @Test
+    public void testSequenceResetTriggersRebuild() {
+        when(valueOps.get("user:filter:seq")).thenReturn(null);
+        filter.checkSync();
+
+        assertEquals(1, filter.getSyncGapCount());
+        assertEquals(2, filter.getRebuildCount());
+    }
+
+    // 测试发布失败的新增在同步检查时重发
+    @Test
+    public void testFailedPublishRetried() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any()))
+                .thenThrow(new QueryTimeoutException("down")).thenReturn(8L);
+        filter.add("carol", null);
+        filter.checkSync();
+
+        verify(redisTemplate, times(2)).execute(any(RedisScript.class), anyList(), any());
+    }
+}
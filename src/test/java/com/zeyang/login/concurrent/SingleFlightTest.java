@@ -0,0 +1,125 @@
+package com.zeyang.login.concurrent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.zeyang.login.exception.ServiceBusyException;
+
+public class SingleFlightTest {
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(8);
+
+    @AfterEach
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    private static void awaitWaiters(SingleFlight<?, ?> flight, long count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (flight.getCoalescedCount() + flight.getRejectedCount() < count && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    // 测试同一个键的并发调用只执行一次，所有调用方拿到同一个结果
+    @Test
+    public void testConcurrentCallsShareOneExecution() throws Exception {
+        SingleFlight<String, Integer> flight = new SingleFlight<>(16, 5000, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger executions = new AtomicInteger();
+
+        Future<Integer> leader = pool.submit(() -> flight.execute("alice", () -> {
+            executions.incrementAndGet();
+            awaitQuietly(release);
+            return 42;
+        }));
+        while (flight.getInFlightCount() == 0) {
+            Thread.sleep(1);
+        }
+        List<Future<Integer>> waiters = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            waiters.add(pool.submit(() -> flight.execute("alice", () -> {
+                executions.incrementAndGet();
+                return -1;
+            })));
+        }
+        awaitWaiters(flight, 5);
+        release.countDown();
+
+        assertEquals(42, leader.get());
+        for (Future<Integer> waiter : waiters) {
+            assertEquals(42, waiter.get());
+        }
+        assertEquals(1, executions.get());
+        assertEquals(5, flight.getCoalescedCount());
+        assertEquals(0, flight.getInFlightCount());
+    }
+
+    // 测试等待者超过上限时直接返回繁忙，不再排队
+    @Test
+    public void testWaitersBounded() throws Exception {
+        SingleFlight<String, Integer> flight = new SingleFlight<>(1, 5000, 2);
+        CountDownLatch release = new CountDownLatch(1);
+        pool.submit(() -> flight.execute("alice", () -> {
+            awaitQuietly(release);
+            return 1;
+        }));
+        while (flight.getInFlightCount() == 0) {
+            Thread.sleep(1);
+        }
+        Future<Integer> waiter = pool.submit(() -> flight.execute("alice", () -> 2));
+        awaitWaiters(flight, 1);
+
+        ServiceBusyException ex = assertThrows(ServiceBusyException.class, () -> flight.execute("alice", () -> 3));
+        assertEquals(2, ex.getRetryAfterSeconds());
+        assertEquals(1, flight.getRejectedCount());
+
+        release.countDown();
+        assertEquals(1, waiter.get());
+    }
+
+    // 测试执行者的异常同样传给等待者，结束后下一次调用重新执行
+    @Test
+    public void testFailureSharedAndNotCached() throws Exception {
+        SingleFlight<String, Integer> flight = new SingleFlight<>(16, 5000, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        RuntimeException failure = new RuntimeException("数据库不可用");
+        Future<Integer> leader = pool.submit(() -> flight.execute("alice", () -> {
+            awaitQuietly(release);
+            throw failure;
+        }));
+        while (flight.getInFlightCount() == 0) {
+            Thread.sleep(1);
+        }
+        Future<Integer> waiter = pool.submit(() -> flight.execute("alice", () -> 0));
+        awaitWaiters(flight, 1);
+        release.countDown();
+
+        assertSame(failure, assertThrows(Exception.class, leader::get).getCause());
+        assertSame(failure, assertThrows(Exception.class, waiter::get).getCause());
+        assertEquals(7, flight.execute("alice", () -> 7));
+        assertTrue(flight.getExecutionCount() >= 2);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.zeyang.login.concurrent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.jupiter.api.Test;
+
+public class StripedCounterTableTest {
+
+    private static long increment(StripedCounterTable table, String key, long now) {
+        return table.compute(key, now, true, (row, created) -> {
+            row.expireAt(now + 1000);
+            return row.add(0, 1);
+        });
+    }
+
+    // 测试随机增删后与 HashMap 结果一致，后移删除不会丢失同一探测序列上的键
+    @Test
+    public void testMatchesReferenceMap() {
+        StripedCounterTable table = new StripedCounterTable(1000, 1, 4);
+        Map<String, Long> reference = new HashMap<>();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < 20_000; i++) {
+            String key = "user" + random.nextInt(300);
+            if (random.nextInt(4) == 0) {
+                table.remove(key);
+                reference.remove(key);
+            } else {
+                assertEquals((long) reference.merge(key, 1L, Long::sum), increment(table, key, 0));
+            }
+        }
+
+        assertEquals(reference.size(), table.size());
+        for (Map.Entry<String, Long> e : reference.entrySet()) {
+            assertEquals((long) e.getValue(), table.compute(e.getKey(), 0, false, (row, created) -> row.get(0)));
+        }
+        assertEquals(0, table.getEvictionCount());
+    }
+
+    // 测试过期行在访问时删除，create 为 false 时不新建
+    @Test
+    public void testExpiry() {
+        StripedCounterTable table = new StripedCounterTable(100, 1, 4);
+        increment(table, "alice", 0);
+        increment(table, "alice", 10);
+
+        assertEquals(2, table.compute("alice", 500, false, (row, created) -> row.get(0)));
+        assertEquals(0, table.compute("alice", 1010, false, (row, created) -> row.get(0)));
+        assertEquals(0, table.size());
+    }
+
+    // 测试超过容量时淘汰旧行，总条数不超过上限
+    @Test
+    public void testEvictionBoundsSize() {
+        StripedCounterTable table = new StripedCounterTable(100, 1, 4);
+        for (int i = 0; i < 1000; i++) {
+            increment(table, "user" + i, i);
+        }
+
+        assertTrue(table.size() <= 100);
+        assertEquals(1000 - table.size(), table.getEvictionCount());
+    }
+
+    // 测试 drain 交出未过期的行并清空表
+    @Test
+    public void testDrain() {
+        StripedCounterTable table = new StripedCounterTable(100, 1, 4);
+        for (int i = 0; i < 50; i++) {
+            increment(table, "user" + i, i < 10 ? 0 : 500);
+        }
+        Map<String, Long> drained = new HashMap<>();
+
+        table.drain(1200, (key, row) -> drained.put(key, row.get(0)));
+
+        assertEquals(40, drained.size());
+        assertEquals(0, table.size());
+    }
+}
@@ -0,0 +1,56 @@
+package com.zeyang.login.config;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.zeyang.login.controller.StatsController;
+import com.zeyang.login.security.AccessRules;
+import com.zeyang.login.security.RedisSessionStore;
+import com.zeyang.login.security.TokenService;
+import com.zeyang.login.service.AuthStatsService;
+
+@WebMvcTest(controllers = StatsController.class)
+@Import({SecurityConfig.class, AccessRules.class, TestPasswordHashingConfig.class})
+public class SecurityConfigTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @MockBean
+    private AuthStatsService authStatsService;
+    @MockBean
+    private TokenService tokenService;
+    @MockBean
+    private RedisSessionStore redisSessionStore;
+
+    // 测试业务端口上只有 health 免认证，prometheus 等端点未认证时拒绝
+    @Test
+    public void testOnlyHealthIsPublic() throws Exception {
+        mockMvc.perform(get("/actuator/prometheus")).andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/metrics")).andExpect(status().isForbidden());
+        // 放行后由 MVC 处理，切片测试中没有端点所以是 404
+        mockMvc.perform(get("/actuator/health")).andExpect(status().isNotFound());
+    }
+
+    // 测试只有独立管理端口上的 prometheus 抓取免认证
+    @Test
+    public void testInternalScrapeOnManagementPort() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/actuator/prometheus");
+        request.setServletPath("/actuator/prometheus");
+        request.setLocalPort(9090);
+
+        assertTrue(SecurityConfig.isInternalScrape(request, 9090));
+        assertFalse(SecurityConfig.isInternalScrape(request, -1));
+        request.setLocalPort(8080);
+        assertFalse(SecurityConfig.isInternalScrape(request, 9090));
+    }
+}
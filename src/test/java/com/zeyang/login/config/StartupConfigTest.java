@@ -0,0 +1,35 @@
+package com.zeyang.login.config;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import com.zeyang.login.cache.UserCache;
+import com.zeyang.login.cache.UserExistenceFilter;
+import com.zeyang.login.controller.AuthController;
+import com.zeyang.login.redis.RedisFailover;
+import com.zeyang.login.security.TokenDenylist;
+import com.zeyang.login.service.AuthLogWriter;
+import com.zeyang.login.service.AuthService;
+
+public class StartupConfigTest {
+
+    // 测试懒加载时定时任务、启动钩子和 Redis 订阅所在的 bean 仍在启动时创建
+    @Test
+    public void testEagerBeans() {
+        assertTrue(StartupConfig.isEager(RedisFailover.class));
+        assertTrue(StartupConfig.isEager(AuthLogWriter.class));
+        assertTrue(StartupConfig.isEager(UserExistenceFilter.class));
+        assertTrue(StartupConfig.isEager(UserCache.class));
+        assertTrue(StartupConfig.isEager(TokenDenylist.class));
+        assertTrue(StartupConfig.isEager(StartupConfig.class));
+    }
+
+    // 测试普通业务 bean 可以懒加载
+    @Test
+    public void testLazyBeans() {
+        assertFalse(StartupConfig.isEager(AuthController.class));
+        assertFalse(StartupConfig.isEager(AuthService.class));
+    }
+}
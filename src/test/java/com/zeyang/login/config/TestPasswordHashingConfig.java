@@ -0,0 +1,21 @@
+package com.zeyang.login.config;
+
+import java.util.List;
+
+import org.springframework.context.annotation.Bean;
+
+import com.zeyang.login.security.BCryptHasher;
+import com.zeyang.login.security.PasswordHashingEngine;
+
+/**
+ * 切片测试用的真实哈希引擎，SecurityConfig 的 passwordEncoder 由它提供；工作因子取最低档以加快测试
+ * <p>
+ * 只通过 @Import 引入，不加配置注解，避免压测等以测试类路径启动完整应用时被组件扫描重复注册
+ */
+public class TestPasswordHashingConfig {
+
+    @Bean
+    public PasswordHashingEngine passwordHashingEngine() {
+        return new PasswordHashingEngine(List.of(new BCryptHasher(4)), "bcrypt");
+    }
+}
@@ -0,0 +1,58 @@
+package com.zeyang.login.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.coyote.ProtocolHandler;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.core.task.AsyncTaskExecutor;
+
+public class VirtualThreadConfigTest {
+
+    private final ApplicationContextRunner runner = new ApplicationContextRunner()
+            .withUserConfiguration(VirtualThreadConfig.class);
+
+    // 测试只有开启 login.virtual-threads.enabled 时才替换执行器
+    @Test
+    public void testConditionalOnProperty() {
+        runner.run(context -> assertThat(context).doesNotHaveBean(VirtualThreadConfig.class));
+        runner.withPropertyValues("login.virtual-threads.enabled=true")
+                .run(context -> assertThat(context).hasBean("applicationTaskExecutor")
+                        .hasBean("virtualThreadProtocolHandlerCustomizer"));
+    }
+
+    // 测试异步任务运行在虚拟线程上
+    @Test
+    public void testTaskExecutorUsesVirtualThreads() throws Exception {
+        AsyncTaskExecutor executor = new VirtualThreadConfig().applicationTaskExecutor();
+
+        assertTrue(executor.submit(() -> Thread.currentThread().isVirtual()).get(5, TimeUnit.SECONDS));
+    }
+
+    // 测试 Tomcat 请求执行器替换为每个任务一个虚拟线程
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testTomcatExecutorUsesVirtualThreads() throws Exception {
+        TomcatProtocolHandlerCustomizer<ProtocolHandler> customizer =
+                (TomcatProtocolHandlerCustomizer<ProtocolHandler>) new VirtualThreadConfig()
+                        .virtualThreadProtocolHandlerCustomizer();
+        ProtocolHandler handler = mock(ProtocolHandler.class);
+
+        customizer.customize(handler);
+
+        ArgumentCaptor<Executor> executor = ArgumentCaptor.forClass(Executor.class);
+        verify(handler).setExecutor(executor.capture());
+        FutureTask<Boolean> task = new FutureTask<>(() -> Thread.currentThread().isVirtual());
+        executor.getValue().execute(task);
+        assertTrue(task.get(5, TimeUnit.SECONDS));
+    }
+}
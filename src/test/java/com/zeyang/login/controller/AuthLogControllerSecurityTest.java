@@ -0,0 +1,68 @@
+package com.zeyang.login.controller;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.zeyang.login.config.SecurityConfig;
+import com.zeyang.login.config.TestPasswordHashingConfig;
+import com.zeyang.login.security.AccessRules;
+import com.zeyang.login.security.RedisSessionStore;
+import com.zeyang.login.security.TokenPrincipal;
+import com.zeyang.login.security.TokenService;
+import com.zeyang.login.service.AuthLogQueryService;
+
+@WebMvcTest(controllers = AuthLogController.class)
+@Import({SecurityConfig.class, AccessRules.class, TestPasswordHashingConfig.class})
+@TestPropertySource(properties = "login.admin.usernames=admin")
+public class AuthLogControllerSecurityTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private AccessRules accessRules;
+    @MockBean
+    private AuthLogQueryService authLogQueryService;
+    @MockBean
+    private TokenService tokenService;
+    @MockBean
+    private RedisSessionStore redisSessionStore;
+
+    private Authentication user(long id, String username) {
+        return new UsernamePasswordAuthenticationToken(new TokenPrincipal(id, username, "t", 0), null,
+                accessRules.authoritiesOf(username));
+    }
+
+    // 测试普通用户查询他人的登录日志返回 403，查询自己的正常返回
+    @Test
+    public void testNonOwnerForbidden() throws Exception {
+        mockMvc.perform(get("/api/auth-logs/users/1").with(authentication(user(2, "bob"))))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/auth-logs/users/2").with(authentication(user(2, "bob"))))
+                .andExpect(status().isOk());
+    }
+
+    // 测试范围查询和导出只对管理员开放
+    @Test
+    public void testRangeAndExportRequireAdmin() throws Exception {
+        String range = "?start=2024-01-01T00:00:00&end=2024-01-02T00:00:00";
+        mockMvc.perform(get("/api/auth-logs" + range).with(authentication(user(2, "bob"))))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/auth-logs/export" + range).with(authentication(user(2, "bob"))))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/auth-logs/users/1").with(authentication(user(9, "admin"))))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/auth-logs" + range).with(authentication(user(9, "admin"))))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,58 @@
+package com.zeyang.login.controller;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.zeyang.login.config.SecurityConfig;
+import com.zeyang.login.config.TestPasswordHashingConfig;
+import com.zeyang.login.security.AccessRules;
+import com.zeyang.login.security.RedisSessionStore;
+import com.zeyang.login.security.TokenPrincipal;
+import com.zeyang.login.security.TokenService;
+import com.zeyang.login.service.AuthStatsService;
+
+@WebMvcTest(controllers = StatsController.class)
+@Import({SecurityConfig.class, AccessRules.class, TestPasswordHashingConfig.class})
+@TestPropertySource(properties = "login.admin.usernames=admin")
+public class StatsControllerSecurityTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private AccessRules accessRules;
+    @MockBean
+    private AuthStatsService authStatsService;
+    @MockBean
+    private TokenService tokenService;
+    @MockBean
+    private RedisSessionStore redisSessionStore;
+
+    private Authentication user(String username) {
+        return new UsernamePasswordAuthenticationToken(new TokenPrincipal(1L, username, "t", 0), null,
+                accessRules.authoritiesOf(username));
+    }
+
+    // 测试高频 IP 和用户排行只对管理员开放，汇总计数对登录用户开放
+    @Test
+    public void testTopRequiresAdmin() throws Exception {
+        String time = "?time=2024-01-01T00:00:00";
+        mockMvc.perform(get("/api/stats/top" + time).with(authentication(user("bob"))))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/stats/top" + time).with(authentication(user("admin"))))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/stats/counts?from=2024-01-01T00:00:00&to=2024-01-01T01:00:00")
+                        .with(authentication(user("bob"))))
+                .andExpect(status().isOk());
+    }
+}
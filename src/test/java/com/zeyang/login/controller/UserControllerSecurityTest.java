@@ -0,0 +1,87 @@
+package com.zeyang.login.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.zeyang.login.config.SecurityConfig;
+import com.zeyang.login.config.TestPasswordHashingConfig;
+import com.zeyang.login.entity.User;
+import com.zeyang.login.security.AccessRules;
+import com.zeyang.login.security.RedisSessionStore;
+import com.zeyang.login.security.TokenPrincipal;
+import com.zeyang.login.security.TokenService;
+import com.zeyang.login.service.UserImportService;
+import com.zeyang.login.service.UserService;
+
+@WebMvcTest(controllers = UserController.class)
+@Import({SecurityConfig.class, AccessRules.class, TestPasswordHashingConfig.class})
+@TestPropertySource(properties = "login.admin.usernames=admin")
+public class UserControllerSecurityTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private AccessRules accessRules;
+    @MockBean
+    private UserService userService;
+    @MockBean
+    private UserImportService userImportService;
+    @MockBean
+    private TokenService tokenService;
+    @MockBean
+    private RedisSessionStore redisSessionStore;
+
+    private Authentication user(String username) {
+        return new UsernamePasswordAuthenticationToken(new TokenPrincipal(1L, username, "t", 0), null,
+                accessRules.authoritiesOf(username));
+    }
+
+    // 测试创建用户和批量导入只对管理员开放，查询用户对登录用户开放
+    @Test
+    public void testCreateAndImportRequireAdmin() throws Exception {
+        String body = "{\"username\":\"carol\",\"password\":\"secret1\",\"email\":\"carol@example.com\"}";
+        mockMvc.perform(post("/api/users/import").with(authentication(user("bob")))
+                        .contentType("application/x-ndjson").content(body))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/api/users").with(authentication(user("bob")))
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isForbidden());
+        verify(userImportService, never()).importUsers(any(), any(), anyLong(), any());
+        verify(userService, never()).createUser(any());
+
+        User created = new User();
+        created.setId(2L);
+        created.setUsername("carol");
+        when(userService.createUser(any())).thenReturn(created);
+        mockMvc.perform(post("/api/users").with(authentication(user("admin")))
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/users/import").with(authentication(user("admin")))
+                        .contentType("application/x-ndjson").content(body))
+                .andExpect(status().isOk());
+
+        when(userService.getUserView(1L)).thenReturn(Optional.empty());
+        mockMvc.perform(get("/api/users/1").with(authentication(user("bob"))))
+                .andExpect(status().isNotFound());
+    }
+}
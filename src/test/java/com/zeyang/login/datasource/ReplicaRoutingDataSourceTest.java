@@ -0,0 +1,126 @@
+package com.zeyang.login.datasource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class ReplicaRoutingDataSourceTest {
+
+    private final DataSource primary = mock(DataSource.class);
+    private final DataSource replica1 = mock(DataSource.class);
+    private final DataSource replica2 = mock(DataSource.class);
+
+    private ReplicaRoutingDataSource routing() {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica-1", replica1);
+        replicas.put("replica-2", replica2);
+        return new ReplicaRoutingDataSource(primary, replicas, 2, 1);
+    }
+
+    private static void lag(DataSource replica, Long seconds) throws SQLException {
+        Connection connection = mock(Connection.class);
+        Statement statement = mock(Statement.class);
+        ResultSet status = mock(ResultSet.class);
+        when(replica.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(status);
+        when(status.next()).thenReturn(true);
+        when(status.getLong("Seconds_Behind_Source")).thenReturn(seconds == null ? 0 : seconds);
+        when(status.wasNull()).thenReturn(seconds == null);
+    }
+
+    @AfterEach
+    public void reset() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    // 测试读写事务始终走主库
+    @Test
+    public void testWritesGoToPrimary() throws SQLException {
+        ReplicaRoutingDataSource routing = routing();
+        lag(replica1, 0L);
+        lag(replica2, 0L);
+        routing.checkReplicas();
+
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, routing.determineCurrentLookupKey());
+    }
+
+    // 测试只读事务在健康从库间轮询
+    @Test
+    public void testReadOnlyRoundRobinAcrossReplicas() throws SQLException {
+        ReplicaRoutingDataSource routing = routing();
+        lag(replica1, 0L);
+        lag(replica2, 1L);
+        routing.checkReplicas();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        Object first = routing.determineCurrentLookupKey();
+        Object second = routing.determineCurrentLookupKey();
+
+        assertEquals(Map.of("replica-1", "replica-2", "replica-2", "replica-1").get(first), second);
+        assertEquals(2, routing.getReplicaReadCount());
+    }
+
+    // 测试延迟超限、复制中断或连接失败的从库被摘除，全部不可用时回退主库
+    @Test
+    public void testUnhealthyReplicasExcluded() throws SQLException {
+        ReplicaRoutingDataSource routing = routing();
+        lag(replica1, 30L);
+        lag(replica2, 0L);
+        routing.checkReplicas();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertEquals("replica-2", routing.determineCurrentLookupKey());
+        assertEquals("replica-2", routing.determineCurrentLookupKey());
+
+        lag(replica2, null);
+        routing.checkReplicas();
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, routing.determineCurrentLookupKey());
+
+        when(replica2.getConnection()).thenThrow(new SQLException("Connection refused"));
+        routing.checkReplicas();
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, routing.determineCurrentLookupKey());
+        assertEquals(0, routing.getAvailableReplicaCount());
+        assertEquals(2, routing.getFallbackReadCount());
+    }
+
+    // 测试检查之前从库视为不可用
+    @Test
+    public void testReplicasUnavailableBeforeFirstCheck() {
+        ReplicaRoutingDataSource routing = routing();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, routing.determineCurrentLookupKey());
+    }
+
+    // 测试写后读固定主库
+    @Test
+    public void testPrimaryForcedInsideReadOnlyTransaction() throws SQLException {
+        ReplicaRoutingDataSource routing = routing();
+        lag(replica1, 0L);
+        lag(replica2, 0L);
+        routing.checkReplicas();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        Object key = RoutingContext.onPrimary(routing::determineCurrentLookupKey);
+
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, key);
+        assertEquals(1, routing.getPinnedReadCount());
+        assertFalse(RoutingContext.isPrimaryForced());
+    }
+}
@@ -0,0 +1,31 @@
+package com.zeyang.login.dto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class AuthResponseSerializerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // 测试输出与默认序列化一致：token 为空时保留 null，refreshToken 为空时省略
+    @Test
+    public void testSameShapeAsDefault() throws JsonProcessingException {
+        assertEquals("{\"token\":null,\"username\":\"alice\",\"message\":\"注册成功\"}",
+                objectMapper.writeValueAsString(new AuthResponse(null, "alice", "注册成功")));
+        assertEquals("{\"token\":\"t\",\"username\":\"alice\",\"message\":\"登录成功\",\"refreshToken\":\"r\"}",
+                objectMapper.writeValueAsString(new AuthResponse("t", "alice", "登录成功", "r")));
+    }
+
+    // 测试固定文案只编码一次，之后复用同一份字节
+    @Test
+    public void testMessagesEncodedOnce() {
+        assertSame(AuthResponseSerializer.encoded("已成功退出登录"), AuthResponseSerializer.encoded("已成功退出登录"));
+        assertNull(AuthResponseSerializer.encoded(null));
+    }
+}
@@ -0,0 +1,51 @@
+package com.zeyang.login.dto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zeyang.login.entity.User;
+import com.zeyang.login.entity.UserStatus;
+
+public class UserViewSerializerTest {
+
+    private User user() {
+        User user = new User();
+        user.setId(7L);
+        user.setUsername("alice");
+        user.setEmail("alice@example.com");
+        user.setPasswordHash("{pbkdf2}hash");
+        user.setSalt("salt");
+        user.setStatus(UserStatus.ACTIVE);
+        user.setCreatedAt(LocalDateTime.of(2024, 5, 1, 12, 0, 0));
+        user.setUpdatedAt(LocalDateTime.of(2024, 5, 2, 8, 30, 15));
+        return user;
+    }
+
+    // 测试只输出公开字段，密码哈希和盐不出现在响应中
+    @Test
+    public void testPublicFieldsOnly() throws JsonProcessingException {
+        String json = new ObjectMapper().writeValueAsString(UserView.of(user()));
+
+        assertEquals("{\"id\":7,\"username\":\"alice\",\"email\":\"alice@example.com\",\"phone\":null,"
+                + "\"status\":\"ACTIVE\",\"createdAt\":\"2024-05-01T12:00:00\",\"updatedAt\":\"2024-05-02T08:30:15\"}", json);
+        assertFalse(json.contains("hash"));
+    }
+
+    // 测试 ETag 随更新时间变化
+    @Test
+    public void testEtagFollowsUpdatedAt() {
+        User user = user();
+        String before = UserView.of(user).etag();
+        assertEquals(before, UserView.of(user).etag());
+
+        user.setUpdatedAt(user.getUpdatedAt().plusSeconds(1));
+        assertNotEquals(before, UserView.of(user).etag());
+    }
+}
@@ -1,6 +1,7 @@
 package com.zeyang.login.exception;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -85,4 +86,36 @@ public class GlobalExceptionHandlerTest {
         Map<String, String> responseBody = response.getBody();
         assertEquals(0, responseBody.size());
     }
-}
\ No newline at end of file
+
+    // 测试 ServiceBusyException 处理
+    @Test
+    public void testHandleServiceBusyException() {
+        ServiceBusyException busyException = new ServiceBusyException("系统繁忙，请稍后再试", 2);
+
+        ResponseEntity<Map<String, String>> response = exceptionHandler.handleServiceBusyException(busyException);
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("2", response.getHeaders().getFirst("Retry-After"));
+        assertEquals("系统繁忙，请稍后再试", response.getBody().get("message"));
+    }
+
+    // 测试认证失败按各自的状态码返回，临时锁定带 Retry-After
+    @Test
+    public void testHandleAuthException() {
+        ResponseEntity<Map<String, String>> badCredentials =
+                exceptionHandler.handleAuthException(AuthException.BAD_CREDENTIALS);
+        assertEquals(HttpStatus.UNAUTHORIZED, badCredentials.getStatusCode());
+        assertEquals("用户名或密码错误", badCredentials.getBody().get("message"));
+        assertNull(badCredentials.getHeaders().getFirst("Retry-After"));
+
+        ResponseEntity<Map<String, String>> locked = exceptionHandler.handleAuthException(AuthException.locked(1500));
+        assertEquals(HttpStatus.LOCKED, locked.getStatusCode());
+        assertEquals("2", locked.getHeaders().getFirst("Retry-After"));
+
+        assertEquals(HttpStatus.CONFLICT, exceptionHandler.handleAuthException(AuthException.USERNAME_TAKEN).getStatusCode());
+        assertEquals(HttpStatus.UNAUTHORIZED,
+                exceptionHandler.handleAuthException(AuthException.INVALID_REFRESH_TOKEN).getStatusCode());
+        // 不捕获堆栈
+        assertEquals(0, AuthException.BAD_CREDENTIALS.getStackTrace().length);
+    }
+}
@@ -0,0 +1,118 @@
+package com.zeyang.login.filter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zeyang.login.service.LoginGate;
+import com.zeyang.login.service.RateLimiter;
+
+public class RateLimitFilterTest {
+
+    private final RateLimiter rateLimiter = mock(RateLimiter.class);
+    private final RateLimitFilter filter = new RateLimitFilter(rateLimiter, new ObjectMapper());
+
+    private MockHttpServletRequest login(String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login");
+        request.setRemoteAddr("203.0.113.5");
+        request.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    // 分块传输的请求没有 Content-Length
+    private MockHttpServletRequest chunked(String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login") {
+            @Override
+            public int getContentLength() {
+                return -1;
+            }
+
+            @Override
+            public long getContentLengthLong() {
+                return -1;
+            }
+        };
+        request.setRemoteAddr("203.0.113.5");
+        request.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    // 测试超限时返回 429 和向上取整的 Retry-After 秒数，请求不再向下传递
+    @Test
+    public void testTooManyRequests() throws Exception {
+        when(rateLimiter.check(anyString(), any())).thenReturn(new LoginGate("alice", 1500, -1, -1));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(login("{\"username\":\"alice\"}"), response, chain);
+
+        assertEquals(429, response.getStatus());
+        assertEquals("2", response.getHeader(HttpHeaders.RETRY_AFTER));
+        assertNull(chain.getRequest());
+    }
+
+    // 测试按 JSON 请求体中的用户名限流，控制器仍能读到完整请求体
+    @Test
+    public void testUsernameLimited() throws Exception {
+        when(rateLimiter.check(anyString(), any())).thenReturn(new LoginGate("alice", 0, 0, 0));
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(login("{\"username\":\"alice\"}"), new MockHttpServletResponse(), chain);
+
+        verify(rateLimiter).check("203.0.113.5", "alice");
+        assertEquals("{\"username\":\"alice\"}",
+                new String(chain.getRequest().getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+    }
+
+    // 测试分块传输的请求同样按用户名限流
+    @Test
+    public void testChunkedBodyUsernameLimited() throws Exception {
+        when(rateLimiter.check(anyString(), any())).thenReturn(new LoginGate("alice", 0, 0, 0));
+
+        filter.doFilter(chunked("{\"username\":\"alice\"}"), new MockHttpServletResponse(), new MockFilterChain());
+
+        verify(rateLimiter).check("203.0.113.5", "alice");
+    }
+
+    // 测试超出上限的分块请求体直接拒绝，不能绕过用户名限流
+    @Test
+    public void testOversizedChunkedBodyRejected() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(chunked("{\"username\":\"alice\",\"pad\":\"" + "x".repeat(9000) + "\"}"), response, chain);
+
+        assertEquals(413, response.getStatus());
+        assertNull(chain.getRequest());
+        verify(rateLimiter, never()).check(anyString(), any());
+    }
+
+    // 测试客户端自带的 X-Forwarded-For 不参与 IP 限流，只有受信代理经 RemoteIpValve 改写后的地址才生效
+    @Test
+    public void testForwardedForIgnored() throws Exception {
+        when(rateLimiter.check(anyString(), any())).thenReturn(new LoginGate("alice", 0, 0, 0));
+        MockHttpServletRequest request = login("{\"username\":\"alice\"}");
+        request.addHeader("X-Forwarded-For", "1.2.3.4");
+
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        verify(rateLimiter).check("203.0.113.5", "alice");
+    }
+}
@@ -0,0 +1,51 @@
+package com.zeyang.login.filter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+public class TraceIdFilterTest {
+
+    // 测试优先沿用 traceparent 中的 trace-id
+    @Test
+    public void testTraceparentPreferred() {
+        String traceparent = "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01";
+
+        assertEquals("4bf92f3577b34da6a3ce929d0e0e4736", TraceIdFilter.resolve(traceparent, "req-1"));
+    }
+
+    // 测试非法的 traceparent 和请求 ID 被忽略，改为随机生成
+    @Test
+    public void testInvalidHeadersIgnored() {
+        assertEquals("req-1", TraceIdFilter.resolve("garbage", "req-1"));
+        String generated = TraceIdFilter.resolve(null, "bad id\n");
+        assertEquals(32, generated.length());
+        assertNotEquals(generated, TraceIdFilter.resolve(null, null));
+    }
+
+    // 测试请求处理期间 MDC 中有追踪 ID，结束后清理
+    @Test
+    public void testMdcScopedToRequest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("X-Request-Id", "req-42");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        String[] seen = new String[1];
+
+        new TraceIdFilter().doFilter(request, response, new MockFilterChain() {
+            @Override
+            public void doFilter(javax.servlet.ServletRequest req, javax.servlet.ServletResponse res) {
+                seen[0] = MDC.get(TraceIdFilter.MDC_KEY);
+            }
+        });
+
+        assertEquals("req-42", seen[0]);
+        assertEquals("req-42", response.getHeader(TraceIdFilter.RESPONSE_HEADER));
+        assertNull(MDC.get(TraceIdFilter.MDC_KEY));
+    }
+}
@@ -0,0 +1,38 @@
+package com.zeyang.login.reactive;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.net.InetSocketAddress;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+
+public class ReactiveAuthControllerTest {
+
+    private static final Pattern TRUSTED = Pattern.compile(ReactiveAuthController.DEFAULT_TRUSTED_PROXIES);
+
+    private MockServerHttpRequest request(String remoteIp, String forwardedFor) {
+        MockServerHttpRequest.BaseBuilder<?> builder = MockServerHttpRequest.post("/api/auth/login")
+                .remoteAddress(new InetSocketAddress(remoteIp, 40000));
+        if (forwardedFor != null) {
+            builder.header("X-Forwarded-For", forwardedFor);
+        }
+        return builder.build();
+    }
+
+    // 测试直连地址不是受信代理时忽略 X-Forwarded-For
+    @Test
+    public void testForwardedForFromClientIgnored() {
+        assertEquals("203.0.113.5", ReactiveAuthController.getClientIp(request("203.0.113.5", "1.2.3.4"), TRUSTED));
+        assertEquals("203.0.113.5", ReactiveAuthController.getClientIp(request("203.0.113.5", null), TRUSTED));
+    }
+
+    // 测试经过受信代理时从右往左取第一个不受信的地址，客户端在最左侧伪造的值不生效
+    @Test
+    public void testForwardedForFromTrustedProxy() {
+        assertEquals("198.51.100.7", ReactiveAuthController.getClientIp(request("10.0.0.2", "198.51.100.7"), TRUSTED));
+        assertEquals("198.51.100.7",
+                ReactiveAuthController.getClientIp(request("10.0.0.2", "1.2.3.4, 198.51.100.7, 10.0.0.9"), TRUSTED));
+    }
+}
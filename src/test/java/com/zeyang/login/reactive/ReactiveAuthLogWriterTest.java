@@ -0,0 +1,89 @@
+package com.zeyang.login.reactive;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import com.zeyang.login.entity.AuthAction;
+import com.zeyang.login.entity.AuthLog;
+import com.zeyang.login.entity.User;
+
+public class ReactiveAuthLogWriterTest {
+
+    // 未调用 start()，没有订阅者，提交的日志全部留在缓冲中
+    private ReactiveAuthLogWriter writer(int queueCapacity) {
+        return new ReactiveAuthLogWriter(mock(DatabaseClient.class), queueCapacity, 200, 500, 10);
+    }
+
+    private AuthLog authLog() {
+        User user = new User();
+        user.setId(1L);
+        AuthLog authLog = new AuthLog();
+        authLog.setUser(user);
+        authLog.setAction(AuthAction.LOGIN_SUCCESS);
+        return authLog;
+    }
+
+    // 测试缓冲已满时丢弃并计为溢出
+    @Test
+    public void testOverflowCounted() {
+        ReactiveAuthLogWriter writer = writer(8);
+        for (int i = 0; i < 10; i++) {
+            writer.submit(authLog());
+        }
+
+        assertEquals(2, writer.getDroppedCount());
+        assertEquals(2, writer.getOverflowCount());
+        assertEquals(0, writer.getEmitFailureCount());
+    }
+
+    // 测试停止后的提交计为其他失败，不会抛出异常
+    @Test
+    public void testSubmitAfterStopCounted() throws Exception {
+        ReactiveAuthLogWriter writer = writer(8);
+        writer.stop();
+        writer.submit(authLog());
+
+        assertEquals(1, writer.getDroppedCount());
+        assertEquals(0, writer.getOverflowCount());
+        assertEquals(1, writer.getEmitFailureCount());
+    }
+
+    // 测试多线程并发提交时缓冲未满不丢日志
+    @Test
+    public void testConcurrentSubmitNotDropped() throws Exception {
+        ReactiveAuthLogWriter writer = writer(16384);
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 1000; i++) {
+                        writer.submit(authLog());
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(0, writer.getDroppedCount());
+    }
+}
@@ -0,0 +1,112 @@
+package com.zeyang.login.reactive;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+
+import com.zeyang.login.cache.UserCache;
+import com.zeyang.login.cache.UserExistenceFilter;
+import com.zeyang.login.entity.AuthAction;
+import com.zeyang.login.entity.AuthLog;
+import com.zeyang.login.entity.User;
+import com.zeyang.login.entity.UserStatus;
+import com.zeyang.login.security.TokenService;
+import com.zeyang.login.service.AuthStatsService;
+import com.zeyang.login.service.LoginMetrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+public class ReactiveAuthServiceTest {
+
+    private final ReactiveUserRepository userRepository = mock(ReactiveUserRepository.class);
+    private final ReactiveLoginAttemptService loginAttemptService = mock(ReactiveLoginAttemptService.class);
+    private final ReactivePasswordHasher passwordHasher = mock(ReactivePasswordHasher.class);
+    private final ReactiveAuthLogWriter authLogWriter = mock(ReactiveAuthLogWriter.class);
+    private final UserExistenceFilter userExistenceFilter = mock(UserExistenceFilter.class);
+    private final ReactiveAuthService authService = new ReactiveAuthService(userRepository, loginAttemptService,
+            passwordHasher, authLogWriter, userExistenceFilter, mock(UserCache.class), mock(AuthStatsService.class),
+            new LoginMetrics(new SimpleMeterRegistry()), mock(TokenService.class),
+            mock(ReactiveStringRedisTemplate.class));
+
+    private User user;
+
+    @BeforeEach
+    public void setUp() {
+        user = new User();
+        user.setId(7L);
+        user.setUsername("alice");
+        user.setSalt("salt");
+        user.setPasswordHash("hash");
+        user.setStatus(UserStatus.ACTIVE);
+        when(userExistenceFilter.mightContainUsername(anyString())).thenReturn(true);
+        when(loginAttemptService.lockRemainingMillis("alice")).thenReturn(Mono.just(0L));
+        when(userRepository.findByUsername("alice")).thenReturn(Mono.just(user));
+    }
+
+    // 测试 Redis 中已锁定的账户不查库
+    @Test
+    public void testLockedAccountSkipsLookup() {
+        when(loginAttemptService.lockRemainingMillis("alice")).thenReturn(Mono.just(60_000L));
+
+        StepVerifier.create(authService.login("alice", "pw", "10.0.0.1", "ua"))
+                .expectErrorMessage("账户已被临时锁定，请稍后再试")
+                .verify();
+        verify(userRepository, never()).findByUsername(anyString());
+    }
+
+    // 测试密码错误时记录失败并写入失败日志
+    @Test
+    public void testWrongPasswordRecordsFailure() {
+        when(passwordHasher.matches(user, "bad")).thenReturn(Mono.just(false));
+        when(loginAttemptService.recordFailure(user)).thenReturn(Mono.empty());
+
+        StepVerifier.create(authService.login("alice", "bad", "10.0.0.1", "ua"))
+                .expectErrorMessage("用户名或密码错误")
+                .verify();
+
+        verify(loginAttemptService).recordFailure(user);
+        ArgumentCaptor<AuthLog> captor = ArgumentCaptor.forClass(AuthLog.class);
+        verify(authLogWriter).submit(captor.capture());
+        assertEquals(AuthAction.LOGIN_FAILURE, captor.getValue().getAction());
+    }
+
+    // 测试登录成功且无需回写时不更新用户表
+    @Test
+    public void testSuccessWithoutRehashSkipsUpdate() {
+        when(passwordHasher.matches(user, "pw")).thenReturn(Mono.just(true));
+        when(passwordHasher.needsRehash("hash")).thenReturn(false);
+        when(loginAttemptService.recordSuccess(user)).thenReturn(Mono.empty());
+
+        StepVerifier.create(authService.login("alice", "pw", "10.0.0.1", "ua"))
+                .expectNext(user)
+                .verifyComplete();
+
+        verify(userRepository, never()).updateAfterLogin(any(), any());
+        ArgumentCaptor<AuthLog> captor = ArgumentCaptor.forClass(AuthLog.class);
+        verify(authLogWriter).submit(captor.capture());
+        assertEquals(AuthAction.LOGIN_SUCCESS, captor.getValue().getAction());
+    }
+
+    // 测试过滤器判定不存在的用户名直接返回用户名或密码错误
+    @Test
+    public void testUnknownUsernameRejected() {
+        when(userExistenceFilter.mightContainUsername("ghost")).thenReturn(false);
+        when(loginAttemptService.lockRemainingMillis("ghost")).thenReturn(Mono.just(0L));
+
+        StepVerifier.create(authService.login("ghost", "pw", "10.0.0.1", "ua"))
+                .expectErrorMessage("用户名或密码错误")
+                .verify();
+        verify(userRepository, never()).findByUsername("ghost");
+    }
+}
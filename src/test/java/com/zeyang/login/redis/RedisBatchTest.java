@@ -0,0 +1,62 @@
+package com.zeyang.login.redis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.StringRedisConnection;
+
+public class RedisBatchTest {
+
+    private final RedisBatchExecutor executor = mock(RedisBatchExecutor.class);
+
+    // 测试空批次不访问 Redis
+    @Test
+    public void testEmptyBatchSkipsRoundTrip() {
+        new RedisBatch(executor).execute();
+
+        verify(executor, never()).execute(anyList());
+    }
+
+    // 测试全部命令在一次执行中发送，执行后批次清空
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCommandsSentTogether() {
+        RedisBatch batch = new RedisBatch(executor);
+        StringRedisConnection conn = mock(StringRedisConnection.class);
+        batch.add(c -> c.del("login_attempts:alice")).add(c -> c.pSetEx("refresh:x", 1000, "7"));
+
+        batch.execute();
+
+        ArgumentCaptor<List<Consumer<StringRedisConnection>>> sent = ArgumentCaptor.forClass(List.class);
+        verify(executor).execute(sent.capture());
+        assertEquals(2, sent.getValue().size());
+        sent.getValue().forEach(command -> command.accept(conn));
+        verify(conn).del("login_attempts:alice");
+        verify(conn).pSetEx("refresh:x", 1000, "7");
+        assertTrue(batch.isEmpty());
+    }
+
+    // 测试 execute 抛出 Redis 异常，tryExecute 只返回失败
+    @Test
+    public void testFailureHandling() {
+        doThrow(new RedisConnectionFailureException("down")).when(executor).execute(anyList());
+
+        RedisBatch batch = new RedisBatch(executor).add(c -> c.del("k"));
+        assertThrows(RedisConnectionFailureException.class, batch::execute);
+
+        assertFalse(new RedisBatch(executor).add(c -> c.del("k")).tryExecute());
+    }
+}
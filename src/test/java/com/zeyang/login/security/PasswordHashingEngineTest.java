@@ -0,0 +1,84 @@
+package com.zeyang.login.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class PasswordHashingEngineTest {
+
+    private PasswordHashingEngine engine(String algorithm) {
+        return new PasswordHashingEngine(List.of(
+                new BCryptHasher(4),
+                new Pbkdf2Hasher(1000),
+                new Argon2Hasher(1, 1024, 1)
+        ), algorithm);
+    }
+
+    // 测试各算法生成的哈希都能校验通过，错误密码校验失败
+    @Test
+    public void testEncodeAndMatches() {
+        for (String algorithm : List.of("bcrypt", "pbkdf2", "argon2", "sha256")) {
+            PasswordHashingEngine engine = engine(algorithm);
+            String stored = engine.encode("password123", "salt");
+
+            assertTrue(stored.startsWith("{" + algorithm + "}"), algorithm);
+            assertTrue(engine.matches("password123", "salt", stored), algorithm);
+            assertFalse(engine.matches("wrong", "salt", stored), algorithm);
+            assertFalse(engine.needsRehash(stored), algorithm);
+        }
+    }
+
+    // 测试无前缀的旧 SHA-256 哈希仍可校验，并提示需要升级
+    @Test
+    public void testLegacyHashIsVerifiedAndUpgraded() {
+        String legacy = new Sha256LegacyHasher().hash("password123", "salt");
+        PasswordHashingEngine engine = engine("bcrypt");
+
+        assertTrue(engine.matches("password123", "salt", legacy));
+        assertTrue(engine.needsRehash(legacy));
+    }
+
+    // 测试工作因子提高后旧参数的哈希需要升级
+    @Test
+    public void testWeakerWorkFactorNeedsRehash() {
+        String weak = new PasswordHashingEngine(List.of(new Pbkdf2Hasher(1000)), "pbkdf2").encode("password123", "salt");
+        PasswordHashingEngine stronger = new PasswordHashingEngine(List.of(new Pbkdf2Hasher(2000)), "pbkdf2");
+
+        assertTrue(stronger.matches("password123", "salt", weak));
+        assertTrue(stronger.needsRehash(weak));
+    }
+
+    // 测试旧哈希按升级前的编码校验：GBK 系统上写入的中文密码用 UTF-8 校验不通过，按配置的编码校验通过后升级为新格式
+    @Test
+    public void testLegacyCharsetMigration() throws Exception {
+        Charset gbk = Charset.forName("GBK");
+        MessageDigest md = MessageDigest.getInstance("SHA-256");
+        md.update("salt".getBytes(gbk));
+        String stored = Base64.getEncoder().encodeToString(md.digest("密码password".getBytes(gbk)));
+
+        assertFalse(new Sha256LegacyHasher(Charset.forName("UTF-8")).matches("密码password", "salt", stored));
+        PasswordHashingEngine engine = new PasswordHashingEngine(List.of(new BCryptHasher(4), new Sha256LegacyHasher(gbk)), "bcrypt");
+        assertTrue(engine.matches("密码password", "salt", stored));
+        assertTrue(engine.needsRehash(stored));
+
+        String upgraded = engine.encode("密码password", "salt");
+        assertTrue(engine.matches("密码password", "salt", upgraded));
+        assertFalse(engine.needsRehash(upgraded));
+    }
+
+    // 测试默认按操作系统编码计算，与升级前 JDK 17 下 String.getBytes() 的结果一致
+    @Test
+    public void testLegacyDefaultsToNativeCharset() {
+        String nativeEncoding = System.getProperty("native.encoding");
+        Charset expected = nativeEncoding != null ? Charset.forName(nativeEncoding) : Charset.defaultCharset();
+
+        assertEquals(expected, new Sha256LegacyHasher().getCharset());
+    }
+}
@@ -0,0 +1,122 @@
+package com.zeyang.login.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import com.zeyang.login.entity.User;
+import com.zeyang.login.redis.RedisBatch;
+import com.zeyang.login.redis.RedisBatchExecutor;
+
+public class RedisSessionStoreTest {
+
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    @SuppressWarnings("unchecked")
+    private final HashOperations<String, Object, Object> hashOps = mock(HashOperations.class);
+
+    @BeforeEach
+    public void setUp() {
+        when(redisTemplate.opsForHash()).thenReturn(hashOps);
+    }
+
+    private RedisSessionStore store(long refreshIntervalSeconds) {
+        return new RedisSessionStore(redisTemplate, mock(RedisMessageListenerContainer.class),
+                30, refreshIntervalSeconds, 100, 60, false);
+    }
+
+    private String create(RedisSessionStore store) {
+        User user = new User();
+        user.setId(7L);
+        user.setUsername("alice");
+        return store.create(user, new RedisBatch(mock(RedisBatchExecutor.class)));
+    }
+
+    // 测试近缓存命中时不访问 Redis
+    @Test
+    public void testNearCacheHit() {
+        RedisSessionStore store = store(60);
+        String sessionId = create(store);
+
+        SessionRecord record = store.get(sessionId);
+
+        assertEquals(7L, record.getUserId());
+        assertEquals(1, store.getNearHitCount());
+        verify(redisTemplate, never()).opsForHash();
+        verify(redisTemplate, never()).expire(anyString(), anyLong(), any(TimeUnit.class));
+    }
+
+    // 测试近缓存未命中时从 Redis 读取并放入近缓存，刚读出的会话不立即续期
+    @Test
+    public void testNearCacheMissLoadsFromRedis() {
+        when(hashOps.multiGet(eq("session:s1"), anyList())).thenReturn(List.of("7", "alice"));
+        RedisSessionStore store = store(60);
+
+        assertEquals("alice", store.get("s1").getUsername());
+        assertNotNull(store.get("s1"));
+
+        assertEquals(1, store.getRedisReadCount());
+        assertEquals(1, store.getNearHitCount());
+        verify(redisTemplate, never()).expire(anyString(), anyLong(), any(TimeUnit.class));
+    }
+
+    // 测试不存在的会话返回 null，不放入近缓存
+    @Test
+    public void testMissingSession() {
+        when(hashOps.multiGet(eq("session:gone"), anyList())).thenReturn(Arrays.asList(null, null));
+        RedisSessionStore store = store(60);
+
+        assertNull(store.get("gone"));
+        assertEquals(0, store.getNearCacheSize());
+    }
+
+    // 测试到达续期间隔时续期；续期发现键已不存在时清理近缓存并返回 null
+    @Test
+    public void testRefreshEvictsWhenKeyGone() {
+        RedisSessionStore store = store(0);
+        String sessionId = create(store);
+        when(hashOps.multiGet(eq("session:" + sessionId), anyList())).thenReturn(Arrays.asList(null, null));
+        when(redisTemplate.expire(eq("session:" + sessionId), anyLong(), eq(TimeUnit.MILLISECONDS))).thenReturn(true, false);
+
+        assertNotNull(store.get(sessionId));
+        assertNull(store.get(sessionId));
+        assertNull(store.get(sessionId));
+
+        assertEquals(2, store.getTouchCount());
+        assertEquals(1, store.getInvalidationCount());
+        verify(redisTemplate, times(2)).expire(eq("session:" + sessionId), anyLong(), eq(TimeUnit.MILLISECONDS));
+    }
+
+    // 测试删除会话同时清理近缓存
+    @Test
+    public void testDelete() {
+        RedisSessionStore store = store(60);
+        String sessionId = create(store);
+        when(hashOps.multiGet(eq("session:" + sessionId), anyList())).thenReturn(Arrays.asList(null, null));
+
+        store.delete(sessionId);
+
+        verify(redisTemplate).delete("session:" + sessionId);
+        assertNull(store.get(sessionId));
+        assertEquals(1, store.getRedisReadCount());
+    }
+}
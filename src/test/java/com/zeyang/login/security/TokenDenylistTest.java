@@ -0,0 +1,49 @@
+package com.zeyang.login.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+public class TokenDenylistTest {
+
+    private ZSetOperations<String, String> zSetOps;
+    private TokenDenylist denylist;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        zSetOps = mock(ZSetOperations.class);
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOps);
+        denylist = new TokenDenylist(redisTemplate, mock(RedisMessageListenerContainer.class));
+    }
+
+    // 测试漏掉通知的吊销在重新同步后生效，本地已过期的条目被清理
+    @Test
+    public void testResyncPicksUpMissedRevocations() {
+        long future = System.currentTimeMillis() + 60_000;
+        denylist.revoke("expired", System.currentTimeMillis() - 1);
+        when(zSetOps.rangeByScoreWithScores(eq("auth:denylist"), anyDouble(), anyDouble()))
+                .thenReturn(Set.of(new DefaultTypedTuple<>("missed", (double) future)));
+        assertFalse(denylist.isRevoked("missed"));
+
+        denylist.resync();
+
+        assertTrue(denylist.isRevoked("missed"));
+        assertFalse(denylist.isRevoked("expired"));
+        assertEquals(1, denylist.size());
+    }
+}
@@ -0,0 +1,63 @@
+package com.zeyang.login.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import com.zeyang.login.entity.User;
+
+public class TokenServiceTest {
+
+    private TokenService tokenService;
+    private User user;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        when(redisTemplate.opsForZSet()).thenReturn(mock(ZSetOperations.class));
+        TokenDenylist denylist = new TokenDenylist(redisTemplate, mock(RedisMessageListenerContainer.class));
+        tokenService = new TokenService(redisTemplate, denylist, "c2VjcmV0LWtleS1mb3ItdG9rZW4tc2VydmljZS10ZXN0", 15, 14);
+
+        user = new User();
+        user.setId(42L);
+        user.setUsername("alice.smith");
+    }
+
+    // 测试签发的令牌可以被解析
+    @Test
+    public void testCreateAndParse() {
+        TokenPrincipal principal = tokenService.parseAccessToken(tokenService.createAccessToken(user));
+
+        assertNotNull(principal);
+        assertEquals(42L, principal.getUserId());
+        assertEquals("alice.smith", principal.getUsername());
+    }
+
+    // 测试篡改过的令牌校验失败
+    @Test
+    public void testTamperedTokenRejected() {
+        String token = tokenService.createAccessToken(user);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertNull(tokenService.parseAccessToken(tampered));
+        assertNull(tokenService.parseAccessToken("not-a-token"));
+    }
+
+    // 测试吊销后的令牌校验失败
+    @Test
+    public void testRevokedTokenRejected() {
+        String token = tokenService.createAccessToken(user);
+        tokenService.revokeAccessToken(tokenService.parseAccessToken(token));
+
+        assertNull(tokenService.parseAccessToken(token));
+    }
+}
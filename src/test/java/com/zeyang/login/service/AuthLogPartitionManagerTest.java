@@ -0,0 +1,88 @@
+package com.zeyang.login.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.zeyang.login.service.AuthLogPartitionManager.Granularity;
+import com.zeyang.login.service.AuthLogPartitionManager.Partition;
+import com.zeyang.login.service.AuthLogPartitionManager.Plan;
+
+public class AuthLogPartitionManagerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static LocalDateTime month(int year, int month) {
+        return LocalDateTime.of(year, month, 1, 0, 0);
+    }
+
+    // 测试提前创建未来分区，并删除超过保留期的分区，MAXVALUE 分区不删除
+    @Test
+    public void testPlanCreatesAheadAndDropsExpired() {
+        List<Partition> partitions = List.of(
+                new Partition("p_history", month(2023, 6)),
+                new Partition("p202306", month(2023, 7)),
+                new Partition("p202407", month(2024, 8)),
+                new Partition("p_future", null));
+
+        Plan plan = AuthLogPartitionManager.plan(partitions, LocalDateTime.of(2024, 7, 15, 10, 0),
+                Granularity.MONTH, 2, 12);
+
+        assertEquals(List.of(month(2024, 9), month(2024, 10)), plan.toCreate);
+        assertEquals(2, plan.toDrop.size());
+        assertEquals("p_history", plan.toDrop.get(0).name);
+        assertEquals("p202306", plan.toDrop.get(1).name);
+    }
+
+    // 测试拆分 MAXVALUE 分区的语句与分区命名
+    @Test
+    public void testReorganizeSql() {
+        String sql = AuthLogPartitionManager.reorganizeSql("p_future", List.of(month(2024, 9)), Granularity.MONTH);
+
+        assertEquals("ALTER TABLE auth_logs REORGANIZE PARTITION p_future INTO ("
+                + "PARTITION p202408 VALUES LESS THAN ('2024-09-01 00:00:00'), "
+                + "PARTITION p_future VALUES LESS THAN (MAXVALUE))", sql);
+        assertEquals("p20240714", AuthLogPartitionManager.partitionName(
+                LocalDateTime.of(2024, 7, 15, 0, 0), Granularity.DAY));
+    }
+
+    // 测试导出中途失败时删除临时文件，不留下半截归档
+    @Test
+    public void testFailedArchiveRemovesTempFile() throws Exception {
+        AuthLogPartitionManager manager = new AuthLogPartitionManager(mock(JdbcTemplate.class), true,
+                Granularity.MONTH, 3, 12, true, tempDir.toString(), 1000);
+        Connection connection = mock(Connection.class);
+        Statement statement = mock(Statement.class);
+        ResultSet rs = mock(ResultSet.class);
+        when(connection.createStatement(anyInt(), anyInt())).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(rs);
+        when(rs.next()).thenReturn(true).thenThrow(new SQLException("connection reset"));
+        when(rs.getString(anyInt())).thenReturn("LOGIN_SUCCESS");
+        when(rs.getTimestamp(7)).thenReturn(Timestamp.valueOf(month(2023, 6)));
+
+        assertThrows(SQLException.class, () -> manager.archivePartition(connection, new Partition("p202306", month(2023, 7))));
+
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.zeyang.login.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import com.zeyang.login.dto.AuthLogPage;
+import com.zeyang.login.dto.AuthLogView;
+import com.zeyang.login.entity.AuthAction;
+import com.zeyang.login.repository.AuthLogRepository;
+
+public class AuthLogQueryServiceTest {
+
+    private final AuthLogRepository repository = mock(AuthLogRepository.class);
+    private final AuthLogQueryService service =
+            new AuthLogQueryService(repository, mock(DataSource.class), 1000);
+
+    private List<AuthLogView> rows(int count, LocalDateTime createdAt) {
+        List<AuthLogView> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            rows.add(new AuthLogView(100L - i, 7L, AuthAction.LOGIN_SUCCESS, "10.0.0.1", null, null, createdAt));
+        }
+        return rows;
+    }
+
+    // 测试多取一行判断下一页，游标指向本页最后一行并用于下一次查询
+    @Test
+    public void testKeysetCursorRoundTrip() {
+        LocalDateTime createdAt = LocalDateTime.of(2024, 5, 1, 12, 0, 0);
+        when(repository.findFirstPageByUserId(eq(7L), any(Pageable.class))).thenReturn(rows(3, createdAt));
+
+        AuthLogPage first = service.pageByUser(7L, null, 2);
+
+        assertEquals(2, first.getItems().size());
+        assertNotNull(first.getNextCursor());
+        verify(repository).findFirstPageByUserId(7L, PageRequest.of(0, 3));
+
+        when(repository.findPageByUserId(eq(7L), eq(createdAt), eq(99L), any(Pageable.class))).thenReturn(rows(1, createdAt));
+        AuthLogPage second = service.pageByUser(7L, first.getNextCursor(), 2);
+
+        assertEquals(1, second.getItems().size());
+        assertNull(second.getNextCursor());
+    }
+
+    // 测试单页大小有上限
+    @Test
+    public void testPageSizeCapped() {
+        when(repository.findFirstPageByUserId(eq(7L), any(Pageable.class))).thenReturn(new ArrayList<>());
+
+        service.pageByUser(7L, null, 100_000);
+
+        verify(repository).findFirstPageByUserId(7L, PageRequest.of(0, AuthLogQueryService.MAX_PAGE_SIZE + 1));
+    }
+
+    // 测试伪造的游标被拒绝
+    @Test
+    public void testInvalidCursorRejected() {
+        RuntimeException ex = assertThrows(RuntimeException.class, () -> service.pageByUser(7L, "not-a-cursor", 10));
+        assertEquals("分页游标无效", ex.getMessage());
+    }
+
+    // 测试 CSV 字段转义
+    @Test
+    public void testCsvEscaping() {
+        assertEquals("", AuthLogQueryService.csv(null));
+        assertEquals("plain", AuthLogQueryService.csv("plain"));
+        assertEquals("\"Mozilla/5.0 (X11, Linux)\"", AuthLogQueryService.csv("Mozilla/5.0 (X11, Linux)"));
+        assertEquals("\"say \"\"hi\"\"\"", AuthLogQueryService.csv("say \"hi\""));
+    }
+}
@@ -0,0 +1,87 @@
+package com.zeyang.login.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.zeyang.login.entity.AuthAction;
+import com.zeyang.login.entity.AuthLog;
+import com.zeyang.login.entity.User;
+
+public class AuthLogWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private AuthLogWriter writer(JdbcTemplate jdbcTemplate, boolean async, Path spillFile) {
+        return new AuthLogWriter(jdbcTemplate, async, 100, 10, 20,
+                AuthLogWriter.OverflowPolicy.SPILL, 10, 2000, spillFile.toString());
+    }
+
+    private AuthLog authLog() {
+        User user = new User();
+        user.setId(1L);
+        AuthLog authLog = new AuthLog();
+        authLog.setUser(user);
+        authLog.setAction(AuthAction.LOGIN_SUCCESS);
+        authLog.setIpAddress("127.0.0.1");
+        authLog.setUserAgent("agent\twith tab");
+        return authLog;
+    }
+
+    // 测试异步模式下日志由后台线程批量写入，停机时队列被排空
+    @Test
+    public void testAsyncFlushAndDrain() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        AuthLogWriter writer = writer(jdbcTemplate, true, tempDir.resolve("spill.tsv"));
+        writer.start();
+
+        for (int i = 0; i < 25; i++) {
+            writer.submit(authLog());
+        }
+        writer.stop();
+
+        verify(jdbcTemplate, timeout(2000).atLeastOnce()).batchUpdate(anyString(), any(BatchPreparedStatementSetter.class));
+        assertEquals(25, writer.getSubmittedCount());
+        assertEquals(25, writer.getWrittenCount());
+        assertEquals(0, writer.getQueueDepth());
+    }
+
+    // 测试写库失败时落盘，重启后回放入库
+    @Test
+    public void testSpillAndReplay() throws Exception {
+        Path spillFile = tempDir.resolve("spill.tsv");
+        JdbcTemplate failing = mock(JdbcTemplate.class);
+        when(failing.batchUpdate(anyString(), any(BatchPreparedStatementSetter.class)))
+                .thenThrow(new DataAccessResourceFailureException("down"));
+
+        AuthLogWriter first = writer(failing, false, spillFile);
+        first.submit(authLog());
+        assertEquals(1, first.getSpilledCount());
+        assertTrue(Files.exists(spillFile));
+
+        JdbcTemplate healthy = mock(JdbcTemplate.class);
+        AuthLogWriter second = writer(healthy, true, spillFile);
+        second.start();
+        verify(healthy, timeout(2000)).batchUpdate(anyString(), any(BatchPreparedStatementSetter.class));
+        second.stop();
+
+        assertEquals(1, second.getWrittenCount());
+        assertFalse(Files.exists(spillFile));
+    }
+}
@@ -0,0 +1,152 @@
+package com.zeyang.login.service;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import com.zeyang.login.entity.AuthLog;
+import com.zeyang.login.entity.User;
+import com.zeyang.login.entity.UserStatus;
+import com.zeyang.login.exception.AuthException;
+import com.zeyang.login.redis.RedisBatch;
+import com.zeyang.login.redis.RedisBatchExecutor;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class AuthServiceTest {
+
+    private final UserService userService = mock(UserService.class);
+    private final AuthLogWriter authLogWriter = mock(AuthLogWriter.class);
+    private final LoginAttemptService loginAttemptService = mock(LoginAttemptService.class);
+    private final AuthService authService = new AuthService(userService, authLogWriter, loginAttemptService,
+            mock(AuthStatsService.class), new LoginMetrics(new SimpleMeterRegistry()));
+    private final MockHttpServletRequest request = new MockHttpServletRequest();
+    private final RedisBatch batch = new RedisBatch(mock(RedisBatchExecutor.class));
+
+    private User user(UserStatus status) {
+        User user = new User();
+        user.setId(7L);
+        user.setUsername("alice");
+        user.setStatus(status);
+        when(userService.findByUsername("alice")).thenReturn(Optional.of(user));
+        return user;
+    }
+
+    private AuthResult authenticate(String password) {
+        return assertDoesNotThrow(() -> authService.authenticate("alice", password, request, batch));
+    }
+
+    // 测试用户不存在和密码错误都返回 401，密码错误时计入失败次数并记录日志
+    @Test
+    public void testBadCredentials() {
+        when(userService.findByUsername("alice")).thenReturn(Optional.empty());
+        AuthResult unknown = authenticate("secret");
+        assertFalse(unknown.isSuccess());
+        assertSame(AuthException.BAD_CREDENTIALS, unknown.getError());
+
+        User user = user(UserStatus.ACTIVE);
+        when(userService.verifyPassword(user, "wrong")).thenReturn(false);
+        AuthResult wrong = authenticate("wrong");
+
+        assertFalse(wrong.isSuccess());
+        assertEquals(HttpStatus.UNAUTHORIZED, wrong.getError().getStatus());
+        verify(loginAttemptService).recordFailure(user);
+        verify(authLogWriter).submit(any(AuthLog.class));
+    }
+
+    // 测试非启用状态的账户返回 403，不校验密码
+    @Test
+    public void testDisabledAccount() {
+        user(UserStatus.INACTIVE);
+
+        AuthResult result = authenticate("secret");
+
+        assertSame(AuthException.ACCOUNT_DISABLED, result.getError());
+        verify(userService, never()).verifyPassword(any(), anyString());
+    }
+
+    // 测试限流过滤器读出的锁定状态：返回 423 和 Retry-After，不查库
+    @Test
+    public void testLockedByGate() {
+        new LoginGate("alice", 0, 1500, 5).attachTo(request);
+
+        AuthResult result = authenticate("secret");
+
+        assertEquals(HttpStatus.LOCKED, result.getError().getStatus());
+        assertEquals(2, result.getError().getRetryAfterSeconds());
+        verify(userService, never()).findByUsername(anyString());
+        verify(loginAttemptService, never()).lockRemainingMillis(anyString());
+    }
+
+    // 测试用户表中的回退锁定（Redis 不可用期间写入）：返回 423 和剩余秒数，不校验密码
+    @Test
+    public void testLockedByColumn() {
+        User user = user(UserStatus.ACTIVE);
+        user.setLockedUntil(LocalDateTime.now().plusMinutes(10));
+
+        AuthResult result = authenticate("secret");
+
+        assertEquals(HttpStatus.LOCKED, result.getError().getStatus());
+        assertTrue(result.getError().getRetryAfterSeconds() > 590 && result.getError().getRetryAfterSeconds() <= 600);
+        verify(userService, never()).verifyPassword(any(), anyString());
+    }
+
+    // 测试登录成功返回用户，没有失败记录也不需要升级哈希时不回写用户表
+    @Test
+    public void testSuccess() {
+        User user = user(UserStatus.ACTIVE);
+        when(userService.verifyPassword(user, "secret")).thenReturn(true);
+
+        AuthResult result = authenticate("secret");
+
+        assertTrue(result.isSuccess());
+        assertSame(user, result.getUser());
+        verify(loginAttemptService).recordSuccess(eq(user), anyBoolean(), eq(batch));
+        verify(userService, never()).save(any());
+        verify(authLogWriter).submit(any(AuthLog.class));
+    }
+
+    // 测试批次发送失败后单独清除失败计数，用户表没有回退记录时不回写
+    @Test
+    public void testResetFailedAttempts() {
+        User user = user(UserStatus.ACTIVE);
+
+        authService.resetFailedAttempts(user);
+
+        verify(loginAttemptService).recordSuccess(user);
+        verify(userService, never()).save(any());
+    }
+
+    // 测试锁定按规范化的用户名判断，大小写变体不能绕过锁定再试一次密码
+    @Test
+    public void testCaseVariantOfLockedAccountRejected() {
+        when(loginAttemptService.lockRemainingMillis("alice")).thenReturn(5000L);
+
+        for (String variant : new String[]{"Alice", "ALICE", "alice "}) {
+            AuthResult result = assertDoesNotThrow(() -> authService.authenticate(variant, "secret", request, batch));
+            assertEquals(HttpStatus.LOCKED, result.getError().getStatus());
+        }
+        new LoginGate("alice", 0, 5000, 5).attachTo(request);
+        assertEquals(HttpStatus.LOCKED, authService.authenticate("ALICE", "secret", request, batch).getError().getStatus());
+
+        verify(userService, never()).findByUsername(anyString());
+        verify(userService, never()).verifyPassword(any(), anyString());
+    }
+}
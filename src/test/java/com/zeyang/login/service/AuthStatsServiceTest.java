@@ -0,0 +1,109 @@
+package com.zeyang.login.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import com.zeyang.login.entity.AuthAction;
+import com.zeyang.login.entity.AuthLog;
+import com.zeyang.login.entity.User;
+import com.zeyang.login.service.AuthStatsService.Granularity;
+
+public class AuthStatsServiceTest {
+
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    private final AuthStatsService service = new AuthStatsService(redisTemplate, true, 100);
+
+    private static AuthLog log(long userId, String ip, AuthAction action) {
+        User user = new User();
+        user.setId(userId);
+        AuthLog authLog = new AuthLog();
+        authLog.setUser(user);
+        authLog.setIpAddress(ip);
+        authLog.setAction(action);
+        return authLog;
+    }
+
+    // 测试时间桶按粒度对齐，范围为左闭右开
+    @Test
+    public void testBucketsAlignedToGranularity() {
+        LocalDateTime from = LocalDateTime.of(2024, 5, 1, 10, 30);
+        LocalDateTime to = LocalDateTime.of(2024, 5, 1, 13, 0);
+
+        assertEquals(List.of("2024050110", "2024050111", "2024050112"),
+                AuthStatsService.buckets(Granularity.HOUR, from, to));
+        assertEquals(List.of("20240501"), AuthStatsService.buckets(Granularity.DAY, from, to));
+        assertThrows(RuntimeException.class, () -> AuthStatsService.buckets(Granularity.HOUR, to, from));
+        assertThrows(RuntimeException.class, () -> AuthStatsService.buckets(Granularity.MINUTE,
+                from, from.plusDays(30)));
+    }
+
+    // 测试同一批内的多次登录在本地合并，flush 时每个字段只发一次 HINCRBY
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testRecordsCoalescedBeforeFlush() {
+        StringRedisConnection connection = mock(StringRedisConnection.class);
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenAnswer(invocation -> {
+            ((RedisCallback<Object>) invocation.getArgument(0)).doInRedis(connection);
+            return List.of();
+        });
+        for (int i = 0; i < 5; i++) {
+            service.record(log(7L, "10.0.0.1", AuthAction.LOGIN_FAILURE));
+        }
+
+        service.flush();
+
+        verify(connection, times(3)).hIncrBy(startsWith("stats:"), eq("LOGIN_FAILURE"), eq(5L));
+        verify(connection, times(2)).zIncrBy(startsWith("stats:top:ip:LOGIN_FAILURE:"), eq(5.0), eq("10.0.0.1"));
+        verify(connection, times(4)).zRemRange(startsWith("stats:top:"), eq(0L), eq(-101L));
+        assertEquals(1, service.getFlushCount());
+
+        // 没有新记录时不访问 Redis
+        service.flush();
+        verify(redisTemplate, times(1)).executePipelined(any(RedisCallback.class));
+    }
+
+    // 测试 Redis 不可用时丢弃本批并计数
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testRedisFailureDropsBatch() {
+        when(redisTemplate.executePipelined(any(RedisCallback.class)))
+                .thenThrow(new RedisConnectionFailureException("down"));
+        service.record(log(7L, "10.0.0.1", AuthAction.LOGIN_SUCCESS));
+        service.record(log(8L, "10.0.0.2", AuthAction.LOGIN_SUCCESS));
+
+        service.flush();
+
+        assertEquals(2, service.getDroppedEventCount());
+        assertEquals(0, service.getFlushCount());
+    }
+
+    // 测试关闭统计后不累加
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testDisabledIgnoresRecords() {
+        AuthStatsService disabled = new AuthStatsService(redisTemplate, false, 100);
+        disabled.record(log(7L, "10.0.0.1", AuthAction.LOGIN_SUCCESS));
+
+        disabled.flush();
+
+        verify(redisTemplate, never()).executePipelined(any(RedisCallback.class));
+        assertEquals(0, disabled.getRecordedCount());
+    }
+}
@@ -0,0 +1,44 @@
+package com.zeyang.login.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+public class LocalLoginAttemptStoreTest {
+
+    // 测试达到阈值后锁定，成功登录只清除失败计数不解除锁定
+    @Test
+    public void testLockAfterMaxAttempts() {
+        LocalLoginAttemptStore store = new LocalLoginAttemptStore(3, 1440, 30, 100);
+
+        assertEquals(0, store.recordFailure("alice"));
+        assertEquals(0, store.recordFailure("alice"));
+        assertEquals(30 * 60_000L, store.recordFailure("alice"));
+        store.reset("alice");
+
+        assertTrue(store.lockRemainingMillis("alice") > 0);
+        assertEquals(0, store.lockRemainingMillis("bob"));
+    }
+
+    // 测试 drain 交出失败次数和锁定剩余时间，merge 放回后计数累加
+    @Test
+    public void testDrainAndMerge() {
+        LocalLoginAttemptStore store = new LocalLoginAttemptStore(5, 1440, 30, 100);
+        store.recordFailure("alice");
+        store.recordFailure("alice");
+        Map<String, Long> attempts = new HashMap<>();
+
+        store.drain((username, count, lockRemaining) -> attempts.put(username, count));
+        assertEquals(Map.of("alice", 2L), attempts);
+        assertEquals(0, store.size());
+
+        store.merge("alice", 2, 0);
+        store.recordFailure("alice");
+        store.recordFailure("alice");
+        assertTrue(store.recordFailure("alice") > 0);
+    }
+}
@@ -0,0 +1,33 @@
+package com.zeyang.login.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class LocalRateGateTest {
+
+    // 测试本地计数达到上限后不再询问 Redis，窗口滚动后恢复
+    @Test
+    public void testRejectsLocallyOverLimit() {
+        LocalRateGate gate = new LocalRateGate(1000, 100);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, gate.check("ip:1", 3, 10));
+            gate.record("ip:1", 10);
+        }
+
+        assertTrue(gate.check("ip:1", 3, 20) > 0);
+        assertEquals(0, gate.check("ip:2", 3, 20));
+        assertEquals(0, gate.check("ip:1", 3, 1010));
+    }
+
+    // 测试 Redis 拒绝后在等待时间内本地拒绝
+    @Test
+    public void testBlockUntilRetryAfter() {
+        LocalRateGate gate = new LocalRateGate(1000, 100);
+        gate.block("user:alice", 0, 500);
+
+        assertEquals(400, gate.check("user:alice", 10, 100));
+        assertEquals(0, gate.check("user:alice", 10, 600));
+    }
+}
@@ -0,0 +1,35 @@
+package com.zeyang.login.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+public class LocalRateLimiterTest {
+
+    // 测试与 rate_limit.lua 相同的加权计算：上一窗口的计数随时间线性衰减
+    @Test
+    public void testSlidingWindowWeighting() {
+        LocalRateLimiter limiter = new LocalRateLimiter(1000, 100);
+        for (int i = 0; i < 4; i++) {
+            assertEquals(0, limiter.acquire("ip:1", 4, 100));
+        }
+        assertEquals(900, limiter.acquire("ip:1", 4, 100));
+
+        // 下一窗口过去一半，上一窗口 4 次按 2 次计
+        assertEquals(0, limiter.acquire("ip:1", 4, 1500));
+        assertEquals(0, limiter.acquire("ip:1", 4, 1500));
+        assertEquals(500, limiter.acquire("ip:1", 4, 1500));
+        // 隔一个窗口后全部清零
+        assertEquals(0, limiter.acquire("ip:1", 1, 3000));
+    }
+
+    // 测试撤销计数
+    @Test
+    public void testRelease() {
+        LocalRateLimiter limiter = new LocalRateLimiter(1000, 100);
+        assertEquals(0, limiter.acquire("ip:1", 1, 0));
+        limiter.release("ip:1", 0);
+
+        assertEquals(0, limiter.acquire("ip:1", 1, 0));
+    }
+}
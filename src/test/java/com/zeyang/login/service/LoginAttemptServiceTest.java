@@ -0,0 +1,160 @@
+package com.zeyang.login.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.longThat;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import com.zeyang.login.entity.User;
+import com.zeyang.login.redis.RedisBatch;
+import com.zeyang.login.redis.RedisBatchExecutor;
+import com.zeyang.login.redis.RedisFailover;
+
+public class LoginAttemptServiceTest {
+
+    private User user(int failedAttempts) {
+        User user = new User();
+        user.setUsername("alice");
+        user.setFailedAttempts(failedAttempts);
+        return user;
+    }
+
+    // 测试存储可用时失败登录不修改用户表
+    @Test
+    public void testFailureRecordedInStore() {
+        LoginAttemptStore store = mock(LoginAttemptStore.class);
+        LoginAttemptService service = new LoginAttemptService(store, 5, 30);
+        User user = user(0);
+
+        assertFalse(service.recordFailure(user));
+        verify(store).recordFailure("alice");
+        assertEquals(0, user.getFailedAttempts());
+    }
+
+    // 测试失败计数和清除都按规范化的用户名记录，与登录前读取锁定状态的键一致
+    @Test
+    public void testRecordsUnderNormalizedUsername() {
+        LoginAttemptStore store = mock(LoginAttemptStore.class);
+        LoginAttemptService service = new LoginAttemptService(store, 5, 30);
+        User user = user(0);
+        user.setUsername("Alice");
+
+        service.recordFailure(user);
+        service.recordSuccess(user);
+
+        verify(store).recordFailure("alice");
+        verify(store).reset("alice");
+    }
+
+    // 测试存储不可用时回退到用户表列并在达到阈值时锁定
+    @Test
+    public void testFallbackToUserColumns() {
+        LoginAttemptStore store = mock(LoginAttemptStore.class);
+        when(store.recordFailure("alice")).thenThrow(new RedisConnectionFailureException("down"));
+        when(store.lockRemainingMillis("alice")).thenThrow(new RedisConnectionFailureException("down"));
+        LoginAttemptService service = new LoginAttemptService(store, 5, 30);
+        User user = user(4);
+
+        assertEquals(0, service.lockRemainingMillis("alice"));
+        assertTrue(service.recordFailure(user));
+        assertEquals(5, user.getFailedAttempts());
+        assertNotNull(user.getLockedUntil());
+        assertEquals(2, service.getFallbackCount());
+    }
+
+    // 测试成功登录清理回退模式留下的失败记录
+    @Test
+    public void testSuccessClearsFallbackColumns() {
+        LoginAttemptStore store = mock(LoginAttemptStore.class);
+        doThrow(new RedisConnectionFailureException("down")).when(store).reset("alice");
+        LoginAttemptService service = new LoginAttemptService(store, 5, 30);
+
+        assertTrue(service.recordSuccess(user(3)));
+        assertFalse(service.recordSuccess(user(0)));
+    }
+
+    // 测试登录前已确认没有失败计数时不再发送删除命令，否则删除追加到批次
+    @Test
+    public void testBatchedSuccessSkipsResetWithoutFailures() {
+        LoginAttemptStore store = mock(LoginAttemptStore.class);
+        LoginAttemptService service = new LoginAttemptService(store, 5, 30);
+        RedisBatch batch = mock(RedisBatch.class);
+
+        assertFalse(service.recordSuccess(user(0), false, batch));
+        verify(store, never()).reset(anyString(), any(RedisBatch.class));
+
+        assertFalse(service.recordSuccess(user(0), true, batch));
+        verify(store).reset("alice", batch);
+        verify(store, never()).reset("alice");
+    }
+
+    // 测试 Redis 出错后切换到本地计数，锁定在本地生效且不修改用户表
+    @Test
+    public void testFailoverToLocalStore() {
+        LoginAttemptStore store = mock(LoginAttemptStore.class);
+        when(store.recordFailure("alice")).thenThrow(new RedisConnectionFailureException("down"));
+        RedisFailover failover = new RedisFailover(mock(StringRedisTemplate.class), true);
+        LoginAttemptService service = new LoginAttemptService(store, new LocalLoginAttemptStore(3, 1440, 30, 100),
+                failover, mock(RedisBatchExecutor.class), 3, 30);
+        User user = user(0);
+
+        for (int i = 0; i < 3; i++) {
+            assertFalse(service.recordFailure(user));
+        }
+
+        assertTrue(failover.isDown());
+        assertTrue(service.lockRemainingMillis("alice") > 0);
+        assertEquals(0, user.getFailedAttempts());
+        // 切换后不再逐个请求访问 Redis
+        verify(store, times(1)).recordFailure("alice");
+        verify(store, never()).lockRemainingMillis("alice");
+    }
+
+    // 测试 Redis 恢复后把本地失败次数和锁定回灌，发送失败时放回本地
+    @Test
+    public void testReconcileMergesLocalRecords() {
+        LoginAttemptStore store = mock(LoginAttemptStore.class);
+        RedisBatchExecutor executor = mock(RedisBatchExecutor.class);
+        RedisBatch batch = mock(RedisBatch.class);
+        when(executor.newBatch()).thenReturn(batch);
+        LocalLoginAttemptStore local = new LocalLoginAttemptStore(3, 1440, 30, 100);
+        RedisFailover failover = new RedisFailover(mock(StringRedisTemplate.class), true);
+        failover.markDown(new RedisConnectionFailureException("down"));
+        LoginAttemptService service = new LoginAttemptService(store, local, failover, executor, 3, 30);
+        User alice = user(0);
+        User bob = user(0);
+        bob.setUsername("bob");
+        service.recordFailure(alice);
+        for (int i = 0; i < 3; i++) {
+            service.recordFailure(bob);
+        }
+
+        doThrow(new RedisConnectionFailureException("down")).when(batch).execute();
+        assertThrows(RedisConnectionFailureException.class, service::reconcile);
+        assertEquals(2, local.size());
+
+        doNothing().when(batch).execute();
+        service.reconcile();
+
+        verify(store, times(2)).merge(eq("alice"), eq(1L), eq(0L), eq(batch));
+        verify(store, times(2)).merge(eq("bob"), eq(0L), longThat(l -> l > 0), eq(batch));
+        assertEquals(0, local.size());
+        assertEquals(2, service.getReconciledCount());
+    }
+}
@@ -0,0 +1,42 @@
+package com.zeyang.login.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import com.zeyang.login.entity.AuthAction;
+import com.zeyang.login.service.LoginMetrics.Stage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class LoginMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final LoginMetrics metrics = new LoginMetrics(registry);
+
+    // 测试阶段计时按 stage 标签区分，异常时同样计时
+    @Test
+    public void testStageTimersTaggedAndRecordedOnFailure() {
+        assertEquals("ok", metrics.time(Stage.LOOKUP, () -> "ok"));
+        assertThrows(RuntimeException.class, () -> metrics.time(Stage.VERIFY, () -> {
+            throw new RuntimeException("boom");
+        }));
+
+        assertEquals(1, registry.get("login.stage").tag("stage", "lookup").timer().count());
+        assertEquals(1, registry.get("login.stage").tag("stage", "verify").timer().count());
+        assertEquals(0, registry.get("login.stage").tag("stage", "session").timer().count());
+    }
+
+    // 测试按动作计数
+    @Test
+    public void testActionCounters() {
+        metrics.count(AuthAction.LOGIN_FAILURE);
+        metrics.count(AuthAction.LOGIN_FAILURE);
+        metrics.count(AuthAction.LOGOUT);
+
+        assertEquals(2.0, registry.get("login.actions").tag("action", "login_failure").counter().count());
+        assertEquals(1.0, registry.get("login.actions").tag("action", "logout").counter().count());
+        assertEquals(0.0, registry.get("login.actions").tag("action", "login_success").counter().count());
+    }
+}
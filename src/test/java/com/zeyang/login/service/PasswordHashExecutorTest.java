@@ -0,0 +1,135 @@
+package com.zeyang.login.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.zeyang.login.exception.ServiceBusyException;
+
+public class PasswordHashExecutorTest {
+
+    private final ExecutorService callers = Executors.newFixedThreadPool(4);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private PasswordHashExecutor executor;
+
+    @AfterEach
+    public void tearDown() {
+        release.countDown();
+        callers.shutdownNow();
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitQueueDepth(PasswordHashExecutor executor, int depth) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (executor.getQueueDepth() < depth && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    // 测试正常执行时返回任务结果，任务抛出的运行时异常原样抛出
+    @Test
+    public void testExecuteReturnsResult() {
+        executor = new PasswordHashExecutor(1, 1, 1000, 1, 8);
+
+        assertEquals("hash", executor.execute(() -> "hash"));
+        IllegalStateException error = assertThrows(IllegalStateException.class, () -> executor.execute(() -> {
+            throw new IllegalStateException("bad");
+        }));
+        assertEquals("bad", error.getMessage());
+        assertEquals(2, executor.getSubmittedCount());
+    }
+
+    // 测试线程和队列都占满时立即拒绝，返回 ServiceBusyException 并计入拒绝数
+    @Test
+    public void testSaturationRejectsImmediately() throws Exception {
+        executor = new PasswordHashExecutor(1, 1, 5000, 2, 8);
+        CountDownLatch running = new CountDownLatch(1);
+        Future<String> first = callers.submit(() -> executor.execute(() -> {
+            running.countDown();
+            await(release);
+            return "first";
+        }));
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        Future<String> queued = callers.submit(() -> executor.execute(() -> "queued"));
+        awaitQueueDepth(executor, 1);
+
+        long start = System.nanoTime();
+        ServiceBusyException e = assertThrows(ServiceBusyException.class, () -> executor.execute(() -> "rejected"));
+
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+        assertEquals(2, e.getRetryAfterSeconds());
+        assertEquals(1, executor.getRejectedCount());
+        release.countDown();
+        assertEquals("first", first.get(5, TimeUnit.SECONDS));
+        assertEquals("queued", queued.get(5, TimeUnit.SECONDS));
+    }
+
+    // 测试任务超过截止时间时调用方收到 ServiceBusyException，并计入超时数
+    @Test
+    public void testDeadlineExceeded() {
+        executor = new PasswordHashExecutor(1, 1, 100, 1, 8);
+
+        long start = System.nanoTime();
+        assertThrows(ServiceBusyException.class, () -> executor.execute(() -> {
+            await(release);
+            return "late";
+        }));
+
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+        assertEquals(1, executor.getTimedOutCount());
+    }
+
+    // 测试排队期间已经过期的任务不再执行
+    @Test
+    public void testExpiredQueuedTaskSkipped() throws Exception {
+        executor = new PasswordHashExecutor(1, 1, 100, 1, 8);
+        CountDownLatch running = new CountDownLatch(1);
+        AtomicInteger executed = new AtomicInteger();
+        Future<Object> blocker = callers.submit(() -> executor.execute(() -> {
+            running.countDown();
+            // 调用方超时后会中断这个任务，继续占住线程直到测试放行
+            while (release.getCount() > 0) {
+                try {
+                    release.await();
+                } catch (InterruptedException ignored) {
+                    // 继续等待
+                }
+            }
+            return null;
+        }));
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+
+        assertThrows(ServiceBusyException.class, () -> executor.execute(executed::incrementAndGet));
+        release.countDown();
+        ExecutionException e = assertThrows(ExecutionException.class, () -> blocker.get(5, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof ServiceBusyException);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (executor.getCompletedCount() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+
+        assertEquals(0, executed.get());
+        assertEquals(2, executor.getTimedOutCount());
+    }
+}
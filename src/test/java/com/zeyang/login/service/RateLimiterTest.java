@@ -0,0 +1,77 @@
+package com.zeyang.login.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import com.zeyang.login.redis.RedisFailover;
+
+public class RateLimiterTest {
+
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+
+    // 测试 IP 维度：本节点计数达到上限后不再访问 Redis，直接拒绝
+    @Test
+    public void testIpLimit() {
+        doReturn(List.of(0L, 0L)).when(redisTemplate).execute(any(RedisScript.class), anyList(), any());
+        RateLimiter limiter = new RateLimiter(redisTemplate, 60, 2, 10, 1000);
+
+        assertEquals(0, limiter.tryAcquire("1.1.1.1", null));
+        assertEquals(0, limiter.tryAcquire("1.1.1.1", null));
+        assertTrue(limiter.tryAcquire("1.1.1.1", null) > 0);
+        // 其他 IP 不受影响
+        assertEquals(0, limiter.tryAcquire("2.2.2.2", null));
+
+        verify(redisTemplate, times(3)).execute(any(RedisScript.class), anyList(), any());
+        assertEquals(1, limiter.getRejectedLocalCount());
+    }
+
+    // 测试用户名维度：Redis 判定用户名超限时只拦截该用户名，同 IP 的其他用户照常放行
+    @Test
+    public void testUsernameLimit() {
+        doReturn(List.of(3000L, 2L)).doReturn(List.of(0L, 0L, 0L, 1L))
+                .when(redisTemplate).execute(any(RedisScript.class), anyList(), any());
+        RateLimiter limiter = new RateLimiter(redisTemplate, 60, 100, 10, 1000);
+
+        LoginGate rejected = limiter.check("1.1.1.1", "alice");
+        assertEquals(3000, rejected.getRetryAfterMillis());
+        assertTrue(limiter.tryAcquire("1.1.1.1", "alice") > 0);
+        // 大小写变体与原用户名共用同一个计数
+        assertTrue(limiter.tryAcquire("1.1.1.1", "ALICE") > 0);
+
+        LoginGate allowed = limiter.check("1.1.1.1", "bob");
+        assertEquals(0, allowed.getRetryAfterMillis());
+        assertEquals(1, allowed.getFailedAttempts());
+        verify(redisTemplate, times(2)).execute(any(RedisScript.class), anyList(), any());
+        assertEquals(1, limiter.getRejectedRedisCount());
+    }
+
+    // 测试 Redis 不可用时按本节点计数限流，不访问 Redis
+    @Test
+    public void testFailoverLimit() {
+        RedisFailover failover = mock(RedisFailover.class);
+        when(failover.isEnabled()).thenReturn(true);
+        when(failover.isAvailable()).thenReturn(false);
+        RateLimiter limiter = new RateLimiter(redisTemplate, failover, 60, 100, 1, 1000);
+
+        assertEquals(0, limiter.tryAcquire("1.1.1.1", "alice"));
+        assertTrue(limiter.tryAcquire("1.1.1.1", "Alice") > 0);
+        assertEquals(0, limiter.tryAcquire("1.1.1.1", "bob"));
+
+        verify(redisTemplate, never()).execute(any(RedisScript.class), anyList(), any());
+        assertEquals(1, limiter.getRejectedFailoverCount());
+    }
+}
@@ -0,0 +1,43 @@
+package com.zeyang.login.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import com.zeyang.login.redis.RedisBatch;
+import com.zeyang.login.redis.RedisBatchExecutor;
+
+public class RedisLoginAttemptStoreTest {
+
+    // 测试批量回灌只发一条脚本命令，累加、续期和达到阈值时的锁定在 Redis 端原子完成
+    @Test
+    public void testBatchMergeUsesScript() {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        StringRedisConnection conn = mock(StringRedisConnection.class);
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenAnswer(invocation -> {
+            invocation.<RedisCallback<?>>getArgument(0).doInRedis(conn);
+            return null;
+        });
+        RedisLoginAttemptStore store = new RedisLoginAttemptStore(redisTemplate, 5, 1, 30);
+        RedisBatch batch = new RedisBatchExecutor(redisTemplate).newBatch();
+
+        store.merge("alice", 3, 0, batch);
+        batch.execute();
+
+        verify(redisTemplate).executePipelined(any(RedisCallback.class));
+        verify(conn).eval(contains("INCRBY"), eq(ReturnType.INTEGER), eq(2),
+                eq("login_attempts:alice"), eq("account_lock:alice"),
+                eq("3"), eq("0"), eq("5"), eq("60000"), eq("1800000"));
+        verifyNoMoreInteractions(conn);
+    }
+}
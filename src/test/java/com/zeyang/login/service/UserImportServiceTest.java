@@ -0,0 +1,162 @@
+package com.zeyang.login.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zeyang.login.cache.UserCache;
+import com.zeyang.login.cache.UserExistenceFilter;
+import com.zeyang.login.dto.RegisterRequest;
+import com.zeyang.login.dto.UserImportFailure;
+import com.zeyang.login.dto.UserImportProgress;
+import com.zeyang.login.entity.User;
+import com.zeyang.login.security.PasswordHashingEngine;
+
+public class UserImportServiceTest {
+
+    private final DataSource dataSource = mock(DataSource.class);
+    private final PreparedStatement statement = mock(PreparedStatement.class);
+    private final PasswordHashingEngine hashingEngine = mock(PasswordHashingEngine.class);
+    private final UserExistenceFilter filter = mock(UserExistenceFilter.class);
+    private final UserCache userCache = mock(UserCache.class);
+    private final List<UserImportFailure> failures = new ArrayList<>();
+    private final List<Long> committedLines = new ArrayList<>();
+    private UserImportService service;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        Connection connection = mock(Connection.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.getConnection()).thenReturn(connection);
+        when(statement.executeUpdate()).thenReturn(1);
+        when(hashingEngine.encode(anyString(), anyString())).thenReturn("{pbkdf2}hash");
+        service = new UserImportService(dataSource, mock(PlatformTransactionManager.class), hashingEngine, filter,
+                userCache, new ObjectMapper(), 2, 2);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        service.stop();
+    }
+
+    private UserImportProgress run(String body, UserImportService.Format format, long startLine) throws IOException {
+        return service.importUsers(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), format, startLine,
+                new UserImportService.Listener() {
+                    @Override
+                    public void onFailure(UserImportFailure failure) {
+                        failures.add(failure);
+                    }
+
+                    @Override
+                    public void onProgress(UserImportProgress p) {
+                        committedLines.add(p.getCommittedLine());
+                    }
+                });
+    }
+
+    // 测试 CSV 引号字段和转义
+    @Test
+    public void testCsvFields() {
+        assertEquals(List.of("alice", "p,w", "a@b.com", ""), UserImportService.csvFields("alice,\"p,w\",a@b.com,"));
+        assertEquals(List.of("say \"hi\""), UserImportService.csvFields("\"say \"\"hi\"\"\""));
+        assertNull(UserImportService.csvFields("\"unclosed,x"));
+    }
+
+    // 测试逐行校验与注册接口规则一致
+    @Test
+    public void testValidate() {
+        RegisterRequest request = new RegisterRequest();
+        request.setUsername("alice");
+        request.setPassword("secret1");
+        request.setEmail("alice@example.com");
+        assertNull(UserImportService.validate(request));
+
+        request.setUsername("al");
+        assertEquals("用户名长度必须在3-50个字符之间", UserImportService.validate(request));
+        request.setUsername("alice");
+        request.setEmail("not-an-email");
+        assertEquals("邮箱格式不正确", UserImportService.validate(request));
+    }
+
+    // 测试批内重复行跳过，每批提交后推进 committedLine
+    @Test
+    public void testBatchDedupeAndProgress() throws IOException, SQLException {
+        String csv = "username,password,email\n"
+                + "alice,secret1,alice@example.com\n"
+                + "ALICE,secret2,other@example.com\n"
+                + "bob,secret3,bob@example.com\n"
+                + "carol,x,carol@example.com\n";
+
+        UserImportProgress result = run(csv, UserImportService.Format.CSV, 0);
+
+        assertEquals("done", result.getType());
+        assertEquals(5, result.getCommittedLine());
+        assertEquals(4, result.getProcessed());
+        assertEquals(2, result.getImported());
+        assertEquals(1, result.getSkipped());
+        assertEquals(1, result.getFailed());
+        assertEquals(3, failures.get(0).getLine());
+        assertEquals("用户名重复", failures.get(0).getReason());
+        assertEquals(5, failures.get(1).getLine());
+        verify(statement, times(2)).executeUpdate();
+        verify(filter, times(2)).addAll(any());
+        assertEquals(List.of(3L, 5L), committedLines);
+    }
+
+    // 测试每批提交后清除导入用户名的缓存，导入前缓存的“用户不存在”不再生效
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testEvictsCacheAfterCommit() throws IOException {
+        String ndjson = "{\"username\":\"alice\",\"password\":\"secret1\",\"email\":\"alice@example.com\"}\n"
+                + "{\"username\":\"bob\",\"password\":\"secret2\",\"email\":\"bob@example.com\"}\n"
+                + "{\"username\":\"carol\",\"password\":\"secret3\",\"email\":\"carol@example.com\"}\n";
+
+        run(ndjson, UserImportService.Format.NDJSON, 0);
+
+        ArgumentCaptor<List<User>> evicted = ArgumentCaptor.forClass(List.class);
+        verify(userCache, times(2)).evictAll(evicted.capture());
+        List<String> usernames = new ArrayList<>();
+        evicted.getAllValues().forEach(batch -> batch.forEach(user -> usernames.add(user.getUsername())));
+        assertEquals(List.of("alice", "bob", "carol"), usernames);
+    }
+
+    // 测试从 committedLine 续传时跳过已处理的行
+    @Test
+    public void testResumeSkipsCommittedLines() throws IOException, SQLException {
+        String ndjson = "{\"username\":\"alice\",\"password\":\"secret1\",\"email\":\"alice@example.com\"}\n"
+                + "{\"username\":\"bob\",\"password\":\"secret2\",\"email\":\"bob@example.com\"}\n"
+                + "not json\n";
+
+        UserImportProgress result = run(ndjson, UserImportService.Format.NDJSON, 1);
+
+        assertEquals(3, result.getCommittedLine());
+        assertEquals(2, result.getProcessed());
+        assertEquals(1, result.getImported());
+        assertEquals("格式错误", failures.get(0).getReason());
+        verify(statement, times(1)).executeUpdate();
+    }
+}